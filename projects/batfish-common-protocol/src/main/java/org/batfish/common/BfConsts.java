@@ -189,7 +189,10 @@ public class BfConsts {
   public static final String SVC_FAILURE_KEY = "failure";
   public static final String SVC_GET_STATUS_RSC = "getstatus";
   public static final String SVC_GET_TASKSTATUS_RSC = "gettaskstatus";
+  public static final String SVC_IDLE_KEY = "idle";
+  public static final String SVC_IDLE_SLOTS_KEY = "idleslots";
   public static final String SVC_KILL_TASK_RSC = "killtask";
+  public static final String SVC_MAX_TASKS_KEY = "maxtasks";
   public static final Integer SVC_PORT = 9999;
   public static final String SVC_RUN_TASK_RSC = "run";
   public static final String SVC_SUCCESS_KEY = "success";
@@ -5,13 +5,31 @@ import static org.batfish.common.bdd.BDDInteger.makeFromIndex;
 import static org.batfish.common.bdd.BDDUtils.isAssignment;
 import static org.batfish.common.bdd.BDDUtils.swapPairing;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import javax.annotation.Nonnull;
 import net.sf.javabdd.BDD;
 import net.sf.javabdd.BDDFactory;
@@ -69,6 +87,7 @@ public class BDDPacket {
 
   private final Map<Integer, String> _bitNames;
   private final BDDFactory _factory;
+  private final BDDPacketLayout _layout;
   private int _nextFreeBDDVarIdx = FIRST_PACKET_VAR;
 
   // Packet bits
@@ -110,7 +129,40 @@ public class BDDPacket {
    * various attributes of a control plane advertisement.
    */
   public BDDPacket() {
-    _factory = JFactory.init(JFACTORY_INITIAL_NODE_TABLE_SIZE, JFACTORY_INITIAL_NODE_CACHE_SIZE);
+    this(BDDPacketLayout.GROUPED);
+  }
+
+  /**
+   * Creates a collection of BDD variables representing the various attributes of a packet, with the
+   * header field variables ordered according to {@code layout}.
+   *
+   * <p>The variable indices are the same for every layout; only their order in the factory differs.
+   */
+  public BDDPacket(BDDPacketLayout layout) {
+    this(JFactory.init(JFACTORY_INITIAL_NODE_TABLE_SIZE, JFACTORY_INITIAL_NODE_CACHE_SIZE), layout);
+  }
+
+  /**
+   * Creates a collection of BDD variables representing the various attributes of a packet, in a
+   * factory whose node table is stored outside the Java heap (see {@link JFactory#initOffHeap(int,
+   * int, long)}) and may grow to at most {@code maxNodeTableBytes} bytes, if positive.
+   */
+  public static BDDPacket offHeap(long maxNodeTableBytes) {
+    return new BDDPacket(
+        JFactory.initOffHeap(
+            JFACTORY_INITIAL_NODE_TABLE_SIZE, JFACTORY_INITIAL_NODE_CACHE_SIZE, maxNodeTableBytes),
+        BDDPacketLayout.GROUPED);
+  }
+
+  /**
+   * Creates a collection of BDD variables representing the various attributes of a packet in {@code
+   * factory}, which must not have any variables yet. For example, use a factory from {@link
+   * JFactory#initOffHeap(int, int, long)} for analyses too large for the Java heap.
+   */
+  public BDDPacket(BDDFactory factory, BDDPacketLayout layout) {
+    checkArgument(factory.varNum() == 0, "BDD factory already has variables");
+    _factory = factory;
+    _layout = layout;
     _factory.setCacheRatio(JFACTORY_CACHE_RATIO);
     // Do not impose a maximum node table increase
     _factory.setMaxIncrease(0);
@@ -164,6 +216,10 @@ public class BDDPacket {
     _fragmentOffset = allocateBDDInteger("fragmentOffset", FRAGMENT_OFFSET_LENGTH, false);
     _state = allocateBDDInteger("state", STATE_LENGTH, false);
 
+    if (!layout.equals(BDDPacketLayout.GROUPED)) {
+      applyLayout(layout);
+    }
+
     _pairing = _factory.makePair();
     _swapSourceAndDestinationPairing =
         swapPairing(
@@ -174,6 +230,63 @@ public class BDDPacket {
     _srcIpSpaceToBDD = new MemoizedIpSpaceToBDD(_srcIp, ImmutableMap.of());
   }
 
+  /** The variables of each header field, in their default order. */
+  private Map<String, BDD[]> headerFieldBits() {
+    return ImmutableMap.<String, BDD[]>builder()
+        .put("dstIp", _dstIp.getBitvec())
+        .put("srcIp", _srcIp.getBitvec())
+        .put("dstPort", _dstPort.getBitvec())
+        .put("srcPort", _srcPort.getBitvec())
+        .put("ipProtocol", _ipProtocol.getBDDInteger().getBitvec())
+        .put("icmpCode", _icmpCode.getBDDInteger().getBitvec())
+        .put("icmpType", _icmpType.getBDDInteger().getBitvec())
+        .put("tcpAck", new BDD[] {_tcpAck})
+        .put("tcpCwr", new BDD[] {_tcpCwr})
+        .put("tcpEce", new BDD[] {_tcpEce})
+        .put("tcpFin", new BDD[] {_tcpFin})
+        .put("tcpPsh", new BDD[] {_tcpPsh})
+        .put("tcpRst", new BDD[] {_tcpRst})
+        .put("tcpSyn", new BDD[] {_tcpSyn})
+        .put("tcpUrg", new BDD[] {_tcpUrg})
+        .put("dscp", _dscp.getBitvec())
+        .put("ecn", _ecn.getBitvec())
+        .put("fragmentOffset", _fragmentOffset.getBitvec())
+        .put("state", _state.getBitvec())
+        .build();
+  }
+
+  /** Orders the header field variables in the factory according to {@code layout}. */
+  private void applyLayout(BDDPacketLayout layout) {
+    Map<String, BDD[]> fieldBits = headerFieldBits();
+    List<Integer> order = new ArrayList<>();
+    // variables before the header fields stay first
+    IntStream.range(0, FIRST_PACKET_VAR).forEach(order::add);
+    Set<String> placed = new HashSet<>();
+    for (List<String> group : layout.getGroups()) {
+      List<BDD[]> groupBits = new ArrayList<>();
+      for (String field : group) {
+        checkArgument(fieldBits.containsKey(field), "Unknown header field: %s", field);
+        checkArgument(placed.add(field), "Header field appears more than once: %s", field);
+        groupBits.add(fieldBits.get(field));
+      }
+      int width = groupBits.stream().mapToInt(bits -> bits.length).max().orElse(0);
+      for (int i = 0; i < width; i++) {
+        for (BDD[] bits : groupBits) {
+          if (i < bits.length) {
+            order.add(bits[i].var());
+          }
+        }
+      }
+    }
+    fieldBits.forEach(
+        (field, bits) -> {
+          if (!placed.contains(field)) {
+            Arrays.stream(bits).map(BDD::var).forEach(order::add);
+          }
+        });
+    _factory.setVarOrder(order.stream().mapToInt(Integer::intValue).toArray());
+  }
+
   /*
    * Helper function that builds a map from BDD variable index
    * to some more meaningful name. Helpful for debugging.
@@ -235,6 +348,57 @@ public class BDDPacket {
     return _factory;
   }
 
+  /**
+   * Applies {@code function} to each of {@code inputs} in parallel, and returns the results in the
+   * same order.
+   *
+   * <p>BDD factories are not thread-safe, so the inputs are split into contiguous groups, one per
+   * available processor, and each group is processed in order by one thread with its own packet:
+   * this packet for the first group, and a new packet with the same layout for each other group.
+   * The packets have the same variables, but BDDs of one packet cannot be used with another. So
+   * {@code function} should not keep BDDs across calls, and BDDs it returns must be copied to this
+   * packet with {@link #transfer(List)} before they are used with it.
+   *
+   * <p>The new packets are discarded afterwards, together with any BDDs built in them.
+   */
+  public <T, R> List<R> parallelMap(
+      List<T> inputs, BiFunction<BDDPacket, ? super T, ? extends R> function) {
+    return parallelMap(inputs, function, Runtime.getRuntime().availableProcessors());
+  }
+
+  @VisibleForTesting
+  <T, R> List<R> parallelMap(
+      List<T> inputs, BiFunction<BDDPacket, ? super T, ? extends R> function, int maxGroups) {
+    int numGroups = Math.min(inputs.size(), maxGroups);
+    if (numGroups <= 1) {
+      return inputs.stream()
+          .map(input -> function.apply(this, input))
+          .collect(ImmutableList.toImmutableList());
+    }
+    int groupSize = (inputs.size() + numGroups - 1) / numGroups;
+    List<List<T>> groups = Lists.partition(inputs, groupSize);
+    return IntStream.range(0, groups.size())
+        .parallel()
+        .mapToObj(
+            i -> {
+              BDDPacket pkt = i == 0 ? this : new BDDPacket(_layout);
+              // map eagerly, so that only this thread uses the packet
+              return groups.get(i).stream()
+                  .map(input -> function.apply(pkt, input))
+                  .collect(ImmutableList.toImmutableList());
+            })
+        .flatMap(List::stream)
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  /**
+   * Copies {@code bdds}, e.g. results of {@link #parallelMap(List, BiFunction)}, from the packets
+   * they were built in to this packet. See {@link BDDFactory#transfer(List)}.
+   */
+  public List<BDD> transfer(List<BDD> bdds) {
+    return _factory.transfer(bdds);
+  }
+
   /**
    * Get a representative flow in a BDD. First, try to get an ICMP echo request flow; second, try to
    * get a UDP flow used for traceroute; third, try to get a TCP flow with a named port; finally try
@@ -456,4 +620,44 @@ public class BDDPacket {
   public BDD swapSourceAndDestinationFields(BDD bdd) {
     return bdd.replace(_swapSourceAndDestinationPairing);
   }
+
+  /**
+   * Writes {@code bdds} to {@code out} in the compact form of {@link
+   * BDDFactory#save(java.io.DataOutput, List)}, preceded by the names of this packet's variables.
+   * They can be read back by {@link #readBdds(InputStream)} in any {@link BDDPacket} with the same
+   * variables, e.g. one in another process.
+   */
+  public void writeBdds(List<BDD> bdds, OutputStream out) throws IOException {
+    DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+    SortedMap<Integer, String> bitNames = new TreeMap<>(_bitNames);
+    dataOut.writeInt(bitNames.size());
+    for (Entry<Integer, String> entry : bitNames.entrySet()) {
+      dataOut.writeInt(entry.getKey());
+      dataOut.writeUTF(entry.getValue());
+    }
+    _factory.save(dataOut, bdds);
+    dataOut.flush();
+  }
+
+  /**
+   * Reads BDDs written by {@link #writeBdds(List, OutputStream)}, in the same order.
+   *
+   * @throws BatfishException if a variable of the packet that wrote them has a different name (or
+   *     does not exist) in this packet.
+   */
+  public List<BDD> readBdds(InputStream in) throws IOException {
+    DataInputStream dataIn = new DataInputStream(in);
+    int numBitNames = dataIn.readInt();
+    for (int i = 0; i < numBitNames; i++) {
+      int var = dataIn.readInt();
+      String name = dataIn.readUTF();
+      if (!name.equals(_bitNames.get(var))) {
+        throw new BatfishException(
+            String.format(
+                "BDD variable %d was %s when written, but is %s in this packet",
+                var, name, _bitNames.get(var)));
+      }
+    }
+    return _factory.load(dataIn);
+  }
 }
@@ -0,0 +1,65 @@
+package org.batfish.common.bdd;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * The order of the header field variables of a {@link BDDPacket} in its BDD factory, which can
+ * greatly affect the size of BDDs.
+ *
+ * <p>A layout is a sequence of groups of header fields, named as in {@link BDDPacket} (e.g. {@code
+ * "dstIp"}). The groups are ordered one after another, and the bits of the fields in a group are
+ * interleaved, most significant bit first. Fields not in any group follow in their default order.
+ */
+@ParametersAreNonnullByDefault
+public final class BDDPacketLayout {
+
+  /** Each field in turn: dstIp, srcIp, dstPort, srcPort, ipProtocol, and so on. */
+  public static final BDDPacketLayout GROUPED = new BDDPacketLayout(ImmutableList.of());
+
+  /** IP protocol first, then interleaved destination and source IPs, then interleaved ports. */
+  public static final BDDPacketLayout INTERLEAVED =
+      new BDDPacketLayout(
+          ImmutableList.of(
+              ImmutableList.of("ipProtocol"),
+              ImmutableList.of("dstIp", "srcIp"),
+              ImmutableList.of("dstPort", "srcPort")));
+
+  public static @Nonnull BDDPacketLayout custom(List<List<String>> groups) {
+    return new BDDPacketLayout(
+        groups.stream().map(ImmutableList::copyOf).collect(ImmutableList.toImmutableList()));
+  }
+
+  private BDDPacketLayout(List<List<String>> groups) {
+    _groups = groups;
+  }
+
+  public @Nonnull List<List<String>> getGroups() {
+    return _groups;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    } else if (!(o instanceof BDDPacketLayout)) {
+      return false;
+    }
+    return _groups.equals(((BDDPacketLayout) o)._groups);
+  }
+
+  @Override
+  public int hashCode() {
+    return _groups.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(BDDPacketLayout.class).add("groups", _groups).toString();
+  }
+
+  private final @Nonnull List<List<String>> _groups;
+}
@@ -26,12 +26,15 @@ import java.util.zip.GZIPInputStream;
 import net.jpountz.lz4.LZ4FrameInputStream;
 import net.jpountz.lz4.LZ4FrameOutputStream;
 import org.batfish.common.BatfishException;
+import org.batfish.common.util.CompactObjectOutputStream;
+import org.batfish.common.util.SerializationFormat;
 
 public abstract class PluginConsumer implements IPluginConsumer {
 
   /** Supported formats we can deserialize from */
   public enum Format {
     JAVA_SERIALIZED,
+    COMPACT_SERIALIZED,
     LZ4,
     GZIP,
     UNKNOWN
@@ -49,6 +52,14 @@ public abstract class PluginConsumer implements IPluginConsumer {
     (byte) 0xac, (byte) 0xed, (byte) 0x00, (byte) 0x05
   };
 
+  /**
+   * A byte-array containing the first 4 bytes of the header for a file that is the output of {@link
+   * CompactObjectOutputStream}
+   */
+  private static final byte[] COMPACT_SERIALIZED_OBJECT_HEADER = {
+    (byte) 0xbf, (byte) 0x5e, (byte) 0x00, (byte) 0x01
+  };
+
   private static final byte[] LZ4_MAGIC_BYTES = {
     (byte) 0x04, (byte) 0x22, (byte) 0x4D, (byte) 0x18
   };
@@ -64,7 +75,7 @@ public abstract class PluginConsumer implements IPluginConsumer {
   private static <S extends Serializable> S deserializeObject(
       InputStream stream, Class<S> outputClass) {
     try {
-      ObjectInputStream ois = new ObjectInputStream(stream);
+      ObjectInputStream ois = SerializationFormat.newObjectInputStream(stream);
       Object o = ois.readObject();
       return outputClass.cast(o);
     } catch (Exception e) {
@@ -124,6 +135,8 @@ public abstract class PluginConsumer implements IPluginConsumer {
     Format format;
     if (Arrays.equals(header, JAVA_SERIALIZED_OBJECT_HEADER)) {
       format = Format.JAVA_SERIALIZED;
+    } else if (Arrays.equals(header, COMPACT_SERIALIZED_OBJECT_HEADER)) {
+      format = Format.COMPACT_SERIALIZED;
     } else if (Arrays.equals(header, LZ4_MAGIC_BYTES)) {
       format = Format.LZ4;
     } else if (Arrays.equals(Arrays.copyOf(header, GZIP_HEADER_LENGTH_BYTES), GZIP_MAGIC_BYTES)) {
@@ -162,13 +175,25 @@ public abstract class PluginConsumer implements IPluginConsumer {
     }
   }
 
-  /** Serializes the given object to a file with the given output name. */
+  /**
+   * Serializes the given object to a file with the given output name, using the {@link
+   * SerializationFormat#DEFAULT default} serialization format.
+   */
   protected static void serializeObject(Serializable object, Path outputFile) {
+    serializeObject(object, outputFile, SerializationFormat.DEFAULT);
+  }
+
+  /**
+   * Serializes the given object to a file with the given output name, using the given serialization
+   * format.
+   */
+  protected static void serializeObject(
+      Serializable object, Path outputFile, SerializationFormat format) {
     try {
       try (Closer closer = Closer.create()) {
         OutputStream out = closer.register(Files.newOutputStream(outputFile));
         BufferedOutputStream bout = closer.register(new BufferedOutputStream(out));
-        serializeToLz4Data(object, bout);
+        serializeToLz4Data(object, bout, format);
       }
     } catch (Exception e) {
       throw new BatfishException("Failed to serialize object to output file: " + outputFile, e);
@@ -176,10 +201,11 @@ public abstract class PluginConsumer implements IPluginConsumer {
   }
 
   /** Serializes the given object to the given stream, using LZ4 compression. */
-  private static void serializeToLz4Data(Serializable object, OutputStream out) {
+  private static void serializeToLz4Data(
+      Serializable object, OutputStream out, SerializationFormat format) {
     try (Closer closer = Closer.create()) {
       OutputStream los = closer.register(new LZ4FrameOutputStream(out));
-      ObjectOutputStream oos = closer.register(new ObjectOutputStream(los));
+      ObjectOutputStream oos = closer.register(format.newObjectOutputStream(los));
       oos.writeObject(object);
     } catch (Throwable e) {
       throw new BatfishException("Failed to convert object to LZ4 data", e);
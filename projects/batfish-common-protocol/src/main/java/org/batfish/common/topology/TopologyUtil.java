@@ -13,9 +13,11 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
 import com.google.common.graph.EndpointPair;
-import java.util.Collection;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -26,7 +28,6 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -564,48 +565,103 @@ public final class TopologyUtil {
    */
   public static Topology synthesizeL3Topology(Map<String, Configuration> configurations) {
     Map<Prefix, List<Interface>> prefixInterfaces = computeInterfacesBucketByPrefix(configurations);
+    AddressIndex addressIndex = new AddressIndex(prefixInterfaces);
 
-    ImmutableSortedSet.Builder<Edge> edges = ImmutableSortedSet.naturalOrder();
-    for (Entry<Prefix, List<Interface>> bucketEntry : prefixInterfaces.entrySet()) {
-      Prefix p = bucketEntry.getKey();
-      Set<Interface> candidateInterfaces = candidateInterfacesForPrefix(prefixInterfaces, p);
-
-      for (Interface iface1 : bucketEntry.getValue()) {
-        for (Interface iface2 : candidateInterfaces) {
-          // No device self-adjacencies in the same VRF.
-          if (!isValidLayer3Adjacency(iface1, iface2)) {
-            continue;
-          }
-          // Additionally, don't connect if any of the two endpoint interfaces have Tunnel or VPN
-          // interfaceTypes
-          if (TUNNEL_INTERFACE_TYPES.contains(iface1.getInterfaceType())
-              || TUNNEL_INTERFACE_TYPES.contains(iface2.getInterfaceType())) {
-            continue;
-          }
-          edges.add(new Edge(iface1, iface2));
-        }
-      }
-    }
-    return new Topology(edges.build());
+    // Buckets are independent, so find the edges of each in parallel.
+    return new Topology(
+        prefixInterfaces
+            .entrySet()
+            .parallelStream()
+            .flatMap(
+                bucketEntry -> {
+                  Set<Interface> candidateInterfaces =
+                      addressIndex.candidateInterfaces(bucketEntry.getKey());
+                  return bucketEntry.getValue().stream()
+                      .flatMap(
+                          iface1 ->
+                              candidateInterfaces.stream()
+                                  // No device self-adjacencies in the same VRF.
+                                  .filter(iface2 -> isValidLayer3Adjacency(iface1, iface2))
+                                  // Additionally, don't connect if any of the two endpoint
+                                  // interfaces have Tunnel or VPN interfaceTypes
+                                  .filter(
+                                      iface2 ->
+                                          !TUNNEL_INTERFACE_TYPES.contains(
+                                                  iface1.getInterfaceType())
+                                              && !TUNNEL_INTERFACE_TYPES.contains(
+                                                  iface2.getInterfaceType()))
+                                  .map(iface2 -> new Edge(iface1, iface2)));
+                })
+            .collect(ImmutableSortedSet.toImmutableSortedSet(Comparator.naturalOrder())));
   }
 
   /**
-   * Collect all interfaces that have subnets overlapping P iff they have an IP address in P. Use an
-   * IdentityHashSet to prevent duplicates.
+   * The concrete addresses of bucketed interfaces (see {@link #computeInterfacesBucketByPrefix}),
+   * sorted by IP, so that the interfaces with an address in a prefix can be found with a binary
+   * search rather than by scanning every bucket that may hold them.
    */
-  @Nonnull
-  private static Set<Interface> candidateInterfacesForPrefix(
-      Map<Prefix, List<Interface>> prefixBuckets, Prefix p) {
-    Set<Interface> candidateInterfaces = Sets.newIdentityHashSet();
-    IntStream.range(0, Prefix.MAX_PREFIX_LENGTH)
-        .mapToObj(
-            i -> prefixBuckets.getOrDefault(Prefix.create(p.getStartIp(), i), ImmutableList.of()))
-        .flatMap(Collection::stream)
-        .filter(
-            iface ->
-                iface.getAllConcreteAddresses().stream().anyMatch(ia -> p.containsIp(ia.getIp())))
-        .forEach(candidateInterfaces::add);
-    return candidateInterfaces;
+  private static final class AddressIndex {
+    /** The IP of each address, in ascending order */
+    private final long[] _ips;
+    /** The interface owning each address */
+    private final Interface[] _interfaces;
+    /** The prefixes of the buckets containing each interface */
+    private final Map<Interface, List<Prefix>> _buckets;
+
+    AddressIndex(Map<Prefix, List<Interface>> prefixBuckets) {
+      _buckets = new IdentityHashMap<>();
+      prefixBuckets.forEach(
+          (prefix, bucket) ->
+              bucket.forEach(
+                  iface -> _buckets.computeIfAbsent(iface, k -> new ArrayList<>()).add(prefix)));
+      List<Entry<Long, Interface>> addresses = new ArrayList<>();
+      _buckets
+          .keySet()
+          .forEach(
+              iface ->
+                  iface
+                      .getAllConcreteAddresses()
+                      .forEach(
+                          address ->
+                              addresses.add(
+                                  new SimpleImmutableEntry<>(address.getIp().asLong(), iface))));
+      addresses.sort(Entry.comparingByKey());
+      _ips = addresses.stream().mapToLong(Entry::getKey).toArray();
+      _interfaces = addresses.stream().map(Entry::getValue).toArray(Interface[]::new);
+    }
+
+    /**
+     * Collect all interfaces that have subnets overlapping P iff they have an IP address in P. Use
+     * an IdentityHashSet to prevent duplicates.
+     *
+     * <p>That is, the interfaces with an address in P that are in a bucket whose prefix contains
+     * the start IP of P.
+     */
+    @Nonnull
+    Set<Interface> candidateInterfaces(Prefix p) {
+      Set<Interface> candidateInterfaces = Sets.newIdentityHashSet();
+      long start = p.getStartIp().asLong();
+      long end = p.getEndIp().asLong();
+      // find the first address not below start
+      int low = 0;
+      int high = _ips.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (_ips[mid] < start) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      for (int i = low; i < _ips.length && _ips[i] <= end; i++) {
+        Interface iface = _interfaces[i];
+        if (!candidateInterfaces.contains(iface)
+            && _buckets.get(iface).stream().anyMatch(bucket -> bucket.containsIp(p.getStartIp()))) {
+          candidateInterfaces.add(iface);
+        }
+      }
+      return candidateInterfaces;
+    }
   }
 
   /** Bucket Interfaces that are not loopbacks and not /32s by their prefix */
@@ -664,10 +720,10 @@ public final class TopologyUtil {
   public static TunnelTopology computeInitialTunnelTopology(
       Map<String, Configuration> configurations) {
     Map<Prefix, List<Interface>> prefixInterfaces = computeInterfacesBucketByPrefix(configurations);
+    AddressIndex addressIndex = new AddressIndex(prefixInterfaces);
     TunnelTopology.Builder builder = TunnelTopology.builder();
     for (Entry<Prefix, List<Interface>> bucketEntry : prefixInterfaces.entrySet()) {
-      Prefix p = bucketEntry.getKey();
-      Set<Interface> candidateInterfaces = candidateInterfacesForPrefix(prefixInterfaces, p);
+      Set<Interface> candidateInterfaces = addressIndex.candidateInterfaces(bucketEntry.getKey());
 
       for (Interface iface1 : bucketEntry.getValue()) {
         for (Interface iface2 : candidateInterfaces) {
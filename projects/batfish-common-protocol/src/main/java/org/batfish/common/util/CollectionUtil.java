@@ -2,9 +2,15 @@ package org.batfish.common.util;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
 import com.google.common.math.IntMath;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -12,6 +18,8 @@ import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
@@ -78,6 +86,106 @@ public final class CollectionUtil {
                 Comparator.naturalOrder(), keyFunction, valueFunction));
   }
 
+  /**
+   * Returns an unmodifiable {@link SortedMap} with the given keys in natural order, whose value for
+   * each key is computed by {@code loader} on first access and memoized. The loader is invoked at
+   * most once per key, and is never invoked for keys that are not accessed.
+   *
+   * <p>Operations that visit every value (e.g., iterating over {@link Map#values()} or {@link
+   * Map#equals(Object)}) load every value.
+   */
+  public static <K extends Comparable<? super K>, V> SortedMap<K, V> lazySortedMap(
+      Set<K> keys, Function<? super K, ? extends V> loader) {
+    return new LazySortedMap<>(ImmutableSortedSet.copyOf(keys), loader, new ConcurrentHashMap<>());
+  }
+
+  /** See {@link #lazySortedMap(Set, Function)}. Views share the memoized values of their parent. */
+  private static final class LazySortedMap<K, V> extends AbstractMap<K, V>
+      implements SortedMap<K, V> {
+    private final ImmutableSortedSet<K> _keys;
+    private final Function<? super K, ? extends V> _loader;
+    private final ConcurrentMap<K, V> _values;
+
+    private LazySortedMap(
+        ImmutableSortedSet<K> keys,
+        Function<? super K, ? extends V> loader,
+        ConcurrentMap<K, V> values) {
+      _keys = keys;
+      _loader = loader;
+      _values = values;
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+      return _keys.comparator();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return _keys.contains(key);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+      return new AbstractSet<Entry<K, V>>() {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+          return Iterators.transform(_keys.iterator(), key -> Maps.immutableEntry(key, load(key)));
+        }
+
+        @Override
+        public int size() {
+          return _keys.size();
+        }
+      };
+    }
+
+    @Override
+    public K firstKey() {
+      return _keys.first();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+      return containsKey(key) ? load((K) key) : null;
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+      return new LazySortedMap<>(_keys.headSet(toKey), _loader, _values);
+    }
+
+    @Override
+    public Set<K> keySet() {
+      return _keys;
+    }
+
+    @Override
+    public K lastKey() {
+      return _keys.last();
+    }
+
+    private V load(K key) {
+      return _values.computeIfAbsent(key, _loader);
+    }
+
+    @Override
+    public int size() {
+      return _keys.size();
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+      return new LazySortedMap<>(_keys.subSet(fromKey, toKey), _loader, _values);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+      return new LazySortedMap<>(_keys.tailSet(fromKey), _loader, _values);
+    }
+  }
+
   /**
    * A collector that returns a hashcode of all the objects in a stream (order-dependent).
    *
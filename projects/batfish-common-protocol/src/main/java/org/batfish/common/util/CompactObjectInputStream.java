@@ -0,0 +1,68 @@
+package org.batfish.common.util;
+
+import static org.batfish.common.util.CompactObjectOutputStream.COMPACT_STREAM_MAGIC;
+import static org.batfish.common.util.CompactObjectOutputStream.COMPACT_STREAM_VERSION;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.StreamCorruptedException;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+
+/**
+ * An {@link ObjectInputStream} that reads objects written by {@link CompactObjectOutputStream}.
+ *
+ * <p>Deserialized {@link Ip} and {@link Prefix} instances are canonicalized through their global
+ * caches, so that equal values are shared across deserialized objects.
+ */
+public final class CompactObjectInputStream extends ObjectInputStream {
+
+  public CompactObjectInputStream(InputStream in) throws IOException {
+    super(in);
+    enableResolveObject(true);
+  }
+
+  @Override
+  protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+    String name = readUTF();
+    long fingerprint = readLong();
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    Class<?> clazz = Class.forName(name, false, loader);
+    ObjectStreamClass desc = ObjectStreamClass.lookupAny(clazz);
+    if (CompactObjectOutputStream.fingerprint(desc) != fingerprint) {
+      throw new InvalidClassException(name, "serialized form does not match local class");
+    }
+    return desc;
+  }
+
+  @Override
+  protected Class<?> resolveClass(ObjectStreamClass desc)
+      throws IOException, ClassNotFoundException {
+    Class<?> clazz = desc.forClass();
+    return clazz != null ? clazz : super.resolveClass(desc);
+  }
+
+  @Override
+  protected Object resolveObject(Object obj) {
+    if (obj instanceof Ip) {
+      return Ip.create(((Ip) obj).asLong());
+    } else if (obj instanceof Prefix) {
+      Prefix prefix = (Prefix) obj;
+      return Prefix.create(prefix.getStartIp(), prefix.getPrefixLength());
+    }
+    return obj;
+  }
+
+  @Override
+  protected void readStreamHeader() throws IOException {
+    short magic = readShort();
+    short version = readShort();
+    if (magic != COMPACT_STREAM_MAGIC || version != COMPACT_STREAM_VERSION) {
+      throw new StreamCorruptedException(
+          String.format("invalid compact stream header: %04X%04X", magic, version));
+    }
+  }
+}
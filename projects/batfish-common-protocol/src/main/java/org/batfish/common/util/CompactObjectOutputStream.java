@@ -0,0 +1,94 @@
+package org.batfish.common.util;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+
+/**
+ * An {@link ObjectOutputStream} that writes a more compact encoding of the Java serialization
+ * format. Must be read with {@link CompactObjectInputStream}.
+ *
+ * <p>Differences from standard Java serialization:
+ *
+ * <ul>
+ *   <li>Class descriptors are written as the class name and a fingerprint of the serialized fields,
+ *       rather than the full list of field names and types. The reader uses its local class
+ *       descriptors, and rejects the stream if any fingerprint does not match.
+ *   <li>Equal {@link String}, {@link Ip}, and {@link Prefix} instances are interned, so each
+ *       distinct value is written only once per stream and later occurrences are written as
+ *       back-references.
+ * </ul>
+ */
+public final class CompactObjectOutputStream extends ObjectOutputStream {
+
+  /** First two bytes of the stream, to distinguish it from standard Java serialization */
+  static final short COMPACT_STREAM_MAGIC = (short) 0xBF5E;
+
+  /** Version of the compact format, second two bytes of the stream */
+  static final short COMPACT_STREAM_VERSION = 1;
+
+  /** Interning table for immutable values, mapping each value to its first written instance */
+  private final Map<Object, Object> _interned;
+
+  public CompactObjectOutputStream(OutputStream out) throws IOException {
+    super(out);
+    _interned = new HashMap<>();
+    enableReplaceObject(true);
+  }
+
+  /** Memoized {@link #computeFingerprint(ObjectStreamClass) fingerprints} of local classes */
+  private static final ClassValue<Long> FINGERPRINTS =
+      new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+          return computeFingerprint(ObjectStreamClass.lookupAny(type));
+        }
+      };
+
+  /**
+   * Returns a fingerprint of the serialized form of the local class described by {@code desc},
+   * covering its {@code serialVersionUID} and serialized fields.
+   */
+  static long fingerprint(ObjectStreamClass desc) {
+    Class<?> type = desc.forClass();
+    return type != null ? FINGERPRINTS.get(type) : computeFingerprint(desc);
+  }
+
+  private static long computeFingerprint(ObjectStreamClass desc) {
+    long fingerprint = desc.getSerialVersionUID();
+    for (ObjectStreamField field : desc.getFields()) {
+      fingerprint = 31 * fingerprint + field.getName().hashCode();
+      fingerprint = 31 * fingerprint + field.getTypeCode();
+      if (!field.isPrimitive()) {
+        fingerprint = 31 * fingerprint + field.getTypeString().hashCode();
+      }
+    }
+    return fingerprint;
+  }
+
+  @Override
+  protected Object replaceObject(Object obj) {
+    if (obj instanceof String || obj instanceof Ip || obj instanceof Prefix) {
+      return _interned.computeIfAbsent(obj, o -> o);
+    }
+    return obj;
+  }
+
+  @Override
+  protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+    writeUTF(desc.getName());
+    writeLong(fingerprint(desc));
+  }
+
+  @Override
+  protected void writeStreamHeader() throws IOException {
+    writeShort(COMPACT_STREAM_MAGIC);
+    writeShort(COMPACT_STREAM_VERSION);
+  }
+}
@@ -0,0 +1,53 @@
+package org.batfish.common.util;
+
+import static org.batfish.common.plugin.PluginConsumer.DEFAULT_HEADER_LENGTH_BYTES;
+import static org.batfish.common.plugin.PluginConsumer.detectFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import javax.annotation.Nonnull;
+import org.batfish.common.BatfishException;
+import org.batfish.common.plugin.PluginConsumer.Format;
+
+/**
+ * Format used to serialize objects (e.g., configurations and dataplanes) written to storage. When
+ * reading, the format is detected automatically, so objects written in any format can be read.
+ */
+public enum SerializationFormat {
+  /** Compact encoding of Java serialization. See {@link CompactObjectOutputStream}. */
+  COMPACT,
+  /** Standard Java serialization, kept as a fallback. */
+  JAVA;
+
+  /** The format used unless configured otherwise */
+  public static final SerializationFormat DEFAULT = COMPACT;
+
+  /** Returns a stream that serializes objects to {@code out} in this format. */
+  @Nonnull
+  public ObjectOutputStream newObjectOutputStream(OutputStream out) throws IOException {
+    switch (this) {
+      case COMPACT:
+        return new CompactObjectOutputStream(out);
+      case JAVA:
+        return new ObjectOutputStream(out);
+      default:
+        throw new BatfishException("Unsupported serialization format: " + this);
+    }
+  }
+
+  /**
+   * Returns a stream that deserializes objects from uncompressed data {@code in} written in any
+   * {@link SerializationFormat}.
+   */
+  @Nonnull
+  public static ObjectInputStream newObjectInputStream(InputStream in) throws IOException {
+    PushbackInputStream pbstream = new PushbackInputStream(in, DEFAULT_HEADER_LENGTH_BYTES);
+    return detectFormat(pbstream) == Format.COMPACT_SERIALIZED
+        ? new CompactObjectInputStream(pbstream)
+        : new ObjectInputStream(pbstream);
+  }
+}
@@ -4,38 +4,44 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
-import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /** An AsPathAccessList is used to filter e/iBGP routes according to their AS-path attribute. */
 public final class AsPathAccessList implements Serializable {
+
+  private final class MatcherSupplier implements Supplier<RegexMatcher<AsPath>>, Serializable {
+
+    @Override
+    public RegexMatcher<AsPath> get() {
+      return RegexMatcher.forAsPaths(
+          _lines.stream()
+              .map(AsPathAccessListLine::getRegex)
+              .collect(ImmutableList.toImmutableList()));
+    }
+  }
+
   private static final String PROP_LINES = "lines";
   private static final String PROP_NAME = "name";
 
-  private transient Set<AsPath> _deniedCache;
-
   @Nonnull private final List<AsPathAccessListLine> _lines;
 
-  private final String _name;
+  private final Supplier<RegexMatcher<AsPath>> _matcher;
 
-  private transient Set<AsPath> _permittedCache;
+  private final String _name;
 
   @JsonCreator
   public AsPathAccessList(
       @Nullable @JsonProperty(PROP_NAME) String name,
       @Nullable @JsonProperty(PROP_LINES) List<AsPathAccessListLine> lines) {
     _lines = firstNonNull(lines, ImmutableList.of());
+    _matcher = Suppliers.memoize(new MatcherSupplier());
     _name = name;
   }
 
@@ -68,39 +74,8 @@ public final class AsPathAccessList implements Serializable {
     return _name;
   }
 
-  private boolean newPermits(AsPath asPath) {
-    boolean accept = false;
-    for (AsPathAccessListLine line : _lines) {
-      String regex = line.getRegex();
-      Pattern p = Pattern.compile(regex);
-      String asPathString = asPath.getAsPathString();
-      Matcher matcher = p.matcher(asPathString);
-      boolean match = matcher.find();
-      if (match) {
-        accept = line.getAction() == LineAction.PERMIT;
-        break;
-      }
-    }
-    if (accept) {
-      _permittedCache.add(asPath);
-    } else {
-      _deniedCache.add(asPath);
-    }
-    return accept;
-  }
-
   public boolean permits(AsPath asPath) {
-    if (_deniedCache.contains(asPath)) {
-      return false;
-    } else if (_permittedCache.contains(asPath)) {
-      return true;
-    }
-    return newPermits(asPath);
-  }
-
-  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
-    in.defaultReadObject();
-    _deniedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    _permittedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    int line = _matcher.get().firstMatch(asPath);
+    return line != RegexMatcher.NO_MATCH && _lines.get(line).getAction() == LineAction.PERMIT;
   }
 }
@@ -0,0 +1,249 @@
+package org.batfish.datamodel;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.io.Serializable;
+import java.util.Set;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.bgp.community.Community;
+import org.batfish.datamodel.bgp.community.ExtendedCommunity;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+
+/**
+ * The path attributes of a {@link BgpRoute}: the attributes that are usually the same for many
+ * routes, e.g. all the prefixes in one update from a peer, or one route as it is propagated through
+ * the network.
+ *
+ * <p>Instances are interned, so routes with the same attributes share a single instance (and a
+ * single copy of its community sets, cluster list, and so on). Create them with {@link #create}.
+ */
+@ParametersAreNonnullByDefault
+public final class BgpRouteAttributes implements Serializable {
+
+  private static final Interner<BgpRouteAttributes> _cache = Interners.newWeakInterner();
+
+  // Soft values: let it be garbage collected in times of pressure.
+  // Maximum size 2^16: Just some upper bound on cache size, well less than GiB.
+  //   (8 bytes seems smallest possible entry (set(long)), would be 1 MiB total).
+  private static final LoadingCache<SortedSet<Community>, ImmutableSortedSet<Community>>
+      COMMUNITY_CACHE =
+          CacheBuilder.newBuilder()
+              .softValues()
+              .maximumSize(1 << 16)
+              .build(CacheLoader.from(ImmutableSortedSet::copyOf));
+  // Soft values: let it be garbage collected in times of pressure.
+  // Maximum size 2^16: Just some upper bound on cache size, well less than GiB.
+  //   (8 bytes seems smallest possible entry (set(long)), would be 1 MiB total).
+  private static final LoadingCache<SortedSet<Long>, ImmutableSortedSet<Long>> CLUSTER_CACHE =
+      CacheBuilder.newBuilder()
+          .softValues()
+          .maximumSize(1 << 16)
+          .build(CacheLoader.from(ImmutableSortedSet::copyOf));
+
+  /** Returns the (interned) attributes with the given values. */
+  public static @Nonnull BgpRouteAttributes create(
+      AsPath asPath,
+      SortedSet<Long> clusterList,
+      SortedSet<Community> communities,
+      long localPreference,
+      long med,
+      Ip originatorIp,
+      OriginType originType,
+      boolean receivedFromRouteReflectorClient,
+      int weight) {
+    return _cache.intern(
+        new BgpRouteAttributes(
+            asPath,
+            clusterList.isEmpty()
+                ? ImmutableSortedSet.of()
+                : CLUSTER_CACHE.getUnchecked(clusterList),
+            communities.isEmpty()
+                ? ImmutableSortedSet.of()
+                : COMMUNITY_CACHE.getUnchecked(communities),
+            localPreference,
+            med,
+            originatorIp,
+            originType,
+            receivedFromRouteReflectorClient,
+            weight));
+  }
+
+  private BgpRouteAttributes(
+      AsPath asPath,
+      ImmutableSortedSet<Long> clusterList,
+      ImmutableSortedSet<Community> communities,
+      long localPreference,
+      long med,
+      Ip originatorIp,
+      OriginType originType,
+      boolean receivedFromRouteReflectorClient,
+      int weight) {
+    _asPath = asPath;
+    _clusterList = clusterList;
+    _communities = communities;
+    _localPreference = localPreference;
+    _med = med;
+    _originatorIp = originatorIp;
+    _originType = originType;
+    _receivedFromRouteReflectorClient = receivedFromRouteReflectorClient;
+    _weight = weight;
+  }
+
+  public @Nonnull AsPath getAsPath() {
+    return _asPath;
+  }
+
+  public @Nonnull SortedSet<Long> getClusterList() {
+    return _clusterList;
+  }
+
+  public @Nonnull SortedSet<Community> getCommunities() {
+    return _communities;
+  }
+
+  /** Return only standard community attributes */
+  public @Nonnull Set<StandardCommunity> getStandardCommunities() {
+    // Computed on first use, so only on interned instances rather than on every lookup
+    Set<StandardCommunity> standardCommunities = _standardCommunities;
+    if (standardCommunities == null) {
+      standardCommunities =
+          _communities.stream()
+              .filter(StandardCommunity.class::isInstance)
+              .map(StandardCommunity.class::cast)
+              .collect(ImmutableSet.toImmutableSet());
+      _standardCommunities = standardCommunities;
+    }
+    return standardCommunities;
+  }
+
+  /** Return only extended community attributes */
+  public @Nonnull Set<ExtendedCommunity> getExtendedCommunities() {
+    Set<ExtendedCommunity> extendedCommunities = _extendedCommunities;
+    if (extendedCommunities == null) {
+      extendedCommunities =
+          _communities.stream()
+              .filter(ExtendedCommunity.class::isInstance)
+              .map(ExtendedCommunity.class::cast)
+              .collect(ImmutableSet.toImmutableSet());
+      _extendedCommunities = extendedCommunities;
+    }
+    return extendedCommunities;
+  }
+
+  public long getLocalPreference() {
+    return _localPreference;
+  }
+
+  public long getMed() {
+    return _med;
+  }
+
+  public @Nonnull Ip getOriginatorIp() {
+    return _originatorIp;
+  }
+
+  public @Nonnull OriginType getOriginType() {
+    return _originType;
+  }
+
+  public boolean getReceivedFromRouteReflectorClient() {
+    return _receivedFromRouteReflectorClient;
+  }
+
+  public int getWeight() {
+    return _weight;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (this == o) {
+      return true;
+    } else if (!(o instanceof BgpRouteAttributes)) {
+      return false;
+    }
+    BgpRouteAttributes other = (BgpRouteAttributes) o;
+    return hashCode() == other.hashCode()
+        && _localPreference == other._localPreference
+        && _med == other._med
+        && _originType == other._originType
+        && _receivedFromRouteReflectorClient == other._receivedFromRouteReflectorClient
+        && _weight == other._weight
+        && _originatorIp.equals(other._originatorIp)
+        && _asPath.equals(other._asPath)
+        && _clusterList.equals(other._clusterList)
+        && _communities.equals(other._communities);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = _hashCode;
+    if (h == 0) {
+      h = _asPath.hashCode();
+      h = h * 31 + _clusterList.hashCode();
+      h = h * 31 + _communities.hashCode();
+      h = h * 31 + Long.hashCode(_localPreference);
+      h = h * 31 + Long.hashCode(_med);
+      h = h * 31 + _originatorIp.hashCode();
+      h = h * 31 + _originType.ordinal();
+      h = h * 31 + Boolean.hashCode(_receivedFromRouteReflectorClient);
+      h = h * 31 + _weight;
+
+      _hashCode = h;
+    }
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("_asPath", _asPath)
+        .add("_clusterList", _clusterList)
+        .add("_communities", _communities)
+        .add("_localPreference", _localPreference)
+        .add("_med", _med)
+        .add("_originatorIp", _originatorIp)
+        .add("_originType", _originType)
+        .add("_receivedFromRouteReflectorClient", _receivedFromRouteReflectorClient)
+        .add("_weight", _weight)
+        .toString();
+  }
+
+  /** Re-intern after Java deserialization. */
+  private Object readResolve() {
+    return create(
+        _asPath,
+        _clusterList,
+        _communities,
+        _localPreference,
+        _med,
+        _originatorIp,
+        _originType,
+        _receivedFromRouteReflectorClient,
+        _weight);
+  }
+
+  private final @Nonnull AsPath _asPath;
+  private final @Nonnull ImmutableSortedSet<Long> _clusterList;
+  private final @Nonnull ImmutableSortedSet<Community> _communities;
+  private final long _localPreference;
+  private final long _med;
+  private final @Nonnull Ip _originatorIp;
+  private final @Nonnull OriginType _originType;
+  private final boolean _receivedFromRouteReflectorClient;
+  /* NOTE: Cisco-only attribute */
+  private final int _weight;
+
+  // Cached values
+  private transient @Nullable Set<StandardCommunity> _standardCommunities;
+  private transient @Nullable Set<ExtendedCommunity> _extendedCommunities;
+  private transient int _hashCode;
+}
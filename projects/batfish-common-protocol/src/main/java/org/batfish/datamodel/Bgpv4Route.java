@@ -174,22 +174,22 @@ public final class Bgpv4Route extends BgpRoute<Bgpv4Route.Builder, Bgpv4Route> {
         .setAdmin(getAdministrativeCost())
         .setNonRouting(getNonRouting())
         .setNonForwarding(getNonForwarding())
-        .setAsPath(_asPath)
-        .setClusterList(_clusterList)
-        .setCommunities(_communities)
+        .setAsPath(_attributes.getAsPath())
+        .setClusterList(_attributes.getClusterList())
+        .setCommunities(_attributes.getCommunities())
         .setDiscard(_discard)
-        .setLocalPreference(_localPreference)
-        .setMetric(_med)
+        .setLocalPreference(_attributes.getLocalPreference())
+        .setMetric(_attributes.getMed())
         .setNextHopInterface(_nextHopInterface)
         .setNextHopIp(_nextHopIp)
-        .setOriginatorIp(_originatorIp)
-        .setOriginType(_originType)
+        .setOriginatorIp(_attributes.getOriginatorIp())
+        .setOriginType(_attributes.getOriginType())
         .setProtocol(_protocol)
         .setReceivedFromIp(_receivedFromIp)
-        .setReceivedFromRouteReflectorClient(_receivedFromRouteReflectorClient)
+        .setReceivedFromRouteReflectorClient(_attributes.getReceivedFromRouteReflectorClient())
         .setSrcProtocol(_srcProtocol)
         .setTag(_tag)
-        .setWeight(_weight);
+        .setWeight(_attributes.getWeight());
   }
 
   @Override
@@ -203,25 +203,17 @@ public final class Bgpv4Route extends BgpRoute<Bgpv4Route.Builder, Bgpv4Route> {
     Bgpv4Route other = (Bgpv4Route) o;
     return _network.equals(other._network)
         && _nextHopIp.equals(other._nextHopIp)
-        && _originatorIp.equals(other._originatorIp)
+        && _attributes.equals(other._attributes)
         && _nextHopInterface.equals(other._nextHopInterface)
         && Objects.equals(_receivedFromIp, other._receivedFromIp)
         // Things above this line are more likely to cause false earlier.
         && _admin == other._admin
         && _discard == other._discard
-        && _localPreference == other._localPreference
-        && _med == other._med
-        && _originType == other._originType
         && _protocol == other._protocol
-        && _receivedFromRouteReflectorClient == other._receivedFromRouteReflectorClient
         && _srcProtocol == other._srcProtocol
         && _tag == other._tag
-        && _weight == other._weight
         && getNonRouting() == other.getNonRouting()
-        && getNonForwarding() == other.getNonForwarding()
-        && _asPath.equals(other._asPath)
-        && _clusterList.equals(other._clusterList)
-        && _communities.equals(other._communities);
+        && getNonForwarding() == other.getNonForwarding();
   }
 
   @Override
@@ -229,25 +221,25 @@ public final class Bgpv4Route extends BgpRoute<Bgpv4Route.Builder, Bgpv4Route> {
     int h = _hashCode;
     if (h == 0) {
       h = _admin;
-      h = h * 31 + _asPath.hashCode();
-      h = h * 31 + _clusterList.hashCode();
-      h = h * 31 + _communities.hashCode();
+      h = h * 31 + _attributes.getAsPath().hashCode();
+      h = h * 31 + _attributes.getClusterList().hashCode();
+      h = h * 31 + _attributes.getCommunities().hashCode();
       h = h * 31 + Boolean.hashCode(_discard);
-      h = h * 31 + Long.hashCode(_localPreference);
-      h = h * 31 + Long.hashCode(_med);
+      h = h * 31 + Long.hashCode(_attributes.getLocalPreference());
+      h = h * 31 + Long.hashCode(_attributes.getMed());
       h = h * 31 + _network.hashCode();
       h = h * 31 + _nextHopInterface.hashCode();
       h = h * 31 + _nextHopIp.hashCode();
       h = h * 31 + Boolean.hashCode(getNonForwarding());
       h = h * 31 + Boolean.hashCode(getNonRouting());
-      h = h * 31 + _originatorIp.hashCode();
-      h = h * 31 + _originType.ordinal();
+      h = h * 31 + _attributes.getOriginatorIp().hashCode();
+      h = h * 31 + _attributes.getOriginType().ordinal();
       h = h * 31 + _protocol.ordinal();
       h = h * 31 + Objects.hashCode(_receivedFromIp);
-      h = h * 31 + Boolean.hashCode(_receivedFromRouteReflectorClient);
+      h = h * 31 + Boolean.hashCode(_attributes.getReceivedFromRouteReflectorClient());
       h = h * 31 + (_srcProtocol == null ? 0 : _srcProtocol.ordinal());
       h = h * 31 + Long.hashCode(_tag);
-      h = h * 31 + _weight;
+      h = h * 31 + _attributes.getWeight();
 
       _hashCode = h;
     }
@@ -261,21 +253,21 @@ public final class Bgpv4Route extends BgpRoute<Bgpv4Route.Builder, Bgpv4Route> {
         .add("_network", _network)
         .add("_admin", _admin)
         .add("_tag", _tag)
-        .add("_asPath", _asPath)
-        .add("_clusterList", _clusterList)
-        .add("_communities", _communities)
+        .add("_asPath", _attributes.getAsPath())
+        .add("_clusterList", _attributes.getClusterList())
+        .add("_communities", _attributes.getCommunities())
         .add("_discard", _discard)
-        .add("_localPreference", _localPreference)
-        .add("_med", _med)
+        .add("_localPreference", _attributes.getLocalPreference())
+        .add("_med", _attributes.getMed())
         .add("_nextHopInterface", _nextHopInterface)
         .add("_nextHopIp", _nextHopIp)
-        .add("_originatorIp", _originatorIp)
-        .add("_originType", _originType)
+        .add("_originatorIp", _attributes.getOriginatorIp())
+        .add("_originType", _attributes.getOriginType())
         .add("_protocol", _protocol)
         .add("_receivedFromIp", _receivedFromIp)
-        .add("_receivedFromRouteReflectorClient", _receivedFromRouteReflectorClient)
+        .add("_receivedFromRouteReflectorClient", _attributes.getReceivedFromRouteReflectorClient())
         .add("_srcProtocol", _srcProtocol)
-        .add("_weight", _weight)
+        .add("_weight", _attributes.getWeight())
         .toString();
   }
 }
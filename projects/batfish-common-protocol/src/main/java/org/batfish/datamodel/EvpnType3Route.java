@@ -207,24 +207,24 @@ public final class EvpnType3Route extends EvpnRoute<EvpnType3Route.Builder, Evpn
         .setAdmin(getAdministrativeCost())
         .setNonRouting(getNonRouting())
         .setNonForwarding(getNonForwarding())
-        .setAsPath(_asPath)
-        .setClusterList(_clusterList)
-        .setCommunities(_communities)
+        .setAsPath(_attributes.getAsPath())
+        .setClusterList(_attributes.getClusterList())
+        .setCommunities(_attributes.getCommunities())
         .setDiscard(_discard)
-        .setLocalPreference(_localPreference)
-        .setMetric(_med)
+        .setLocalPreference(_attributes.getLocalPreference())
+        .setMetric(_attributes.getMed())
         .setNextHopInterface(_nextHopInterface)
         .setNextHopIp(_nextHopIp)
-        .setOriginatorIp(_originatorIp)
-        .setOriginType(_originType)
+        .setOriginatorIp(_attributes.getOriginatorIp())
+        .setOriginType(_attributes.getOriginType())
         .setProtocol(_protocol)
         .setReceivedFromIp(_receivedFromIp)
-        .setReceivedFromRouteReflectorClient(_receivedFromRouteReflectorClient)
+        .setReceivedFromRouteReflectorClient(_attributes.getReceivedFromRouteReflectorClient())
         .setRouteDistinguisher(_routeDistinguisher)
         .setSrcProtocol(_srcProtocol)
         .setTag(_tag)
         .setVniIp(_vniIp)
-        .setWeight(_weight);
+        .setWeight(_attributes.getWeight());
   }
 
   @Override
@@ -241,17 +241,9 @@ public final class EvpnType3Route extends EvpnRoute<EvpnType3Route.Builder, Evpn
         && getNonRouting() == other.getNonRouting()
         && getNonForwarding() == other.getNonForwarding()
         && _discard == other._discard
-        && _localPreference == other._localPreference
-        && _med == other._med
-        && _receivedFromRouteReflectorClient == other._receivedFromRouteReflectorClient
-        && _weight == other._weight
-        && Objects.equals(_asPath, other._asPath)
-        && Objects.equals(_clusterList, other._clusterList)
-        && Objects.equals(_communities, other._communities)
+        && _attributes.equals(other._attributes)
         && _nextHopInterface.equals(other._nextHopInterface)
         && Objects.equals(_nextHopIp, other._nextHopIp)
-        && Objects.equals(_originatorIp, other._originatorIp)
-        && _originType == other._originType
         && _protocol == other._protocol
         && Objects.equals(_receivedFromIp, other._receivedFromIp)
         && Objects.equals(_routeDistinguisher, other._routeDistinguisher)
@@ -265,25 +257,25 @@ public final class EvpnType3Route extends EvpnRoute<EvpnType3Route.Builder, Evpn
     int h = _hashCode;
     if (h == 0) {
       h = _admin;
-      h = h * 31 + _asPath.hashCode();
-      h = h * 31 + _clusterList.hashCode();
-      h = h * 31 + _communities.hashCode();
+      h = h * 31 + _attributes.getAsPath().hashCode();
+      h = h * 31 + _attributes.getClusterList().hashCode();
+      h = h * 31 + _attributes.getCommunities().hashCode();
       h = h * 31 + Boolean.hashCode(_discard);
-      h = h * 31 + Long.hashCode(_localPreference);
-      h = h * 31 + Long.hashCode(_med);
+      h = h * 31 + Long.hashCode(_attributes.getLocalPreference());
+      h = h * 31 + Long.hashCode(_attributes.getMed());
       h = h * 31 + _network.hashCode();
       h = h * 31 + _nextHopInterface.hashCode();
       h = h * 31 + _nextHopIp.hashCode();
-      h = h * 31 + _originatorIp.hashCode();
-      h = h * 31 + _originType.ordinal();
+      h = h * 31 + _attributes.getOriginatorIp().hashCode();
+      h = h * 31 + _attributes.getOriginType().ordinal();
       h = h * 31 + _protocol.ordinal();
       h = h * 31 + Objects.hashCode(_receivedFromIp);
-      h = h * 31 + Boolean.hashCode(_receivedFromRouteReflectorClient);
+      h = h * 31 + Boolean.hashCode(_attributes.getReceivedFromRouteReflectorClient());
       h = h * 31 + _routeDistinguisher.hashCode();
       h = h * 31 + (_srcProtocol == null ? 0 : _srcProtocol.ordinal());
       h = h * 31 + Long.hashCode(_tag);
       h = h * 31 + _vniIp.hashCode();
-      h = h * 31 + _weight;
+      h = h * 31 + _attributes.getWeight();
 
       _hashCode = h;
     }
@@ -89,6 +89,9 @@ public final class FibImpl implements Fib {
 
   private transient Supplier<Set<FibEntry>> _entries;
 
+  /** Read-only index over {@link #_root} used for lookups */
+  private transient Supplier<LongestPrefixMatchIndex<FibEntry>> _index;
+
   public FibImpl(@Nonnull GenericRib<? extends AbstractRouteDecorator> rib) {
     _root = new PrefixTrieMultiMap<>(Prefix.ZERO);
     rib.getRoutes()
@@ -102,6 +105,7 @@ public final class FibImpl implements Fib {
 
   private void initSuppliers() {
     _entries = Suppliers.memoize(this::computeEntries);
+    _index = Suppliers.memoize(() -> LongestPrefixMatchIndex.build(_root, e -> true));
   }
 
   private Set<FibEntry> computeEntries() {
@@ -276,7 +280,7 @@ public final class FibImpl implements Fib {
   @Nonnull
   @Override
   public Set<FibEntry> get(Ip ip) {
-    return _root.longestPrefixMatch(ip);
+    return _index.get().longestForwardingMatch(ip);
   }
 
   @Nonnull
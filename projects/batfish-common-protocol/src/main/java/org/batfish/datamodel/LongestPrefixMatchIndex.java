@@ -0,0 +1,204 @@
+package org.batfish.datamodel;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.PrefixTrieMultiMap.FoldOperator;
+
+/**
+ * An immutable, array-backed snapshot of a {@link PrefixTrieMultiMap} optimized for longest prefix
+ * match lookups.
+ *
+ * <p>Nodes of the (path-compressed) trie are laid out in flat primitive arrays indexed by node
+ * number, so a lookup is a single descent from the root comparing {@code int}s, without creating
+ * any {@link Prefix} or {@link Ip} objects. Elements are split at build time into "forwarding" and
+ * "non-forwarding" sets according to a caller-supplied predicate, so that lookups for the longest
+ * forwarding match do not need to filter element sets.
+ *
+ * <p>The index does not track changes to the trie it was built from; callers must rebuild it after
+ * the trie is modified.
+ */
+@ParametersAreNonnullByDefault
+public final class LongestPrefixMatchIndex<T> {
+
+  private static final int NO_NODE = -1;
+
+  /**
+   * Build an index over the current contents of {@code trie}.
+   *
+   * @param trie the trie to index
+   * @param isForwarding predicate identifying elements that are eligible for {@link
+   *     #longestForwardingMatch(Ip, int)}
+   */
+  public static @Nonnull <T> LongestPrefixMatchIndex<T> build(
+      PrefixTrieMultiMap<T> trie, Predicate<? super T> isForwarding) {
+    Builder<T> builder = new Builder<>(isForwarding);
+    Integer root = trie.fold(builder);
+    return new LongestPrefixMatchIndex<>(builder, root == null ? NO_NODE : root);
+  }
+
+  /** Builds the flat arrays during a bottom-up fold of the trie. */
+  private static final class Builder<T> implements FoldOperator<T, Integer> {
+    private final Predicate<? super T> _isForwarding;
+    private final List<Integer> _starts = new ArrayList<>();
+    private final List<Integer> _lengths = new ArrayList<>();
+    private final List<Integer> _left = new ArrayList<>();
+    private final List<Integer> _right = new ArrayList<>();
+    private final List<Set<T>> _forwarding = new ArrayList<>();
+    private final List<Set<T>> _nonForwarding = new ArrayList<>();
+
+    private Builder(Predicate<? super T> isForwarding) {
+      _isForwarding = isForwarding;
+    }
+
+    @Nonnull
+    @Override
+    public Integer fold(
+        Prefix prefix, Set<T> elems, @Nullable Integer leftResult, @Nullable Integer rightResult) {
+      int index = _starts.size();
+      _starts.add((int) prefix.getStartIp().asLong());
+      _lengths.add(prefix.getPrefixLength());
+      _left.add(leftResult == null ? NO_NODE : leftResult);
+      _right.add(rightResult == null ? NO_NODE : rightResult);
+      ImmutableSet.Builder<T> forwarding = ImmutableSet.builder();
+      ImmutableSet.Builder<T> nonForwarding = ImmutableSet.builder();
+      for (T elem : elems) {
+        if (_isForwarding.test(elem)) {
+          forwarding.add(elem);
+        } else {
+          nonForwarding.add(elem);
+        }
+      }
+      Set<T> forwardingSet = forwarding.build();
+      Set<T> nonForwardingSet = nonForwarding.build();
+      // Reuse the trie's own (immutable) set when no filtering was necessary.
+      _forwarding.add(
+          forwardingSet.isEmpty() ? null : nonForwardingSet.isEmpty() ? elems : forwardingSet);
+      _nonForwarding.add(nonForwardingSet.isEmpty() ? null : nonForwardingSet);
+      return index;
+    }
+  }
+
+  private final int _root;
+  private final int[] _starts;
+  private final byte[] _lengths;
+  private final int[] _left;
+  private final int[] _right;
+  private final Object[] _forwarding;
+  private final Object[] _nonForwarding;
+
+  private LongestPrefixMatchIndex(Builder<T> builder, int root) {
+    int size = builder._starts.size();
+    _root = root;
+    _starts = new int[size];
+    _lengths = new byte[size];
+    _left = new int[size];
+    _right = new int[size];
+    for (int i = 0; i < size; i++) {
+      _starts[i] = builder._starts.get(i);
+      _lengths[i] = (byte) (int) builder._lengths.get(i);
+      _left[i] = builder._left.get(i);
+      _right[i] = builder._right.get(i);
+    }
+    _forwarding = builder._forwarding.toArray();
+    _nonForwarding = builder._nonForwarding.toArray();
+  }
+
+  /** Returns the number of trie nodes in this index. */
+  public int size() {
+    return _starts.length;
+  }
+
+  /**
+   * Returns the forwarding elements of the longest prefix with length at most {@code
+   * maxPrefixLength} that contains {@code address} and has at least one forwarding element. Returns
+   * the empty set if there is no such prefix.
+   */
+  public @Nonnull Set<T> longestForwardingMatch(Ip address, int maxPrefixLength) {
+    int match = longestMatchNode((int) address.asLong(), maxPrefixLength, _forwarding);
+    return match == NO_NODE ? ImmutableSet.of() : getSet(_forwarding, match);
+  }
+
+  /** See {@link #longestForwardingMatch(Ip, int)}. */
+  public @Nonnull Set<T> longestForwardingMatch(Ip address) {
+    return longestForwardingMatch(address, Prefix.MAX_PREFIX_LENGTH);
+  }
+
+  /**
+   * Returns all elements (forwarding or not) of the longest prefix with length at most {@code
+   * maxPrefixLength} that contains {@code address} and has at least one element. This is
+   * equivalent to {@link PrefixTrieMultiMap#longestPrefixMatch(Ip, int)}.
+   */
+  public @Nonnull Set<T> longestPrefixMatch(Ip address, int maxPrefixLength) {
+    int ip = (int) address.asLong();
+    int node = _root;
+    int match = NO_NODE;
+    while (node != NO_NODE && matches(node, ip, maxPrefixLength)) {
+      if (_forwarding[node] != null || _nonForwarding[node] != null) {
+        match = node;
+      }
+      node = child(node, ip);
+    }
+    if (match == NO_NODE) {
+      return ImmutableSet.of();
+    }
+    Set<T> forwarding = getSet(_forwarding, match);
+    Set<T> nonForwarding = getSet(_nonForwarding, match);
+    if (nonForwarding.isEmpty()) {
+      return forwarding;
+    } else if (forwarding.isEmpty()) {
+      return nonForwarding;
+    }
+    return ImmutableSet.<T>builder().addAll(forwarding).addAll(nonForwarding).build();
+  }
+
+  /**
+   * Returns the deepest node along the path to {@code ip} whose entry in {@code sets} is non-null,
+   * or {@link #NO_NODE}.
+   */
+  private int longestMatchNode(int ip, int maxPrefixLength, Object[] sets) {
+    int node = _root;
+    int match = NO_NODE;
+    while (node != NO_NODE && matches(node, ip, maxPrefixLength)) {
+      if (sets[node] != null) {
+        match = node;
+      }
+      node = child(node, ip);
+    }
+    return match;
+  }
+
+  /**
+   * Returns true iff the prefix of {@code node} contains {@code ip} and is no longer than {@code
+   * maxPrefixLength}.
+   */
+  private boolean matches(int node, int ip, int maxPrefixLength) {
+    int length = _lengths[node];
+    if (length > maxPrefixLength) {
+      return false;
+    }
+    int mask = length == 0 ? 0 : -1 << (Prefix.MAX_PREFIX_LENGTH - length);
+    return (ip & mask) == _starts[node];
+  }
+
+  /** Returns the child of {@code node} on the path to {@code ip}, or {@link #NO_NODE}. */
+  private int child(int node, int ip) {
+    int length = _lengths[node];
+    if (length == Prefix.MAX_PREFIX_LENGTH) {
+      return NO_NODE;
+    }
+    boolean bit = ((ip >>> (Prefix.MAX_PREFIX_LENGTH - 1 - length)) & 1) != 0;
+    return bit ? _right[node] : _left[node];
+  }
+
+  @SuppressWarnings("unchecked")
+  private @Nonnull Set<T> getSet(Object[] sets, int node) {
+    Object set = sets[node];
+    return set == null ? ImmutableSet.of() : (Set<T>) set;
+  }
+}
@@ -15,6 +15,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -217,6 +218,25 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
       return longestNonEmpty;
     }
 
+    /**
+     * Returns the node with the longest prefix match for a given prefix that has at least one
+     * element satisfying {@code predicate}.
+     */
+    @Nullable
+    Node<T> findLongestPrefixMatchNode(Prefix prefix, Predicate<? super T> predicate) {
+      assert this._prefix.containsPrefix(prefix);
+
+      Node<T> longestMatching = null;
+      Node<T> node = this;
+      while (node != null) {
+        if (node._elements.stream().anyMatch(predicate)) {
+          longestMatching = node;
+        }
+        node = node.matchingChild(prefix);
+      }
+      return longestMatching;
+    }
+
     @Nullable
     Node<T> matchingChild(Prefix prefix) {
       if (_prefix.getPrefixLength() == Prefix.MAX_PREFIX_LENGTH) {
@@ -353,6 +373,27 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
     return node == null ? ImmutableSet.of() : ImmutableSet.copyOf(node._elements);
   }
 
+  /**
+   * Find the elements satisfying {@code predicate} that are associated with the longest matching
+   * prefix of a given IP address, up to the given maximum length, ignoring prefixes with no such
+   * elements.
+   */
+  @Nonnull
+  public Set<T> longestPrefixMatch(
+      Ip address, int maxPrefixLength, Predicate<? super T> predicate) {
+    Prefix p = Prefix.create(address, maxPrefixLength);
+    Node<T> node =
+        _root == null || !_root._prefix.containsPrefix(p)
+            ? null
+            : _root.findLongestPrefixMatchNode(p, predicate);
+    if (node == null) {
+      return ImmutableSet.of();
+    }
+    return node._elements.stream().allMatch(predicate)
+        ? ImmutableSet.copyOf(node._elements)
+        : node._elements.stream().filter(predicate).collect(ImmutableSet.toImmutableSet());
+  }
+
   /**
    * Stores a key-value pair in the multimap.
    *
@@ -6,10 +6,10 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import java.io.Serializable;
 import java.util.Set;
 import java.util.SortedSet;
-import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import org.batfish.datamodel.bgp.community.Community;
 import org.batfish.datamodel.routing_policy.Environment;
@@ -24,11 +24,11 @@ import org.batfish.datamodel.visitors.VoidCommunitySetExprVisitor;
  */
 public final class RegexCommunitySet extends CommunitySetExpr {
 
-  private final class PatternSupplier implements Supplier<Pattern>, Serializable {
+  private final class MatcherSupplier implements Supplier<RegexMatcher<Community>>, Serializable {
 
     @Override
-    public Pattern get() {
-      return Pattern.compile(_regex);
+    public RegexMatcher<Community> get() {
+      return RegexMatcher.forCommunities(ImmutableList.of(_regex));
     }
   }
 
@@ -39,13 +39,13 @@ public final class RegexCommunitySet extends CommunitySetExpr {
     return new RegexCommunitySet(requireNonNull(regex));
   }
 
-  private final Supplier<Pattern> _pattern;
+  private final Supplier<RegexMatcher<Community>> _matcher;
 
   private final String _regex;
 
   public RegexCommunitySet(@Nonnull String regex) {
     _regex = regex;
-    _pattern = Suppliers.memoize(new PatternSupplier());
+    _matcher = Suppliers.memoize(new MatcherSupplier());
   }
 
   @Override
@@ -99,7 +99,7 @@ public final class RegexCommunitySet extends CommunitySetExpr {
 
   @Override
   public boolean matchCommunity(Environment environment, Community community) {
-    return _pattern.get().matcher(community.matchString()).find();
+    return _matcher.get().matches(community);
   }
 
   @Override
@@ -0,0 +1,148 @@
+package org.batfish.datamodel;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.bgp.community.Community;
+
+/**
+ * Matches values against an ordered list of regular expressions, finding the first one that matches
+ * (as with {@link java.util.regex.Matcher#find()}) the text form of a value.
+ *
+ * <p>Each regex is compiled once, when the matcher is created, and matchers are shared by all users
+ * (e.g., the equal AS-path access lists of many devices) of the same regexes for the same kind of
+ * value. Since BGP routes share few distinct AS paths and communities, each matcher also remembers
+ * the results for recently matched values.
+ */
+@ParametersAreNonnullByDefault
+public final class RegexMatcher<T> {
+
+  /** Returned by {@link #firstMatch(Object)} when no regex matches */
+  public static final int NO_MATCH = -1;
+
+  /** Maximum number of values whose results each matcher remembers */
+  private static final int RESULT_CACHE_SIZE = 1 << 16;
+
+  /** The text forms against which values are matched */
+  private enum Subject {
+    /** {@link AsPath#getAsPathString()}, e.g. {@code "1 2 3"} */
+    AS_PATH(value -> ((AsPath) value).getAsPathString()),
+    /** Each AS preceded by a space, e.g. {@code " 1 2 3"} */
+    AS_PATH_SPACE_PREFIXED(
+        value -> ((AsPath) value).size() == 0 ? "" : " " + ((AsPath) value).getAsPathString()),
+    /** {@link Community#matchString()} */
+    COMMUNITY(value -> ((Community) value).matchString());
+
+    private final Function<Object, String> _toText;
+
+    Subject(Function<Object, String> toText) {
+      _toText = toText;
+    }
+  }
+
+  private static final class Key {
+    private final ImmutableList<String> _regexes;
+    private final Subject _subject;
+
+    Key(Subject subject, List<String> regexes) {
+      _regexes = ImmutableList.copyOf(regexes);
+      _subject = subject;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return _subject == other._subject && _regexes.equals(other._regexes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_subject, _regexes);
+    }
+  }
+
+  // Weak values: a matcher is shared for as long as anything uses it.
+  private static final LoadingCache<Key, RegexMatcher<?>> MATCHERS =
+      CacheBuilder.newBuilder().weakValues().build(CacheLoader.from(RegexMatcher::new));
+
+  /**
+   * Returns a matcher of AS paths written as by {@link AsPath#getAsPathString()}, as by the lines
+   * of an {@link AsPathAccessList}.
+   */
+  public static @Nonnull RegexMatcher<AsPath> forAsPaths(List<String> regexes) {
+    return get(Subject.AS_PATH, regexes);
+  }
+
+  /**
+   * Returns a matcher of AS paths written with each AS preceded by a space, as described by {@link
+   * org.batfish.datamodel.routing_policy.expr.AsPathSetElem#regex()}.
+   */
+  public static @Nonnull RegexMatcher<AsPath> forSpacePrefixedAsPaths(List<String> regexes) {
+    return get(Subject.AS_PATH_SPACE_PREFIXED, regexes);
+  }
+
+  /** Returns a matcher of communities written as by {@link Community#matchString()}. */
+  public static @Nonnull RegexMatcher<Community> forCommunities(List<String> regexes) {
+    return get(Subject.COMMUNITY, regexes);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static @Nonnull <T> RegexMatcher<T> get(Subject subject, List<String> regexes) {
+    try {
+      return (RegexMatcher<T>) MATCHERS.getUnchecked(new Key(subject, regexes));
+    } catch (UncheckedExecutionException e) {
+      // e.g., an invalid regex
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  private final Pattern[] _patterns;
+
+  private final LoadingCache<T, Integer> _results;
+
+  private final Subject _subject;
+
+  private RegexMatcher(Key key) {
+    _patterns = key._regexes.stream().map(Pattern::compile).toArray(Pattern[]::new);
+    _results =
+        CacheBuilder.newBuilder()
+            .maximumSize(RESULT_CACHE_SIZE)
+            .build(CacheLoader.from(this::computeFirstMatch));
+    _subject = key._subject;
+  }
+
+  private @Nonnull Integer computeFirstMatch(T value) {
+    String text = _subject._toText.apply(value);
+    for (int i = 0; i < _patterns.length; i++) {
+      if (_patterns[i].matcher(text).find()) {
+        return i;
+      }
+    }
+    return NO_MATCH;
+  }
+
+  /** Returns the index of the first regex that matches {@code value}, or {@link #NO_MATCH}. */
+  public int firstMatch(T value) {
+    return _results.getUnchecked(value);
+  }
+
+  /** Returns whether any regex matches {@code value}. */
+  public boolean matches(T value) {
+    return firstMatch(value) != NO_MATCH;
+  }
+}
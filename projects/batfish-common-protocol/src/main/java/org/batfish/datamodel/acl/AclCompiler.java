@@ -0,0 +1,468 @@
+package org.batfish.datamodel.acl;
+
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AclIpSpace;
+import org.batfish.datamodel.AclIpSpaceLine;
+import org.batfish.datamodel.EmptyIpSpace;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpAccessListLine;
+import org.batfish.datamodel.IpIpSpace;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpSpaceReference;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.IpWildcardIpSpace;
+import org.batfish.datamodel.IpWildcardSetIpSpace;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.PrefixIpSpace;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.batfish.datamodel.acl.CompiledAcl.FlowMatcher;
+import org.batfish.datamodel.visitors.GenericIpSpaceVisitor;
+
+/**
+ * Compiles the {@link IpAccessList IpAccessLists} of a node into {@link CompiledAcl CompiledAcls},
+ * which filter concrete flows without interpreting match expressions as {@link Evaluator} does.
+ *
+ * <p>Named {@link IpSpace IpSpaces} are resolved at compile time, and each {@link IpSpace} that is
+ * a union of IP ranges (i.e., uses no non-prefix wildcards) is compiled to a sorted array of
+ * ranges. Compiled ACLs are cached by name, so a compiler must not outlive changes to the ACLs and
+ * IP spaces it was created with.
+ */
+@ParametersAreNonnullByDefault
+public final class AclCompiler {
+
+  private static final RangeSet<Long> ALL_IPS =
+      ImmutableRangeSet.of(Range.closed(Ip.ZERO.asLong(), Ip.MAX.asLong()));
+
+  private static final HeaderSpace MATCH_ALL_HEADER_SPACE = HeaderSpace.builder().build();
+
+  private final @Nonnull Map<String, IpAccessList> _availableAcls;
+  private final @Nonnull Map<String, CompiledAcl> _compiledAcls;
+  private final @Nonnull Map<String, IpSpace> _namedIpSpaces;
+
+  public AclCompiler(Map<String, IpAccessList> availableAcls, Map<String, IpSpace> namedIpSpaces) {
+    _availableAcls = availableAcls;
+    _compiledAcls = new ConcurrentHashMap<>();
+    _namedIpSpaces = namedIpSpaces;
+  }
+
+  /** Returns the compiled form of {@code acl}. */
+  public @Nonnull CompiledAcl compile(IpAccessList acl) {
+    if (_availableAcls.get(acl.getName()) != acl) {
+      // not one of the available ACLs, so not cached
+      return new Compilation().compile(acl);
+    }
+    // Not computeIfAbsent: compiling one ACL does not compile the ACLs it references, but the
+    // compiled matchers of references compile them later (from whichever thread filters a flow).
+    CompiledAcl compiled = _compiledAcls.get(acl.getName());
+    if (compiled == null) {
+      compiled = new Compilation().compile(acl);
+      CompiledAcl existing = _compiledAcls.putIfAbsent(acl.getName(), compiled);
+      if (existing != null) {
+        compiled = existing;
+      }
+    }
+    return compiled;
+  }
+
+  /**
+   * The compilation of one ACL. Remembers the IP ranges of each {@link IpSpace} it visits, since
+   * they are used both to match and to index the lines.
+   */
+  private final class Compilation
+      implements GenericAclLineMatchExprVisitor<FlowMatcher>,
+          GenericIpSpaceVisitor<RangeSet<Long>> {
+
+    private final Map<IpSpace, Optional<RangeSet<Long>>> _ipRanges = new IdentityHashMap<>();
+
+    /** Names of the {@link IpSpaceReference IpSpaceReferences} being resolved, to detect cycles */
+    private final Set<String> _resolving = new HashSet<>();
+
+    private @Nonnull CompiledAcl compile(IpAccessList acl) {
+      List<LineAction> actions = new ArrayList<>(acl.getLines().size());
+      List<FlowMatcher> matchers = new ArrayList<>(acl.getLines().size());
+      List<RangeSet<Long>> dstIps = new ArrayList<>(acl.getLines().size());
+      List<RangeSet<Long>> srcIps = new ArrayList<>(acl.getLines().size());
+      IpConstraint dstConstraint = new IpConstraint(true);
+      IpConstraint srcConstraint = new IpConstraint(false);
+      for (IpAccessListLine line : acl.getLines()) {
+        actions.add(line.getAction());
+        matchers.add(visit(line.getMatchCondition()));
+        dstIps.add(dstConstraint.visit(line.getMatchCondition()));
+        srcIps.add(srcConstraint.visit(line.getMatchCondition()));
+      }
+      return new CompiledAcl(actions, matchers, dstIps, srcIps);
+    }
+
+    /**
+     * Returns the IPs in {@code ipSpace} as a set of ranges, or {@code null} if they cannot be
+     * computed.
+     */
+    private @Nullable RangeSet<Long> ranges(IpSpace ipSpace) {
+      Optional<RangeSet<Long>> ranges = _ipRanges.get(ipSpace);
+      if (ranges == null) {
+        ranges = Optional.ofNullable(visit(ipSpace));
+        _ipRanges.put(ipSpace, ranges);
+      }
+      return ranges.orElse(null);
+    }
+
+    /** Returns a predicate that is true for IPs in {@code ipSpace}. */
+    private @Nonnull Predicate<Ip> ipMatcher(IpSpace ipSpace) {
+      RangeSet<Long> ranges = ranges(ipSpace);
+      if (ranges == null) {
+        return ip -> ipSpace.containsIp(ip, _namedIpSpaces);
+      } else if (ranges.isEmpty()) {
+        return ip -> false;
+      } else if (ranges.equals(ALL_IPS)) {
+        return ip -> true;
+      }
+      Set<Range<Long>> rangeSet = ranges.asRanges();
+      long[] starts = new long[rangeSet.size()];
+      long[] ends = new long[rangeSet.size()];
+      int i = 0;
+      for (Range<Long> range : rangeSet) {
+        Range<Long> canonical = range.canonical(DiscreteDomain.longs());
+        starts[i] = canonical.lowerEndpoint();
+        ends[i] = canonical.upperEndpoint();
+        i++;
+      }
+      return ip -> {
+        long value = ip.asLong();
+        int index = Arrays.binarySearch(starts, value);
+        if (index >= 0) {
+          return true;
+        }
+        int preceding = -index - 2;
+        return preceding >= 0 && value < ends[preceding];
+      };
+    }
+
+    /**
+     * Computes the destination or source IPs of the flows that a match expression can match, or
+     * {@code null} if there is no known constraint on them. May include IPs it cannot match, e.g.
+     * since negations are ignored.
+     */
+    private final class IpConstraint implements GenericAclLineMatchExprVisitor<RangeSet<Long>> {
+      private final boolean _dst;
+
+      private IpConstraint(boolean dst) {
+        _dst = dst;
+      }
+
+      @Override
+      public RangeSet<Long> visitAndMatchExpr(AndMatchExpr andMatchExpr) {
+        RangeSet<Long> constraint = null;
+        for (AclLineMatchExpr conjunct : andMatchExpr.getConjuncts()) {
+          RangeSet<Long> conjunctConstraint = visit(conjunct);
+          if (conjunctConstraint == null) {
+            continue;
+          } else if (constraint == null) {
+            constraint = TreeRangeSet.create(conjunctConstraint);
+          } else {
+            constraint.removeAll(conjunctConstraint.complement());
+          }
+        }
+        return constraint;
+      }
+
+      @Override
+      public RangeSet<Long> visitFalseExpr(FalseExpr falseExpr) {
+        return ImmutableRangeSet.of();
+      }
+
+      @Override
+      public RangeSet<Long> visitMatchHeaderSpace(MatchHeaderSpace matchHeaderSpace) {
+        HeaderSpace headerSpace = matchHeaderSpace.getHeaderspace();
+        IpSpace ips = _dst ? headerSpace.getDstIps() : headerSpace.getSrcIps();
+        IpSpace notIps = _dst ? headerSpace.getNotDstIps() : headerSpace.getNotSrcIps();
+        RangeSet<Long> constraint = ips == null ? null : ranges(ips);
+        RangeSet<Long> excluded = notIps == null ? null : ranges(notIps);
+        if (excluded != null && !excluded.isEmpty()) {
+          constraint = TreeRangeSet.create(constraint == null ? ALL_IPS : constraint);
+          constraint.removeAll(excluded);
+        }
+        return constraint;
+      }
+
+      @Override
+      public RangeSet<Long> visitMatchSrcInterface(MatchSrcInterface matchSrcInterface) {
+        return null;
+      }
+
+      @Override
+      public RangeSet<Long> visitNotMatchExpr(NotMatchExpr notMatchExpr) {
+        return null;
+      }
+
+      @Override
+      public RangeSet<Long> visitOriginatingFromDevice(
+          OriginatingFromDevice originatingFromDevice) {
+        return null;
+      }
+
+      @Override
+      public RangeSet<Long> visitOrMatchExpr(OrMatchExpr orMatchExpr) {
+        RangeSet<Long> constraint = TreeRangeSet.create();
+        for (AclLineMatchExpr disjunct : orMatchExpr.getDisjuncts()) {
+          RangeSet<Long> disjunctConstraint = visit(disjunct);
+          if (disjunctConstraint == null) {
+            return null;
+          }
+          constraint.addAll(disjunctConstraint);
+        }
+        return constraint;
+      }
+
+      @Override
+      public RangeSet<Long> visitPermittedByAcl(PermittedByAcl permittedByAcl) {
+        return null;
+      }
+
+      @Override
+      public RangeSet<Long> visitTrueExpr(TrueExpr trueExpr) {
+        return null;
+      }
+    }
+
+    // Compiling match expressions
+
+    @Override
+    public FlowMatcher visitAndMatchExpr(AndMatchExpr andMatchExpr) {
+      return and(
+          andMatchExpr.getConjuncts().stream()
+              .map(this::visit)
+              .collect(ImmutableList.toImmutableList()));
+    }
+
+    @Override
+    public FlowMatcher visitFalseExpr(FalseExpr falseExpr) {
+      return (flow, srcInterface) -> false;
+    }
+
+    @Override
+    public FlowMatcher visitMatchHeaderSpace(MatchHeaderSpace matchHeaderSpace) {
+      HeaderSpace headerSpace = matchHeaderSpace.getHeaderspace();
+      List<FlowMatcher> matchers = new ArrayList<>();
+      if (headerSpace.getDstIps() != null) {
+        Predicate<Ip> dstIps = ipMatcher(headerSpace.getDstIps());
+        matchers.add((flow, srcInterface) -> dstIps.test(flow.getDstIp()));
+      }
+      if (headerSpace.getNotDstIps() != null) {
+        Predicate<Ip> notDstIps = ipMatcher(headerSpace.getNotDstIps());
+        matchers.add((flow, srcInterface) -> !notDstIps.test(flow.getDstIp()));
+      }
+      if (headerSpace.getSrcIps() != null) {
+        Predicate<Ip> srcIps = ipMatcher(headerSpace.getSrcIps());
+        matchers.add((flow, srcInterface) -> srcIps.test(flow.getSrcIp()));
+      }
+      if (headerSpace.getNotSrcIps() != null) {
+        Predicate<Ip> notSrcIps = ipMatcher(headerSpace.getNotSrcIps());
+        matchers.add((flow, srcInterface) -> !notSrcIps.test(flow.getSrcIp()));
+      }
+      if (headerSpace.getSrcOrDstIps() != null) {
+        Predicate<Ip> srcOrDstIps = ipMatcher(headerSpace.getSrcOrDstIps());
+        matchers.add(
+            (flow, srcInterface) ->
+                srcOrDstIps.test(flow.getSrcIp()) || srcOrDstIps.test(flow.getDstIp()));
+      }
+      // The remaining fields are cheap to match, so leave them to the header space itself.
+      HeaderSpace remaining =
+          headerSpace
+              .toBuilder()
+              .setDstIps((IpSpace) null)
+              .setNotDstIps((IpSpace) null)
+              .setSrcIps((IpSpace) null)
+              .setNotSrcIps((IpSpace) null)
+              .setSrcOrDstIps((IpSpace) null)
+              .build();
+      if (!remaining.equals(MATCH_ALL_HEADER_SPACE)) {
+        matchers.add((flow, srcInterface) -> remaining.matches(flow, _namedIpSpaces));
+      }
+      return and(matchers);
+    }
+
+    @Override
+    public FlowMatcher visitMatchSrcInterface(MatchSrcInterface matchSrcInterface) {
+      Set<String> srcInterfaces = ImmutableSet.copyOf(matchSrcInterface.getSrcInterfaces());
+      return (flow, srcInterface) -> srcInterfaces.contains(srcInterface);
+    }
+
+    @Override
+    public FlowMatcher visitNotMatchExpr(NotMatchExpr notMatchExpr) {
+      FlowMatcher operand = visit(notMatchExpr.getOperand());
+      return (flow, srcInterface) -> !operand.matches(flow, srcInterface);
+    }
+
+    @Override
+    public FlowMatcher visitOriginatingFromDevice(OriginatingFromDevice originatingFromDevice) {
+      return (flow, srcInterface) -> srcInterface == null;
+    }
+
+    @Override
+    public FlowMatcher visitOrMatchExpr(OrMatchExpr orMatchExpr) {
+      FlowMatcher[] disjuncts =
+          orMatchExpr.getDisjuncts().stream().map(this::visit).toArray(FlowMatcher[]::new);
+      return (flow, srcInterface) -> {
+        for (FlowMatcher disjunct : disjuncts) {
+          if (disjunct.matches(flow, srcInterface)) {
+            return true;
+          }
+        }
+        return false;
+      };
+    }
+
+    @Override
+    public FlowMatcher visitPermittedByAcl(PermittedByAcl permittedByAcl) {
+      String aclName = permittedByAcl.getAclName();
+      LineAction defaultAction =
+          permittedByAcl.getDefaultAccept() ? LineAction.PERMIT : LineAction.DENY;
+      // Compiled when first used, which also supports cyclic references (as Evaluator does).
+      return (flow, srcInterface) ->
+          compile(_availableAcls.get(aclName)).filter(flow, srcInterface, defaultAction).getAction()
+              == LineAction.PERMIT;
+    }
+
+    @Override
+    public FlowMatcher visitTrueExpr(TrueExpr trueExpr) {
+      return (flow, srcInterface) -> true;
+    }
+
+    // Computing the IP ranges of IP spaces
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public RangeSet<Long> castToGenericIpSpaceVisitorReturnType(Object o) {
+      return (RangeSet<Long>) o;
+    }
+
+    @Override
+    public RangeSet<Long> visitAclIpSpace(AclIpSpace aclIpSpace) {
+      RangeSet<Long> permitted = TreeRangeSet.create();
+      RangeSet<Long> unmatched = TreeRangeSet.create(ALL_IPS);
+      for (AclIpSpaceLine line : aclIpSpace.getLines()) {
+        RangeSet<Long> lineIps = ranges(line.getIpSpace());
+        if (lineIps == null) {
+          return null;
+        }
+        if (line.getAction() == LineAction.PERMIT) {
+          RangeSet<Long> matched = TreeRangeSet.create(unmatched);
+          matched.removeAll(lineIps.complement());
+          permitted.addAll(matched);
+        }
+        unmatched.removeAll(lineIps);
+      }
+      return permitted;
+    }
+
+    @Override
+    public RangeSet<Long> visitEmptyIpSpace(EmptyIpSpace emptyIpSpace) {
+      return ImmutableRangeSet.of();
+    }
+
+    @Override
+    public RangeSet<Long> visitIpIpSpace(IpIpSpace ipIpSpace) {
+      return ImmutableRangeSet.of(Range.singleton(ipIpSpace.getIp().asLong()));
+    }
+
+    @Override
+    public RangeSet<Long> visitIpSpaceReference(IpSpaceReference ipSpaceReference) {
+      String name = ipSpaceReference.getName();
+      IpSpace referenced = _namedIpSpaces.get(name);
+      if (referenced == null) {
+        return ImmutableRangeSet.of();
+      } else if (!_resolving.add(name)) {
+        // cyclic reference: leave it to IpSpace#containsIp
+        return null;
+      }
+      try {
+        return ranges(referenced);
+      } finally {
+        _resolving.remove(name);
+      }
+    }
+
+    @Override
+    public RangeSet<Long> visitIpWildcardIpSpace(IpWildcardIpSpace ipWildcardIpSpace) {
+      return wildcardRanges(ImmutableList.of(ipWildcardIpSpace.getIpWildcard()));
+    }
+
+    @Override
+    public RangeSet<Long> visitIpWildcardSetIpSpace(IpWildcardSetIpSpace ipWildcardSetIpSpace) {
+      RangeSet<Long> whitelist = wildcardRanges(ipWildcardSetIpSpace.getWhitelist());
+      RangeSet<Long> blacklist = wildcardRanges(ipWildcardSetIpSpace.getBlacklist());
+      if (whitelist == null || blacklist == null) {
+        return null;
+      }
+      whitelist.removeAll(blacklist);
+      return whitelist;
+    }
+
+    @Override
+    public RangeSet<Long> visitPrefixIpSpace(PrefixIpSpace prefixIpSpace) {
+      return ImmutableRangeSet.of(
+          Range.closed(
+              prefixIpSpace.getPrefix().getStartIp().asLong(),
+              prefixIpSpace.getPrefix().getEndIp().asLong()));
+    }
+
+    @Override
+    public RangeSet<Long> visitUniverseIpSpace(UniverseIpSpace universeIpSpace) {
+      return ALL_IPS;
+    }
+  }
+
+  /** Returns the union of {@code wildcards}, or {@code null} if any is not a prefix. */
+  private static @Nullable RangeSet<Long> wildcardRanges(Iterable<IpWildcard> wildcards) {
+    RangeSet<Long> ranges = TreeRangeSet.create();
+    for (IpWildcard wildcard : wildcards) {
+      if (!wildcard.isPrefix()) {
+        return null;
+      }
+      ranges.add(
+          Range.closed(
+              wildcard.toPrefix().getStartIp().asLong(), wildcard.toPrefix().getEndIp().asLong()));
+    }
+    return ranges;
+  }
+
+  private static @Nonnull FlowMatcher and(List<FlowMatcher> matchers) {
+    switch (matchers.size()) {
+      case 0:
+        return (flow, srcInterface) -> true;
+      case 1:
+        return matchers.get(0);
+      default:
+        FlowMatcher[] conjuncts = matchers.toArray(new FlowMatcher[0]);
+        return (flow, srcInterface) -> {
+          for (FlowMatcher conjunct : conjuncts) {
+            if (!conjunct.matches(flow, srcInterface)) {
+              return false;
+            }
+          }
+          return true;
+        };
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package org.batfish.datamodel.acl;
+
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.FilterResult;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.LineAction;
+
+/**
+ * An {@link IpAccessList} compiled by an {@link AclCompiler} for filtering concrete {@link Flow
+ * Flows}. Gives the same results as {@link IpAccessList#filter}.
+ *
+ * <p>The IP address space of one field (destination or source IP, whichever discriminates better)
+ * is cut into ranges, so that within each range the same lines can possibly match. Filtering a flow
+ * looks up the range of its IP, then evaluates only that range's lines, in order.
+ */
+@ParametersAreNonnullByDefault
+public final class CompiledAcl {
+
+  /** Matches a flow entering at some source interface (or originating from the device if null) */
+  @FunctionalInterface
+  interface FlowMatcher {
+    boolean matches(Flow flow, @Nullable String srcInterface);
+  }
+
+  /**
+   * Maximum total number of line indices stored in the ranges of an index. Lines with no constraint
+   * on a field are stored in every range, so an ACL with many of those is not indexed on that
+   * field.
+   */
+  private static final int MAX_INDEX_ENTRIES = 1 << 22;
+
+  /** One past the largest IP */
+  private static final long NUM_IPS = 1L << 32;
+
+  /** The lines that can match flows with IPs in each of a partition of IP ranges */
+  private static final class LineIndex {
+    private final boolean _dst;
+    private final long[] _starts;
+    private final int[][] _lines;
+    private final long _entries;
+
+    private LineIndex(boolean dst, long[] starts, int[][] lines, long entries) {
+      _dst = dst;
+      _starts = starts;
+      _lines = lines;
+      _entries = entries;
+    }
+
+    /** Returns the lines that can match {@code flow}, or {@code null} if its IP is not indexed. */
+    private @Nullable int[] candidates(Flow flow) {
+      long ip = (_dst ? flow.getDstIp() : flow.getSrcIp()).asLong();
+      if (ip < 0 || ip >= NUM_IPS) {
+        return null;
+      }
+      int i = Arrays.binarySearch(_starts, ip);
+      return _lines[i >= 0 ? i : -i - 2];
+    }
+  }
+
+  private final @Nonnull LineAction[] _actions;
+  private final @Nullable LineIndex _index;
+  private final @Nonnull FlowMatcher[] _matchers;
+
+  /**
+   * @param actions the action of each line
+   * @param matchers the match condition of each line
+   * @param dstIps for each line, the destination IPs of flows it can match, or {@code null} if it
+   *     has no known constraint on destination IP
+   * @param srcIps for each line, the source IPs of flows it can match, or {@code null} if it has no
+   *     known constraint on source IP
+   */
+  CompiledAcl(
+      List<LineAction> actions,
+      List<FlowMatcher> matchers,
+      List<RangeSet<Long>> dstIps,
+      List<RangeSet<Long>> srcIps) {
+    _actions = actions.toArray(new LineAction[0]);
+    _matchers = matchers.toArray(new FlowMatcher[0]);
+    LineIndex dstIndex = buildIndex(true, dstIps);
+    LineIndex srcIndex = buildIndex(false, srcIps);
+    if (dstIndex == null || (srcIndex != null && srcIndex._entries < dstIndex._entries)) {
+      _index = srcIndex;
+    } else {
+      _index = dstIndex;
+    }
+  }
+
+  /**
+   * Returns an index of the lines on the destination or source IP field with the given constraints,
+   * or {@code null} if the index would be useless or too large.
+   */
+  private static @Nullable LineIndex buildIndex(boolean dst, List<RangeSet<Long>> constraints) {
+    TreeSet<Long> startSet = new TreeSet<>();
+    startSet.add(0L);
+    for (RangeSet<Long> constraint : constraints) {
+      if (constraint == null) {
+        continue;
+      }
+      for (Range<Long> range : constraint.asRanges()) {
+        Range<Long> canonical = range.canonical(DiscreteDomain.longs());
+        startSet.add(canonical.lowerEndpoint());
+        if (canonical.upperEndpoint() < NUM_IPS) {
+          startSet.add(canonical.upperEndpoint());
+        }
+      }
+    }
+    if (startSet.size() == 1) {
+      // no line is constrained to part of the IP space
+      return null;
+    }
+    long[] starts = startSet.stream().mapToLong(Long::longValue).toArray();
+
+    // First count the lines of each range, then fill them in line order.
+    int[] sizes = new int[starts.length];
+    long entries = 0;
+    for (RangeSet<Long> constraint : constraints) {
+      entries += forEachRange(starts, constraint, i -> sizes[i]++);
+      if (entries > MAX_INDEX_ENTRIES) {
+        return null;
+      }
+    }
+    int[][] lines = new int[starts.length][];
+    for (int i = 0; i < starts.length; i++) {
+      lines[i] = new int[sizes[i]];
+    }
+    int[] filled = new int[starts.length];
+    for (int line = 0; line < constraints.size(); line++) {
+      int l = line;
+      forEachRange(starts, constraints.get(line), i -> lines[i][filled[i]++] = l);
+    }
+    return new LineIndex(dst, starts, lines, entries);
+  }
+
+  /**
+   * Applies {@code action} to the index of each range of the partition {@code starts} that
+   * intersects {@code constraint} (or of every range if {@code constraint} is null). Returns the
+   * number of ranges.
+   */
+  private static int forEachRange(
+      long[] starts, @Nullable RangeSet<Long> constraint, IntConsumer action) {
+    if (constraint == null) {
+      for (int i = 0; i < starts.length; i++) {
+        action.accept(i);
+      }
+      return starts.length;
+    }
+    int count = 0;
+    for (Range<Long> range : constraint.asRanges()) {
+      Range<Long> canonical = range.canonical(DiscreteDomain.longs());
+      int from = Arrays.binarySearch(starts, canonical.lowerEndpoint());
+      int to =
+          canonical.upperEndpoint() < NUM_IPS
+              ? Arrays.binarySearch(starts, canonical.upperEndpoint())
+              : starts.length;
+      for (int i = from; i < to; i++) {
+        action.accept(i);
+      }
+      count += to - from;
+    }
+    return count;
+  }
+
+  /**
+   * Filters {@code flow} entering at {@code srcInterface}, as by {@link IpAccessList#filter(Flow,
+   * String, java.util.Map, java.util.Map, LineAction)}.
+   */
+  public @Nonnull FilterResult filter(
+      Flow flow, @Nullable String srcInterface, LineAction defaultAction) {
+    int[] candidates = _index == null ? null : _index.candidates(flow);
+    if (candidates == null) {
+      for (int i = 0; i < _matchers.length; i++) {
+        if (_matchers[i].matches(flow, srcInterface)) {
+          return new FilterResult(i, _actions[i]);
+        }
+      }
+    } else {
+      for (int i : candidates) {
+        if (_matchers[i].matches(flow, srcInterface)) {
+          return new FilterResult(i, _actions[i]);
+        }
+      }
+    }
+    return new FilterResult(null, defaultAction);
+  }
+
+  /**
+   * Filters {@code flow} entering at {@code srcInterface}, denying it if no line matches. See
+   * {@link #filter(Flow, String, LineAction)}.
+   */
+  public @Nonnull FilterResult filter(Flow flow, @Nullable String srcInterface) {
+    return filter(flow, srcInterface, LineAction.DENY);
+  }
+}
@@ -13,22 +13,33 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
       "bgpBestPathRibRoutesByIteration";
   private static final String PROP_BGP_MULTIPATH_RIB_ROUTES_BY_ITERATION =
       "bgpMultipathRibRoutesByIteration";
+  private static final String PROP_BGP_UPDATE_GROUPS_BY_ITERATION = "bgpUpdateGroupsByIteration";
   private static final String PROP_DEPENDENT_ROUTES_ITERATIONS = "dependentRoutesIterations";
+  private static final String PROP_FINGERPRINTED_RIB_ROUTES_BY_ITERATION =
+      "fingerprintedRibRoutesByIteration";
   private static final String PROP_OSPF_INTERNAL_ITERATIONS = "ospfInternalIterations";
+  private static final String PROP_SAVED_BGP_EXPORT_POLICY_EVALUATIONS_BY_ITERATION =
+      "savedBgpExportPolicyEvaluationsByIteration";
   private static final String PROP_WARNINGS = "warnings";
 
   private SortedMap<Integer, Integer> _bgpBestPathRibRoutesByIteration;
   private SortedMap<Integer, Integer> _bgpMultipathRibRoutesByIteration;
+  private SortedMap<Integer, Integer> _bgpUpdateGroupsByIteration;
   private int _dependentRoutesIterations;
+  private SortedMap<Integer, Integer> _fingerprintedRibRoutesByIteration;
   private SortedMap<Integer, Integer> _mainRibRoutesByIteration;
   private int _ospfInternalIterations;
+  private SortedMap<Integer, Integer> _savedBgpExportPolicyEvaluationsByIteration;
   private String _version;
   private Warnings _warnings;
 
   public IncrementalBdpAnswerElement() {
     _bgpBestPathRibRoutesByIteration = new TreeMap<>();
     _bgpMultipathRibRoutesByIteration = new TreeMap<>();
+    _bgpUpdateGroupsByIteration = new TreeMap<>();
+    _fingerprintedRibRoutesByIteration = new TreeMap<>();
     _mainRibRoutesByIteration = new TreeMap<>();
+    _savedBgpExportPolicyEvaluationsByIteration = new TreeMap<>();
     _warnings = new Warnings();
   }
 
@@ -42,11 +53,30 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
     return _bgpMultipathRibRoutesByIteration;
   }
 
+  /**
+   * Total number of update groups (sets of BGP neighbors to which routes are exported in the same
+   * way) of all BGP processes, by iteration.
+   */
+  @JsonProperty(PROP_BGP_UPDATE_GROUPS_BY_ITERATION)
+  public SortedMap<Integer, Integer> getBgpUpdateGroupsByIteration() {
+    return _bgpUpdateGroupsByIteration;
+  }
+
   @JsonProperty(PROP_DEPENDENT_ROUTES_ITERATIONS)
   public int getDependentRoutesIterations() {
     return _dependentRoutesIterations;
   }
 
+  /**
+   * Number of RIB routes whose contribution to the iteration hashcode (used for oscillation
+   * detection) came from incrementally maintained RIB fingerprints, rather than from rehashing the
+   * routes, by iteration.
+   */
+  @JsonProperty(PROP_FINGERPRINTED_RIB_ROUTES_BY_ITERATION)
+  public SortedMap<Integer, Integer> getFingerprintedRibRoutesByIteration() {
+    return _fingerprintedRibRoutesByIteration;
+  }
+
   @JsonProperty(MAIN_RIB_ROUTES_BY_ITERATION)
   public SortedMap<Integer, Integer> getMainRibRoutesByIteration() {
     return _mainRibRoutesByIteration;
@@ -57,6 +87,15 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
     return _ospfInternalIterations;
   }
 
+  /**
+   * Number of BGP export policy evaluations avoided by sharing their results within update groups,
+   * by iteration.
+   */
+  @JsonProperty(PROP_SAVED_BGP_EXPORT_POLICY_EVALUATIONS_BY_ITERATION)
+  public SortedMap<Integer, Integer> getSavedBgpExportPolicyEvaluationsByIteration() {
+    return _savedBgpExportPolicyEvaluationsByIteration;
+  }
+
   @Override
   @JsonProperty(PROP_VERSION)
   public String getVersion() {
@@ -80,11 +119,23 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
     _bgpMultipathRibRoutesByIteration = bgpMultipathRibRoutesByIteration;
   }
 
+  @JsonProperty(PROP_BGP_UPDATE_GROUPS_BY_ITERATION)
+  public void setBgpUpdateGroupsByIteration(
+      SortedMap<Integer, Integer> bgpUpdateGroupsByIteration) {
+    _bgpUpdateGroupsByIteration = bgpUpdateGroupsByIteration;
+  }
+
   @JsonProperty(PROP_DEPENDENT_ROUTES_ITERATIONS)
   public void setDependentRoutesIterations(int dependentRoutesIterations) {
     _dependentRoutesIterations = dependentRoutesIterations;
   }
 
+  @JsonProperty(PROP_FINGERPRINTED_RIB_ROUTES_BY_ITERATION)
+  public void setFingerprintedRibRoutesByIteration(
+      SortedMap<Integer, Integer> fingerprintedRibRoutesByIteration) {
+    _fingerprintedRibRoutesByIteration = fingerprintedRibRoutesByIteration;
+  }
+
   @JsonProperty(MAIN_RIB_ROUTES_BY_ITERATION)
   public void setMainRibRoutesByIteration(SortedMap<Integer, Integer> mainRibRoutesByIteration) {
     _mainRibRoutesByIteration = mainRibRoutesByIteration;
@@ -95,6 +146,12 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
     _ospfInternalIterations = ospfInternalIterations;
   }
 
+  @JsonProperty(PROP_SAVED_BGP_EXPORT_POLICY_EVALUATIONS_BY_ITERATION)
+  public void setSavedBgpExportPolicyEvaluationsByIteration(
+      SortedMap<Integer, Integer> savedBgpExportPolicyEvaluationsByIteration) {
+    _savedBgpExportPolicyEvaluationsByIteration = savedBgpExportPolicyEvaluationsByIteration;
+  }
+
   @JsonProperty(PROP_VERSION)
   public void setVersion(String version) {
     _version = version;
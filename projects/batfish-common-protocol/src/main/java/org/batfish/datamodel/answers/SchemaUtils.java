@@ -5,6 +5,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Throwables;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -76,12 +77,39 @@ public final class SchemaUtils {
     }
   }
 
+  /**
+   * Returns true if {@code object} is already of the Java type that {@link #convertType(JsonNode,
+   * Schema)} produces for {@code schema}, i.e., an instance of the base type, or a list or set of
+   * such instances (or {@code null}).
+   */
+  public static boolean isInstance(Object object, Schema schema) {
+    switch (schema.getType()) {
+      case BASE:
+        return schema.getBaseType().isInstance(object) && !(object instanceof JsonNode);
+      case LIST:
+        return object instanceof List && allInstances((List<?>) object, schema.getInnerSchema());
+      case SET:
+        return object instanceof Set && allInstances((Set<?>) object, schema.getInnerSchema());
+      default:
+        return false;
+    }
+  }
+
+  private static boolean allInstances(Collection<?> objects, Schema schema) {
+    return objects.stream().allMatch(o -> o == null || isInstance(o, schema));
+  }
+
   /**
    * Checks if {@code object} can be cast to {@code schema}.
    *
-   * <p>The function operates by converting the object to Json and then converting it back.
+   * <p>Objects that are already of the right type (see {@link #isInstance(Object, Schema)}) are
+   * accepted directly. Otherwise, the function operates by converting the object to Json and then
+   * converting it back.
    */
   public static boolean isValidObject(Object object, Schema schema) {
+    if (object == null || isInstance(object, schema)) {
+      return true;
+    }
     JsonNode jsonNode = BatfishObjectMapper.mapper().valueToTree(object);
     try {
       convertType(jsonNode, schema);
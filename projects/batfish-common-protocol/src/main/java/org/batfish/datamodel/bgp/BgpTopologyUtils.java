@@ -4,18 +4,26 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.graph.EndpointPair;
 import com.google.common.graph.MutableValueGraph;
 import com.google.common.graph.Network;
 import com.google.common.graph.ValueGraphBuilder;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Function;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.common.plugin.TracerouteEngine;
@@ -40,6 +48,7 @@ import org.batfish.datamodel.NetworkConfigurations;
 import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.Vrf;
 import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
 import org.batfish.datamodel.flow.Hop;
 import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.flow.TraceAndReverseFlow;
@@ -144,19 +153,15 @@ public final class BgpTopologyUtils {
       }
 
       // Second pass: add edges to the graph. Note, these are directed edges.
+      List<EndpointPair<BgpPeerConfigId>> activeSessions = new ArrayList<>();
       for (BgpPeerConfigId neighborId : graph.nodes()) {
         switch (neighborId.getType()) {
           case DYNAMIC:
             // Passive end of the peering cannot initiate a connection
             continue;
           case ACTIVE:
-            addActivePeerEdges(
-                neighborId,
-                graph,
-                networkConfigurations,
-                ipOwners,
-                checkReachability,
-                tracerouteEngine);
+            addActiveSessionCandidates(
+                neighborId, graph, networkConfigurations, ipOwners, activeSessions);
             break;
           case UNNUMBERED:
             // Can't infer BGP unnumbered connectivity without layer 2 topology
@@ -169,17 +174,42 @@ public final class BgpTopologyUtils {
                 String.format("Unrecognized peer type: %s", neighborId));
         }
       }
+
+      // If checking reachability, ensure candidates are reachable. Candidates are checked together
+      // so that their flows are traced in a few large batches rather than one at a time.
+      Set<EndpointPair<BgpPeerConfigId>> reachableSessions =
+          checkReachability
+              ? reachableActiveSessions(activeSessions, networkConfigurations, tracerouteEngine)
+              : ImmutableSet.copyOf(activeSessions);
+      for (EndpointPair<BgpPeerConfigId> session : activeSessions) {
+        BgpPeerConfigId initiatorId = session.source();
+        BgpPeerConfigId listenerId = session.target();
+        // If edge is already established (i.e., we already found that the listener can initiate
+        // the session), keep the edges from that direction
+        if (reachableSessions.contains(session)
+            && !graph.hasEdgeConnecting(initiatorId, listenerId)) {
+          addEdges(
+              networkConfigurations.getBgpPointToPointPeerConfig(initiatorId),
+              initiatorId,
+              listenerId,
+              graph,
+              networkConfigurations);
+        }
+      }
       return new BgpTopology(graph);
     }
   }
 
-  private static void addActivePeerEdges(
+  /**
+   * Adds to {@code candidates} a session from the active peer {@code neighborId} to each peer in
+   * {@code graph} with compatible local/remote IP, AS, & hostname.
+   */
+  private static void addActiveSessionCandidates(
       BgpPeerConfigId neighborId,
       MutableValueGraph<BgpPeerConfigId, BgpSessionProperties> graph,
       NetworkConfigurations nc,
       Map<Ip, Set<String>> ipOwners,
-      boolean checkReachability,
-      TracerouteEngine tracerouteEngine) {
+      List<EndpointPair<BgpPeerConfigId>> candidates) {
     BgpActivePeerConfig neighbor = nc.getBgpPointToPointPeerConfig(neighborId);
     if (neighbor == null
         || neighbor.getLocalIp() == null
@@ -194,20 +224,44 @@ public final class BgpTopologyUtils {
       return;
     }
 
-    Set<BgpPeerConfigId> alreadyEstablished = graph.adjacentNodes(neighborId);
     graph.nodes().stream()
         .filter(
             candidateId ->
-                // If edge is already established (i.e., we already found that candidate can
-                // initiate the session), don't bother checking in this direction
-                !alreadyEstablished.contains(candidateId)
-                    // Ensure candidate has compatible local/remote IP, AS, & hostname
-                    && bgpCandidatePassesSanityChecks(neighbor, candidateId, possibleHostnames, nc)
-                    // If checking reachability, ensure candidate is reachable
-                    && (!checkReachability
-                        || isReachableBgpNeighbor(
-                            neighborId, candidateId, neighbor, tracerouteEngine)))
-        .forEach(remoteId -> addEdges(neighbor, neighborId, remoteId, graph, nc));
+                bgpCandidatePassesSanityChecks(neighbor, candidateId, possibleHostnames, nc))
+        .forEach(candidateId -> candidates.add(EndpointPair.ordered(neighborId, candidateId)));
+  }
+
+  /**
+   * Returns the sessions in {@code candidates} whose initiator can reach its listener to establish
+   * the session. A session whose reverse comes earlier in {@code candidates} is only checked if the
+   * reverse session cannot be established, since otherwise the peering is already established.
+   */
+  private static @Nonnull Set<EndpointPair<BgpPeerConfigId>> reachableActiveSessions(
+      List<EndpointPair<BgpPeerConfigId>> candidates,
+      NetworkConfigurations nc,
+      TracerouteEngine tracerouteEngine) {
+    Set<EndpointPair<BgpPeerConfigId>> seen = new HashSet<>();
+    List<EndpointPair<BgpPeerConfigId>> firstRound = new ArrayList<>();
+    List<EndpointPair<BgpPeerConfigId>> deferred = new ArrayList<>();
+    for (EndpointPair<BgpPeerConfigId> candidate : candidates) {
+      (seen.contains(reverse(candidate)) ? deferred : firstRound).add(candidate);
+      seen.add(candidate);
+    }
+    Set<EndpointPair<BgpPeerConfigId>> reachable =
+        new HashSet<>(reachableBgpNeighbors(firstRound, nc, tracerouteEngine));
+    reachable.addAll(
+        reachableBgpNeighbors(
+            deferred.stream()
+                .filter(candidate -> !reachable.contains(reverse(candidate)))
+                .collect(ImmutableList.toImmutableList()),
+            nc,
+            tracerouteEngine));
+    return reachable;
+  }
+
+  private static @Nonnull EndpointPair<BgpPeerConfigId> reverse(
+      EndpointPair<BgpPeerConfigId> session) {
+    return EndpointPair.ordered(session.target(), session.source());
   }
 
   private static void addUnnumberedPeerEdges(
@@ -350,81 +404,145 @@ public final class BgpTopologyUtils {
       @Nonnull BgpPeerConfigId listenerId,
       @Nonnull BgpActivePeerConfig initiator,
       @Nonnull TracerouteEngine tracerouteEngine) {
-    // we do a bidirectional traceroute only from the initiator to the listener since the other
-    // direction will be checked once we pick up the listener as the source. This is consistent with
-    // the directional nature of BGP graph
-    assert initiatorId.getType() == BgpPeerConfigType.ACTIVE;
-    return canInitiateBgpSession(
-        initiatorId.getHostname(),
-        initiatorId.getVrfName(),
-        initiator.getLocalIp(),
-        initiator.getPeerAddress(),
-        listenerId.getHostname(),
-        BgpSessionProperties.getSessionType(initiator) == SessionType.EBGP_SINGLEHOP,
-        tracerouteEngine);
+    EndpointPair<BgpPeerConfigId> session = EndpointPair.ordered(initiatorId, listenerId);
+    return canInitiateBgpSessions(
+            ImmutableMap.of(session, new SessionCheck(initiatorId, listenerId, initiator)),
+            tracerouteEngine)
+        .contains(session);
   }
 
-  private static boolean canInitiateBgpSession(
-      @Nonnull String initiatorNode,
-      @Nonnull String initiatorVrf,
-      @Nonnull Ip initiatorIp,
-      @Nonnull Ip listenerIp,
-      @Nonnull String listenerNode,
-      boolean bgpSingleHop,
+  /**
+   * Returns the sessions in {@code sessions}, each directed from an active initiator to its
+   * listener, for which the initiator can reach the listener to establish the session (see {@link
+   * #isReachableBgpNeighbor(BgpPeerConfigId, BgpPeerConfigId, BgpActivePeerConfig,
+   * TracerouteEngine)}).
+   *
+   * <p>All sessions are checked with one batch of forward traces, plus one batch of reverse traces
+   * per distinct set of firewall sessions the forward traces set up. Identical flows, e.g. those of
+   * sessions from the same initiator to peers sharing an IP, are traced only once.
+   *
+   * <p>Assumes each initiator's local IP and peer address have already been confirmed nonnull.
+   */
+  public static @Nonnull Set<EndpointPair<BgpPeerConfigId>> reachableBgpNeighbors(
+      @Nonnull Collection<EndpointPair<BgpPeerConfigId>> sessions,
+      @Nonnull NetworkConfigurations nc,
       @Nonnull TracerouteEngine tracerouteEngine) {
+    return canInitiateBgpSessions(
+        sessions.stream()
+            .distinct()
+            .collect(
+                ImmutableMap.toImmutableMap(
+                    Function.identity(),
+                    session ->
+                        new SessionCheck(
+                            session.source(),
+                            session.target(),
+                            Objects.requireNonNull(
+                                nc.getBgpPointToPointPeerConfig(session.source()))))),
+        tracerouteEngine);
+  }
+
+  /** A candidate BGP session, with the flow its initiator sends to establish it */
+  private static final class SessionCheck {
+    private final @Nonnull Flow _flow;
+    private final @Nonnull String _initiatorNode;
+    private final @Nonnull String _listenerNode;
+    private final boolean _singleHop;
+
+    private SessionCheck(
+        BgpPeerConfigId initiatorId, BgpPeerConfigId listenerId, BgpActivePeerConfig initiator) {
+      // we do a bidirectional traceroute only from the initiator to the listener since the other
+      // direction will be checked once we pick up the listener as the source. This is consistent
+      // with the directional nature of BGP graph
+      assert initiatorId.getType() == BgpPeerConfigType.ACTIVE;
+      _flow =
+          Flow.builder()
+              .setIpProtocol(IpProtocol.TCP)
+              .setTcpFlagsSyn(1)
+              .setTag("neighbor-resolution")
+              .setIngressNode(initiatorId.getHostname())
+              .setIngressVrf(initiatorId.getVrfName())
+              .setSrcIp(initiator.getLocalIp())
+              .setDstIp(initiator.getPeerAddress())
+              .setSrcPort(NamedPort.EPHEMERAL_LOWEST.number())
+              .setDstPort(NamedPort.BGP.number())
+              .build();
+      _initiatorNode = initiatorId.getHostname();
+      _listenerNode = listenerId.getHostname();
+      _singleHop = BgpSessionProperties.getSessionType(initiator) == SessionType.EBGP_SINGLEHOP;
+    }
 
-    Flow flowFromSrc =
-        Flow.builder()
-            .setIpProtocol(IpProtocol.TCP)
-            .setTcpFlagsSyn(1)
-            .setTag("neighbor-resolution")
-            .setIngressNode(initiatorNode)
-            .setIngressVrf(initiatorVrf)
-            .setSrcIp(initiatorIp)
-            .setDstIp(listenerIp)
-            .setSrcPort(NamedPort.EPHEMERAL_LOWEST.number())
-            .setDstPort(NamedPort.BGP.number())
-            .build();
-
-    List<TraceAndReverseFlow> forwardTracesAndReverseFlows =
-        tracerouteEngine
-            .computeTracesAndReverseFlows(ImmutableSet.of(flowFromSrc), false)
-            .get(flowFromSrc);
-
-    List<TraceAndReverseFlow> reverseTraces =
-        forwardTracesAndReverseFlows.stream()
-            .filter(
-                traceAndReverseFlow -> {
-                  Trace forwardTrace = traceAndReverseFlow.getTrace();
-                  return forwardTrace.getDisposition() == FlowDisposition.ACCEPTED
-                      && (!bgpSingleHop || forwardTrace.getHops().size() <= 2);
-                })
-            .filter(
-                traceAndReverseFlow ->
-                    traceAndReverseFlow.getReverseFlow() != null
-                        && traceAndReverseFlow
-                            .getReverseFlow()
-                            .getIngressNode()
-                            .equals(listenerNode))
-            .flatMap(
-                traceAndReverseFlow ->
-                    tracerouteEngine
-                        .computeTracesAndReverseFlows(
-                            ImmutableSet.of(traceAndReverseFlow.getReverseFlow()),
-                            traceAndReverseFlow.getNewFirewallSessions(),
-                            false)
-                        .get(traceAndReverseFlow.getReverseFlow()).stream())
-            .collect(ImmutableList.toImmutableList());
-
-    return reverseTraces.stream()
-        .anyMatch(
-            traceAndReverseFlow -> {
-              Trace reverseTrace = traceAndReverseFlow.getTrace();
-              List<Hop> hops = reverseTrace.getHops();
-              return !hops.isEmpty()
-                  && hops.get(hops.size() - 1).getNode().getName().equals(initiatorNode)
-                  && reverseTrace.getDisposition() == FlowDisposition.ACCEPTED;
-            });
+    /** Whether the forward trace reaches the listener, so that its reverse flow should be traced */
+    private boolean reachesListener(TraceAndReverseFlow traceAndReverseFlow) {
+      Trace forwardTrace = traceAndReverseFlow.getTrace();
+      Flow reverseFlow = traceAndReverseFlow.getReverseFlow();
+      return forwardTrace.getDisposition() == FlowDisposition.ACCEPTED
+          && (!_singleHop || forwardTrace.getHops().size() <= 2)
+          && reverseFlow != null
+          && reverseFlow.getIngressNode().equals(_listenerNode);
+    }
+
+    /** Whether the reverse trace is accepted by the initiator */
+    private boolean reachesInitiator(TraceAndReverseFlow traceAndReverseFlow) {
+      Trace reverseTrace = traceAndReverseFlow.getTrace();
+      List<Hop> hops = reverseTrace.getHops();
+      return !hops.isEmpty()
+          && hops.get(hops.size() - 1).getNode().getName().equals(_initiatorNode)
+          && reverseTrace.getDisposition() == FlowDisposition.ACCEPTED;
+    }
+  }
+
+  private static @Nonnull Set<EndpointPair<BgpPeerConfigId>> canInitiateBgpSessions(
+      Map<EndpointPair<BgpPeerConfigId>, SessionCheck> checks, TracerouteEngine tracerouteEngine) {
+    if (checks.isEmpty()) {
+      return ImmutableSet.of();
+    }
+
+    Set<Flow> forwardFlows =
+        checks.values().stream().map(check -> check._flow).collect(ImmutableSet.toImmutableSet());
+    SortedMap<Flow, List<TraceAndReverseFlow>> forwardTraces =
+        tracerouteEngine.computeTracesAndReverseFlows(forwardFlows, false);
+
+    // Reverse flows must be traced with the firewall sessions set up by their forward flow, so
+    // batch them by those sessions.
+    Map<EndpointPair<BgpPeerConfigId>, List<TraceAndReverseFlow>> toListener = new HashMap<>();
+    Map<Set<FirewallSessionTraceInfo>, Set<Flow>> reverseFlowsBySessions = new HashMap<>();
+    checks.forEach(
+        (session, check) -> {
+          List<TraceAndReverseFlow> reaching =
+              forwardTraces.get(check._flow).stream()
+                  .filter(check::reachesListener)
+                  .collect(ImmutableList.toImmutableList());
+          toListener.put(session, reaching);
+          reaching.forEach(
+              traceAndReverseFlow ->
+                  reverseFlowsBySessions
+                      .computeIfAbsent(
+                          traceAndReverseFlow.getNewFirewallSessions(), k -> new HashSet<>())
+                      .add(traceAndReverseFlow.getReverseFlow()));
+        });
+    Map<Set<FirewallSessionTraceInfo>, SortedMap<Flow, List<TraceAndReverseFlow>>> reverseTraces =
+        new HashMap<>();
+    reverseFlowsBySessions.forEach(
+        (firewallSessions, reverseFlows) ->
+            reverseTraces.put(
+                firewallSessions,
+                tracerouteEngine.computeTracesAndReverseFlows(
+                    reverseFlows, firewallSessions, false)));
+
+    return toListener.entrySet().stream()
+        .filter(
+            entry -> {
+              SessionCheck check = checks.get(entry.getKey());
+              return entry.getValue().stream()
+                  .flatMap(
+                      traceAndReverseFlow ->
+                          reverseTraces.get(traceAndReverseFlow.getNewFirewallSessions())
+                              .get(traceAndReverseFlow.getReverseFlow()).stream())
+                  .anyMatch(check::reachesInitiator);
+            })
+        .map(Entry::getKey)
+        .collect(ImmutableSet.toImmutableSet());
   }
 
   private BgpTopologyUtils() {}
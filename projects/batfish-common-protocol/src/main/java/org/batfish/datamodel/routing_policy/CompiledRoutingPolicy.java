@@ -0,0 +1,327 @@
+package org.batfish.datamodel.routing_policy;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.CommunityList;
+import org.batfish.datamodel.CommunityListLine;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.RouteFilterList;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.bgp.community.Community;
+import org.batfish.datamodel.routing_policy.expr.BooleanExpr;
+import org.batfish.datamodel.routing_policy.expr.BooleanExprs.StaticBooleanExpr;
+import org.batfish.datamodel.routing_policy.expr.CallExpr;
+import org.batfish.datamodel.routing_policy.expr.Conjunction;
+import org.batfish.datamodel.routing_policy.expr.DestinationNetwork;
+import org.batfish.datamodel.routing_policy.expr.Disjunction;
+import org.batfish.datamodel.routing_policy.expr.FirstMatchChain;
+import org.batfish.datamodel.routing_policy.expr.LiteralCommunity;
+import org.batfish.datamodel.routing_policy.expr.MatchCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.MatchPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.MatchProtocol;
+import org.batfish.datamodel.routing_policy.expr.NamedCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.NamedPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.Not;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+import org.batfish.datamodel.routing_policy.statement.Statements.StaticStatement;
+
+/**
+ * A {@link RoutingPolicy} compiled into a tree of closures over an {@link Environment}.
+ *
+ * <p>The control flow of the policy ({@link If}, {@link Conjunction}, {@link Disjunction}, {@link
+ * Not}, {@link FirstMatchChain}, and constant statements and expressions) is compiled, as are the
+ * most common matches: protocols, and named prefix and community sets, which are looked up in the
+ * owner {@link Configuration} once, at compile time. A community list of literal communities is
+ * compiled into a hash set of the communities it permits. All other statements and expressions are
+ * evaluated by the interpreter, so a compiled policy has the same results and side effects as
+ * {@link RoutingPolicy#call}, as long as the named structures of the owner are not changed after
+ * compilation.
+ */
+@ParametersAreNonnullByDefault
+final class CompiledRoutingPolicy {
+
+  /** A compiled {@link Statement} or {@link BooleanExpr}. */
+  @FunctionalInterface
+  private interface Program {
+    @Nonnull
+    Result run(Environment environment);
+  }
+
+  private static final Result FALSE = new Result(false);
+  private static final Result TRUE = new Result(true);
+  private static final Result EXIT_ACCEPT = new Result(true, true, false, false);
+  private static final Result EXIT_REJECT = new Result(false, true, false, false);
+  private static final Result FALL_THROUGH = new Result(false, false, true, false);
+  private static final Result FALL_THROUGH_ACCEPT = new Result(true, false, true, false);
+  private static final Result RETURN = new Result(false, false, false, true);
+  private static final Result RETURN_FALL_THROUGH = new Result(false, false, true, true);
+  private static final Result RETURN_TRUE = new Result(true, false, false, true);
+
+  static @Nonnull CompiledRoutingPolicy compile(RoutingPolicy policy, Configuration owner) {
+    return new CompiledRoutingPolicy(owner, policy.getStatements());
+  }
+
+  private final @Nonnull Configuration _owner;
+  private final @Nonnull Program[] _statements;
+
+  private CompiledRoutingPolicy(Configuration owner, List<Statement> statements) {
+    _owner = owner;
+    _statements = compileStatements(statements);
+  }
+
+  /**
+   * Returns true if this policy can be evaluated in {@code environment}, i.e., if the named
+   * structures of the environment are those of the owner the policy was compiled against.
+   */
+  boolean appliesTo(Environment environment) {
+    return environment.getRouteFilterLists() == _owner.getRouteFilterLists()
+        && environment.getCommunityLists() == _owner.getCommunityLists();
+  }
+
+  /** Same as {@link RoutingPolicy#call}. */
+  @Nonnull
+  Result call(Environment environment) {
+    for (Program statement : _statements) {
+      Result result = statement.run(environment);
+      if (result.getExit()) {
+        return result;
+      }
+      if (result.getReturn()) {
+        return withoutReturn(result);
+      }
+    }
+    return environment.getDefaultAction() ? FALL_THROUGH_ACCEPT : FALL_THROUGH;
+  }
+
+  private static @Nonnull Result withoutReturn(Result result) {
+    return result.getReturn() ? result.toBuilder().setReturn(false).build() : result;
+  }
+
+  private @Nonnull Program[] compileStatements(List<Statement> statements) {
+    return statements.stream().map(this::compileStatement).toArray(Program[]::new);
+  }
+
+  private @Nonnull Program compileStatement(Statement statement) {
+    if (statement instanceof If) {
+      return compileIf((If) statement);
+    } else if (statement instanceof StaticStatement) {
+      switch (((StaticStatement) statement).getType()) {
+        case ExitAccept:
+          return environment -> EXIT_ACCEPT;
+        case ExitReject:
+          return environment -> EXIT_REJECT;
+        case FallThrough:
+          return environment -> RETURN_FALL_THROUGH;
+        case Return:
+        case ReturnFalse:
+          return environment -> RETURN;
+        case ReturnTrue:
+          return environment -> RETURN_TRUE;
+        default:
+          break;
+      }
+    }
+    return statement::execute;
+  }
+
+  private @Nonnull Program compileIf(If statement) {
+    Program guard = compileBooleanExpr(statement.getGuard());
+    Program[] trueStatements = compileStatements(statement.getTrueStatements());
+    Program[] falseStatements = compileStatements(statement.getFalseStatements());
+    return environment -> {
+      Result guardResult = guard.run(environment);
+      if (guardResult.getExit()) {
+        return guardResult;
+      }
+      for (Program s : guardResult.getBooleanValue() ? trueStatements : falseStatements) {
+        Result result = s.run(environment);
+        if (result.getExit() || result.getReturn()) {
+          return result;
+        }
+      }
+      return FALL_THROUGH;
+    };
+  }
+
+  private @Nonnull Program compileBooleanExpr(BooleanExpr expr) {
+    if (expr instanceof Conjunction) {
+      return compileConjunction((Conjunction) expr);
+    } else if (expr instanceof Disjunction) {
+      return compileDisjunction((Disjunction) expr);
+    } else if (expr instanceof Not) {
+      Program negated = compileBooleanExpr(((Not) expr).getExpr());
+      return environment -> {
+        Result result = negated.run(environment);
+        return result.getExit() ? result : result.getBooleanValue() ? FALSE : TRUE;
+      };
+    } else if (expr instanceof FirstMatchChain) {
+      return compileFirstMatchChain((FirstMatchChain) expr);
+    } else if (expr instanceof StaticBooleanExpr) {
+      switch (((StaticBooleanExpr) expr).getType()) {
+        case False:
+          return environment -> FALSE;
+        case True:
+          return environment -> TRUE;
+        default:
+          return expr::evaluate;
+      }
+    } else if (expr instanceof MatchProtocol) {
+      Set<RoutingProtocol> protocols = Sets.immutableEnumSet(((MatchProtocol) expr).getProtocols());
+      return environment ->
+          protocols.contains(environment.getOriginalRoute().getProtocol()) ? TRUE : FALSE;
+    } else if (expr instanceof MatchPrefixSet) {
+      Program program = compileMatchPrefixSet((MatchPrefixSet) expr);
+      if (program != null) {
+        return program;
+      }
+    } else if (expr instanceof MatchCommunitySet) {
+      Program program = compileMatchCommunitySet((MatchCommunitySet) expr);
+      if (program != null) {
+        return program;
+      }
+    }
+    return expr::evaluate;
+  }
+
+  private @Nonnull Program compileConjunction(Conjunction conjunction) {
+    Program[] conjuncts =
+        conjunction.getConjuncts().stream().map(this::compileBooleanExpr).toArray(Program[]::new);
+    return environment -> {
+      for (Program conjunct : conjuncts) {
+        Result result = conjunct.run(environment);
+        if (result.getExit()) {
+          return result;
+        } else if (!result.getBooleanValue()) {
+          return withoutReturn(result);
+        }
+      }
+      return TRUE;
+    };
+  }
+
+  private @Nonnull Program compileDisjunction(Disjunction disjunction) {
+    Program[] disjuncts =
+        disjunction.getDisjuncts().stream().map(this::compileBooleanExpr).toArray(Program[]::new);
+    return environment -> {
+      for (Program disjunct : disjuncts) {
+        Result result = disjunct.run(environment);
+        if (result.getExit()) {
+          return result;
+        } else if (result.getBooleanValue()) {
+          return withoutReturn(result);
+        }
+      }
+      return FALSE;
+    };
+  }
+
+  private @Nonnull Program compileFirstMatchChain(FirstMatchChain chain) {
+    Program[] subroutines =
+        chain.getSubroutines().stream().map(this::compileBooleanExpr).toArray(Program[]::new);
+    return environment -> {
+      for (Program subroutine : subroutines) {
+        Result result = subroutine.run(environment);
+        if (result.getExit()) {
+          // Reached an exit/terminal action. Return regardless of boolean value
+          return result;
+        } else if (!result.getFallThrough()) {
+          // Found first match, short-circuit here
+          return withoutReturn(result);
+        }
+      }
+      String defaultPolicy = environment.getDefaultPolicy();
+      if (defaultPolicy == null) {
+        throw new BatfishException("Default policy is not set");
+      }
+      return withoutReturn(new CallExpr(defaultPolicy).evaluate(environment));
+    };
+  }
+
+  /**
+   * Compiles a match of the destination network against a named prefix set, or returns {@code null}
+   * for any other match.
+   */
+  private @Nullable Program compileMatchPrefixSet(MatchPrefixSet expr) {
+    if (!(expr.getPrefix() instanceof DestinationNetwork)
+        || !(expr.getPrefixSet() instanceof NamedPrefixSet)) {
+      return null;
+    }
+    RouteFilterList list =
+        _owner.getRouteFilterLists().get(((NamedPrefixSet) expr.getPrefixSet()).getName());
+    if (list == null) {
+      // leave it to the interpreter to flag the error
+      return null;
+    }
+    return environment -> list.permits(environment.getOriginalRoute().getNetwork()) ? TRUE : FALSE;
+  }
+
+  /** Compiles a match against a named community set, or returns {@code null} for any other. */
+  private @Nullable Program compileMatchCommunitySet(MatchCommunitySet expr) {
+    if (!(expr.getExpr() instanceof NamedCommunitySet)) {
+      return null;
+    }
+    CommunityList list =
+        _owner.getCommunityLists().get(((NamedCommunitySet) expr.getExpr()).getName());
+    if (list == null) {
+      return null;
+    }
+    Set<Community> permitted = permittedLiteralCommunities(list);
+    if (permitted != null) {
+      return environment -> {
+        SortedSet<Community> communities = inputCommunities(environment);
+        return communities != null && communities.stream().anyMatch(permitted::contains)
+            ? TRUE
+            : FALSE;
+      };
+    }
+    return environment -> {
+      SortedSet<Community> communities = inputCommunities(environment);
+      return communities != null && list.matchAnyCommunity(environment, communities) ? TRUE : FALSE;
+    };
+  }
+
+  /**
+   * Returns the communities permitted by {@code list} if all its lines match literal communities,
+   * or {@code null} otherwise.
+   */
+  private static @Nullable Set<Community> permittedLiteralCommunities(CommunityList list) {
+    Set<Community> matched = new HashSet<>();
+    ImmutableSet.Builder<Community> permitted = ImmutableSet.builder();
+    for (CommunityListLine line : list.getLines()) {
+      if (!(line.getMatchCondition() instanceof LiteralCommunity)) {
+        return null;
+      }
+      Community community = ((LiteralCommunity) line.getMatchCondition()).getCommunity();
+      // the first line matching a community decides
+      if (matched.add(community)
+          && list.getInvertMatch() != (line.getAction() == LineAction.PERMIT)) {
+        permitted.add(community);
+      }
+    }
+    return permitted.build();
+  }
+
+  /** The communities {@link MatchCommunitySet} matches against. */
+  private static @Nullable SortedSet<Community> inputCommunities(Environment environment) {
+    if (environment.getUseOutputAttributes()
+        && environment.getOutputRoute() instanceof BgpRoute.Builder<?, ?>) {
+      return ((BgpRoute.Builder<?, ?>) environment.getOutputRoute()).getCommunities();
+    } else if (environment.getReadFromIntermediateBgpAttributes()) {
+      return environment.getIntermediateBgpAttributes().getCommunities();
+    } else if (environment.getOriginalRoute() instanceof BgpRoute) {
+      return ((BgpRoute<?, ?>) environment.getOriginalRoute()).getCommunities();
+    }
+    return null;
+  }
+}
@@ -100,6 +100,8 @@ public class Environment {
 
   @Nullable private final Prefix _peerPrefix;
 
+  private boolean _peerUsed;
+
   private boolean _readFromIntermediateBgpAttributes;
 
   private final Map<String, Route6FilterList> _route6FilterLists;
@@ -246,14 +248,24 @@ public class Environment {
 
   @Nullable
   public Ip getPeerAddress() {
+    _peerUsed = true;
     return _peerAddress;
   }
 
   @Nullable
   public Prefix getPeerPrefix() {
+    _peerUsed = true;
     return _peerPrefix;
   }
 
+  /**
+   * Whether the peer address or prefix has been read, i.e. whether the result of evaluating a
+   * policy in this environment may depend on the peer.
+   */
+  public boolean getPeerUsed() {
+    return _peerUsed;
+  }
+
   public boolean getReadFromIntermediateBgpAttributes() {
     return _readFromIntermediateBgpAttributes;
   }
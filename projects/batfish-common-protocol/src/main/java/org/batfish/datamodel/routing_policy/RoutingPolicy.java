@@ -83,6 +83,7 @@ public class RoutingPolicy implements Serializable {
   private static final String PROP_NAME = "name";
   private static final String PROP_STATEMENTS = "statements";
 
+  @Nullable private transient CompiledRoutingPolicy _compiled;
   @Nonnull private final String _name;
   @Nullable private Configuration _owner;
   @Nullable private transient Set<String> _sources;
@@ -113,6 +114,10 @@ public class RoutingPolicy implements Serializable {
   }
 
   public Result call(Environment environment) {
+    CompiledRoutingPolicy compiled = _compiled;
+    if (compiled != null && compiled.appliesTo(environment)) {
+      return compiled.call(environment);
+    }
     for (Statement statement : _statements) {
       Result result = statement.execute(environment);
       if (result.getExit()) {
@@ -128,6 +133,22 @@ public class RoutingPolicy implements Serializable {
         .build();
   }
 
+  /**
+   * Compiles this policy for faster evaluation by {@link #call} and {@link #process}, replacing any
+   * previous compilation. The named structures of the owner (e.g. route filter lists and community
+   * lists) must not change afterwards.
+   */
+  public void compile() {
+    checkState(_owner != null, "Cannot compile routing policy without a Configuration");
+    _compiled = CompiledRoutingPolicy.compile(this, _owner);
+  }
+
+  /** Returns whether this policy is {@link #compile() compiled}. */
+  @JsonIgnore
+  public boolean isCompiled() {
+    return _compiled != null;
+  }
+
   public Set<String> computeSources(
       Set<String> parentSources, Map<String, RoutingPolicy> routingPolicies, Warnings w) {
     if (_sources == null) {
@@ -217,6 +238,15 @@ public class RoutingPolicy implements Serializable {
             .setDirection(direction)
             .setPeerPrefix(peerPrefix)
             .build();
+    return process(environment);
+  }
+
+  /**
+   * Evaluates this policy on the route in {@code environment}.
+   *
+   * @return True if the policy accepts the route.
+   */
+  public boolean process(Environment environment) {
     Result result = call(environment);
     return result.getBooleanValue() && !(Boolean.TRUE.equals(environment.getSuppressed()));
   }
@@ -224,6 +254,7 @@ public class RoutingPolicy implements Serializable {
   @JsonProperty(PROP_STATEMENTS)
   public void setStatements(@Nullable List<Statement> statements) {
     _statements = firstNonNull(statements, ImmutableList.of());
+    _compiled = null;
   }
 
   public RoutingPolicy simplify() {
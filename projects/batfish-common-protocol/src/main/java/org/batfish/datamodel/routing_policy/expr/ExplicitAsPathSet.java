@@ -7,12 +7,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.batfish.datamodel.AsPath;
 import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.RegexMatcher;
 import org.batfish.datamodel.routing_policy.Environment;
 
 /**
@@ -28,6 +28,9 @@ public final class ExplicitAsPathSet extends AsPathSetExpr {
 
   @Nonnull private List<AsPathSetElem> _elems;
 
+  /** Matcher for the regexes of {@link #_elems}, created on first use. */
+  @Nullable private transient RegexMatcher<AsPath> _matcher;
+
   @JsonCreator
   private static ExplicitAsPathSet jsonCreator(
       @Nullable @JsonProperty(PROP_ELEMS) List<AsPathSetElem> elems) {
@@ -83,13 +86,27 @@ public final class ExplicitAsPathSet extends AsPathSetExpr {
     }
     // TODO: need to validate regexes against complex AS-Paths that contain sets. For now, regexes
     // will not match against AsPaths for which set components have non-trivial filters.
-    String asPathStr = asPath.size() == 0 ? "" : " " + asPath.getAsPathString();
-    return _elems.stream()
-        .map(AsPathSetElem::regex)
-        .anyMatch(r -> Pattern.compile(r).matcher(asPathStr).find());
+    return getMatcher().matches(asPath);
+  }
+
+  /**
+   * Returns the matcher for the current elements. It is held here so that it and its memoized
+   * results live as long as this set, rather than only as long as the shared matcher cache keeps
+   * it.
+   */
+  private @Nonnull RegexMatcher<AsPath> getMatcher() {
+    RegexMatcher<AsPath> matcher = _matcher;
+    if (matcher == null) {
+      matcher =
+          RegexMatcher.forSpacePrefixedAsPaths(
+              _elems.stream().map(AsPathSetElem::regex).collect(ImmutableList.toImmutableList()));
+      _matcher = matcher;
+    }
+    return matcher;
   }
 
   public void setElems(List<AsPathSetElem> elems) {
     _elems = elems;
+    _matcher = null;
   }
 }
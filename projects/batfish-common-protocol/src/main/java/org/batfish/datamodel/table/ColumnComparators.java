@@ -0,0 +1,130 @@
+package org.batfish.datamodel.table;
+
+import static com.google.common.collect.Comparators.lexicographical;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
+
+import com.google.common.collect.Comparators;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.ColumnSortOption;
+import org.batfish.datamodel.acl.AclTrace;
+import org.batfish.datamodel.acl.TraceEvent;
+import org.batfish.datamodel.answers.Issue;
+import org.batfish.datamodel.answers.Schema;
+import org.batfish.datamodel.answers.Schema.Type;
+import org.batfish.datamodel.flow.Hop;
+import org.batfish.datamodel.flow.Step;
+import org.batfish.datamodel.flow.Trace;
+import org.batfish.datamodel.pojo.Node;
+
+/** Comparators used to sort the {@link Row rows} of a table by the values in its columns. */
+@ParametersAreNonnullByDefault
+public final class ColumnComparators {
+
+  private static final Comparator<AclTrace> COMPARATOR_ACL_TRACE =
+      Comparator.comparing(
+          AclTrace::getEvents,
+          Comparators.lexicographical(Comparator.comparing(TraceEvent::getDescription)));
+
+  private static final Comparator<Node> COMPARATOR_NODE = Comparator.comparing(Node::getName);
+
+  private static final Comparator<Trace> COMPARATOR_TRACE =
+      Comparator.comparing(Trace::getDisposition)
+          .thenComparing(
+              Trace::getHops,
+              Comparators.lexicographical(
+                  Comparator.comparing(Hop::getNode, Comparator.comparing(Node::getName))
+                      .thenComparing(
+                          Hop::getSteps,
+                          Comparators.lexicographical(
+                              Comparator.<Step<?>, String>comparing(
+                                      step -> step.getDetail().toString())
+                                  .thenComparing(Step::getAction)))));
+
+  /**
+   * Returns a comparator of rows that sorts by each column in {@code sortOrder} in turn. {@code
+   * rawColumnMap} must contain the metadata of each such column.
+   */
+  public static @Nonnull Comparator<Row> buildComparator(
+      Map<String, ColumnMetadata> rawColumnMap, List<ColumnSortOption> sortOrder) {
+    ColumnSortOption firstColumnSortOption = sortOrder.get(0);
+    ColumnMetadata firstMetadata = rawColumnMap.get(firstColumnSortOption.getColumn());
+    Comparator<Row> comparator = columnComparator(firstMetadata);
+    if (firstColumnSortOption.getReversed()) {
+      comparator = comparator.reversed();
+    }
+    for (int i = 1; i < sortOrder.size(); i++) {
+      ColumnSortOption columnSortOption = sortOrder.get(i);
+      Comparator<Row> nextComparator =
+          columnComparator(rawColumnMap.get(columnSortOption.getColumn()));
+      if (columnSortOption.getReversed()) {
+        nextComparator = nextComparator.reversed();
+      }
+      comparator = comparator.thenComparing(nextComparator);
+    }
+    return comparator;
+  }
+
+  /**
+   * Returns a comparator of rows by the value in the column described by {@code columnMetadata},
+   * with {@code null} values first.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public static @Nonnull Comparator<Row> columnComparator(ColumnMetadata columnMetadata) {
+    Schema schema = columnMetadata.getSchema();
+    Comparator schemaComparator = schemaComparator(schema);
+    Comparator comparator =
+        comparing((Row r) -> r.get(columnMetadata.getName(), schema), nullsFirst(schemaComparator));
+    return comparator;
+  }
+
+  /**
+   * Returns a comparator of non-null values of the given {@link Schema}, as converted by {@link
+   * Row#get(String, Schema)}.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public static @Nonnull Comparator<?> schemaComparator(Schema schema) {
+    if (schema.equals(Schema.ACL_TRACE)) {
+      return COMPARATOR_ACL_TRACE;
+    } else if (schema.equals(Schema.BOOLEAN)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.DOUBLE)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.FLOW)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.INTEGER)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.INTERFACE)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.IP)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.ISSUE)) {
+      return comparing(Issue::getSeverity);
+    } else if (schema.getType() == Type.LIST) {
+      Comparator schemaComparator = schemaComparator(schema.getInnerSchema());
+      return lexicographical(nullsFirst(schemaComparator));
+    } else if (schema.equals(Schema.LONG)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.NODE)) {
+      return COMPARATOR_NODE;
+    } else if (schema.equals(Schema.PREFIX)) {
+      return naturalOrder();
+    } else if (schema.getType() == Type.SET) {
+      Comparator schemaComparator = schemaComparator(schema.getInnerSchema());
+      return lexicographical(nullsFirst(schemaComparator));
+    } else if (schema.equals(Schema.STRING)) {
+      return naturalOrder();
+    } else if (schema.equals(Schema.TRACE)) {
+      return COMPARATOR_TRACE;
+    } else {
+      return comparing(Object::toString);
+    }
+  }
+
+  private ColumnComparators() {} // prevent instantiation
+}
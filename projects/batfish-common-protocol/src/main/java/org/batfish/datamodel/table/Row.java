@@ -5,20 +5,31 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -46,21 +57,38 @@ import org.batfish.datamodel.questions.Exclusion;
 
 /**
  * Represents one row of the table answer. Each row is basically a map of key value pairs, where the
- * key is the column name and the value (currently) is JsonNode.
+ * key is the column name and the value is the object put in the row by a {@link RowBuilder} (or a
+ * {@link JsonNode}, for rows read from JSON).
  */
 @ParametersAreNonnullByDefault
+@JsonSerialize(using = Row.RowSerializer.class)
 public class Row implements Comparable<Row>, Serializable {
 
+  /** Base types of schemas whose values are immutable. */
+  private static final Set<Class<?>> IMMUTABLE_BASE_TYPES =
+      ImmutableSet.of(
+          Boolean.class,
+          Double.class,
+          Integer.class,
+          Ip.class,
+          Long.class,
+          NodeInterfacePair.class,
+          Prefix.class,
+          String.class);
+
   public abstract static class RowBuilder {
 
-    @Nonnull protected final ObjectNode _data;
+    /** Values by column, in the order columns were first put */
+    @Nonnull private final Map<String, Object> _values;
 
     private RowBuilder() {
-      _data = BatfishObjectMapper.mapper().createObjectNode();
+      _values = new LinkedHashMap<>();
     }
 
     public Row build() {
-      return new Row(_data.deepCopy());
+      int size = _values.size();
+      return new Row(
+          _values.keySet().toArray(new String[size]), _values.values().toArray(new Object[size]));
     }
 
     @VisibleForTesting
@@ -86,7 +114,7 @@ public class Row implements Comparable<Row>, Serializable {
      * <p>Any existing values for the column are overwritten
      */
     public RowBuilder put(String column, @Nullable Object value) {
-      _data.set(column, BatfishObjectMapper.mapper().valueToTree(value));
+      _values.put(column, snapshot(value));
       return this;
     }
 
@@ -101,9 +129,33 @@ public class Row implements Comparable<Row>, Serializable {
      * @throws NoSuchElementException if one of the columns is not present in {@code otherRow}.
      */
     public RowBuilder putAll(Row otherRow, Collection<String> columns) {
-      columns.forEach(col -> put(col, otherRow.get(col)));
+      columns.forEach(col -> put(col, otherRow.getRaw(col)));
       return this;
     }
+
+    boolean has(String column) {
+      return _values.containsKey(column);
+    }
+
+    /**
+     * Returns a value that will not change if {@code value} is modified after it is put, so that
+     * builders (and the collections passed to them) can be reused. Values are otherwise stored by
+     * reference.
+     */
+    private static @Nullable Object snapshot(@Nullable Object value) {
+      if (value instanceof JsonNode) {
+        return ((JsonNode) value).deepCopy();
+      } else if (value instanceof ImmutableCollection || value instanceof ImmutableMap) {
+        return value;
+      } else if (value instanceof List) {
+        return new ArrayList<>((List<?>) value);
+      } else if (value instanceof Set) {
+        return new LinkedHashSet<>((Set<?>) value);
+      } else if (value instanceof Map) {
+        return new LinkedHashMap<>((Map<?, ?>) value);
+      }
+      return value;
+    }
   }
 
   public static final class TypedRowBuilder extends RowBuilder {
@@ -141,7 +193,7 @@ public class Row implements Comparable<Row>, Serializable {
     @Override
     public Row build() {
       // Fill in missing columns with null entries
-      _columnNames.stream().filter(c -> !_data.has(c)).forEach(c -> super.put(c, null));
+      _columnNames.stream().filter(c -> !has(c)).forEach(c -> super.put(c, null));
       return super.build();
     }
   }
@@ -150,7 +202,14 @@ public class Row implements Comparable<Row>, Serializable {
     private UntypedRowBuilder() {}
   }
 
-  @Nonnull private final ObjectNode _data;
+  /*
+   * Rows built by a RowBuilder keep the values that were put in them, and only convert them to JSON
+   * when written. Rows read from JSON keep the JSON. Either way, the JSON form is materialized on
+   * demand for the accessors that expose it.
+   */
+  @Nullable private final transient String[] _columns;
+  @Nullable private final transient Object[] _values;
+  @Nullable private transient volatile ObjectNode _data;
 
   /**
    * Returns a new {@link Row} with the given entries.
@@ -175,9 +234,16 @@ public class Row implements Comparable<Row>, Serializable {
 
   @JsonCreator
   private Row(ObjectNode data) {
+    _columns = null;
+    _values = null;
     _data = firstNonNull(data, BatfishObjectMapper.mapper().createObjectNode());
   }
 
+  private Row(String[] columns, Object[] values) {
+    _columns = columns;
+    _values = values;
+  }
+
   /** Returns an {@link UntypedRowBuilder} object for Row */
   public static UntypedRowBuilder builder() {
     return new UntypedRowBuilder();
@@ -212,7 +278,7 @@ public class Row implements Comparable<Row>, Serializable {
     if (!(o instanceof Row)) {
       return false;
     }
-    return _data.equals(((Row) o)._data);
+    return getData().equals(((Row) o).getData());
   }
 
   /**
@@ -223,10 +289,11 @@ public class Row implements Comparable<Row>, Serializable {
    * @throws NoSuchElementException if this column does not exist
    */
   public JsonNode get(String columnName) {
-    if (!_data.has(columnName)) {
+    ObjectNode data = getData();
+    if (!data.has(columnName)) {
       throw new NoSuchElementException(missingColumnErrorMessage(columnName, getColumnNames()));
     }
-    return _data.get(columnName);
+    return data.get(columnName);
   }
 
   /**
@@ -238,13 +305,59 @@ public class Row implements Comparable<Row>, Serializable {
    * @throws ClassCastException if the recovered data cannot be cast to the expected object
    */
   public Object get(String columnName, Schema columnSchema) {
-    if (!_data.has(columnName)) {
-      throw new NoSuchElementException(missingColumnErrorMessage(columnName, getColumnNames()));
-    }
-    if (_data.get(columnName).isNull()) {
+    Object value = getRaw(columnName);
+    if (value == null) {
       return null;
+    } else if (value instanceof JsonNode) {
+      return SchemaUtils.convertType((JsonNode) value, columnSchema);
+    } else if (!isImmutable(columnSchema) || !SchemaUtils.isInstance(value, columnSchema)) {
+      // Converting through JSON also copies values, e.g. live Vrfs put in by a property specifier,
+      // so that callers cannot modify them through the row
+      return SchemaUtils.convertType(BatfishObjectMapper.mapper().valueToTree(value), columnSchema);
+    }
+    // Already the right type; copy collections so that callers cannot modify the row
+    switch (columnSchema.getType()) {
+      case LIST:
+        return new ArrayList<>((List<?>) value);
+      case SET:
+        return new HashSet<>((Set<?>) value);
+      default:
+        return value;
     }
-    return SchemaUtils.convertType(_data.get(columnName), columnSchema);
+  }
+
+  /**
+   * Returns whether values of {@code schema} are immutable, so that stored values (or copies of
+   * stored collections of them) can be returned from {@link #get(String, Schema)} directly.
+   */
+  private static boolean isImmutable(Schema schema) {
+    switch (schema.getType()) {
+      case BASE:
+        return IMMUTABLE_BASE_TYPES.contains(schema.getBaseType());
+      case LIST:
+      case SET:
+        return isImmutable(schema.getInnerSchema());
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns the value of {@code columnName} as it is stored: either the object that was put in the
+   * row, or a {@link JsonNode} if the row was read from JSON.
+   *
+   * @throws NoSuchElementException if this column is not present
+   */
+  private @Nullable Object getRaw(String columnName) {
+    if (_columns == null) {
+      return get(columnName);
+    }
+    for (int i = 0; i < _columns.length; i++) {
+      if (_columns[i].equals(columnName)) {
+        return _values[i];
+      }
+    }
+    throw new NoSuchElementException(missingColumnErrorMessage(columnName, getColumnNames()));
   }
 
   /** Get the value of specified column safely cast to type specifed via {@code typeReference}. */
@@ -276,13 +389,25 @@ public class Row implements Comparable<Row>, Serializable {
    */
   public Set<String> getColumnNames() {
     HashSet<String> columns = new HashSet<>();
-    _data.fieldNames().forEachRemaining(columns::add);
+    if (_columns != null) {
+      Collections.addAll(columns, _columns);
+    } else {
+      getData().fieldNames().forEachRemaining(columns::add);
+    }
     return columns;
   }
 
-  @JsonValue
   private ObjectNode getData() {
-    return _data;
+    ObjectNode data = _data;
+    if (data == null) {
+      ObjectMapper mapper = BatfishObjectMapper.mapper();
+      data = mapper.createObjectNode();
+      for (int i = 0; i < _columns.length; i++) {
+        data.set(_columns[i], mapper.valueToTree(_values[i]));
+      }
+      _data = data;
+    }
+    return data;
   }
 
   public Double getDouble(String column) {
@@ -387,7 +512,7 @@ public class Row implements Comparable<Row>, Serializable {
 
   @Override
   public int hashCode() {
-    return Objects.hash(_data);
+    return Objects.hash(getData());
   }
 
   /**
@@ -397,7 +522,7 @@ public class Row implements Comparable<Row>, Serializable {
    * @return The result of the check
    */
   public boolean isCovered(ObjectNode exclusion) {
-    return Exclusion.firstCoversSecond(exclusion, _data);
+    return Exclusion.firstCoversSecond(exclusion, getData());
   }
 
   /** Returns a message indicating that {@code columnName} is not present in {@code columns} */
@@ -407,22 +532,83 @@ public class Row implements Comparable<Row>, Serializable {
 
   @Override
   public String toString() {
-    return _data.toString();
+    return getData().toString();
   }
 
   public boolean hasNonNull(String column) {
-    return _data.hasNonNull(column);
+    if (_columns == null) {
+      return getData().hasNonNull(column);
+    }
+    for (int i = 0; i < _columns.length; i++) {
+      if (_columns[i].equals(column)) {
+        Object value = _values[i];
+        return value instanceof JsonNode ? !((JsonNode) value).isNull() : value != null;
+      }
+    }
+    return false;
   }
 
-  private volatile String _asString;
+  private transient volatile String _asString;
 
   @JsonIgnore
   private String getAsString() throws JsonProcessingException {
     String asString = _asString;
     if (asString == null) {
-      asString = BatfishObjectMapper.writeString(_data);
+      asString = BatfishObjectMapper.writeString(this);
       _asString = asString;
     }
     return asString;
   }
+
+  /** Rows are written as JSON text, which does not require the values to be serializable */
+  private Object writeReplace() throws ObjectStreamException {
+    try {
+      return new SerializedRow(getAsString());
+    } catch (JsonProcessingException e) {
+      throw new InvalidObjectException("Cannot serialize row: " + e.getMessage());
+    }
+  }
+
+  private static final class SerializedRow implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String _json;
+
+    private SerializedRow(String json) {
+      _json = json;
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+      try {
+        return BatfishObjectMapper.mapper().readValue(_json, Row.class);
+      } catch (IOException e) {
+        throw new InvalidObjectException("Cannot deserialize row: " + e.getMessage());
+      }
+    }
+  }
+
+  /** Writes the values of a row directly, without first converting them to {@link JsonNode}. */
+  static final class RowSerializer extends StdSerializer<Row> {
+
+    private static final long serialVersionUID = 1L;
+
+    RowSerializer() {
+      super(Row.class);
+    }
+
+    @Override
+    public void serialize(Row row, JsonGenerator gen, SerializerProvider provider)
+        throws IOException {
+      if (row._columns == null) {
+        provider.defaultSerializeValue(row.getData(), gen);
+        return;
+      }
+      gen.writeStartObject();
+      for (int i = 0; i < row._columns.length; i++) {
+        provider.defaultSerializeField(row._columns[i], row._values[i], gen);
+      }
+      gen.writeEndObject();
+    }
+  }
 }
@@ -4,14 +4,18 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.batfish.common.plugin.PluginConsumer.DEFAULT_HEADER_LENGTH_BYTES;
 import static org.batfish.common.plugin.PluginConsumer.detectFormat;
+import static org.batfish.common.util.CollectionUtil.lazySortedMap;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.io.Closer;
 import com.google.errorprone.annotations.MustBeClosed;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -21,6 +25,8 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.PushbackInputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
@@ -28,8 +34,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Base64;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Optional;
 import java.util.SortedMap;
 import java.util.SortedSet;
@@ -55,6 +61,7 @@ import org.batfish.common.topology.Layer1Topology;
 import org.batfish.common.topology.Layer2Topology;
 import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.common.util.CommonUtil;
+import org.batfish.common.util.SerializationFormat;
 import org.batfish.common.util.ZipUtility;
 import org.batfish.datamodel.AnalysisMetadata;
 import org.batfish.datamodel.Configuration;
@@ -84,6 +91,7 @@ import org.batfish.role.NodeRolesData;
 @ParametersAreNonnullByDefault
 public class FileBasedStorage implements StorageProvider {
 
+  private static final String RELPATH_ANSWER_TABLE_INDEX = "answer_index";
   private static final String RELPATH_COMPLETION_METADATA_FILE = "completion_metadata.json";
   private static final String RELPATH_BGP_TOPOLOGY = "bgp_topology.json";
   private static final String RELPATH_EIGRP_TOPOLOGY = "eigrp_topology.json";
@@ -91,9 +99,11 @@ public class FileBasedStorage implements StorageProvider {
   private static final String RELPATH_LAYER3_TOPOLOGY = "layer3_topology.json";
   private static final String RELPATH_OSPF_TOPOLOGY = "ospf_topology.json";
   private static final String RELPATH_VXLAN_TOPOLOGY = "vxlan_topology.json";
+  private static final String RELPATH_VENDOR_INDEPENDENT_CONFIG_INDEX = "indep_index";
 
   protected final BatfishLogger _logger;
   protected final BiFunction<String, Integer, AtomicInteger> _newBatch;
+  protected final SerializationFormat _serializationFormat;
   private FileBasedStorageDirectoryProvider _d;
 
   @VisibleForTesting
@@ -103,16 +113,29 @@ public class FileBasedStorage implements StorageProvider {
   }
 
   /**
-   * Create a new {@link FileBasedStorage} instance that uses the given root path and job batch
-   * provider function.
+   * Create a new {@link FileBasedStorage} instance that uses the given root path, job batch
+   * provider function, and format for serializing objects.
    */
   public FileBasedStorage(
-      Path baseDir, BatfishLogger logger, BiFunction<String, Integer, AtomicInteger> newBatch) {
+      Path baseDir,
+      BatfishLogger logger,
+      BiFunction<String, Integer, AtomicInteger> newBatch,
+      SerializationFormat serializationFormat) {
     _logger = logger;
     _newBatch = newBatch;
+    _serializationFormat = serializationFormat;
     _d = new FileBasedStorageDirectoryProvider(baseDir);
   }
 
+  /**
+   * Create a new {@link FileBasedStorage} instance that uses the given root path and job batch
+   * provider function.
+   */
+  public FileBasedStorage(
+      Path baseDir, BatfishLogger logger, BiFunction<String, Integer, AtomicInteger> newBatch) {
+    this(baseDir, logger, newBatch, SerializationFormat.DEFAULT);
+  }
+
   /**
    * Create a new {@link FileBasedStorage} instance that uses the given root path job and whose job
    * batch provider function is a NOP.
@@ -124,6 +147,9 @@ public class FileBasedStorage implements StorageProvider {
   /**
    * Returns the configuration files for the given testrig. If a serialized copy of these
    * configurations is not already present, then this function returns {@code null}.
+   *
+   * <p>The configurations are memory-mapped, and each configuration is deserialized only when it is
+   * first accessed.
    */
   @Override
   @Nullable
@@ -133,13 +159,15 @@ public class FileBasedStorage implements StorageProvider {
     Path indepDir =
         testrigDir.resolve(
             Paths.get(BfConsts.RELPATH_OUTPUT, BfConsts.RELPATH_VENDOR_INDEPENDENT_CONFIG_DIR));
-    return loadConfigurations(network, snapshot, indepDir);
+    return loadConfigurations(
+        network, snapshot, getVendorIndependentConfigIndexPath(network, snapshot), indepDir);
   }
 
   private @Nullable SortedMap<String, Configuration> loadConfigurations(
-      NetworkId network, SnapshotId snapshot, Path indepDir) {
-    // If the directory that would contain these configs does not even exist, no cache exists.
-    if (!Files.exists(indepDir)) {
+      NetworkId network, SnapshotId snapshot, Path indexFile, Path indepDir) {
+    // If neither the index nor the directory that would contain these configs exists, no cache
+    // exists.
+    if (!Files.exists(indexFile) && !Files.exists(indepDir)) {
       _logger.debugf("Unable to load configs for %s from disk: no cache directory", snapshot);
       return null;
     }
@@ -152,6 +180,24 @@ public class FileBasedStorage implements StorageProvider {
       return null;
     }
 
+    if (Files.exists(indexFile)) {
+      _logger.info("\n*** MAPPING VENDOR-INDEPENDENT CONFIGURATION STRUCTURES ***\n");
+      ImmutableSortedMap<String, ByteBuffer> serializedConfigs;
+      try {
+        serializedConfigs = IndexedObjectFile.read(indexFile);
+      } catch (IOException e) {
+        // e.g. an index written in an older layout
+        _logger.warnf(
+            "Unable to load configs for %s from disk: error reading index '%s': %s",
+            snapshot, indexFile, Throwables.getStackTraceAsString(e));
+        return null;
+      }
+      return lazySortedMap(
+          serializedConfigs.keySet(),
+          name -> deserializeObject(serializedConfigs.get(name), Configuration.class, name));
+    }
+
+    // Configs serialized one file per node by an earlier version
     _logger.info("\n*** DESERIALIZING VENDOR-INDEPENDENT CONFIGURATION STRUCTURES ***\n");
     Map<Path, String> namesByPath = new TreeMap<>();
     try (DirectoryStream<Path> stream = Files.newDirectoryStream(indepDir)) {
@@ -351,7 +397,7 @@ public class FileBasedStorage implements StorageProvider {
     Path ccaePath = getConvertAnswerPath(network, snapshot);
     mkdirs(ccaePath);
     CommonUtil.deleteIfExists(ccaePath);
-    serializeObject(convertAnswerElement, ccaePath);
+    serializeObject(convertAnswerElement, ccaePath, _serializationFormat);
 
     Path outputDir = _d.getVendorIndependentConfigDir(network, snapshot);
 
@@ -360,7 +406,11 @@ public class FileBasedStorage implements StorageProvider {
             "Serializing %s vendor-independent configuration structures for snapshot %s",
             configurations.size(), snapshot);
 
-    storeConfigurations(outputDir, batchName, configurations);
+    storeConfigurations(
+        getVendorIndependentConfigIndexPath(network, snapshot),
+        outputDir,
+        batchName,
+        configurations);
   }
 
   protected @Nonnull Path getConvertAnswerPath(NetworkId network, SnapshotId snapshot) {
@@ -368,24 +418,45 @@ public class FileBasedStorage implements StorageProvider {
         .resolve(Paths.get(BfConsts.RELPATH_OUTPUT, BfConsts.RELPATH_CONVERT_ANSWER_PATH));
   }
 
+  private @Nonnull Path getVendorIndependentConfigIndexPath(
+      NetworkId network, SnapshotId snapshot) {
+    return _d.getSnapshotOutputDir(network, snapshot)
+        .resolve(RELPATH_VENDOR_INDEPENDENT_CONFIG_INDEX);
+  }
+
   private void storeConfigurations(
-      Path outputDir, String batchName, Map<String, Configuration> configurations) {
+      Path indexFile,
+      Path legacyOutputDir,
+      String batchName,
+      Map<String, Configuration> configurations) {
     _logger.infof("\n*** %s***\n", batchName.toUpperCase());
     AtomicInteger progressCount = _newBatch.apply(batchName, configurations.size());
 
-    // Delete any existing output, then recreate.
-    CommonUtil.deleteDirectory(outputDir);
-    mkdirs(outputDir);
-
-    configurations
-        .entrySet()
-        .parallelStream()
-        .forEach(
-            e -> {
-              Path currentOutputPath = outputDir.resolve(e.getKey());
-              serializeObject(e.getValue(), currentOutputPath);
-              progressCount.incrementAndGet();
-            });
+    // Delete any output in the one-file-per-node layout of earlier versions.
+    CommonUtil.deleteDirectory(legacyOutputDir);
+
+    mkdirs(indexFile.getParent());
+    // Each config is written as soon as it is serialized, so only the configs being serialized
+    // are held in memory.
+    try (IndexedObjectFile.Writer writer = IndexedObjectFile.writer(indexFile)) {
+      configurations
+          .entrySet()
+          .parallelStream()
+          .forEach(
+              e -> {
+                byte[] serialized = serializeObject(e.getValue(), _serializationFormat);
+                try {
+                  writer.add(e.getKey(), serialized);
+                } catch (IOException ioe) {
+                  throw new UncheckedIOException(ioe);
+                }
+                progressCount.incrementAndGet();
+              });
+      writer.commit();
+    } catch (IOException | UncheckedIOException e) {
+      throw new BatfishException(
+          "Failed to write vendor-independent configs index: '" + indexFile + "'", e);
+    }
   }
 
   @Override
@@ -393,6 +464,42 @@ public class FileBasedStorage implements StorageProvider {
     Path answerPath = getAnswerPath(answerId);
     mkdirs(answerPath.getParent());
     CommonUtil.writeFile(answerPath, answerStr);
+    storeIndexedAnswerTable(answerStr, answerId);
+  }
+
+  /**
+   * Writes an {@link IndexedAnswerTable} index of {@code answerStr}, or removes any stale index if
+   * it is not a table answer.
+   *
+   * <p>The index is only an optimization, so failure to write it is logged rather than thrown; any
+   * partially written or stale index is removed and the answer is served from its JSON.
+   */
+  private void storeIndexedAnswerTable(String answerStr, AnswerId answerId) {
+    Path indexPath = getIndexedAnswerTablePath(answerId);
+    try {
+      SortedMap<String, byte[]> index;
+      try {
+        index = IndexedAnswerTable.index(answerStr);
+      } catch (JsonProcessingException e) {
+        index = null;
+      }
+      if (index == null) {
+        Files.deleteIfExists(indexPath);
+      } else {
+        IndexedObjectFile.write(indexPath, index);
+      }
+    } catch (IOException | RuntimeException e) {
+      _logger.warnf(
+          "Unexpected exception caught while writing answer index '%s': %s",
+          indexPath, Throwables.getStackTraceAsString(e));
+      try {
+        Files.deleteIfExists(indexPath);
+      } catch (IOException e2) {
+        _logger.errorf(
+            "Failed to remove stale answer index '%s': %s",
+            indexPath, Throwables.getStackTraceAsString(e2));
+      }
+    }
   }
 
   @Override
@@ -416,24 +523,7 @@ public class FileBasedStorage implements StorageProvider {
       throws BatfishException {
     try (Closer closer = Closer.create()) {
       FileInputStream fis = closer.register(new FileInputStream(inputFile.toFile()));
-      PushbackInputStream pbstream = new PushbackInputStream(fis, DEFAULT_HEADER_LENGTH_BYTES);
-      Format f = detectFormat(pbstream);
-      ObjectInputStream ois;
-      if (f == Format.GZIP) {
-        GZIPInputStream gis =
-            closer.register(new GZIPInputStream(pbstream, 8192 /* enlarge buffer */));
-        ois = new ObjectInputStream(gis);
-      } else if (f == Format.LZ4) {
-        LZ4FrameInputStream lis = closer.register(new LZ4FrameInputStream(pbstream));
-        ois = new ObjectInputStream(lis);
-      } else if (f == Format.JAVA_SERIALIZED) {
-        ois = new ObjectInputStream(pbstream);
-      } else {
-        throw new BatfishException(
-            String.format("Could not detect format of the file %s", inputFile));
-      }
-      closer.register(ois);
-      return outputClass.cast(ois.readObject());
+      return readObject(fis, outputClass, closer);
     } catch (Exception e) {
       throw new BatfishException(
           String.format(
@@ -443,6 +533,47 @@ public class FileBasedStorage implements StorageProvider {
     }
   }
 
+  /**
+   * Returns a single object of the given class deserialized from the given bytes, which are in the
+   * {@link FileBasedStorage} default file encoding.
+   */
+  private static <S extends Serializable> S deserializeObject(
+      ByteBuffer serializedObject, Class<S> outputClass, String name) throws BatfishException {
+    byte[] bytes = new byte[serializedObject.remaining()];
+    serializedObject.duplicate().get(bytes);
+    try (Closer closer = Closer.create()) {
+      return readObject(new ByteArrayInputStream(bytes), outputClass, closer);
+    } catch (Exception e) {
+      throw new BatfishException(
+          String.format(
+              "Failed to deserialize object of type %s for %s",
+              outputClass.getCanonicalName(), name),
+          e);
+    }
+  }
+
+  private static <S extends Serializable> S readObject(
+      InputStream in, Class<S> outputClass, Closer closer)
+      throws IOException, ClassNotFoundException {
+    PushbackInputStream pbstream = new PushbackInputStream(in, DEFAULT_HEADER_LENGTH_BYTES);
+    Format f = detectFormat(pbstream);
+    ObjectInputStream ois;
+    if (f == Format.GZIP) {
+      GZIPInputStream gis =
+          closer.register(new GZIPInputStream(pbstream, 8192 /* enlarge buffer */));
+      ois = SerializationFormat.newObjectInputStream(gis);
+    } else if (f == Format.LZ4) {
+      LZ4FrameInputStream lis = closer.register(new LZ4FrameInputStream(pbstream));
+      ois = SerializationFormat.newObjectInputStream(lis);
+    } else if (f == Format.JAVA_SERIALIZED || f == Format.COMPACT_SERIALIZED) {
+      ois = SerializationFormat.newObjectInputStream(pbstream);
+    } else {
+      throw new BatfishException("Could not detect serialization format");
+    }
+    closer.register(ois);
+    return outputClass.cast(ois.readObject());
+  }
+
   private <S extends Serializable> SortedMap<String, S> deserializeObjects(
       Map<Path, String> namesByPath, Class<S> outputClass) {
     String outputClassName = outputClass.getName();
@@ -473,10 +604,33 @@ public class FileBasedStorage implements StorageProvider {
    * default file encoding including serialization format and compression.
    */
   protected static void serializeObject(Serializable object, Path outputFile) {
+    serializeObject(object, outputFile, SerializationFormat.DEFAULT);
+  }
+
+  /**
+   * Returns the given object serialized LZ4-compressed and using the given serialization format.
+   */
+  private static byte[] serializeObject(Serializable object, SerializationFormat format) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (LZ4FrameOutputStream gos = new LZ4FrameOutputStream(out);
+        ObjectOutputStream oos = format.newObjectOutputStream(gos)) {
+      oos.writeObject(object);
+    } catch (Throwable e) {
+      throw new BatfishException("Failed to serialize object", e);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Writes a single object of the given class to the given file, LZ4-compressed and using the given
+   * serialization format.
+   */
+  protected static void serializeObject(
+      Serializable object, Path outputFile, SerializationFormat format) {
     try {
       try (OutputStream out = Files.newOutputStream(outputFile);
           LZ4FrameOutputStream gos = new LZ4FrameOutputStream(out);
-          ObjectOutputStream oos = new ObjectOutputStream(gos)) {
+          ObjectOutputStream oos = format.newObjectOutputStream(gos)) {
         oos.writeObject(object);
       }
     } catch (Throwable e) {
@@ -523,6 +677,15 @@ public class FileBasedStorage implements StorageProvider {
     return FileUtils.readFileToString(answerPath.toFile(), UTF_8);
   }
 
+  @Override
+  public @Nullable IndexedAnswerTable loadIndexedAnswerTable(AnswerId answerId) throws IOException {
+    Path indexPath = getIndexedAnswerTablePath(answerId);
+    if (!Files.exists(indexPath)) {
+      return null;
+    }
+    return IndexedAnswerTable.read(indexPath);
+  }
+
   @Override
   public @Nonnull AnswerMetadata loadAnswerMetadata(AnswerId answerId)
       throws FileNotFoundException, IOException {
@@ -540,6 +703,10 @@ public class FileBasedStorage implements StorageProvider {
     return _d.getAnswerDir(answerId).resolve(BfConsts.RELPATH_ANSWER_JSON);
   }
 
+  private @Nonnull Path getIndexedAnswerTablePath(AnswerId answerId) {
+    return _d.getAnswerDir(answerId).resolve(RELPATH_ANSWER_TABLE_INDEX);
+  }
+
   private @Nonnull Path getAnswerMetadataPath(AnswerId answerId) {
     return _d.getAnswerDir(answerId).resolve(BfConsts.RELPATH_ANSWER_METADATA);
   }
@@ -0,0 +1,311 @@
+package org.batfish.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.BfConsts;
+import org.batfish.common.ColumnFilter;
+import org.batfish.common.ColumnSortOption;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.answers.AnswerElement;
+import org.batfish.datamodel.answers.AnswerStatus;
+import org.batfish.datamodel.answers.AnswerSummary;
+import org.batfish.datamodel.answers.Schema;
+import org.batfish.datamodel.answers.SchemaUtils;
+import org.batfish.datamodel.table.ColumnComparators;
+import org.batfish.datamodel.table.ColumnMetadata;
+import org.batfish.datamodel.table.Row;
+import org.batfish.datamodel.table.TableAnswerElement;
+import org.batfish.datamodel.table.TableMetadata;
+
+/**
+ * A read-only view of the rows of a stored {@link TableAnswerElement}, indexed so that rows can be
+ * filtered, sorted, and retrieved individually without parsing the whole answer.
+ *
+ * <p>The table is stored as an {@link IndexedObjectFile} holding the table without its rows, and
+ * for each column:
+ *
+ * <ul>
+ *   <li>the JSON text of the value in each row, which is what a {@link ColumnFilter} matches
+ *       against, and from which rows are rebuilt; and
+ *   <li>the rank of the value in each row in the order given by {@link
+ *       ColumnComparators#columnComparator(ColumnMetadata)}, where equal values have equal rank.
+ *       Sorting by columns is then a stable counting sort over the ranks.
+ * </ul>
+ */
+@ParametersAreNonnullByDefault
+public final class IndexedAnswerTable {
+
+  private static final String OBJECT_HEADER = "header";
+  private static final String OBJECT_COLUMN_PREFIX = "column:";
+
+  /**
+   * Returns the serialized objects of the index of {@code answerStr}, or {@code null} if it is not
+   * the JSON text of a successful answer whose first element is a {@link TableAnswerElement} with
+   * exactly the columns of its metadata in each row.
+   */
+  static @Nullable SortedMap<String, byte[]> index(String answerStr) throws IOException {
+    ObjectMapper mapper = BatfishObjectMapper.mapper();
+    JsonNode answer = mapper.readTree(answerStr);
+    JsonNode status = answer.path(BfConsts.PROP_STATUS);
+    JsonNode table = answer.path(BfConsts.PROP_ANSWER_ELEMENTS).path(0);
+    if (!status.isTextual()
+        || mapper.treeToValue(status, AnswerStatus.class) != AnswerStatus.SUCCESS
+        || !table.isObject()) {
+      return null;
+    }
+    JsonNode rows = ((ObjectNode) table).remove(TableAnswerElement.PROP_ROWS);
+    ((ObjectNode) table).remove(TableAnswerElement.PROP_EXCLUDED_ROWS);
+    AnswerElement element = mapper.treeToValue(table, AnswerElement.class);
+    if (!(element instanceof TableAnswerElement) || rows == null || !rows.isArray()) {
+      return null;
+    }
+    TableAnswerElement header = (TableAnswerElement) element;
+    List<ColumnMetadata> columns = header.getMetadata().getColumnMetadata();
+    ImmutableSet<String> columnNames =
+        columns.stream().map(ColumnMetadata::getName).collect(ImmutableSet.toImmutableSet());
+    for (JsonNode row : rows) {
+      if (!row.isObject() || row.size() != columnNames.size()) {
+        return null;
+      }
+      for (String column : columnNames) {
+        if (!row.has(column)) {
+          return null;
+        }
+      }
+    }
+
+    ImmutableSortedMap.Builder<String, byte[]> objects = ImmutableSortedMap.naturalOrder();
+    ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(headerBytes)) {
+      out.writeInt(rows.size());
+      out.write(BatfishObjectMapper.writeString(header).getBytes(UTF_8));
+    }
+    objects.put(OBJECT_HEADER, headerBytes.toByteArray());
+    for (ColumnMetadata column : columns) {
+      objects.put(OBJECT_COLUMN_PREFIX + column.getName(), indexColumn(rows, column));
+    }
+    return objects.build();
+  }
+
+  /**
+   * Serializes the values of {@code column} in {@code rows}: the number of distinct ranks, the rank
+   * of each row, the offset of the text of each row (plus the end offset), then the texts.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static byte[] indexColumn(JsonNode rows, ColumnMetadata column) throws IOException {
+    String name = column.getName();
+    Schema schema = column.getSchema();
+    int rowCount = rows.size();
+    Object[] values = new Object[rowCount];
+    byte[][] texts = new byte[rowCount][];
+    for (int i = 0; i < rowCount; i++) {
+      JsonNode value = rows.get(i).get(name);
+      values[i] = value.isNull() ? null : SchemaUtils.convertType(value, schema);
+      texts[i] = value.toString().getBytes(UTF_8);
+    }
+    Comparator<Object> comparator =
+        Comparator.nullsFirst((Comparator) ColumnComparators.schemaComparator(schema));
+    // Stable, so rows with equal values stay in row order
+    Integer[] sorted = new Integer[rowCount];
+    Arrays.setAll(sorted, i -> i);
+    Arrays.sort(sorted, (a, b) -> comparator.compare(values[a], values[b]));
+    int[] ranks = new int[rowCount];
+    int rankCount = 0;
+    for (int i = 0; i < rowCount; i++) {
+      if (i > 0 && comparator.compare(values[sorted[i - 1]], values[sorted[i]]) != 0) {
+        rankCount++;
+      }
+      ranks[sorted[i]] = rankCount;
+    }
+    if (rowCount > 0) {
+      rankCount++;
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(rankCount);
+      for (int rank : ranks) {
+        out.writeInt(rank);
+      }
+      int offset = 0;
+      for (byte[] text : texts) {
+        out.writeInt(offset);
+        offset += text.length;
+      }
+      out.writeInt(offset);
+      for (byte[] text : texts) {
+        out.write(text);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /** Memory-maps the index written to {@code file}. */
+  static @Nonnull IndexedAnswerTable read(Path file) throws IOException {
+    return new IndexedAnswerTable(IndexedObjectFile.read(file));
+  }
+
+  /** Values of one column, read with absolute gets so that the table can be shared by threads */
+  private static final class Column {
+    private final int _rowCount;
+    private final ByteBuffer _data;
+
+    Column(int rowCount, ByteBuffer data) {
+      _rowCount = rowCount;
+      _data = data;
+    }
+
+    int getRankCount() {
+      return _data.getInt(0);
+    }
+
+    int getRank(int row) {
+      return _data.getInt(Integer.BYTES * (1 + row));
+    }
+
+    @Nonnull
+    String getText(int row) {
+      int offsets = Integer.BYTES * (1 + _rowCount);
+      int texts = offsets + Integer.BYTES * (_rowCount + 1);
+      int start = _data.getInt(offsets + Integer.BYTES * row);
+      int end = _data.getInt(offsets + Integer.BYTES * (row + 1));
+      byte[] text = new byte[end - start];
+      ByteBuffer buffer = _data.duplicate();
+      buffer.position(texts + start);
+      buffer.get(text);
+      return new String(text, UTF_8);
+    }
+  }
+
+  private final Map<String, Column> _columns;
+  private final int _rowCount;
+  private final TableAnswerElement _header;
+
+  private IndexedAnswerTable(Map<String, ByteBuffer> objects) throws IOException {
+    ByteBuffer header = objects.get(OBJECT_HEADER).duplicate();
+    _rowCount = header.getInt();
+    byte[] headerText = new byte[header.remaining()];
+    header.get(headerText);
+    _header =
+        BatfishObjectMapper.mapper()
+            .readValue(new String(headerText, UTF_8), TableAnswerElement.class);
+    ImmutableMap.Builder<String, Column> columns = ImmutableMap.builder();
+    for (ColumnMetadata column : _header.getMetadata().getColumnMetadata()) {
+      columns.put(
+          column.getName(),
+          new Column(_rowCount, objects.get(OBJECT_COLUMN_PREFIX + column.getName())));
+    }
+    _columns = columns.build();
+  }
+
+  private @Nonnull Column getColumn(String name) {
+    Column column = _columns.get(name);
+    if (column == null) {
+      throw new NoSuchElementException(
+          String.format(
+              "Column '%s' is not present. Valid columns are: %s", name, _columns.keySet()));
+    }
+    return column;
+  }
+
+  public @Nonnull TableMetadata getMetadata() {
+    return _header.getMetadata();
+  }
+
+  public @Nullable AnswerSummary getSummary() {
+    return _header.getSummary();
+  }
+
+  public int getRowCount() {
+    return _rowCount;
+  }
+
+  /** Rebuilds the row with the given ID, i.e., its index in the stored table. */
+  public @Nonnull Row getRow(int row) throws IOException {
+    ObjectMapper mapper = BatfishObjectMapper.mapper();
+    ObjectNode data = mapper.createObjectNode();
+    for (Map.Entry<String, Column> column : _columns.entrySet()) {
+      data.set(column.getKey(), mapper.readTree(column.getValue().getText(row)));
+    }
+    return mapper.treeToValue(data, Row.class);
+  }
+
+  /**
+   * Returns the IDs of the rows matching all of {@code filters}, sorted by {@code sortOrder}. Rows
+   * that compare equal are in ID order, as with a stable sort of the rows by {@link
+   * ColumnComparators#buildComparator(Map, List)}.
+   *
+   * @throws NoSuchElementException if any filter or sort option refers to a missing column
+   */
+  public @Nonnull int[] selectRows(List<ColumnFilter> filters, List<ColumnSortOption> sortOrder) {
+    List<Column> filterColumns =
+        filters.stream()
+            .map(filter -> getColumn(filter.getColumn()))
+            .collect(ImmutableList.toImmutableList());
+    List<String> filterTexts =
+        filters.stream()
+            .map(filter -> filter.getFilterText().toLowerCase())
+            .collect(ImmutableList.toImmutableList());
+    int[] rows = new int[_rowCount];
+    int matching = 0;
+    for (int row = 0; row < _rowCount; row++) {
+      boolean matches = true;
+      for (int i = 0; matches && i < filterColumns.size(); i++) {
+        matches = filterColumns.get(i).getText(row).toLowerCase().contains(filterTexts.get(i));
+      }
+      if (matches) {
+        rows[matching++] = row;
+      }
+    }
+    rows = Arrays.copyOf(rows, matching);
+
+    // Least-significant column first; each pass is stable, so earlier columns take precedence.
+    for (ColumnSortOption sortOption : Lists.reverse(sortOrder)) {
+      rows = sortByRank(rows, getColumn(sortOption.getColumn()), sortOption.getReversed());
+    }
+    return rows;
+  }
+
+  private static @Nonnull int[] sortByRank(int[] rows, Column column, boolean reversed) {
+    int rankCount = column.getRankCount();
+    int[] starts = new int[rankCount + 1];
+    for (int row : rows) {
+      starts[key(column, row, rankCount, reversed) + 1]++;
+    }
+    for (int i = 1; i <= rankCount; i++) {
+      starts[i] += starts[i - 1];
+    }
+    int[] sorted = new int[rows.length];
+    for (int row : rows) {
+      sorted[starts[key(column, row, rankCount, reversed)]++] = row;
+    }
+    return sorted;
+  }
+
+  private static int key(Column column, int row, int rankCount, boolean reversed) {
+    int rank = column.getRank(row);
+    return reversed ? rankCount - 1 - rank : rank;
+  }
+}
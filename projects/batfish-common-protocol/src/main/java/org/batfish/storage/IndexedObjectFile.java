@@ -0,0 +1,184 @@
+package org.batfish.storage;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSortedMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * A single file holding a set of named, independently serialized objects, followed by an index of
+ * where each object is stored. The file is read by memory-mapping each object, so that opening it
+ * only reads the index, and each object's bytes are paged in when that object is deserialized.
+ *
+ * <p>Layout: a magic number, the bytes of each object, the index (the number of objects, then the
+ * name, offset, and length of each object), and finally the offset of the index. Offsets are from
+ * the start of the file, so the file may be larger than 2 GiB; each object may not.
+ *
+ * <p>Objects are written as they are added (see {@link Writer}), so the writer only keeps the index
+ * in memory.
+ */
+@ParametersAreNonnullByDefault
+final class IndexedObjectFile {
+
+  /** Identifies the format of the file, and its version. */
+  @VisibleForTesting static final int MAGIC = 0x42464932; // "BFI2"
+
+  private static final int MAGIC_BYTES = Integer.BYTES;
+  private static final int TRAILER_BYTES = Long.BYTES;
+
+  /**
+   * Writes objects to a temporary file, which replaces the target file atomically when the writer
+   * is {@link #commit() committed}. Closing an uncommitted writer discards what was written.
+   *
+   * <p>Objects may be added concurrently, in any order.
+   */
+  static final class Writer implements Closeable {
+
+    private final FileChannel _channel;
+    private boolean _committed;
+    private int _count;
+    private final Path _file;
+    private final ByteArrayOutputStream _index;
+    private final DataOutputStream _indexOut;
+    private long _offset;
+    private final Path _tmp;
+
+    private Writer(Path file) throws IOException {
+      _file = file;
+      _tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      _channel = FileChannel.open(_tmp, StandardOpenOption.WRITE);
+      _index = new ByteArrayOutputStream();
+      _indexOut = new DataOutputStream(_index);
+      ByteBuffer magic = ByteBuffer.allocate(MAGIC_BYTES).putInt(0, MAGIC);
+      writeFully(magic);
+      _offset = MAGIC_BYTES;
+    }
+
+    /** Appends the serialized object {@code bytes} named {@code name}. */
+    synchronized void add(String name, byte[] bytes) throws IOException {
+      checkState(!_committed, "Writer is already committed");
+      _indexOut.writeUTF(name);
+      _indexOut.writeLong(_offset);
+      _indexOut.writeInt(bytes.length);
+      writeFully(ByteBuffer.wrap(bytes));
+      _offset += bytes.length;
+      _count++;
+    }
+
+    /** Writes the index and replaces the target file with the objects added so far. */
+    synchronized void commit() throws IOException {
+      checkState(!_committed, "Writer is already committed");
+      ByteBuffer count = ByteBuffer.allocate(Integer.BYTES).putInt(0, _count);
+      writeFully(count);
+      _indexOut.flush();
+      writeFully(ByteBuffer.wrap(_index.toByteArray()));
+      writeFully(ByteBuffer.allocate(TRAILER_BYTES).putLong(0, _offset));
+      _channel.close();
+      // Replace rather than overwrite, so that readers with the old file mapped are unaffected.
+      Files.move(_tmp, _file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      _committed = true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      _channel.close();
+      if (!_committed) {
+        Files.deleteIfExists(_tmp);
+      }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+        _channel.write(buffer);
+      }
+    }
+  }
+
+  /** Returns a {@link Writer} that will replace {@code file}. */
+  static @Nonnull Writer writer(Path file) throws IOException {
+    return new Writer(file);
+  }
+
+  /**
+   * Writes the given serialized objects to {@code file}, replacing it atomically if it already
+   * exists.
+   */
+  static void write(Path file, SortedMap<String, byte[]> serializedObjects) throws IOException {
+    try (Writer writer = writer(file)) {
+      for (Entry<String, byte[]> entry : serializedObjects.entrySet()) {
+        writer.add(entry.getKey(), entry.getValue());
+      }
+      writer.commit();
+    }
+  }
+
+  /**
+   * Memory-maps the objects in {@code file} and returns a read-only view of each object's bytes,
+   * keyed by name. Only the index is read.
+   */
+  static @Nonnull ImmutableSortedMap<String, ByteBuffer> read(Path file) throws IOException {
+    // The mappings remain valid after the channel is closed.
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < MAGIC_BYTES + Integer.BYTES + TRAILER_BYTES
+          || readFully(channel, 0, MAGIC_BYTES).getInt() != MAGIC) {
+        throw new IOException("Not an indexed object file: '" + file + "'");
+      }
+      long indexOffset = readFully(channel, size - TRAILER_BYTES, TRAILER_BYTES).getLong();
+      if (indexOffset < MAGIC_BYTES || indexOffset > size - TRAILER_BYTES) {
+        throw new IOException("Invalid index offset in indexed object file: '" + file + "'");
+      }
+      ByteBuffer index =
+          readFully(channel, indexOffset, Math.toIntExact(size - TRAILER_BYTES - indexOffset));
+      ImmutableSortedMap.Builder<String, ByteBuffer> objects = ImmutableSortedMap.naturalOrder();
+      try (DataInputStream in =
+          new DataInputStream(new ByteArrayInputStream(index.array(), 0, index.limit()))) {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+          String name = in.readUTF();
+          long offset = in.readLong();
+          int length = in.readInt();
+          if (offset < MAGIC_BYTES || offset + length > indexOffset) {
+            throw new IOException(
+                String.format("Invalid offset of object '%s' in '%s'", name, file));
+          }
+          objects.put(name, channel.map(MapMode.READ_ONLY, offset, length).asReadOnlyBuffer());
+        }
+      }
+      return objects.build();
+    }
+  }
+
+  /** Reads {@code length} bytes of {@code channel} starting at {@code position}. */
+  private static @Nonnull ByteBuffer readFully(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException();
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private IndexedObjectFile() {} // prevent instantiation
+}
@@ -184,6 +184,18 @@ public interface StorageProvider {
   @Nonnull
   String loadAnswer(AnswerId answerId) throws FileNotFoundException, IOException;
 
+  /**
+   * Load the indexed rows of the answer to an ad-hoc or analysis question, if the answer was
+   * indexed when it was stored.
+   *
+   * @param answerId The ID of the answer
+   * @return The {@link IndexedAnswerTable}, or {@code null} if the answer is not a successful table
+   *     answer or has no index.
+   * @throws IOException if there is an error reading the index.
+   */
+  @Nullable
+  IndexedAnswerTable loadIndexedAnswerTable(AnswerId answerId) throws IOException;
+
   /**
    * Load the metadata for the answer to an ad-hoc or analysis question.
    *
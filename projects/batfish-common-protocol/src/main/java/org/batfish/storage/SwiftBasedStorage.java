@@ -45,6 +45,7 @@ import org.batfish.common.plugin.PluginConsumer.Format;
 import org.batfish.common.topology.Layer1Topology;
 import org.batfish.common.topology.Layer2Topology;
 import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.common.util.SerializationFormat;
 import org.batfish.datamodel.AnalysisMetadata;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.SnapshotMetadata;
@@ -88,7 +89,18 @@ public final class SwiftBasedStorage implements StorageProvider {
     
     private final BiFunction<String, Integer, AtomicInteger> _newBatch;
 
+    private final SerializationFormat _serializationFormat;
+
     public SwiftBasedStorage(String container, BatfishLogger logger) {
+        this(container, logger, SerializationFormat.DEFAULT);
+    }
+
+    /**
+     * Create a new {@link SwiftBasedStorage} instance that writes objects using the given
+     * serialization format.
+     */
+    public SwiftBasedStorage(String container, BatfishLogger logger,
+        SerializationFormat serializationFormat) {
         try {
             client = new SwiftClient(container);
         } catch (IOException e) {
@@ -97,6 +109,7 @@ public final class SwiftBasedStorage implements StorageProvider {
         
         _logger = logger;
         _newBatch = (a, b) -> new AtomicInteger();
+        _serializationFormat = serializationFormat;
     }
 
     private @Nonnull String getNetworkDir(NetworkId networkId) {
@@ -161,7 +174,7 @@ public final class SwiftBasedStorage implements StorageProvider {
         try {
             try (ByteArrayOutputStream out = new ByteArrayOutputStream();
                 LZ4FrameOutputStream gos = new LZ4FrameOutputStream(out);
-                ObjectOutputStream oos = new ObjectOutputStream(gos)) {
+                ObjectOutputStream oos = _serializationFormat.newObjectOutputStream(gos)) {
                     oos.writeObject(object);
                     oos.flush();
                     client.set(outputPath, out.toByteArray());
@@ -207,12 +220,12 @@ public final class SwiftBasedStorage implements StorageProvider {
             if (f == Format.GZIP) {
                 GZIPInputStream gis =
                     closer.register(new GZIPInputStream(pbstream, 8192 /* enlarge buffer */));
-                ois = new ObjectInputStream(gis);
+                ois = SerializationFormat.newObjectInputStream(gis);
             } else if (f == Format.LZ4) {
                 LZ4FrameInputStream lis = closer.register(new LZ4FrameInputStream(pbstream));
-                ois = new ObjectInputStream(lis);
-            } else if (f == Format.JAVA_SERIALIZED) {
-                ois = new ObjectInputStream(pbstream);
+                ois = SerializationFormat.newObjectInputStream(lis);
+            } else if (f == Format.JAVA_SERIALIZED || f == Format.COMPACT_SERIALIZED) {
+                ois = SerializationFormat.newObjectInputStream(pbstream);
             } else {
                 throw new BatfishException(
                     String.format("Could not detect format of the file %s", inputPath));
@@ -364,6 +377,11 @@ public final class SwiftBasedStorage implements StorageProvider {
         return client.exists(getAnswerPath(answerId));
     }
 
+    @Override
+    public IndexedAnswerTable loadIndexedAnswerTable(AnswerId answerId) {
+        return null;
+    }
+
     @Override
     public String loadAnswer(AnswerId answerId) throws FileNotFoundException, IOException {
         if (!hasAnswer(answerId)) {
@@ -34,6 +34,7 @@ import org.batfish.common.BfConsts;
 import org.batfish.common.plugin.PluginConsumer.Format;
 import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.common.util.CommonUtil;
+import org.batfish.common.util.SerializationFormat;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
@@ -51,7 +52,16 @@ public class SwiftFileBasedStorage extends FileBasedStorage {
     private static Map<String, Boolean> networkIdCache = new ConcurrentHashMap<String, Boolean>();
 
     public SwiftFileBasedStorage(Path baseDir, BatfishLogger logger) {
-        super(baseDir, logger);
+        this(baseDir, logger, SerializationFormat.DEFAULT);
+    }
+
+    /**
+     * Create a new {@link SwiftFileBasedStorage} instance that writes objects using the given
+     * serialization format.
+     */
+    public SwiftFileBasedStorage(Path baseDir, BatfishLogger logger,
+            SerializationFormat serializationFormat) {
+        super(baseDir, logger, (a, b) -> new AtomicInteger(), serializationFormat);
         try {
             client = new SwiftClient(baseDir.getFileName().toString());
         } catch (IOException e) {
@@ -106,14 +116,14 @@ public class SwiftFileBasedStorage extends FileBasedStorage {
             if (f == Format.GZIP) {
                 GZIPInputStream gis = closer
                         .register(new GZIPInputStream(pbstream, 8192 /* enlarge buffer */));
-                ois = new ObjectInputStream(gis);
+                ois = SerializationFormat.newObjectInputStream(gis);
             }
             else if (f == Format.LZ4) {
                 LZ4FrameInputStream lis = closer.register(new LZ4FrameInputStream(pbstream));
-                ois = new ObjectInputStream(lis);
+                ois = SerializationFormat.newObjectInputStream(lis);
             }
-            else if (f == Format.JAVA_SERIALIZED) {
-                ois = new ObjectInputStream(pbstream);
+            else if (f == Format.JAVA_SERIALIZED || f == Format.COMPACT_SERIALIZED) {
+                ois = SerializationFormat.newObjectInputStream(pbstream);
             }
             else {
                 throw new BatfishException(
@@ -153,7 +163,7 @@ public class SwiftFileBasedStorage extends FileBasedStorage {
         try {
             try (ByteArrayOutputStream out = new ByteArrayOutputStream();
                     LZ4FrameOutputStream gos = new LZ4FrameOutputStream(out);
-                    ObjectOutputStream oos = new ObjectOutputStream(gos)) {
+                    ObjectOutputStream oos = _serializationFormat.newObjectOutputStream(gos)) {
                 oos.writeObject(object);
                 oos.flush();
                 client.set(outputPath, out.toByteArray());
@@ -172,7 +182,7 @@ public class SwiftFileBasedStorage extends FileBasedStorage {
         Path ccaePath = getConvertAnswerPath(network, snapshot);
         mkdirs(ccaePath);
         CommonUtil.deleteIfExists(ccaePath);
-        FileBasedStorage.serializeObject(convertAnswerElement, ccaePath);
+        FileBasedStorage.serializeObject(convertAnswerElement, ccaePath, _serializationFormat);
 
         String batchName = String.format(
                 "Serializing %s vendor-independent configuration structures for snapshot %s",
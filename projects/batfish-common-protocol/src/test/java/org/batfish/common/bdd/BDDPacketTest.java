@@ -15,21 +15,38 @@ import static org.batfish.datamodel.matchers.FlowMatchers.hasTcpFlagsPsh;
 import static org.batfish.datamodel.matchers.FlowMatchers.hasTcpFlagsRst;
 import static org.batfish.datamodel.matchers.FlowMatchers.hasTcpFlagsUrg;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDException;
+import net.sf.javabdd.BDDFactory;
+import net.sf.javabdd.JFactory;
+import org.batfish.common.BatfishException;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.IpProtocol;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 
 public class BDDPacketTest {
+  @Rule public ExpectedException _exception = ExpectedException.none();
+
   @Test
   public void testAllocateBDDBit() {
     BDDPacket pkt = new BDDPacket();
@@ -203,4 +220,153 @@ public class BDDPacketTest {
     BDD swapped = mkBdd.apply(srcIp, dstIp).apply(srcPort);
     assertThat(pkt.swapSourceAndDestinationFields(orig), equalTo(swapped));
   }
+
+  @Test
+  public void testWriteReadBdds() throws IOException {
+    BDDPacket pkt = new BDDPacket();
+    BDD bit = pkt.allocateBDDBit("foo");
+    List<BDD> bdds =
+        ImmutableList.of(
+            pkt.getDstIp().value(Ip.parse("1.2.3.4").asLong()).and(bit),
+            pkt.getSrcPort().geq(1024).or(pkt.getTcpSyn()),
+            pkt.getFactory().zero());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    pkt.writeBdds(bdds, out);
+
+    BDDPacket pkt2 = new BDDPacket();
+    BDD bit2 = pkt2.allocateBDDBit("foo");
+    assertThat(
+        pkt2.readBdds(new ByteArrayInputStream(out.toByteArray())),
+        equalTo(
+            ImmutableList.of(
+                pkt2.getDstIp().value(Ip.parse("1.2.3.4").asLong()).and(bit2),
+                pkt2.getSrcPort().geq(1024).or(pkt2.getTcpSyn()),
+                pkt2.getFactory().zero())));
+
+    // a packet without the same variables cannot read them
+    _exception.expect(BatfishException.class);
+    new BDDPacket().readBdds(new ByteArrayInputStream(out.toByteArray()));
+  }
+
+  /** The low {@code n} bits of the destination and source IPs are equal. */
+  private static BDD lowIpBitsEqual(BDDPacket pkt, int n) {
+    BDD[] dstIp = pkt.getDstIp().getBitvec();
+    BDD[] srcIp = pkt.getSrcIp().getBitvec();
+    BDD result = pkt.getFactory().one();
+    for (int i = dstIp.length - n; i < dstIp.length; i++) {
+      result = result.and(dstIp[i].biimp(srcIp[i]));
+    }
+    return result;
+  }
+
+  @Test
+  public void testLayout() {
+    BDDPacket grouped = new BDDPacket();
+    BDDPacket interleaved = new BDDPacket(BDDPacketLayout.INTERLEAVED);
+    BDD[] dstIp = interleaved.getDstIp().getBitvec();
+    BDD[] srcIp = interleaved.getSrcIp().getBitvec();
+    BDD[] ipProtocol = interleaved.getIpProtocol().getBDDInteger().getBitvec();
+    BDD[] dstPort = interleaved.getDstPort().getBitvec();
+
+    // the variables are the same, but their levels differ
+    assertThat(dstIp[0].var(), equalTo(grouped.getDstIp().getBitvec()[0].var()));
+    assertThat(
+        interleaved.getFactory().getVarOrder(), not(equalTo(grouped.getFactory().getVarOrder())));
+    assertTrue(level(ipProtocol[7]) < level(dstIp[0]));
+    assertTrue(level(dstIp[0]) < level(srcIp[0]));
+    assertTrue(level(srcIp[0]) < level(dstIp[1]));
+    assertTrue(level(srcIp[31]) < level(dstPort[0]));
+
+    assertThat(lowIpBitsEqual(grouped, 12).nodeCount(), greaterThan(10000));
+    assertThat(lowIpBitsEqual(interleaved, 12).nodeCount(), lessThan(100));
+
+    // BDDs still mean the same thing
+    BDD bdd = interleaved.getDstIp().value(Ip.parse("1.2.3.4").asLong());
+    Flow flow = interleaved.getFlow(bdd).get().setIngressNode("ingressNode").setTag("tag").build();
+    assertThat(flow, hasDstIp(Ip.parse("1.2.3.4")));
+  }
+
+  private static int level(BDD var) {
+    return var.getFactory().var2Level(var.var());
+  }
+
+  @Test
+  public void testLayout_custom() {
+    BDDPacket pkt =
+        new BDDPacket(
+            BDDPacketLayout.custom(
+                ImmutableList.of(ImmutableList.of("tcpSyn"), ImmutableList.of("state"))));
+    assertTrue(level(pkt.getTcpSyn()) < level(pkt.getState().getBitvec()[0]));
+    assertTrue(level(pkt.getState().getBitvec()[1]) < level(pkt.getDstIp().getBitvec()[0]));
+  }
+
+  @Test
+  public void testLayout_unknownField() {
+    _exception.expect(IllegalArgumentException.class);
+    _exception.expectMessage("Unknown header field: foo");
+    new BDDPacket(BDDPacketLayout.custom(ImmutableList.of(ImmutableList.of("foo"))));
+  }
+
+  @Test
+  public void testFactory() {
+    BDDFactory factory = JFactory.initOffHeap(10000, 1000, 0);
+    BDDPacket pkt = new BDDPacket(factory, BDDPacketLayout.GROUPED);
+    assertThat(pkt.getFactory(), equalTo(factory));
+    Ip dstIp = Ip.parse("1.2.3.4");
+    BDD bdd = pkt.getDstIp().value(dstIp.asLong());
+    Flow flow = pkt.getFlow(bdd).get().setIngressNode("ingressNode").setTag("tag").build();
+    assertThat(flow, hasDstIp(dstIp));
+  }
+
+  @Test
+  public void testOffHeapLimit() {
+    BDDPacket pkt = BDDPacket.offHeap(4 << 20);
+    assertThat(pkt.getDstIp().value(Ip.parse("1.2.3.4").asLong()).isZero(), equalTo(false));
+
+    _exception.expect(BDDException.class);
+    _exception.expectMessage("more than the limit of 4194304 bytes");
+    pkt.getFactory().setNodeTableSize(1 << 20);
+  }
+
+  @Test
+  public void testFactory_notFresh() {
+    BDDFactory factory = JFactory.init(10000, 1000);
+    factory.setVarNum(1);
+    _exception.expect(IllegalArgumentException.class);
+    _exception.expectMessage("BDD factory already has variables");
+    new BDDPacket(factory, BDDPacketLayout.GROUPED);
+  }
+
+  @Test
+  public void testParallelMap() {
+    BDDPacket pkt = new BDDPacket();
+    List<Integer> inputs = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+    List<Long> outputs =
+        pkt.parallelMap(
+            inputs,
+            (p, i) -> {
+              BDDInteger dstPort = p.getDstPort();
+              return dstPort.getValueSatisfying(dstPort.value(i)).get();
+            },
+            4);
+    assertThat(
+        outputs, equalTo(inputs.stream().map(Integer::longValue).collect(Collectors.toList())));
+  }
+
+  @Test
+  public void testParallelMapTransfer() {
+    BDDPacket pkt = new BDDPacket(BDDPacketLayout.INTERLEAVED);
+    List<Integer> inputs = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+    List<BDD> bdds =
+        pkt.transfer(
+            pkt.parallelMap(
+                inputs, (p, i) -> p.getDstPort().value(i).and(p.getSrcPort().value(i + 1)), 4));
+
+    assertThat(
+        bdds,
+        equalTo(
+            inputs.stream()
+                .map(i -> pkt.getDstPort().value(i).and(pkt.getSrcPort().value(i + 1)))
+                .collect(Collectors.toList())));
+  }
 }
@@ -4,6 +4,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 
 import java.nio.file.Path;
+import org.batfish.common.util.SerializationFormat;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -24,4 +25,15 @@ public class PluginConsumerTest {
     int[] value = PluginConsumer.deserializeObject(serializeFile, int[].class);
     assertThat(value, equalTo(ints));
   }
+
+  @Test
+  public void testSerializingAndDeserializingJava() throws Exception {
+    Path serializeFile = _folder.newFile().toPath();
+
+    int[] ints = new int[] {1, 2, 3};
+    PluginConsumer.serializeObject(ints, serializeFile, SerializationFormat.JAVA);
+
+    int[] value = PluginConsumer.deserializeObject(serializeFile, int[].class);
+    assertThat(value, equalTo(ints));
+  }
 }
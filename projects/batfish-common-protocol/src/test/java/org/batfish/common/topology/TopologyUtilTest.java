@@ -30,9 +30,13 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.MutableGraph;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.Warnings;
@@ -48,10 +52,12 @@ import org.batfish.datamodel.IntegerSpace;
 import org.batfish.datamodel.Interface;
 import org.batfish.datamodel.Interface.Dependency;
 import org.batfish.datamodel.Interface.DependencyType;
+import org.batfish.datamodel.InterfaceAddress;
 import org.batfish.datamodel.InterfaceType;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.LinkLocalAddress;
 import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.SubRange;
 import org.batfish.datamodel.SwitchportMode;
 import org.batfish.datamodel.Topology;
@@ -1352,6 +1358,91 @@ public final class TopologyUtilTest {
     assertThat(t.getEdges(), empty());
   }
 
+  /**
+   * Returns the edges {@link TopologyUtil#synthesizeL3Topology} should infer, by checking every
+   * pair of interfaces.
+   */
+  private static Set<Edge> synthesizeL3TopologyBruteForce(
+      Map<String, Configuration> configurations) {
+    List<Interface> interfaces =
+        configurations.values().stream()
+            .flatMap(
+                c ->
+                    c.getAllInterfaces().values().stream()
+                        .filter(i -> i.getActive() && !i.isLoopback(c.getConfigurationFormat())))
+            .collect(ImmutableList.toImmutableList());
+    Set<Edge> edges = new HashSet<>();
+    for (Interface i1 : interfaces) {
+      for (Interface i2 : interfaces) {
+        if ((i1.getOwner() == i2.getOwner() && i1.getVrfName().equals(i2.getVrfName()))
+            || InterfaceType.TUNNEL == i1.getInterfaceType()
+            || InterfaceType.TUNNEL == i2.getInterfaceType()
+            || i1.getAllConcreteAddresses().stream()
+                .anyMatch(
+                    a1 ->
+                        i2.getAllConcreteAddresses().stream()
+                            .anyMatch(a2 -> a1.getIp().equals(a2.getIp())))) {
+          continue;
+        }
+        // i2 has an address in the subnet of i1, and a subnet containing the start of that subnet
+        for (ConcreteInterfaceAddress a1 : i1.getAllConcreteAddresses()) {
+          Prefix p = a1.getPrefix();
+          if (p.getPrefixLength() < Prefix.MAX_PREFIX_LENGTH
+              && i2.getAllConcreteAddresses().stream().anyMatch(a2 -> p.containsIp(a2.getIp()))
+              && i2.getAllConcreteAddresses().stream()
+                  .anyMatch(
+                      a2 ->
+                          a2.getPrefix().getPrefixLength() < Prefix.MAX_PREFIX_LENGTH
+                              && a2.getPrefix().containsIp(p.getStartIp()))) {
+            edges.add(new Edge(i1, i2));
+          }
+        }
+      }
+    }
+    return edges;
+  }
+
+  @Test
+  public void testSynthesizeTopology_random() {
+    Random random = new Random(0);
+    for (int trial = 0; trial < 200; trial++) {
+      NetworkFactory nf = new NetworkFactory();
+      Map<String, Configuration> configurations = new HashMap<>();
+      for (int node = 0; node < 4; node++) {
+        Configuration c =
+            nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS).build();
+        configurations.put(c.getHostname(), c);
+        List<Vrf> vrfs =
+            ImmutableList.of(
+                nf.vrfBuilder().setOwner(c).setName(Configuration.DEFAULT_VRF_NAME).build(),
+                nf.vrfBuilder().setOwner(c).setName("other").build());
+        int numInterfaces = 1 + random.nextInt(6);
+        for (int i = 0; i < numInterfaces; i++) {
+          // a small part of the address space, so that subnets overlap
+          List<InterfaceAddress> addresses = new ArrayList<>();
+          int numAddresses = 1 + random.nextInt(3);
+          for (int a = 0; a < numAddresses; a++) {
+            addresses.add(
+                ConcreteInterfaceAddress.create(
+                    Ip.create(Ip.parse("10.0.0.0").asLong() + random.nextInt(64)),
+                    24 + random.nextInt(9)));
+          }
+          nf.interfaceBuilder()
+              .setOwner(c)
+              .setVrf(vrfs.get(random.nextInt(vrfs.size())))
+              .setName((random.nextInt(8) == 0 ? "Loopback" : "Ethernet") + i)
+              .setActive(random.nextInt(8) != 0)
+              .setType(random.nextInt(8) == 0 ? InterfaceType.TUNNEL : InterfaceType.PHYSICAL)
+              .setAddresses(addresses.get(0), addresses.subList(1, addresses.size()))
+              .build();
+        }
+      }
+      assertThat(
+          TopologyUtil.synthesizeL3Topology(configurations).getEdges(),
+          equalTo(synthesizeL3TopologyBruteForce(configurations)));
+    }
+  }
+
   @Test
   public void testComputeLayer3Topology_linkLocalAddresses() {
     _cb.setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
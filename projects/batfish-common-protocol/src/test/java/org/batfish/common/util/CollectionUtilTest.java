@@ -1,12 +1,15 @@
 package org.batfish.common.util;
 
+import static org.batfish.common.util.CollectionUtil.lazySortedMap;
 import static org.batfish.common.util.CollectionUtil.toImmutableMap;
 import static org.batfish.common.util.CollectionUtil.toMap;
 import static org.batfish.common.util.CollectionUtil.toOrderedHashCode;
 import static org.batfish.common.util.CollectionUtil.toUnorderedHashCode;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
@@ -14,9 +17,12 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Maps;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import org.junit.Test;
@@ -69,4 +75,31 @@ public class CollectionUtilTest {
         toMap(m, Function.identity(), x -> x.equals("a") ? 0 : 1),
         equalTo(ImmutableMap.of("a", 0, "b", 1)));
   }
+
+  @Test
+  public void testLazySortedMap() {
+    AtomicInteger loads = new AtomicInteger();
+    SortedMap<String, Integer> m =
+        lazySortedMap(
+            ImmutableSortedSet.of("b", "a", "c"),
+            k -> {
+              loads.incrementAndGet();
+              return k.charAt(0) - 'a';
+            });
+
+    // Key queries do not load values
+    assertThat(m.keySet(), contains("a", "b", "c"));
+    assertThat(m.containsKey("d"), equalTo(false));
+    assertThat(m.get("d"), nullValue());
+    assertThat(loads.get(), equalTo(0));
+
+    // Values are loaded once, on first access
+    assertThat(m.get("b"), equalTo(1));
+    assertThat(m.get("b"), equalTo(1));
+    assertThat(loads.get(), equalTo(1));
+
+    assertThat(m, equalTo(ImmutableSortedMap.of("a", 0, "b", 1, "c", 2)));
+    assertThat(m.headMap("c").values(), contains(0, 1));
+    assertThat(loads.get(), equalTo(3));
+  }
 }
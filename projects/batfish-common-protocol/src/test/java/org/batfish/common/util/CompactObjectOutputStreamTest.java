@@ -0,0 +1,120 @@
+package org.batfish.common.util;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Vrf;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/** Tests of {@link CompactObjectOutputStream} and {@link CompactObjectInputStream} */
+public class CompactObjectOutputStreamTest {
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private static byte[] writeCompact(Object object) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new CompactObjectOutputStream(out)) {
+      oos.writeObject(object);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] writeJava(Object object) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+      oos.writeObject(object);
+    }
+    return out.toByteArray();
+  }
+
+  private static Object readCompact(byte[] bytes) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream ois = new CompactObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return ois.readObject();
+    }
+  }
+
+  private static Configuration configuration() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration c =
+        nf.configurationBuilder()
+            .setHostname("c")
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .build();
+    Vrf vrf = nf.vrfBuilder().setOwner(c).setName(Configuration.DEFAULT_VRF_NAME).build();
+    for (int i = 0; i < 10; i++) {
+      nf.interfaceBuilder()
+          .setName("Ethernet" + i)
+          .setOwner(c)
+          .setVrf(vrf)
+          .setAddress(ConcreteInterfaceAddress.create(Ip.create(0x0A000001L + (i << 8)), 24))
+          .build();
+    }
+    return c;
+  }
+
+  @Test
+  public void testRoundTripConfiguration() throws Exception {
+    Configuration c = configuration();
+    Configuration clone = (Configuration) readCompact(writeCompact(c));
+
+    assertThat(clone.getHostname(), equalTo(c.getHostname()));
+    assertThat(clone.getAllInterfaces().keySet(), equalTo(c.getAllInterfaces().keySet()));
+    for (Interface iface : c.getAllInterfaces().values()) {
+      Interface cloneIface = clone.getAllInterfaces().get(iface.getName());
+      assertThat(cloneIface.getConcreteAddress(), equalTo(iface.getConcreteAddress()));
+      assertThat(cloneIface.getVrf(), sameInstance(clone.getVrfs().get(iface.getVrfName())));
+    }
+  }
+
+  @Test
+  public void testSmallerThanJavaSerialization() throws Exception {
+    Configuration c = configuration();
+    assertThat(writeCompact(c).length, lessThan(writeJava(c).length));
+  }
+
+  @Test
+  public void testValuesInterned() throws Exception {
+    // Equal but distinct instances
+    List<Object> values = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      values.add(new String("abc"));
+      values.add(Prefix.parse("1.2.3.0/24"));
+    }
+    @SuppressWarnings("unchecked")
+    List<Object> clone = (List<Object>) readCompact(writeCompact(values));
+
+    assertThat(clone, equalTo(values));
+    assertThat(clone.get(2), sameInstance(clone.get(0)));
+    // Ips and prefixes are canonicalized through their caches
+    assertThat(clone.get(1), sameInstance(Prefix.parse("1.2.3.0/24")));
+    assertThat(
+        ((Prefix) clone.get(1)).getStartIp(),
+        sameInstance(Prefix.parse("1.2.3.0/24").getStartIp()));
+  }
+
+  @Test
+  public void testJavaSerializationRejected() throws Exception {
+    _thrown.expect(StreamCorruptedException.class);
+    readCompact(writeJava(ImmutableList.of("abc")));
+  }
+}
@@ -0,0 +1,36 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+/** Tests of {@link AsPathAccessList} */
+public final class AsPathAccessListTest {
+
+  private static final AsPathAccessList LIST =
+      new AsPathAccessList(
+          "list",
+          ImmutableList.of(
+              new AsPathAccessListLine(LineAction.DENY, "^1 "),
+              new AsPathAccessListLine(LineAction.PERMIT, "2")));
+
+  @Test
+  public void testPermits() {
+    // first matching line wins
+    assertThat(LIST.permits(AsPath.ofSingletonAsSets(1L, 2L)), equalTo(false));
+    assertThat(LIST.permits(AsPath.ofSingletonAsSets(3L, 2L)), equalTo(true));
+    // no line matches
+    assertThat(LIST.permits(AsPath.ofSingletonAsSets(3L)), equalTo(false));
+  }
+
+  @Test
+  public void testJavaSerialization() {
+    AsPathAccessList clone = SerializationUtils.clone(LIST);
+
+    assertThat(clone, equalTo(LIST));
+    assertThat(clone.permits(AsPath.ofSingletonAsSets(3L, 2L)), equalTo(true));
+  }
+}
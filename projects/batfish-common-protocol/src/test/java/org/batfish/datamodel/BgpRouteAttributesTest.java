@@ -0,0 +1,121 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.testing.EqualsTester;
+import java.util.TreeSet;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.datamodel.bgp.community.Community;
+import org.batfish.datamodel.bgp.community.ExtendedCommunity;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.junit.Test;
+
+/** Tests of {@link BgpRouteAttributes} */
+public class BgpRouteAttributesTest {
+
+  private static BgpRouteAttributes create(
+      AsPath asPath,
+      ImmutableSortedSet<Long> clusterList,
+      ImmutableSortedSet<Community> communities) {
+    return BgpRouteAttributes.create(
+        asPath, clusterList, communities, 100L, 0L, Ip.parse("1.1.1.1"), OriginType.IGP, false, 0);
+  }
+
+  @Test
+  public void testEquals() {
+    BgpRouteAttributes attributes =
+        create(AsPath.empty(), ImmutableSortedSet.of(), ImmutableSortedSet.of());
+    new EqualsTester()
+        .addEqualityGroup(
+            attributes, create(AsPath.empty(), ImmutableSortedSet.of(), ImmutableSortedSet.of()))
+        .addEqualityGroup(
+            create(AsPath.ofSingletonAsSets(1L), ImmutableSortedSet.of(), ImmutableSortedSet.of()))
+        .addEqualityGroup(
+            create(AsPath.empty(), ImmutableSortedSet.of(1L), ImmutableSortedSet.of()))
+        .addEqualityGroup(
+            create(
+                AsPath.empty(),
+                ImmutableSortedSet.of(),
+                ImmutableSortedSet.of(StandardCommunity.of(1L))))
+        .addEqualityGroup(
+            BgpRouteAttributes.create(
+                AsPath.empty(),
+                ImmutableSortedSet.of(),
+                ImmutableSortedSet.of(),
+                200L,
+                1L,
+                Ip.parse("2.2.2.2"),
+                OriginType.EGP,
+                true,
+                1))
+        .testEquals();
+  }
+
+  @Test
+  public void testInterned() {
+    BgpRouteAttributes attributes =
+        create(
+            AsPath.ofSingletonAsSets(1L, 2L),
+            ImmutableSortedSet.of(1L),
+            ImmutableSortedSet.of(StandardCommunity.of(1L)));
+    TreeSet<Community> communities = new TreeSet<>();
+    communities.add(StandardCommunity.of(1L));
+    TreeSet<Long> clusterList = new TreeSet<>();
+    clusterList.add(1L);
+
+    assertThat(
+        BgpRouteAttributes.create(
+            AsPath.ofSingletonAsSets(1L, 2L),
+            clusterList,
+            communities,
+            100L,
+            0L,
+            Ip.parse("1.1.1.1"),
+            OriginType.IGP,
+            false,
+            0),
+        sameInstance(attributes));
+    assertThat(SerializationUtils.clone(attributes), sameInstance(attributes));
+  }
+
+  @Test
+  public void testSharedByRoutes() {
+    Bgpv4Route.Builder rb =
+        Bgpv4Route.builder()
+            .setNetwork(Prefix.parse("1.1.1.0/24"))
+            .setOriginatorIp(Ip.parse("1.1.1.1"))
+            .setOriginType(OriginType.IGP)
+            .setProtocol(RoutingProtocol.BGP)
+            .setCommunities(ImmutableSortedSet.of(StandardCommunity.of(1L)));
+    Bgpv4Route route1 = rb.build();
+    Bgpv4Route route2 = rb.setNetwork(Prefix.parse("2.2.2.0/24")).build();
+
+    assertThat(route1.getAttributes(), sameInstance(route2.getAttributes()));
+    assertThat(
+        SerializationUtils.clone(route1).getAttributes(), sameInstance(route1.getAttributes()));
+  }
+
+  @Test
+  public void testCommunitiesByType() {
+    StandardCommunity standard = StandardCommunity.of(1L);
+    ExtendedCommunity extended = ExtendedCommunity.target(1L, 1L);
+    BgpRouteAttributes attributes =
+        create(AsPath.empty(), ImmutableSortedSet.of(), ImmutableSortedSet.of(standard, extended));
+
+    assertThat(attributes.getStandardCommunities(), contains(standard));
+    assertThat(attributes.getExtendedCommunities(), contains(extended));
+
+    // Computed once, and shared by equal attributes
+    BgpRouteAttributes equalAttributes =
+        create(AsPath.empty(), ImmutableSortedSet.of(), ImmutableSortedSet.of(standard, extended));
+    assertThat(
+        equalAttributes.getStandardCommunities(),
+        sameInstance(attributes.getStandardCommunities()));
+    assertThat(
+        equalAttributes.getExtendedCommunities(),
+        sameInstance(attributes.getExtendedCommunities()));
+  }
+}
@@ -0,0 +1,87 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+import org.junit.Test;
+
+/** Tests of {@link LongestPrefixMatchIndex} */
+public class LongestPrefixMatchIndexTest {
+
+  private static boolean isEven(int i) {
+    return i % 2 == 0;
+  }
+
+  @Test
+  public void testEmpty() {
+    LongestPrefixMatchIndex<Integer> index =
+        LongestPrefixMatchIndex.build(new PrefixTrieMultiMap<>(), i -> true);
+    assertThat(index.size(), equalTo(0));
+    assertThat(index.longestForwardingMatch(Ip.parse("1.1.1.1")), empty());
+    assertThat(index.longestPrefixMatch(Ip.parse("1.1.1.1"), 32), empty());
+  }
+
+  @Test
+  public void testLongestForwardingMatch() {
+    PrefixTrieMultiMap<Integer> trie = new PrefixTrieMultiMap<>(Prefix.ZERO);
+    trie.put(Prefix.ZERO, 0);
+    trie.put(Prefix.parse("10.0.0.0/8"), 2);
+    trie.put(Prefix.parse("10.0.0.0/8"), 3);
+    trie.put(Prefix.parse("10.1.0.0/16"), 5);
+    trie.put(Prefix.parse("10.1.1.0/24"), 4);
+    LongestPrefixMatchIndex<Integer> index =
+        LongestPrefixMatchIndex.build(trie, LongestPrefixMatchIndexTest::isEven);
+
+    Ip ip = Ip.parse("10.1.1.1");
+    // /24 is forwarding
+    assertThat(index.longestForwardingMatch(ip), containsInAnyOrder(4));
+    // /16 has only non-forwarding elements, so skip to /8 and filter
+    assertThat(index.longestForwardingMatch(ip, 23), containsInAnyOrder(2));
+    assertThat(index.longestForwardingMatch(ip, 7), containsInAnyOrder(0));
+    assertThat(index.longestForwardingMatch(Ip.parse("11.0.0.0")), containsInAnyOrder(0));
+
+    // plain longest prefix match considers all elements
+    assertThat(index.longestPrefixMatch(ip, 23), containsInAnyOrder(5));
+    assertThat(index.longestPrefixMatch(ip, 8), containsInAnyOrder(2, 3));
+  }
+
+  @Test
+  public void testHostRoutes() {
+    PrefixTrieMultiMap<Integer> trie = new PrefixTrieMultiMap<>();
+    trie.put(Prefix.parse("255.255.255.255/32"), 0);
+    trie.put(Prefix.parse("0.0.0.0/32"), 2);
+    LongestPrefixMatchIndex<Integer> index =
+        LongestPrefixMatchIndex.build(trie, LongestPrefixMatchIndexTest::isEven);
+    assertThat(index.longestForwardingMatch(Ip.MAX), containsInAnyOrder(0));
+    assertThat(index.longestForwardingMatch(Ip.ZERO), containsInAnyOrder(2));
+    assertThat(index.longestForwardingMatch(Ip.parse("1.1.1.1")), empty());
+    assertThat(index.longestForwardingMatch(Ip.MAX, 31), empty());
+  }
+
+  /** Compare the index against the trie it was built from on random data. */
+  @Test
+  public void testMatchesTrie() {
+    Random random = new Random(0);
+    PrefixTrieMultiMap<Integer> trie = new PrefixTrieMultiMap<>(Prefix.ZERO);
+    for (int i = 0; i < 2000; i++) {
+      // Use few distinct high-order bits so that prefixes overlap
+      long start = (random.nextInt(4) << 30 | random.nextInt(1 << 12) << 18) & 0xFFFFFFFFL;
+      trie.put(Prefix.create(Ip.create(start), random.nextInt(33)), random.nextInt(100));
+    }
+    LongestPrefixMatchIndex<Integer> index =
+        LongestPrefixMatchIndex.build(trie, LongestPrefixMatchIndexTest::isEven);
+    for (int i = 0; i < 2000; i++) {
+      Ip ip = Ip.create((random.nextInt(4) << 30 | random.nextInt(1 << 30)) & 0xFFFFFFFFL);
+      int maxLength = random.nextInt(33);
+      assertThat(
+          index.longestForwardingMatch(ip, maxLength),
+          equalTo(trie.longestPrefixMatch(ip, maxLength, LongestPrefixMatchIndexTest::isEven)));
+      assertThat(
+          index.longestPrefixMatch(ip, maxLength),
+          equalTo(trie.longestPrefixMatch(ip, maxLength)));
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.regex.PatternSyntaxException;
+import org.batfish.datamodel.bgp.community.Community;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/** Tests of {@link RegexMatcher} */
+public final class RegexMatcherTest {
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  @Test
+  public void testFirstMatch() {
+    RegexMatcher<AsPath> matcher = RegexMatcher.forAsPaths(ImmutableList.of("^1 ", "2", "^$"));
+
+    assertThat(matcher.firstMatch(AsPath.ofSingletonAsSets(1L, 2L)), equalTo(0));
+    assertThat(matcher.firstMatch(AsPath.ofSingletonAsSets(3L, 2L)), equalTo(1));
+    assertThat(matcher.firstMatch(AsPath.empty()), equalTo(2));
+    assertThat(matcher.firstMatch(AsPath.ofSingletonAsSets(3L)), equalTo(RegexMatcher.NO_MATCH));
+    // cached results are the same
+    assertThat(matcher.firstMatch(AsPath.ofSingletonAsSets(3L, 2L)), equalTo(1));
+  }
+
+  @Test
+  public void testSpacePrefixedAsPaths() {
+    RegexMatcher<AsPath> matcher = RegexMatcher.forSpacePrefixedAsPaths(ImmutableList.of(" 13$"));
+
+    assertThat(matcher.matches(AsPath.ofSingletonAsSets(12L, 13L)), equalTo(true));
+    assertThat(matcher.matches(AsPath.ofSingletonAsSets(113L)), equalTo(false));
+    assertThat(
+        RegexMatcher.forSpacePrefixedAsPaths(ImmutableList.of("^$")).matches(AsPath.empty()),
+        equalTo(true));
+  }
+
+  @Test
+  public void testCommunities() {
+    RegexMatcher<Community> matcher = RegexMatcher.forCommunities(ImmutableList.of("^1:"));
+
+    assertThat(matcher.matches(StandardCommunity.of(1, 2)), equalTo(true));
+    assertThat(matcher.matches(StandardCommunity.of(2, 1)), equalTo(false));
+  }
+
+  @Test
+  public void testShared() {
+    RegexMatcher<AsPath> matcher = RegexMatcher.forAsPaths(ImmutableList.of("1", "2"));
+
+    assertThat(RegexMatcher.forAsPaths(ImmutableList.of("1", "2")), sameInstance(matcher));
+    // order matters
+    assertThat(RegexMatcher.forAsPaths(ImmutableList.of("2", "1")), not(sameInstance(matcher)));
+    // so does the text form
+    assertThat(
+        RegexMatcher.forSpacePrefixedAsPaths(ImmutableList.of("1", "2")),
+        not(sameInstance(matcher)));
+  }
+
+  @Test
+  public void testInvalidRegex() {
+    _thrown.expect(PatternSyntaxException.class);
+    RegexMatcher.forAsPaths(ImmutableList.of("("));
+  }
+}
@@ -0,0 +1,210 @@
+package org.batfish.datamodel.acl;
+
+import static org.batfish.datamodel.acl.AclLineMatchExprs.and;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchDst;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchDstPort;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchSrc;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.not;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.or;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.batfish.datamodel.AclIpSpace;
+import org.batfish.datamodel.EmptyIpSpace;
+import org.batfish.datamodel.FilterResult;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpAccessListLine;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpSpaceReference;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.IpWildcardSetIpSpace;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.junit.Test;
+
+/** Tests of {@link AclCompiler} and {@link CompiledAcl}, against {@link Evaluator} */
+public final class AclCompilerTest {
+
+  private static final String IFACE = "iface";
+
+  private static Flow flow(Ip srcIp, Ip dstIp, int dstPort) {
+    return Flow.builder()
+        .setIngressNode("node")
+        .setTag("tag")
+        .setIpProtocol(IpProtocol.TCP)
+        .setSrcIp(srcIp)
+        .setDstIp(dstIp)
+        .setSrcPort(12345)
+        .setDstPort(dstPort)
+        .build();
+  }
+
+  /** Generates match expressions and flows over a small part of the IP space, so they overlap. */
+  private static final class Generator {
+    private final Random _random;
+
+    /**
+     * Whether generated expressions may reference the ACL named "referenced" and IP spaces may
+     * reference the IP space named "named"
+     */
+    private boolean _references;
+
+    private Generator(Random random) {
+      _random = random;
+    }
+
+    private Ip ip() {
+      return Ip.create(Ip.parse("10.0.0.0").asLong() + _random.nextInt(1 << 10));
+    }
+
+    private Prefix prefix() {
+      return Prefix.create(ip(), 22 + _random.nextInt(11));
+    }
+
+    private IpSpace ipSpace(int depth) {
+      switch (_random.nextInt(depth > 0 ? 8 : 5)) {
+        case 0:
+          return prefix().toIpSpace();
+        case 1:
+          return ip().toIpSpace();
+        case 2:
+          // not a prefix
+          return IpWildcard.ipWithWildcardMask(ip(), 0x0F0L).toIpSpace();
+        case 3:
+          return _references
+              ? new IpSpaceReference(_random.nextBoolean() ? "named" : "undefined")
+              : prefix().toIpSpace();
+        case 4:
+          return _random.nextBoolean() ? UniverseIpSpace.INSTANCE : EmptyIpSpace.INSTANCE;
+        case 5:
+          return IpWildcardSetIpSpace.builder()
+              .including(IpWildcard.create(prefix()), IpWildcard.create(prefix()))
+              .excluding(IpWildcard.create(prefix()))
+              .build();
+        default:
+          return AclIpSpace.builder()
+              .thenRejecting(ipSpace(depth - 1))
+              .thenPermitting(ipSpace(depth - 1))
+              .thenPermitting(ipSpace(depth - 1))
+              .build();
+      }
+    }
+
+    private AclLineMatchExpr expr(int depth) {
+      switch (_random.nextInt(depth > 0 ? 9 : 5)) {
+        case 0:
+          return matchDst(ipSpace(2));
+        case 1:
+          return matchSrc(ipSpace(2));
+        case 2:
+          return matchDstPort(_random.nextInt(3));
+        case 3:
+          return new MatchHeaderSpace(
+              HeaderSpace.builder().setDstIps(ipSpace(1)).setNotDstIps(ipSpace(1)).build());
+        case 4:
+          return _random.nextBoolean()
+              ? new MatchSrcInterface(ImmutableList.of(IFACE))
+              : OriginatingFromDevice.INSTANCE;
+        case 5:
+          return and(expr(depth - 1), expr(depth - 1));
+        case 6:
+          return or(expr(depth - 1), expr(depth - 1));
+        case 7:
+          return not(expr(depth - 1));
+        default:
+          return _references
+              ? new PermittedByAcl("referenced", _random.nextBoolean())
+              : expr(depth - 1);
+      }
+    }
+
+    private IpSpace namedIpSpace() {
+      _references = false;
+      return ipSpace(2);
+    }
+
+    private IpAccessList acl(String name, int numLines, boolean references) {
+      _references = references;
+      List<IpAccessListLine> lines = new ArrayList<>();
+      for (int i = 0; i < numLines; i++) {
+        lines.add(
+            IpAccessListLine.builder()
+                .setAction(_random.nextBoolean() ? LineAction.PERMIT : LineAction.DENY)
+                .setMatchCondition(expr(2))
+                .build());
+      }
+      return IpAccessList.builder().setName(name).setLines(lines).build();
+    }
+  }
+
+  @Test
+  public void testAgreesWithEvaluator() {
+    Random random = new Random(0);
+    Generator generator = new Generator(random);
+    for (int trial = 0; trial < 500; trial++) {
+      Map<String, IpSpace> namedIpSpaces = ImmutableMap.of("named", generator.namedIpSpace());
+      IpAccessList referenced = generator.acl("referenced", 5, false);
+      IpAccessList acl = generator.acl("acl", 1 + random.nextInt(50), true);
+      Map<String, IpAccessList> acls = ImmutableMap.of("acl", acl, "referenced", referenced);
+      CompiledAcl compiled = new AclCompiler(acls, namedIpSpaces).compile(acl);
+      for (int i = 0; i < 200; i++) {
+        Flow flow = flow(generator.ip(), generator.ip(), random.nextInt(3));
+        String srcInterface = random.nextBoolean() ? IFACE : null;
+        FilterResult expected = acl.filter(flow, srcInterface, acls, namedIpSpaces);
+        FilterResult actual = compiled.filter(flow, srcInterface);
+        assertThat(actual.getMatchLine(), equalTo(expected.getMatchLine()));
+        assertThat(actual.getAction(), equalTo(expected.getAction()));
+      }
+    }
+  }
+
+  @Test
+  public void testIndexedLines() {
+    // Many lines, each matching a distinct destination prefix, so that the ACL is indexed
+    List<IpAccessListLine> lines = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      lines.add(
+          IpAccessListLine.accepting(
+              matchDst(Prefix.create(Ip.create(Ip.parse("10.0.0.0").asLong() + 4 * i), 30))));
+    }
+    lines.add(IpAccessListLine.rejecting(matchDst(Prefix.parse("10.0.0.0/8"))));
+    IpAccessList acl = IpAccessList.builder().setName("acl").setLines(lines).build();
+    CompiledAcl compiled =
+        new AclCompiler(ImmutableMap.of("acl", acl), ImmutableMap.of()).compile(acl);
+
+    FilterResult result = compiled.filter(flow(Ip.ZERO, Ip.parse("10.0.3.233"), 0), null);
+    assertThat(result.getMatchLine(), equalTo(250));
+    assertThat(result.getAction(), equalTo(LineAction.PERMIT));
+
+    result = compiled.filter(flow(Ip.ZERO, Ip.parse("10.1.0.0"), 0), null);
+    assertThat(result.getMatchLine(), equalTo(1000));
+    assertThat(result.getAction(), equalTo(LineAction.DENY));
+
+    result = compiled.filter(flow(Ip.ZERO, Ip.parse("11.0.0.0"), 0), null, LineAction.PERMIT);
+    assertThat(result.getMatchLine(), equalTo(null));
+    assertThat(result.getAction(), equalTo(LineAction.PERMIT));
+  }
+
+  @Test
+  public void testCompileCached() {
+    IpAccessList acl =
+        IpAccessList.builder()
+            .setName("acl")
+            .setLines(ImmutableList.of(IpAccessListLine.ACCEPT_ALL))
+            .build();
+    AclCompiler compiler = new AclCompiler(ImmutableMap.of("acl", acl), ImmutableMap.of());
+    assertThat(compiler.compile(acl), sameInstance(compiler.compile(acl)));
+  }
+}
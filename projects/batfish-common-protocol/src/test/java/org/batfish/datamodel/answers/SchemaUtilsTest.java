@@ -5,6 +5,8 @@ import static org.junit.Assert.assertThat;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
 import org.batfish.common.util.BatfishObjectMapper;
 import org.junit.Rule;
 import org.junit.Test;
@@ -37,4 +39,26 @@ public class SchemaUtilsTest {
     _thrown.expectMessage("Cannot recover");
     SchemaUtils.convertType(toJson(ImmutableList.of(1)), Schema.INTEGER);
   }
+
+  @Test
+  public void isInstance() {
+    assertThat(SchemaUtils.isInstance(2, Schema.INTEGER), equalTo(true));
+    assertThat(SchemaUtils.isInstance(2L, Schema.INTEGER), equalTo(false));
+    assertThat(SchemaUtils.isInstance(toJson(2), Schema.INTEGER), equalTo(false));
+    assertThat(
+        SchemaUtils.isInstance(Arrays.asList(1, null), Schema.list(Schema.INTEGER)), equalTo(true));
+    assertThat(
+        SchemaUtils.isInstance(ImmutableList.of(1), Schema.set(Schema.INTEGER)), equalTo(false));
+    assertThat(
+        SchemaUtils.isInstance(ImmutableSet.of("a"), Schema.set(Schema.INTEGER)), equalTo(false));
+  }
+
+  @Test
+  public void isValidObject() {
+    assertThat(SchemaUtils.isValidObject(null, Schema.INTEGER), equalTo(true));
+    assertThat(SchemaUtils.isValidObject(2, Schema.INTEGER), equalTo(true));
+    // Not an instance, but convertible
+    assertThat(SchemaUtils.isValidObject(2, Schema.LONG), equalTo(true));
+    assertThat(SchemaUtils.isValidObject("a", Schema.INTEGER), equalTo(false));
+  }
 }
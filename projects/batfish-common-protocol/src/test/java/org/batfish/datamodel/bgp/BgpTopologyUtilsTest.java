@@ -2,19 +2,29 @@ package org.batfish.datamodel.bgp;
 
 import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
 import static org.batfish.datamodel.bgp.BgpTopologyUtils.initBgpTopology;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertThat;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterables;
 import com.google.common.graph.EndpointPair;
 import com.google.common.graph.ValueGraph;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.batfish.common.plugin.TracerouteEngine;
 import org.batfish.common.topology.Layer2Edge;
 import org.batfish.common.topology.Layer2Topology;
 import org.batfish.datamodel.BgpActivePeerConfig;
@@ -25,10 +35,18 @@ import org.batfish.datamodel.BgpSessionProperties;
 import org.batfish.datamodel.BgpUnnumberedPeerConfig;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NamedPort;
 import org.batfish.datamodel.NetworkFactory;
 import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
+import org.batfish.datamodel.flow.Hop;
+import org.batfish.datamodel.flow.Trace;
+import org.batfish.datamodel.flow.TraceAndReverseFlow;
+import org.batfish.datamodel.pojo.Node;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -47,6 +65,59 @@ public class BgpTopologyUtilsTest {
       new BgpProcess(Ip.parse("0.0.0.3"), ConfigurationFormat.CISCO_IOS);
   private static Map<String, Configuration> _configs;
 
+  /**
+   * A {@link TracerouteEngine} that records the flows of each call, delivers each flow to the owner
+   * of its destination IP in a single hop, and denies connections to the BGP port initiated by
+   * nodes in {@code _deniedInitiators}.
+   */
+  private static final class RecordingTracerouteEngine implements TracerouteEngine {
+    private final List<Set<Flow>> _calls = new ArrayList<>();
+    private final Set<String> _deniedInitiators;
+    private final Map<Ip, Set<String>> _ipOwners;
+
+    private RecordingTracerouteEngine(Map<Ip, Set<String>> ipOwners, Set<String> deniedInitiators) {
+      _deniedInitiators = deniedInitiators;
+      _ipOwners = ipOwners;
+    }
+
+    @Override
+    public SortedMap<Flow, List<TraceAndReverseFlow>> computeTracesAndReverseFlows(
+        Set<Flow> flows, Set<FirewallSessionTraceInfo> sessions, boolean ignoreFilters) {
+      _calls.add(flows);
+      return flows.stream()
+          .collect(
+              ImmutableSortedMap.toImmutableSortedMap(
+                  Comparator.naturalOrder(), Function.<Flow>identity(), this::trace));
+    }
+
+    private List<TraceAndReverseFlow> trace(Flow flow) {
+      if (_deniedInitiators.contains(flow.getIngressNode())
+          && flow.getDstPort() == NamedPort.BGP.number()) {
+        return ImmutableList.of(
+            new TraceAndReverseFlow(
+                new Trace(FlowDisposition.DENIED_OUT, ImmutableList.of()),
+                null,
+                ImmutableSet.of()));
+      }
+      String owner = Iterables.getOnlyElement(_ipOwners.get(flow.getDstIp()));
+      Flow reverseFlow =
+          flow.toBuilder()
+              .setIngressNode(owner)
+              .setSrcIp(flow.getDstIp())
+              .setDstIp(flow.getSrcIp())
+              .setSrcPort(flow.getDstPort())
+              .setDstPort(flow.getSrcPort())
+              .build();
+      return ImmutableList.of(
+          new TraceAndReverseFlow(
+              new Trace(
+                  FlowDisposition.ACCEPTED,
+                  ImmutableList.of(new Hop(new Node(owner), ImmutableList.of()))),
+              reverseFlow,
+              ImmutableSet.of()));
+    }
+  }
+
   /** Sets up three nodes with a BGP process on each. Tests can populate BGP processes. */
   @BeforeClass
   public static void setup() {
@@ -329,4 +400,53 @@ public class BgpTopologyUtilsTest {
     assertThat(bgpTopology.nodes(), hasSize(2));
     assertThat(bgpTopology.edges(), empty());
   }
+
+  @Test
+  public void testInitTopologyCheckReachabilityBatched() {
+    // Peers on node1 (1.1.1.1), node2 (1.1.1.2), and node3 (1.1.1.3) each actively peer with both
+    // other nodes. Forward flows of all sessions should be traced in one batch, and their reverse
+    // flows in another. Sessions whose reverse session is already established are not checked.
+
+    Ip ip1 = Ip.parse("1.1.1.1");
+    Ip ip2 = Ip.parse("1.1.1.2");
+    Ip ip3 = Ip.parse("1.1.1.3");
+    BgpActivePeerConfig.Builder peerBuilder =
+        BgpActivePeerConfig.builder()
+            .setLocalAs(1L)
+            .setRemoteAs(1L)
+            .setIpv4UnicastAddressFamily(Ipv4UnicastAddressFamily.builder().build());
+    _node1BgpProcess.setNeighbors(
+        ImmutableSortedMap.of(
+            Prefix.create(ip2, 32), peerBuilder.setLocalIp(ip1).setPeerAddress(ip2).build(),
+            Prefix.create(ip3, 32), peerBuilder.setLocalIp(ip1).setPeerAddress(ip3).build()));
+    _node2BgpProcess.setNeighbors(
+        ImmutableSortedMap.of(
+            Prefix.create(ip1, 32), peerBuilder.setLocalIp(ip2).setPeerAddress(ip1).build(),
+            Prefix.create(ip3, 32), peerBuilder.setLocalIp(ip2).setPeerAddress(ip3).build()));
+    _node3BgpProcess.setNeighbors(
+        ImmutableSortedMap.of(
+            Prefix.create(ip1, 32), peerBuilder.setLocalIp(ip3).setPeerAddress(ip1).build(),
+            Prefix.create(ip2, 32), peerBuilder.setLocalIp(ip3).setPeerAddress(ip2).build()));
+    Map<Ip, Set<String>> ipOwners =
+        ImmutableMap.of(
+            ip1, ImmutableSet.of(NODE1), ip2, ImmutableSet.of(NODE2), ip3, ImmutableSet.of(NODE3));
+
+    RecordingTracerouteEngine engine = new RecordingTracerouteEngine(ipOwners, ImmutableSet.of());
+    ValueGraph<BgpPeerConfigId, BgpSessionProperties> bgpTopology =
+        initBgpTopology(_configs, ipOwners, true, true, engine, null).getGraph();
+    assertThat(bgpTopology.edges(), hasSize(6));
+    // 3 forward flows, one per peering, then their 3 reverse flows
+    assertThat(engine._calls, hasSize(2));
+    assertThat(engine._calls.get(0), hasSize(3));
+    assertThat(engine._calls.get(1), hasSize(3));
+
+    // Node1 cannot initiate connections, so peerings with node1 must be initiated by the other
+    // nodes, which
+    // are checked in a second round
+    engine = new RecordingTracerouteEngine(ipOwners, ImmutableSet.of(NODE1));
+    bgpTopology = initBgpTopology(_configs, ipOwners, true, true, engine, null).getGraph();
+    assertThat(bgpTopology.edges(), hasSize(6));
+    assertThat(
+        engine._calls.stream().map(Set::size).collect(Collectors.toList()), contains(3, 1, 2, 2));
+  }
 }
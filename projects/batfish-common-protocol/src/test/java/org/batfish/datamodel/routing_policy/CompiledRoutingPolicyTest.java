@@ -0,0 +1,230 @@
+package org.batfish.datamodel.routing_policy;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.List;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.CommunityList;
+import org.batfish.datamodel.CommunityListLine;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RegexCommunitySet;
+import org.batfish.datamodel.RouteFilterLine;
+import org.batfish.datamodel.RouteFilterList;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.expr.BooleanExprs;
+import org.batfish.datamodel.routing_policy.expr.CallExpr;
+import org.batfish.datamodel.routing_policy.expr.Conjunction;
+import org.batfish.datamodel.routing_policy.expr.DestinationNetwork;
+import org.batfish.datamodel.routing_policy.expr.Disjunction;
+import org.batfish.datamodel.routing_policy.expr.LiteralCommunity;
+import org.batfish.datamodel.routing_policy.expr.LiteralLong;
+import org.batfish.datamodel.routing_policy.expr.MatchCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.MatchPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.MatchProtocol;
+import org.batfish.datamodel.routing_policy.expr.NamedCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.NamedPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.Not;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
+import org.batfish.datamodel.routing_policy.statement.SetMetric;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link CompiledRoutingPolicy} */
+public final class CompiledRoutingPolicyTest {
+
+  private static final StandardCommunity DENIED = StandardCommunity.of(65000, 1);
+  private static final StandardCommunity PERMITTED = StandardCommunity.of(65000, 2);
+  private static final StandardCommunity OTHER = StandardCommunity.of(65001, 1);
+
+  private Configuration _c;
+  private RoutingPolicy _policy;
+
+  @Before
+  public void setup() {
+    NetworkFactory nf = new NetworkFactory();
+    _c =
+        nf.configurationBuilder()
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .setHostname("c")
+            .build();
+    _c.setVrfs(
+        ImmutableMap.of(Configuration.DEFAULT_VRF_NAME, new Vrf(Configuration.DEFAULT_VRF_NAME)));
+    _c.getRouteFilterLists()
+        .put(
+            "rfl",
+            new RouteFilterList(
+                "rfl",
+                ImmutableList.of(
+                    new RouteFilterLine(
+                        LineAction.DENY, Prefix.parse("10.1.0.0/16"), new SubRange(16, 32)),
+                    new RouteFilterLine(
+                        LineAction.PERMIT, Prefix.parse("10.0.0.0/8"), new SubRange(8, 24)))));
+    // the second line is shadowed by the first
+    _c.getCommunityLists()
+        .put(
+            "literal",
+            new CommunityList(
+                "literal",
+                ImmutableList.of(
+                    new CommunityListLine(LineAction.DENY, new LiteralCommunity(DENIED)),
+                    new CommunityListLine(LineAction.PERMIT, new LiteralCommunity(DENIED)),
+                    new CommunityListLine(LineAction.PERMIT, new LiteralCommunity(PERMITTED))),
+                false));
+    _c.getCommunityLists()
+        .put(
+            "inverted",
+            new CommunityList(
+                "inverted",
+                ImmutableList.of(
+                    new CommunityListLine(LineAction.DENY, new LiteralCommunity(PERMITTED))),
+                true));
+    _c.getCommunityLists()
+        .put(
+            "regex",
+            new CommunityList(
+                "regex",
+                ImmutableList.of(
+                    new CommunityListLine(LineAction.PERMIT, new RegexCommunitySet("^65001:"))),
+                false));
+    RoutingPolicy.builder()
+        .setOwner(_c)
+        .setName("called")
+        .setStatements(
+            ImmutableList.of(
+                new If(
+                    new MatchPrefixSet(DestinationNetwork.instance(), new NamedPrefixSet("rfl")),
+                    ImmutableList.of(
+                        new SetMetric(new LiteralLong(10)),
+                        Statements.ReturnTrue.toStaticStatement()),
+                    ImmutableList.of(Statements.ReturnFalse.toStaticStatement()))))
+        .build();
+    _policy =
+        RoutingPolicy.builder()
+            .setOwner(_c)
+            .setName("main")
+            .setStatements(
+                ImmutableList.of(
+                    new If(
+                        new Disjunction(
+                            new MatchCommunitySet(new NamedCommunitySet("regex")),
+                            new MatchCommunitySet(new NamedCommunitySet("inverted"))),
+                        ImmutableList.of(Statements.ExitReject.toStaticStatement())),
+                    new If(
+                        new Conjunction(
+                            ImmutableList.of(
+                                new MatchProtocol(RoutingProtocol.BGP, RoutingProtocol.STATIC),
+                                new Not(new MatchCommunitySet(new NamedCommunitySet("literal"))),
+                                new CallExpr("called"))),
+                        ImmutableList.of(
+                            new SetLocalPreference(new LiteralLong(200)),
+                            Statements.ExitAccept.toStaticStatement())),
+                    new If(
+                        BooleanExprs.TRUE,
+                        ImmutableList.of(Statements.SetDefaultActionAccept.toStaticStatement()))))
+            .build();
+  }
+
+  private static Bgpv4Route.Builder bgpRouteBuilder() {
+    return Bgpv4Route.builder()
+        .setOriginatorIp(Ip.parse("1.1.1.1"))
+        .setOriginType(OriginType.IGP)
+        .setProtocol(RoutingProtocol.BGP);
+  }
+
+  private static List<AbstractRoute> routes() {
+    Bgpv4Route.Builder rb = bgpRouteBuilder();
+    ImmutableList.Builder<AbstractRoute> routes = ImmutableList.builder();
+    for (String prefix :
+        ImmutableList.of("10.0.0.0/8", "10.1.1.0/24", "10.2.0.0/16", "10.2.2.2/32", "1.0.0.0/8")) {
+      routes.add(
+          StaticRoute.builder()
+              .setNetwork(Prefix.parse(prefix))
+              .setNextHopInterface("null0")
+              .setAdministrativeCost(1)
+              .build());
+      for (StandardCommunity community : ImmutableList.of(DENIED, PERMITTED, OTHER)) {
+        routes.add(
+            rb.setNetwork(Prefix.parse(prefix))
+                .setCommunities(ImmutableSortedSet.of(community))
+                .build());
+      }
+      routes.add(
+          rb.setNetwork(Prefix.parse(prefix)).setCommunities(ImmutableSortedSet.of()).build());
+    }
+    return routes.build();
+  }
+
+  /** Returns whether the policy accepts each route, and the output route if it does. */
+  private List<Object> evaluate() {
+    ImmutableList.Builder<Object> results = ImmutableList.builder();
+    for (AbstractRoute route : routes()) {
+      // e.g. redistribution of static routes into BGP
+      Bgpv4Route.Builder outputRoute =
+          route instanceof Bgpv4Route
+              ? ((Bgpv4Route) route).toBuilder()
+              : bgpRouteBuilder().setNetwork(route.getNetwork());
+      boolean accepted =
+          _policy.process(route, outputRoute, null, Configuration.DEFAULT_VRF_NAME, Direction.OUT);
+      results.add(accepted ? outputRoute.build() : false);
+    }
+    return results.build();
+  }
+
+  @Test
+  public void testSameAsInterpreter() {
+    List<Object> interpreted = evaluate();
+    _c.getRoutingPolicies().values().forEach(RoutingPolicy::compile);
+    assertTrue(_policy.isCompiled());
+
+    assertThat(evaluate(), equalTo(interpreted));
+  }
+
+  @Test
+  public void testSetStatementsDiscardsCompilation() {
+    _policy.compile();
+    _policy.setStatements(ImmutableList.of(Statements.ExitAccept.toStaticStatement()));
+
+    assertFalse(_policy.isCompiled());
+  }
+
+  @Test
+  public void testOtherConfiguration() {
+    _policy.compile();
+    Configuration other =
+        new NetworkFactory()
+            .configurationBuilder()
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .build();
+    other.setCommunityLists(_c.getCommunityLists());
+    other.setRoutingPolicies(_c.getRoutingPolicies());
+    Environment environment =
+        Environment.builder(other)
+            .setOriginalRoute(routes().get(1))
+            .setOutputRoute(routes().get(1).toBuilder())
+            .build();
+
+    // Not compiled against other's route filter lists, so interpreted: "rfl" is undefined
+    _policy.call(environment);
+    assertTrue(environment.getError());
+  }
+}
@@ -3,8 +3,10 @@ package org.batfish.datamodel.routing_policy.expr;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.testing.EqualsTester;
+import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.datamodel.AsPath;
 import org.batfish.datamodel.Bgpv4Route;
 import org.batfish.datamodel.Configuration;
@@ -65,4 +67,26 @@ public class ExplicitAsPathSetTest {
     assertFalse(expr.matches(buildEnvironment(AsPath.ofSingletonAsSets(13L, 113L))));
     assertFalse(expr.matches(buildEnvironment(AsPath.ofSingletonAsSets(11L, 12L, 13L, 14L))));
   }
+
+  @Test
+  public void testSetElems() {
+    ExplicitAsPathSet expr = new ExplicitAsPathSet(new RegexAsPathSetElem("13$"));
+    Environment environment = buildEnvironment(AsPath.ofSingletonAsSets(13L));
+    assertTrue(expr.matches(environment));
+
+    expr.setElems(ImmutableList.of(new RegexAsPathSetElem("14$")));
+    assertFalse(expr.matches(environment));
+    assertTrue(expr.matches(buildEnvironment(AsPath.ofSingletonAsSets(14L))));
+  }
+
+  @Test
+  public void testJavaSerialization() {
+    ExplicitAsPathSet expr = new ExplicitAsPathSet(new RegexAsPathSetElem("13$"));
+    Environment environment = buildEnvironment(AsPath.ofSingletonAsSets(13L));
+    assertTrue(expr.matches(environment));
+
+    ExplicitAsPathSet clone = SerializationUtils.clone(expr);
+    assertTrue(clone.matches(environment));
+    assertFalse(clone.matches(buildEnvironment(AsPath.ofSingletonAsSets(14L))));
+  }
 }
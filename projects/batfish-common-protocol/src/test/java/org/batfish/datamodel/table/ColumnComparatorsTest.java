@@ -0,0 +1,360 @@
+package org.batfish.datamodel.table;
+
+import static org.batfish.datamodel.table.ColumnComparators.buildComparator;
+import static org.batfish.datamodel.table.ColumnComparators.columnComparator;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import org.batfish.common.ColumnSortOption;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.acl.AclTrace;
+import org.batfish.datamodel.acl.DefaultDeniedByIpAccessList;
+import org.batfish.datamodel.answers.Issue;
+import org.batfish.datamodel.answers.Schema;
+import org.batfish.datamodel.answers.SelfDescribingObject;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.datamodel.flow.Hop;
+import org.batfish.datamodel.flow.Trace;
+import org.batfish.datamodel.pojo.Node;
+import org.junit.Test;
+
+/** Tests of {@link ColumnComparators} */
+public class ColumnComparatorsTest {
+
+  @Test
+  public void testBuildComparator() {
+    String col1 = "col1";
+    String col2 = "col2";
+    Map<String, ColumnMetadata> rawColumnMap =
+        ImmutableMap.of(
+            col1,
+            new ColumnMetadata(col1, Schema.INTEGER, "blah"),
+            col2,
+            new ColumnMetadata(col2, Schema.INTEGER, "bloop"));
+    Comparator<Row> comCol1 =
+        buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col1, false)));
+    Comparator<Row> comCol1Reversed =
+        buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col1, true)));
+    Comparator<Row> comCol2 =
+        buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col2, false)));
+    Comparator<Row> comCol2Reversed =
+        buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col2, true)));
+    Comparator<Row> comCol1Then2 =
+        buildComparator(
+            rawColumnMap,
+            ImmutableList.of(new ColumnSortOption(col1, false), new ColumnSortOption(col2, false)));
+    Comparator<Row> comCol2Then1 =
+        buildComparator(
+            rawColumnMap,
+            ImmutableList.of(new ColumnSortOption(col2, false), new ColumnSortOption(col1, false)));
+
+    Row row1 = Row.of(col1, 1, col2, 10);
+    Row row2 = Row.of(col1, 1, col2, 20);
+    Row row3 = Row.of(col1, 2, col2, 10);
+    Row row4 = Row.of(col1, 2, col2, 20);
+
+    assertThat(comCol1.compare(row1, row2), equalTo(0));
+    assertThat(comCol1.compare(row1, row3), equalTo(-1));
+    assertThat(comCol1.compare(row1, row4), equalTo(-1));
+    assertThat(comCol1.compare(row2, row3), equalTo(-1));
+    assertThat(comCol1.compare(row2, row4), equalTo(-1));
+    assertThat(comCol1.compare(row3, row4), equalTo(0));
+
+    assertThat(comCol1Reversed.compare(row1, row2), equalTo(0));
+    assertThat(comCol1Reversed.compare(row1, row3), equalTo(1));
+    assertThat(comCol1Reversed.compare(row1, row4), equalTo(1));
+    assertThat(comCol1Reversed.compare(row2, row3), equalTo(1));
+    assertThat(comCol1Reversed.compare(row2, row4), equalTo(1));
+    assertThat(comCol1Reversed.compare(row3, row4), equalTo(0));
+
+    assertThat(comCol2.compare(row1, row2), equalTo(-1));
+    assertThat(comCol2.compare(row1, row3), equalTo(0));
+    assertThat(comCol2.compare(row1, row4), equalTo(-1));
+    assertThat(comCol2.compare(row2, row3), equalTo(1));
+    assertThat(comCol2.compare(row2, row4), equalTo(0));
+    assertThat(comCol2.compare(row3, row4), equalTo(-1));
+
+    assertThat(comCol2Reversed.compare(row1, row2), equalTo(1));
+    assertThat(comCol2Reversed.compare(row1, row3), equalTo(0));
+    assertThat(comCol2Reversed.compare(row1, row4), equalTo(1));
+    assertThat(comCol2Reversed.compare(row2, row3), equalTo(-1));
+    assertThat(comCol2Reversed.compare(row2, row4), equalTo(0));
+    assertThat(comCol2Reversed.compare(row3, row4), equalTo(1));
+
+    assertThat(comCol1Then2.compare(row1, row2), equalTo(-1));
+    assertThat(comCol1Then2.compare(row1, row3), equalTo(-1));
+    assertThat(comCol1Then2.compare(row1, row4), equalTo(-1));
+    assertThat(comCol1Then2.compare(row2, row3), equalTo(-1));
+    assertThat(comCol1Then2.compare(row2, row4), equalTo(-1));
+    assertThat(comCol1Then2.compare(row3, row4), equalTo(-1));
+
+    assertThat(comCol2Then1.compare(row1, row2), equalTo(-1));
+    assertThat(comCol2Then1.compare(row1, row3), equalTo(-1));
+    assertThat(comCol2Then1.compare(row1, row4), equalTo(-1));
+    assertThat(comCol2Then1.compare(row2, row3), equalTo(1));
+    assertThat(comCol2Then1.compare(row2, row4), equalTo(-1));
+    assertThat(comCol2Then1.compare(row3, row4), equalTo(-1));
+  }
+
+  @Test
+  public void testColumnComparator() {
+    String colInteger = "colInteger";
+    String colIssue = "colIssue";
+    String colString = "colString";
+
+    ColumnMetadata columnMetadataInteger =
+        new ColumnMetadata(colInteger, Schema.INTEGER, "colIntegerDesc");
+    ColumnMetadata columnMetadataIssue = new ColumnMetadata(colIssue, Schema.ISSUE, "colIssueDesc");
+    ColumnMetadata columnMetadataString =
+        new ColumnMetadata(colString, Schema.STRING, "colStringDesc");
+
+    Comparator<Row> comInteger = columnComparator(columnMetadataInteger);
+    Comparator<Row> comIssue = columnComparator(columnMetadataIssue);
+    Comparator<Row> comString = columnComparator(columnMetadataString);
+
+    Row r1 =
+        Row.of(
+            colInteger,
+            1,
+            colIssue,
+            new Issue("blah", 1, new Issue.Type("major", "minor")),
+            colString,
+            "a");
+    Row r2 =
+        Row.of(
+            colInteger,
+            2,
+            colIssue,
+            new Issue("blah", 2, new Issue.Type("major", "minor")),
+            colString,
+            "b");
+
+    assertThat(comInteger.compare(r1, r2), lessThan(0));
+    assertThat(comIssue.compare(r1, r2), lessThan(0));
+    assertThat(comString.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorAclTrace() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.ACL_TRACE, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 =
+        Row.of(col, new AclTrace(ImmutableList.of(new DefaultDeniedByIpAccessList("a", "a", "a"))));
+    Row r2 =
+        Row.of(col, new AclTrace(ImmutableList.of(new DefaultDeniedByIpAccessList("b", "b", "b"))));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorBoolean() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.BOOLEAN, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, false);
+    Row r2 = Row.of(col, true);
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorFlow() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.FLOW, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, Flow.builder().setDstIp(Ip.ZERO).setIngressNode("a").setTag("a").build());
+    Row r2 = Row.of(col, Flow.builder().setDstIp(Ip.MAX).setIngressNode("a").setTag("a").build());
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorInteger() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.INTEGER, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, 0);
+    Row r2 = Row.of(col, 1);
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorInterface() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.INTERFACE, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, new NodeInterfacePair("a", "a"));
+    Row r2 = Row.of(col, new NodeInterfacePair("a", "b"));
+    Row r3 = Row.of(col, new NodeInterfacePair("b", "a"));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), lessThan(0));
+    assertThat(comparator.compare(r2, r3), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorIp() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.IP, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, Ip.ZERO);
+    Row r2 = Row.of(col, Ip.MAX);
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorIssue() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.ISSUE, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, new Issue("a", 1, new Issue.Type("major", "minor")));
+    Row r2 = Row.of(col, new Issue("a", 2, new Issue.Type("major", "minor")));
+    Row r3 = Row.of(col, new Issue("b", 1, new Issue.Type("major", "minor")));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), equalTo(0));
+    assertThat(comparator.compare(r2, r3), greaterThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorList() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.list(Schema.STRING), "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, ImmutableList.of());
+    Row r2 = Row.of(col, ImmutableList.of("a"));
+    Row r3 = Row.of(col, ImmutableList.of("a", "b"));
+    Row r4 = Row.of(col, ImmutableList.of("b"));
+    Row r5 = Row.of(col, ImmutableList.of("b", "a"));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), lessThan(0));
+    assertThat(comparator.compare(r1, r4), lessThan(0));
+    assertThat(comparator.compare(r1, r5), lessThan(0));
+    assertThat(comparator.compare(r2, r3), lessThan(0));
+    assertThat(comparator.compare(r2, r4), lessThan(0));
+    assertThat(comparator.compare(r2, r5), lessThan(0));
+    assertThat(comparator.compare(r3, r4), lessThan(0));
+    assertThat(comparator.compare(r3, r5), lessThan(0));
+    assertThat(comparator.compare(r4, r5), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorLong() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.LONG, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, 0L);
+    Row r2 = Row.of(col, 1L);
+    Row r3 = Row.of(col, Long.MAX_VALUE);
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), lessThan(0));
+    assertThat(comparator.compare(r2, r3), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorNode() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.NODE, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, new Node("a"));
+    Row r2 = Row.of(col, new Node("b"));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorPrefix() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.PREFIX, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, Prefix.parse("1.1.2.1/32"));
+    Row r2 = Row.of(col, Prefix.parse("1.1.11.1/32"));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorSet() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.set(Schema.STRING), "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r0 = Row.of(col, null);
+    Row r1 = Row.of(col, ImmutableSet.of());
+    Row r2 = Row.of(col, ImmutableSet.of("a"));
+    Row r3 = Row.of(col, ImmutableSet.of("b"));
+    Row r4 = Row.of(col, ImmutableSet.of("a", "b"));
+    Row r5 = Row.of(col, ImmutableSet.of("b", "a"));
+    Row r6 = Row.of(col, Collections.singleton(null));
+
+    assertThat(comparator.compare(r0, r1), lessThan(0));
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), lessThan(0));
+    assertThat(comparator.compare(r1, r4), lessThan(0));
+    assertThat(comparator.compare(r1, r5), lessThan(0));
+    assertThat(comparator.compare(r2, r3), lessThan(0));
+    assertThat(comparator.compare(r2, r4), not(equalTo(0)));
+    assertThat(comparator.compare(r2, r5), not(equalTo(0)));
+    assertThat(comparator.compare(r6, r2), lessThan(0));
+    assertThat(comparator.compare(r3, r4), not(equalTo(0)));
+    assertThat(comparator.compare(r3, r5), not(equalTo(0)));
+    // sets in r4 and r5 might end up in same order, so no guarantee on comparison order
+  }
+
+  @Test
+  public void testColumnComparatorString() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.STRING, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, "a");
+    Row r2 = Row.of(col, "b");
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorSelfDescribingObject() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.SELF_DESCRIBING, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, new SelfDescribingObject(Schema.STRING, "a"));
+    Row r2 = Row.of(col, new SelfDescribingObject(Schema.STRING, "b"));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+  }
+
+  @Test
+  public void testColumnComparatorTrace() {
+    String col = "col1";
+    ColumnMetadata columnMetadata = new ColumnMetadata(col, Schema.TRACE, "colDesc");
+    Comparator<Row> comparator = columnComparator(columnMetadata);
+    Row r1 = Row.of(col, new Trace(FlowDisposition.ACCEPTED, ImmutableList.of()));
+    Row r2 =
+        Row.of(
+            col,
+            new Trace(
+                FlowDisposition.ACCEPTED,
+                ImmutableList.of(new Hop(new Node("a"), ImmutableList.of()))));
+    Row r3 = Row.of(col, new Trace(FlowDisposition.DELIVERED_TO_SUBNET, ImmutableList.of()));
+
+    assertThat(comparator.compare(r1, r2), lessThan(0));
+    assertThat(comparator.compare(r1, r3), lessThan(0));
+    assertThat(comparator.compare(r2, r3), lessThan(0));
+  }
+}
@@ -1,7 +1,9 @@
 package org.batfish.datamodel.table;
 
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertThat;
 
@@ -9,8 +11,14 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.answers.Schema;
 import org.batfish.datamodel.pojo.Node;
 import org.batfish.datamodel.table.Row.TypedRowBuilder;
@@ -245,4 +253,75 @@ public class RowTest {
     _thrown.expectMessage("Column 'b' is not present");
     Row.of(ImmutableMap.of("a", new ColumnMetadata("a", Schema.INTEGER, "desc")), "b", 5);
   }
+
+  @Test
+  public void getStoredValue() {
+    Ip ip = Ip.parse("1.1.1.1");
+    Row row = Row.builder().put("ip", ip).put("ips", ImmutableList.of(ip)).build();
+
+    // values of the expected type are returned without a JSON round trip
+    assertThat(row.getIp("ip"), sameInstance(ip));
+    assertThat(row.get("ips", Schema.list(Schema.IP)), equalTo(ImmutableList.of(ip)));
+    // others are converted
+    assertThat(row.get("ip", Schema.STRING), equalTo("1.1.1.1"));
+  }
+
+  @Test
+  public void getMutableValueCopied() {
+    Node node = new Node("node");
+    Row row = Row.builder().put("node", node).put("nodes", ImmutableList.of(node)).build();
+
+    // values that callers could modify are not returned directly
+    assertThat(row.get("node", Schema.NODE), equalTo(node));
+    assertThat(row.get("node", Schema.NODE), not(sameInstance(node)));
+    assertThat(row.get("node", Schema.OBJECT), not(sameInstance(node)));
+    List<?> nodes = (List<?>) row.get("nodes", Schema.list(Schema.NODE));
+    assertThat(nodes, contains(node));
+    assertThat(nodes.get(0), not(sameInstance(node)));
+  }
+
+  @Test
+  public void putSnapshotsCollections() {
+    List<Integer> list = new ArrayList<>();
+    list.add(1);
+    Row row = Row.builder().put("col", list).build();
+    list.add(2);
+
+    assertThat(row.get("col", Schema.list(Schema.INTEGER)), equalTo(ImmutableList.of(1)));
+    assertThat(row, equalTo(Row.builder().put("col", ImmutableList.of(1)).build()));
+  }
+
+  @Test
+  public void testJsonSerialization() throws IOException {
+    Row row =
+        Row.builder()
+            .put("b", Prefix.parse("1.1.1.0/24"))
+            .put("a", null)
+            .put("c", ImmutableList.of(new Node("n1")))
+            .put("d", ImmutableList.of())
+            .build();
+    Row clone = BatfishObjectMapper.clone(row, Row.class);
+
+    // columns are written in the order they were put, as the JSON form of the values
+    assertThat(
+        BatfishObjectMapper.writeString(row),
+        equalTo(
+            "{\"b\":\"1.1.1.0/24\",\"a\":null,\"c\":[{\"id\":\"node-n1\",\"name\":\"n1\"}],\"d\":[]}"));
+    assertThat(
+        BatfishObjectMapper.writeString(clone), equalTo(BatfishObjectMapper.writeString(row)));
+    assertThat(clone, equalTo(row));
+    assertThat(clone.hashCode(), equalTo(row.hashCode()));
+    assertThat(clone.compareTo(row), equalTo(0));
+    assertThat(clone.getPrefix("b"), equalTo(Prefix.parse("1.1.1.0/24")));
+  }
+
+  @Test
+  public void testJavaSerialization() {
+    Row row = Row.builder().put("col", 1).put("node", new Node("n1")).build();
+    Row clone = SerializationUtils.clone(row);
+
+    assertThat(clone, equalTo(row));
+    assertThat(clone.getInteger("col"), equalTo(1));
+    assertThat(SerializationUtils.clone(clone), equalTo(row));
+  }
 }
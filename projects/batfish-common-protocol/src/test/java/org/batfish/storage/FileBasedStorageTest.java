@@ -2,6 +2,7 @@ package org.batfish.storage;
 
 import static org.batfish.storage.FileBasedStorage.mkdirs;
 import static org.batfish.storage.FileBasedStorage.objectKeyToRelativePath;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
@@ -14,6 +15,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteStreams;
@@ -42,17 +44,27 @@ import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.topology.Layer2Topology;
 import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.common.util.CommonUtil;
+import org.batfish.common.util.SerializationFormat;
 import org.batfish.common.util.UnzipUtility;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
 import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.answers.Answer;
+import org.batfish.datamodel.answers.AnswerStatus;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.MajorIssueConfig;
 import org.batfish.datamodel.answers.MinorIssueConfig;
+import org.batfish.datamodel.answers.Schema;
+import org.batfish.datamodel.answers.StringAnswerElement;
 import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.isp_configuration.BorderInterfaceInfo;
 import org.batfish.datamodel.isp_configuration.IspConfiguration;
 import org.batfish.datamodel.isp_configuration.IspFilter;
+import org.batfish.datamodel.table.ColumnMetadata;
+import org.batfish.datamodel.table.Row;
+import org.batfish.datamodel.table.TableAnswerElement;
+import org.batfish.datamodel.table.TableMetadata;
+import org.batfish.identifiers.AnswerId;
 import org.batfish.identifiers.IssueSettingsId;
 import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.QuestionSettingsId;
@@ -99,6 +111,93 @@ public final class FileBasedStorageTest {
     assertThat(deserialized.keySet(), equalTo(Sets.newHashSet("node1")));
   }
 
+  @Test
+  public void roundTripConfigurationsJavaSerializationSucceeds() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+    FileBasedStorage javaStorage =
+        new FileBasedStorage(
+            _folder.newFolder("java").toPath(),
+            _logger,
+            (m, n) -> new AtomicInteger(),
+            SerializationFormat.JAVA);
+
+    Map<String, Configuration> configs = new HashMap<>();
+    configs.put("node1", new Configuration("node1", ConfigurationFormat.CISCO_IOS));
+
+    javaStorage.storeConfigurations(
+        configs, new ConvertConfigurationAnswerElement(), network, snapshot);
+    Map<String, Configuration> deserialized = javaStorage.loadConfigurations(network, snapshot);
+    assertThat(deserialized, not(nullValue()));
+    assertThat(deserialized.keySet(), equalTo(Sets.newHashSet("node1")));
+  }
+
+  @Test
+  public void roundTripConfigurationsMultipleNodes() {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+
+    Map<String, Configuration> configs = new HashMap<>();
+    configs.put("node1", new Configuration("node1", ConfigurationFormat.CISCO_IOS));
+    configs.put("node2", new Configuration("node2", ConfigurationFormat.JUNIPER));
+
+    _storage.storeConfigurations(
+        configs, new ConvertConfigurationAnswerElement(), network, snapshot);
+    Map<String, Configuration> deserialized = _storage.loadConfigurations(network, snapshot);
+    assertThat(deserialized, not(nullValue()));
+    assertThat(deserialized.keySet(), contains("node1", "node2"));
+    assertThat(deserialized.get("node2").getHostname(), equalTo("node2"));
+    assertThat(
+        deserialized.get("node2").getConfigurationFormat(), equalTo(ConfigurationFormat.JUNIPER));
+    assertThat(deserialized.get("node3"), nullValue());
+  }
+
+  @Test
+  public void loadConfigurationsStoredPerNode() {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+
+    // Configurations serialized one file per node, as by earlier versions
+    _storage.storeConfigurations(
+        ImmutableMap.of(), new ConvertConfigurationAnswerElement(), network, snapshot);
+    CommonUtil.deleteIfExists(
+        _storage
+            .getDirectoryProvider()
+            .getSnapshotOutputDir(network, snapshot)
+            .resolve("indep_index"));
+    Path indepDir =
+        _storage.getDirectoryProvider().getVendorIndependentConfigDir(network, snapshot);
+    mkdirs(indepDir);
+    FileBasedStorage.serializeObject(
+        new Configuration("node1", ConfigurationFormat.CISCO_IOS), indepDir.resolve("node1"));
+
+    Map<String, Configuration> deserialized = _storage.loadConfigurations(network, snapshot);
+    assertThat(deserialized, not(nullValue()));
+    assertThat(deserialized.keySet(), contains("node1"));
+    assertThat(deserialized.get("node1").getHostname(), equalTo("node1"));
+  }
+
+  @Test
+  public void loadUnreadableConfigurationsReturnsNull() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+
+    _storage.storeConfigurations(
+        ImmutableMap.of("node1", new Configuration("node1", ConfigurationFormat.CISCO_IOS)),
+        new ConvertConfigurationAnswerElement(),
+        network,
+        snapshot);
+    // e.g. an index written in an older layout
+    Files.write(
+        _storage
+            .getDirectoryProvider()
+            .getSnapshotOutputDir(network, snapshot)
+            .resolve("indep_index"),
+        new byte[] {1, 2, 3});
+
+    assertThat(_storage.loadConfigurations(network, snapshot), nullValue());
+  }
+
   @Test
   public void loadMissingConfigurationsReturnsNull() {
     assertThat(
@@ -494,4 +593,53 @@ public final class FileBasedStorageTest {
 
     assertEquals(_storage.loadLayer2Topology(networkSnapshot), Optional.of(Layer2Topology.EMPTY));
   }
+
+  @Test
+  public void testStoreAnswerIndexed() throws IOException {
+    AnswerId answerId = new AnswerId("answer");
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(ImmutableList.of(new ColumnMetadata("col", Schema.STRING, "desc"))));
+    table.addRow(Row.of("col", "value"));
+    Answer tableAnswer = new Answer();
+    tableAnswer.setStatus(AnswerStatus.SUCCESS);
+    tableAnswer.addAnswerElement(table);
+    _storage.storeAnswer(BatfishObjectMapper.writeString(tableAnswer), answerId);
+
+    IndexedAnswerTable indexed = _storage.loadIndexedAnswerTable(answerId);
+    assertThat(indexed, notNullValue());
+    assertThat(indexed.getRow(0), equalTo(Row.of("col", "value")));
+
+    // Replacing the answer with one that is not a table removes the index
+    Answer stringAnswer = new Answer();
+    stringAnswer.setStatus(AnswerStatus.SUCCESS);
+    stringAnswer.addAnswerElement(new StringAnswerElement("foo"));
+    _storage.storeAnswer(BatfishObjectMapper.writeString(stringAnswer), answerId);
+
+    assertThat(_storage.loadIndexedAnswerTable(answerId), nullValue());
+  }
+
+  @Test
+  public void testStoreAnswerIndexFailure() throws IOException {
+    AnswerId answerId = new AnswerId("answer");
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(ImmutableList.of(new ColumnMetadata("col", Schema.INTEGER, "desc"))));
+    table.addRow(Row.of("col", 1));
+    Answer answer = new Answer();
+    answer.setStatus(AnswerStatus.SUCCESS);
+    answer.addAnswerElement(table);
+    String answerStr = BatfishObjectMapper.writeString(answer);
+    _storage.storeAnswer(answerStr, answerId);
+    assertThat(_storage.loadIndexedAnswerTable(answerId), notNullValue());
+
+    // A value that does not match the column schema cannot be indexed
+    String badAnswerStr = answerStr.replace("\"col\":1", "\"col\":\"abc\"");
+    assertThat(badAnswerStr, not(equalTo(answerStr)));
+    _storage.storeAnswer(badAnswerStr, answerId);
+
+    // The answer is still stored, and the stale index is removed
+    assertThat(_storage.loadAnswer(answerId), equalTo(badAnswerStr));
+    assertThat(_storage.loadIndexedAnswerTable(answerId), nullValue());
+  }
 }
@@ -0,0 +1,147 @@
+package org.batfish.storage;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import org.batfish.common.ColumnFilter;
+import org.batfish.common.ColumnSortOption;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.answers.Answer;
+import org.batfish.datamodel.answers.AnswerStatus;
+import org.batfish.datamodel.answers.AnswerSummary;
+import org.batfish.datamodel.answers.Schema;
+import org.batfish.datamodel.answers.StringAnswerElement;
+import org.batfish.datamodel.table.ColumnMetadata;
+import org.batfish.datamodel.table.Row;
+import org.batfish.datamodel.table.TableAnswerElement;
+import org.batfish.datamodel.table.TableMetadata;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link IndexedAnswerTable} */
+public final class IndexedAnswerTableTest {
+
+  private static final String COL_INT = "int";
+  private static final String COL_STRING = "string";
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private static TableAnswerElement table() {
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(
+                    new ColumnMetadata(COL_INT, Schema.INTEGER, "int"),
+                    new ColumnMetadata(COL_STRING, Schema.STRING, "string"))));
+    table.addRow(Row.of(COL_INT, 2, COL_STRING, "Foo"));
+    table.addRow(Row.of(COL_INT, null, COL_STRING, "bar"));
+    table.addRow(Row.of(COL_INT, 1, COL_STRING, "baz"));
+    table.addRow(Row.of(COL_INT, 2, COL_STRING, "food"));
+    table.setSummary(new AnswerSummary("notes", 0, 0, 4));
+    return table;
+  }
+
+  private static String answerString(AnswerStatus status, TableAnswerElement table)
+      throws IOException {
+    Answer answer = new Answer();
+    answer.setStatus(status);
+    answer.addAnswerElement(table);
+    return BatfishObjectMapper.writeString(answer);
+  }
+
+  private IndexedAnswerTable indexedTable() throws IOException {
+    Path file = _folder.getRoot().toPath().resolve("index");
+    IndexedObjectFile.write(
+        file, IndexedAnswerTable.index(answerString(AnswerStatus.SUCCESS, table())));
+    return IndexedAnswerTable.read(file);
+  }
+
+  @Test
+  public void testReadTable() throws IOException {
+    IndexedAnswerTable indexed = indexedTable();
+    TableAnswerElement table = table();
+
+    assertThat(indexed.getMetadata(), equalTo(table.getMetadata()));
+    assertThat(indexed.getSummary().getNotes(), equalTo("notes"));
+    assertThat(indexed.getRowCount(), equalTo(4));
+    for (int i = 0; i < 4; i++) {
+      assertThat(indexed.getRow(i), equalTo(table.getRowsList().get(i)));
+    }
+  }
+
+  @Test
+  public void testSelectRowsFilter() throws IOException {
+    IndexedAnswerTable indexed = indexedTable();
+
+    // Filters match case-insensitively against the JSON text of the value
+    assertThat(
+        indexed.selectRows(
+            ImmutableList.of(new ColumnFilter(COL_STRING, "FOO")), ImmutableList.of()),
+        equalTo(new int[] {0, 3}));
+    assertThat(
+        indexed.selectRows(
+            ImmutableList.of(new ColumnFilter(COL_STRING, "ba"), new ColumnFilter(COL_INT, "1")),
+            ImmutableList.of()),
+        equalTo(new int[] {2}));
+  }
+
+  @Test
+  public void testSelectRowsSort() throws IOException {
+    IndexedAnswerTable indexed = indexedTable();
+
+    // Nulls first, ties in row order
+    assertThat(
+        indexed.selectRows(
+            ImmutableList.of(), ImmutableList.of(new ColumnSortOption(COL_INT, false))),
+        equalTo(new int[] {1, 2, 0, 3}));
+    // Reversal does not reverse ties
+    assertThat(
+        indexed.selectRows(
+            ImmutableList.of(), ImmutableList.of(new ColumnSortOption(COL_INT, true))),
+        equalTo(new int[] {0, 3, 2, 1}));
+    assertThat(
+        indexed.selectRows(
+            ImmutableList.of(),
+            ImmutableList.of(
+                new ColumnSortOption(COL_INT, true), new ColumnSortOption(COL_STRING, true))),
+        equalTo(new int[] {3, 0, 2, 1}));
+  }
+
+  @Test
+  public void testSelectRowsMissingColumn() throws IOException {
+    IndexedAnswerTable indexed = indexedTable();
+
+    _thrown.expect(NoSuchElementException.class);
+    indexed.selectRows(ImmutableList.of(), ImmutableList.of(new ColumnSortOption("bogus", false)));
+  }
+
+  @Test
+  public void testIndexNotTable() throws IOException {
+    Answer answer = new Answer();
+    answer.setStatus(AnswerStatus.SUCCESS);
+    answer.addAnswerElement(new StringAnswerElement("foo"));
+
+    assertThat(IndexedAnswerTable.index(BatfishObjectMapper.writeString(answer)), nullValue());
+    assertThat(IndexedAnswerTable.index(answerString(AnswerStatus.FAILURE, table())), nullValue());
+  }
+
+  @Test
+  public void testIndexRowColumnsMismatch() throws IOException {
+    ObjectNode answer =
+        (ObjectNode)
+            BatfishObjectMapper.mapper().readTree(answerString(AnswerStatus.SUCCESS, table()));
+    ((ObjectNode) answer.get("answerElements").get(0).get("rows").get(1)).remove(COL_INT);
+
+    assertThat(IndexedAnswerTable.index(BatfishObjectMapper.writeString(answer)), nullValue());
+  }
+}
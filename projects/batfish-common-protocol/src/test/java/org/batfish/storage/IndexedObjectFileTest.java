@@ -0,0 +1,129 @@
+package org.batfish.storage;
+
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSortedMap;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SortedMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link IndexedObjectFile} */
+public final class IndexedObjectFileTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private static String toString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    Path file = _folder.getRoot().toPath().resolve("index");
+    IndexedObjectFile.write(
+        file, ImmutableSortedMap.of("a", bytes("first"), "b", bytes(""), "c", bytes("third")));
+    SortedMap<String, ByteBuffer> objects = IndexedObjectFile.read(file);
+
+    assertThat(objects.keySet(), contains("a", "b", "c"));
+    assertThat(toString(objects.get("a")), equalTo("first"));
+    assertThat(toString(objects.get("b")), equalTo(""));
+    assertThat(toString(objects.get("c")), equalTo("third"));
+  }
+
+  @Test
+  public void testWriteReplaces() throws IOException {
+    Path file = _folder.getRoot().toPath().resolve("index");
+    IndexedObjectFile.write(file, ImmutableSortedMap.of("a", bytes("old")));
+    SortedMap<String, ByteBuffer> oldObjects = IndexedObjectFile.read(file);
+    IndexedObjectFile.write(file, ImmutableSortedMap.of("b", bytes("new")));
+
+    assertThat(IndexedObjectFile.read(file).keySet(), contains("b"));
+    // Views of the replaced file remain readable
+    assertThat(toString(oldObjects.get("a")), equalTo("old"));
+  }
+
+  @Test
+  public void testUncommittedWriterDiscarded() throws IOException {
+    Path file = _folder.getRoot().toPath().resolve("index");
+    IndexedObjectFile.write(file, ImmutableSortedMap.of("a", bytes("old")));
+    try (IndexedObjectFile.Writer writer = IndexedObjectFile.writer(file)) {
+      writer.add("b", bytes("new"));
+    }
+
+    assertThat(IndexedObjectFile.read(file).keySet(), contains("a"));
+    // No temporary files are left behind
+    assertThat(_folder.getRoot().list(), arrayContaining("index"));
+  }
+
+  @Test
+  public void testWriterAddsInAnyOrder() throws IOException {
+    Path file = _folder.getRoot().toPath().resolve("index");
+    try (IndexedObjectFile.Writer writer = IndexedObjectFile.writer(file)) {
+      writer.add("c", bytes("third"));
+      writer.add("a", bytes("first"));
+      writer.commit();
+    }
+    SortedMap<String, ByteBuffer> objects = IndexedObjectFile.read(file);
+
+    assertThat(objects.keySet(), contains("a", "c"));
+    assertThat(toString(objects.get("a")), equalTo("first"));
+    assertThat(toString(objects.get("c")), equalTo("third"));
+  }
+
+  @Test
+  public void testReadLargeOffsets() throws IOException {
+    // A sparse file with an object beyond 4 GiB
+    Path file = _folder.getRoot().toPath().resolve("index");
+    long offset = 5L << 30;
+    byte[] object = bytes("far");
+    ByteArrayOutputStream index = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(index)) {
+      out.writeInt(1);
+      out.writeUTF("a");
+      out.writeLong(offset);
+      out.writeInt(object.length);
+    }
+    try (FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, IndexedObjectFile.MAGIC), 0);
+      channel.write(ByteBuffer.wrap(object), offset);
+      long indexOffset = offset + object.length;
+      channel.write(ByteBuffer.wrap(index.toByteArray()), indexOffset);
+      channel.write(
+          ByteBuffer.allocate(Long.BYTES).putLong(0, indexOffset), indexOffset + index.size());
+    }
+    SortedMap<String, ByteBuffer> objects = IndexedObjectFile.read(file);
+
+    assertThat(toString(objects.get("a")), equalTo("far"));
+  }
+
+  @Test
+  public void testReadInvalid() throws IOException {
+    Path file = _folder.getRoot().toPath().resolve("index");
+    Files.write(file, bytes("not an index file"));
+
+    _thrown.expect(IOException.class);
+    IndexedObjectFile.read(file);
+  }
+}
@@ -149,6 +149,11 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException("no implementation for generated method");
   }
 
+  @Override
+  public IndexedAnswerTable loadIndexedAnswerTable(AnswerId answerId) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
   @Override
   public AnswerMetadata loadAnswerMetadata(AnswerId answerId) {
     throw new UnsupportedOperationException("no implementation for generated method");
@@ -87,8 +87,17 @@ public class BDDReachabilityAnalysis {
    * corresponding headerspace BDDs.
    */
   public Map<StateExpr, BDD> computeReverseReachableStates(Map<StateExpr, BDD> roots) {
+    return computeReverseReachableStates(roots, FixpointEngine.ROUNDS);
+  }
+
+  /**
+   * Compute the reverse reachability from {@code roots} as {@link
+   * #computeReverseReachableStates(Map)} does, using the given {@link FixpointEngine}.
+   */
+  public Map<StateExpr, BDD> computeReverseReachableStates(
+      Map<StateExpr, BDD> roots, FixpointEngine engine) {
     Map<StateExpr, BDD> reverseReachableStates = new HashMap<>(roots);
-    BDDReachabilityUtils.backwardFixpoint(_forwardEdgeTable, reverseReachableStates);
+    BDDReachabilityUtils.backwardFixpoint(_forwardEdgeTable, reverseReachableStates, engine);
     return ImmutableMap.copyOf(reverseReachableStates);
   }
 
@@ -101,7 +110,8 @@ public class BDDReachabilityAnalysis {
       Map<StateExpr, BDD> forwardReachableStates = new LinkedHashMap<>();
       BDD one = _bddPacket.getFactory().one();
       _ingressLocationStates.forEach(state -> forwardReachableStates.put(state, one));
-      BDDReachabilityUtils.forwardFixpoint(_forwardEdgeTable, forwardReachableStates);
+      BDDReachabilityUtils.forwardFixpoint(
+          _forwardEdgeTable, forwardReachableStates, FixpointEngine.ROUNDS);
       return ImmutableMap.copyOf(forwardReachableStates);
     }
   }
@@ -112,13 +122,22 @@ public class BDDReachabilityAnalysis {
    */
   public Map<StateExpr, BDD> computeForwardReachableStates(
       Map<StateExpr, BDD> initialReachableStates) {
+    return computeForwardReachableStates(initialReachableStates, FixpointEngine.ROUNDS);
+  }
+
+  /**
+   * Compute the flows that can reach each state as {@link #computeForwardReachableStates(Map)}
+   * does, using the given {@link FixpointEngine}.
+   */
+  public Map<StateExpr, BDD> computeForwardReachableStates(
+      Map<StateExpr, BDD> initialReachableStates, FixpointEngine engine) {
     try (ActiveSpan span =
         GlobalTracer.get()
             .buildSpan("BDDReachabilityAnalysis.computeForwardReachableStates")
             .startActive()) {
       assert span != null; // avoid unused warning
       Map<StateExpr, BDD> forwardReachableStates = new LinkedHashMap<>(initialReachableStates);
-      BDDReachabilityUtils.forwardFixpoint(_forwardEdgeTable, forwardReachableStates);
+      BDDReachabilityUtils.forwardFixpoint(_forwardEdgeTable, forwardReachableStates, engine);
       return ImmutableMap.copyOf(forwardReachableStates);
     }
   }
@@ -22,12 +22,16 @@ import static org.batfish.datamodel.transformation.TransformationUtil.visitTrans
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -222,12 +226,37 @@ public final class BDDReachabilityAnalysisFactory {
 
   private BDD _zero;
 
+  private final boolean _initializeSessions;
+
+  // query-independent edges read from a stored graph, or null to generate them.
+  private final @Nullable List<Edge> _storedEdges;
+
   public BDDReachabilityAnalysisFactory(
       BDDPacket packet,
       Map<String, Configuration> configs,
       ForwardingAnalysis forwardingAnalysis,
       boolean ignoreFilters,
       boolean initializeSessions) {
+    this(packet, configs, forwardingAnalysis, ignoreFilters, initializeSessions, null);
+  }
+
+  /**
+   * Creates a factory whose BDDs computed from {@code forwardingAnalysis} and whose
+   * query-independent edges are read from {@code storedGraph} if it is not null, instead of being
+   * computed. {@code storedGraph} must have been written by {@link #writeGraph(OutputStream)} of a
+   * factory for the same snapshot and options, in a {@link BDDPacket} with the same variables as
+   * {@code packet}.
+   *
+   * @throws BatfishException if {@code storedGraph} cannot be read into this factory. {@code
+   *     packet} may then have been partially modified and should not be reused.
+   */
+  public BDDReachabilityAnalysisFactory(
+      BDDPacket packet,
+      Map<String, Configuration> configs,
+      ForwardingAnalysis forwardingAnalysis,
+      boolean ignoreFilters,
+      boolean initializeSessions,
+      @Nullable InputStream storedGraph) {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("Construct BDDReachabilityAnalysisFactory").startActive()) {
       assert span != null; // avoid unused warning
@@ -235,6 +264,7 @@ public final class BDDReachabilityAnalysisFactory {
       _one = packet.getFactory().one();
       _zero = packet.getFactory().zero();
       _ignoreFilters = ignoreFilters;
+      _initializeSessions = initializeSessions;
       _topologyEdges =
           forwardingAnalysis.getArpTrueEdge().values().stream()
               .flatMap(m -> m.values().stream())
@@ -256,20 +286,36 @@ public final class BDDReachabilityAnalysisFactory {
       _bddIncomingTransformations = computeBDDIncomingTransformations();
       _bddOutgoingTransformations = computeBDDOutgoingTransformations();
 
-      _arpTrueEdgeBDDs = computeArpTrueEdgeBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
-      _neighborUnreachableBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getNeighborUnreachable(), _dstIpSpaceToBDD);
-      _deliveredToSubnetBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getDeliveredToSubnet(), _dstIpSpaceToBDD);
-      _exitsNetworkBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getExitsNetwork(), _dstIpSpaceToBDD);
-      _insufficientInfoBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getInsufficientInfo(), _dstIpSpaceToBDD);
-      _nullRoutedBDDs = computeNullRoutedBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
-      _routableBDDs = computeRoutableBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
-      _vrfAcceptBDDs =
-          computeVrfAcceptBDDs(configs, forwardingAnalysis.getAcceptsIps(), _dstIpSpaceToBDD);
-      _nextVrfBDDs = computeNextVrfBDDs(forwardingAnalysis.getNextVrfIps(), _dstIpSpaceToBDD);
+      if (storedGraph != null) {
+        // all variables are allocated, so the stored BDDs can be read into the packet.
+        BDDReachabilityGraph graph = readGraph(storedGraph);
+        _arpTrueEdgeBDDs = graph.getArpTrueEdgeBDDs();
+        _neighborUnreachableBDDs = graph.getNeighborUnreachableBDDs();
+        _deliveredToSubnetBDDs = graph.getDeliveredToSubnetBDDs();
+        _exitsNetworkBDDs = graph.getExitsNetworkBDDs();
+        _insufficientInfoBDDs = graph.getInsufficientInfoBDDs();
+        _nullRoutedBDDs = graph.getNullRoutedBDDs();
+        _routableBDDs = graph.getRoutableBDDs();
+        _vrfAcceptBDDs = graph.getVrfAcceptBDDs();
+        _nextVrfBDDs = graph.getNextVrfBDDs();
+        _storedEdges = graph.getEdges();
+      } else {
+        _arpTrueEdgeBDDs = computeArpTrueEdgeBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
+        _neighborUnreachableBDDs =
+            computeDispositionBDDs(forwardingAnalysis.getNeighborUnreachable(), _dstIpSpaceToBDD);
+        _deliveredToSubnetBDDs =
+            computeDispositionBDDs(forwardingAnalysis.getDeliveredToSubnet(), _dstIpSpaceToBDD);
+        _exitsNetworkBDDs =
+            computeDispositionBDDs(forwardingAnalysis.getExitsNetwork(), _dstIpSpaceToBDD);
+        _insufficientInfoBDDs =
+            computeDispositionBDDs(forwardingAnalysis.getInsufficientInfo(), _dstIpSpaceToBDD);
+        _nullRoutedBDDs = computeNullRoutedBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
+        _routableBDDs = computeRoutableBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
+        _vrfAcceptBDDs =
+            computeVrfAcceptBDDs(configs, forwardingAnalysis.getAcceptsIps(), _dstIpSpaceToBDD);
+        _nextVrfBDDs = computeNextVrfBDDs(forwardingAnalysis.getNextVrfIps(), _dstIpSpaceToBDD);
+        _storedEdges = null;
+      }
 
       _convertedPacketPolicies = convertPacketPolicies(configs);
 
@@ -296,6 +342,48 @@ public final class BDDReachabilityAnalysisFactory {
     }
   }
 
+  private @Nonnull String graphOptions() {
+    return String.format(
+        "ignoreFilters=%s,initializeSessions=%s", _ignoreFilters, _initializeSessions);
+  }
+
+  private @Nonnull BDDReachabilityGraph readGraph(InputStream storedGraph) {
+    try (ActiveSpan span =
+        GlobalTracer.get().buildSpan("BDDReachabilityAnalysisFactory.readGraph").startActive()) {
+      assert span != null; // avoid unused warning
+      return BDDReachabilityGraph.read(
+          storedGraph, _bddPacket, _bddSourceManagers, _lastHopMgr, graphOptions());
+    } catch (IOException e) {
+      throw new BatfishException("Could not read stored reachability graph", e);
+    }
+  }
+
+  /**
+   * Writes the BDDs computed from the {@link ForwardingAnalysis} and the query-independent edges of
+   * this factory, with the variable layout of its {@link BDDPacket}. A factory for the same
+   * snapshot and options can read them back instead of computing them, see {@link
+   * #BDDReachabilityAnalysisFactory(BDDPacket, Map, ForwardingAnalysis, boolean, boolean,
+   * InputStream)}.
+   */
+  public void writeGraph(OutputStream out) throws IOException {
+    try (ActiveSpan span =
+        GlobalTracer.get().buildSpan("BDDReachabilityAnalysisFactory.writeGraph").startActive()) {
+      assert span != null; // avoid unused warning
+      new BDDReachabilityGraph(
+              _arpTrueEdgeBDDs,
+              _neighborUnreachableBDDs,
+              _deliveredToSubnetBDDs,
+              _exitsNetworkBDDs,
+              _insufficientInfoBDDs,
+              _nullRoutedBDDs,
+              _routableBDDs,
+              _vrfAcceptBDDs,
+              _nextVrfBDDs,
+              generateEdges().collect(ImmutableList.toImmutableList()))
+          .write(out, _bddPacket, _bddSourceManagers, _lastHopMgr, graphOptions());
+    }
+  }
+
   /**
    * Lazily compute the ACL BDDs, since we may only need some of them (depending on ignoreFilters,
    * forbidden transit nodes, etc). When ignoreFilters is enabled, we still need the ACLs used in
@@ -624,10 +712,13 @@ public final class BDDReachabilityAnalysisFactory {
   }
 
   /*
-   * These edges do not depend on the query. Compute them separately so that we can later cache them
-   * across queries if we want to.
+   * These edges do not depend on the query. Compute them separately so that they can be stored and
+   * read back instead of being recomputed, see writeGraph.
    */
   private Stream<Edge> generateEdges() {
+    if (_storedEdges != null) {
+      return _storedEdges.stream();
+    }
     return Streams.concat(
         generateRules_PreInInterface_NodeDropAclIn(),
         generateRules_PreInInterface_NodeDropAclIn_PBR(),
@@ -1734,6 +1825,10 @@ public final class BDDReachabilityAnalysisFactory {
     return _bddSourceManagers;
   }
 
+  public BDDPacket getBDDPacket() {
+    return _bddPacket;
+  }
+
   public @Nullable LastHopOutgoingInterfaceManager getLastHopManager() {
     return _lastHopMgr;
   }
@@ -0,0 +1,297 @@
+package org.batfish.bddreachability;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.javabdd.BDD;
+import org.batfish.common.BatfishException;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.BDDSourceManager;
+import org.batfish.datamodel.ForwardingAnalysis;
+import org.batfish.version.BatfishVersion;
+
+/**
+ * The part of the reachability graph of a {@link BDDReachabilityAnalysisFactory} that does not
+ * depend on the query: the {@link BDD BDDs} computed from the {@link ForwardingAnalysis}, and the
+ * {@link Edge edges} between the states of the network.
+ *
+ * <p>The graph can be {@link #write written} with the variable layout of its {@link BDDPacket}, and
+ * {@link #read read} back by a factory for the same snapshot in a packet with the same layout, e.g.
+ * in another process, instead of being recomputed. The {@link BDDSourceManager source managers} and
+ * {@link LastHopOutgoingInterfaceManager last-hop manager} referenced by the {@link
+ * org.batfish.bddreachability.transition.Transition transitions} are not written; they are replaced
+ * by those of the reading factory.
+ */
+@ParametersAreNonnullByDefault
+final class BDDReachabilityGraph implements Serializable {
+  private final Map<String, Map<String, Map<org.batfish.datamodel.Edge, BDD>>> _arpTrueEdgeBDDs;
+  private final Map<String, Map<String, Map<String, BDD>>> _neighborUnreachableBDDs;
+  private final Map<String, Map<String, Map<String, BDD>>> _deliveredToSubnetBDDs;
+  private final Map<String, Map<String, Map<String, BDD>>> _exitsNetworkBDDs;
+  private final Map<String, Map<String, Map<String, BDD>>> _insufficientInfoBDDs;
+  private final Map<String, Map<String, BDD>> _nullRoutedBDDs;
+  private final Map<String, Map<String, BDD>> _routableBDDs;
+  private final Map<String, Map<String, BDD>> _vrfAcceptBDDs;
+  private final Map<String, Map<String, Map<String, BDD>>> _nextVrfBDDs;
+  private final List<Edge> _edges;
+
+  BDDReachabilityGraph(
+      Map<String, Map<String, Map<org.batfish.datamodel.Edge, BDD>>> arpTrueEdgeBDDs,
+      Map<String, Map<String, Map<String, BDD>>> neighborUnreachableBDDs,
+      Map<String, Map<String, Map<String, BDD>>> deliveredToSubnetBDDs,
+      Map<String, Map<String, Map<String, BDD>>> exitsNetworkBDDs,
+      Map<String, Map<String, Map<String, BDD>>> insufficientInfoBDDs,
+      Map<String, Map<String, BDD>> nullRoutedBDDs,
+      Map<String, Map<String, BDD>> routableBDDs,
+      Map<String, Map<String, BDD>> vrfAcceptBDDs,
+      Map<String, Map<String, Map<String, BDD>>> nextVrfBDDs,
+      List<Edge> edges) {
+    _arpTrueEdgeBDDs = arpTrueEdgeBDDs;
+    _neighborUnreachableBDDs = neighborUnreachableBDDs;
+    _deliveredToSubnetBDDs = deliveredToSubnetBDDs;
+    _exitsNetworkBDDs = exitsNetworkBDDs;
+    _insufficientInfoBDDs = insufficientInfoBDDs;
+    _nullRoutedBDDs = nullRoutedBDDs;
+    _routableBDDs = routableBDDs;
+    _vrfAcceptBDDs = vrfAcceptBDDs;
+    _nextVrfBDDs = nextVrfBDDs;
+    _edges = edges;
+  }
+
+  @Nonnull
+  Map<String, Map<String, Map<org.batfish.datamodel.Edge, BDD>>> getArpTrueEdgeBDDs() {
+    return _arpTrueEdgeBDDs;
+  }
+
+  @Nonnull
+  Map<String, Map<String, Map<String, BDD>>> getNeighborUnreachableBDDs() {
+    return _neighborUnreachableBDDs;
+  }
+
+  @Nonnull
+  Map<String, Map<String, Map<String, BDD>>> getDeliveredToSubnetBDDs() {
+    return _deliveredToSubnetBDDs;
+  }
+
+  @Nonnull
+  Map<String, Map<String, Map<String, BDD>>> getExitsNetworkBDDs() {
+    return _exitsNetworkBDDs;
+  }
+
+  @Nonnull
+  Map<String, Map<String, Map<String, BDD>>> getInsufficientInfoBDDs() {
+    return _insufficientInfoBDDs;
+  }
+
+  @Nonnull
+  Map<String, Map<String, BDD>> getNullRoutedBDDs() {
+    return _nullRoutedBDDs;
+  }
+
+  @Nonnull
+  Map<String, Map<String, BDD>> getRoutableBDDs() {
+    return _routableBDDs;
+  }
+
+  @Nonnull
+  Map<String, Map<String, BDD>> getVrfAcceptBDDs() {
+    return _vrfAcceptBDDs;
+  }
+
+  @Nonnull
+  Map<String, Map<String, Map<String, BDD>>> getNextVrfBDDs() {
+    return _nextVrfBDDs;
+  }
+
+  /** The edges of the graph that do not depend on the query. */
+  @Nonnull
+  List<Edge> getEdges() {
+    return _edges;
+  }
+
+  /**
+   * Writes this graph to {@code out}: the Batfish version and {@code options} it was built with,
+   * then its BDDs with the variable layout of {@code pkt} (see {@link BDDPacket#writeBdds(List,
+   * OutputStream)}), then the rest of the graph.
+   */
+  void write(
+      OutputStream out,
+      BDDPacket pkt,
+      Map<String, BDDSourceManager> sourceManagers,
+      @Nullable LastHopOutgoingInterfaceManager lastHopMgr,
+      String options)
+      throws IOException {
+    GraphOutputStream graphOut =
+        new GraphOutputStream(new ByteArrayOutputStream(), sourceManagers, lastHopMgr);
+    graphOut.writeObject(this);
+    graphOut.close();
+
+    DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+    dataOut.writeUTF(BatfishVersion.getVersionStatic());
+    dataOut.writeUTF(options);
+    pkt.writeBdds(graphOut._bdds, dataOut);
+    graphOut._bytes.writeTo(dataOut);
+    dataOut.flush();
+  }
+
+  /**
+   * Reads a graph written by {@link #write} into {@code pkt}, replacing the source managers and
+   * last-hop manager of the writer by {@code sourceManagers} and {@code lastHopMgr}.
+   *
+   * @throws BatfishException if the graph was written by another version of Batfish, with other
+   *     {@code options}, or with a different variable layout.
+   */
+  static @Nonnull BDDReachabilityGraph read(
+      InputStream in,
+      BDDPacket pkt,
+      Map<String, BDDSourceManager> sourceManagers,
+      @Nullable LastHopOutgoingInterfaceManager lastHopMgr,
+      String options)
+      throws IOException {
+    DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in));
+    String version = dataIn.readUTF();
+    if (!version.equals(BatfishVersion.getVersionStatic())) {
+      throw new BatfishException(
+          String.format(
+              "Reachability graph was written by Batfish version %s, but this is version %s",
+              version, BatfishVersion.getVersionStatic()));
+    }
+    String writtenOptions = dataIn.readUTF();
+    if (!writtenOptions.equals(options)) {
+      throw new BatfishException(
+          String.format(
+              "Reachability graph was written with options %s, but was read with options %s",
+              writtenOptions, options));
+    }
+    List<BDD> bdds = pkt.readBdds(dataIn);
+    try (GraphInputStream graphIn =
+        new GraphInputStream(dataIn, bdds, sourceManagers, lastHopMgr)) {
+      return (BDDReachabilityGraph) graphIn.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new BatfishException("Could not read reachability graph", e);
+    }
+  }
+
+  /** Reference to the BDD at some index of the BDDs written before the graph. */
+  private static final class BddRef implements Serializable {
+    private final int _index;
+
+    private BddRef(int index) {
+      _index = index;
+    }
+  }
+
+  /** Reference to the {@link BDDSourceManager} of some node. */
+  private static final class SourceManagerRef implements Serializable {
+    private final String _hostname;
+
+    private SourceManagerRef(String hostname) {
+      _hostname = hostname;
+    }
+  }
+
+  /** Reference to the {@link LastHopOutgoingInterfaceManager}. */
+  private static final class LastHopManagerRef implements Serializable {}
+
+  /**
+   * Writes the graph, replacing each {@link BDD} by a {@link BddRef} and collecting the BDDs, and
+   * each manager by a reference.
+   */
+  private static final class GraphOutputStream extends ObjectOutputStream {
+    private final List<BDD> _bdds;
+    private final Map<BDD, Integer> _bddIndices;
+    private final ByteArrayOutputStream _bytes;
+    private final @Nullable LastHopOutgoingInterfaceManager _lastHopMgr;
+    private final Map<BDDSourceManager, String> _sourceManagerHostnames;
+
+    private GraphOutputStream(
+        ByteArrayOutputStream bytes,
+        Map<String, BDDSourceManager> sourceManagers,
+        @Nullable LastHopOutgoingInterfaceManager lastHopMgr)
+        throws IOException {
+      super(bytes);
+      enableReplaceObject(true);
+      _bdds = new ArrayList<>();
+      _bddIndices = new HashMap<>();
+      _bytes = bytes;
+      _lastHopMgr = lastHopMgr;
+      _sourceManagerHostnames = new IdentityHashMap<>();
+      sourceManagers.forEach((hostname, mgr) -> _sourceManagerHostnames.put(mgr, hostname));
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      if (obj instanceof BDD) {
+        BDD bdd = (BDD) obj;
+        Integer index = _bddIndices.get(bdd);
+        if (index == null) {
+          index = _bdds.size();
+          _bdds.add(bdd);
+          _bddIndices.put(bdd, index);
+        }
+        return new BddRef(index);
+      } else if (obj instanceof BDDSourceManager && _sourceManagerHostnames.containsKey(obj)) {
+        return new SourceManagerRef(_sourceManagerHostnames.get(obj));
+      } else if (obj != null && obj == _lastHopMgr) {
+        return new LastHopManagerRef();
+      }
+      return obj;
+    }
+  }
+
+  /** Reads the graph, resolving the references written by {@link GraphOutputStream}. */
+  private static final class GraphInputStream extends ObjectInputStream {
+    private final List<BDD> _bdds;
+    private final @Nullable LastHopOutgoingInterfaceManager _lastHopMgr;
+    private final Map<String, BDDSourceManager> _sourceManagers;
+
+    private GraphInputStream(
+        InputStream in,
+        List<BDD> bdds,
+        Map<String, BDDSourceManager> sourceManagers,
+        @Nullable LastHopOutgoingInterfaceManager lastHopMgr)
+        throws IOException {
+      super(in);
+      enableResolveObject(true);
+      _bdds = bdds;
+      _lastHopMgr = lastHopMgr;
+      _sourceManagers = sourceManagers;
+    }
+
+    @Override
+    protected Object resolveObject(Object obj) throws IOException {
+      if (obj instanceof BddRef) {
+        return _bdds.get(((BddRef) obj)._index);
+      } else if (obj instanceof SourceManagerRef) {
+        String hostname = ((SourceManagerRef) obj)._hostname;
+        BDDSourceManager mgr = _sourceManagers.get(hostname);
+        if (mgr == null) {
+          throw new BatfishException("No source manager for node " + hostname);
+        }
+        return mgr;
+      } else if (obj instanceof LastHopManagerRef) {
+        if (_lastHopMgr == null) {
+          throw new BatfishException("Reachability graph requires a last-hop manager");
+        }
+        return _lastHopMgr;
+      }
+      return obj;
+    }
+  }
+}
@@ -3,17 +3,27 @@ package org.batfish.bddreachability;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableTable.toImmutableTable;
 import static org.batfish.common.util.CollectionUtil.toImmutableMap;
+import static org.batfish.common.util.CommonUtil.checkInterrupted;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Streams;
 import com.google.common.collect.Table;
 import com.google.common.collect.Tables;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.BiFunction;
 import java.util.stream.Stream;
 import net.sf.javabdd.BDD;
@@ -44,16 +54,42 @@ public final class BDDReachabilityUtils {
 
   /** Apply edges to the reachableSets until a fixed point is reached. */
   @VisibleForTesting
-  static void fixpoint(
+  static FixpointStats fixpoint(
+      Map<StateExpr, BDD> reachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse) {
+    return fixpoint(reachableSets, edges, traverse, FixpointEngine.ROUNDS);
+  }
+
+  /** Apply edges to the reachableSets until a fixed point is reached, using {@code engine}. */
+  @VisibleForTesting
+  static FixpointStats fixpoint(
+      Map<StateExpr, BDD> reachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse,
+      FixpointEngine engine) {
+    switch (engine) {
+      case ROUNDS:
+        return roundsFixpoint(reachableSets, edges, traverse);
+      case SCC:
+        return sccFixpoint(reachableSets, edges, traverse);
+      default:
+        throw new IllegalArgumentException("Unsupported fixpoint engine: " + engine);
+    }
+  }
+
+  private static FixpointStats roundsFixpoint(
       Map<StateExpr, BDD> reachableSets,
       Table<StateExpr, StateExpr, Transition> edges,
       BiFunction<Transition, BDD, BDD> traverse) {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("BDDReachabilityAnalysis.fixpoint").startActive()) {
       assert span != null; // avoid unused warning
+      FixpointStats stats = new FixpointStats();
       Set<StateExpr> dirtyStates = ImmutableSet.copyOf(reachableSets.keySet());
 
       while (!dirtyStates.isEmpty()) {
+        checkInterrupted();
         Set<StateExpr> newDirtyStates = new HashSet<>();
 
         dirtyStates.forEach(
@@ -67,16 +103,7 @@ public final class BDDReachabilityUtils {
               BDD dirtyStateBDD = reachableSets.get(dirtyState);
               dirtyStateEdges.forEach(
                   (neighbor, edge) -> {
-                    BDD result = traverse.apply(edge, dirtyStateBDD);
-                    if (result.isZero()) {
-                      return;
-                    }
-
-                    // update neighbor's reachable set
-                    BDD oldReach = reachableSets.get(neighbor);
-                    BDD newReach = oldReach == null ? result : oldReach.or(result);
-                    if (oldReach == null || !oldReach.equals(newReach)) {
-                      reachableSets.put(neighbor, newReach);
+                    if (propagate(reachableSets, neighbor, edge, dirtyStateBDD, traverse, stats)) {
                       newDirtyStates.add(neighbor);
                     }
                   });
@@ -84,9 +111,194 @@ public final class BDDReachabilityUtils {
 
         dirtyStates = newDirtyStates;
       }
+      stats.tag(span);
+      return stats;
     }
   }
 
+  /**
+   * Propagates along one edge into {@code neighbor}. Returns whether the reachable set of {@code
+   * neighbor} changed.
+   */
+  private static boolean propagate(
+      Map<StateExpr, BDD> reachableSets,
+      StateExpr neighbor,
+      Transition edge,
+      BDD bdd,
+      BiFunction<Transition, BDD, BDD> traverse,
+      FixpointStats stats) {
+    BDD result = traverse.apply(edge, bdd);
+    stats.recordTransition();
+    if (result.isZero()) {
+      return false;
+    }
+
+    // update neighbor's reachable set
+    BDD oldReach = reachableSets.get(neighbor);
+    if (oldReach == null) {
+      reachableSets.put(neighbor, result);
+      return true;
+    }
+    BDD newReach = oldReach.or(result);
+    stats.recordUnion();
+    if (oldReach.equals(newReach)) {
+      return false;
+    }
+    reachableSets.put(neighbor, newReach);
+    return true;
+  }
+
+  /**
+   * Apply edges to the reachableSets until a fixed point is reached, one strongly connected
+   * component at a time. Components are processed in topological order, so the reachable sets
+   * flowing into a component are final when it is processed.
+   */
+  private static FixpointStats sccFixpoint(
+      Map<StateExpr, BDD> reachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse) {
+    try (ActiveSpan span =
+        GlobalTracer.get().buildSpan("BDDReachabilityAnalysis.sccFixpoint").startActive()) {
+      assert span != null; // avoid unused warning
+      FixpointStats stats = new FixpointStats();
+      List<List<StateExpr>> components =
+          stronglyConnectedComponents(edges, ImmutableSet.copyOf(reachableSets.keySet()));
+      Map<StateExpr, Integer> componentIndex = new HashMap<>();
+      for (int i = 0; i < components.size(); i++) {
+        for (StateExpr state : components.get(i)) {
+          componentIndex.put(state, i);
+        }
+      }
+
+      for (int i = 0; i < components.size(); i++) {
+        checkInterrupted();
+        List<StateExpr> component = components.get(i);
+        if (component.size() > 1 || edges.contains(component.get(0), component.get(0))) {
+          // Iterate within the component, always processing the changed state that comes first in
+          // depth-first order.
+          Map<StateExpr, Integer> position = new HashMap<>();
+          TreeSet<Integer> worklist = new TreeSet<>();
+          for (int j = 0; j < component.size(); j++) {
+            position.put(component.get(j), j);
+            if (reachableSets.containsKey(component.get(j))) {
+              worklist.add(j);
+            }
+          }
+          while (!worklist.isEmpty()) {
+            StateExpr state = component.get(worklist.pollFirst());
+            BDD bdd = reachableSets.get(state);
+            for (Entry<StateExpr, Transition> edge : edges.row(state).entrySet()) {
+              Integer neighborPosition = position.get(edge.getKey());
+              if (neighborPosition != null
+                  && propagate(
+                      reachableSets, edge.getKey(), edge.getValue(), bdd, traverse, stats)) {
+                worklist.add(neighborPosition);
+              }
+            }
+          }
+        }
+
+        // The component has converged, so apply each edge leaving it once.
+        for (StateExpr state : component) {
+          BDD bdd = reachableSets.get(state);
+          if (bdd == null) {
+            continue;
+          }
+          for (Entry<StateExpr, Transition> edge : edges.row(state).entrySet()) {
+            if (componentIndex.get(edge.getKey()) != i) {
+              propagate(reachableSets, edge.getKey(), edge.getValue(), bdd, traverse, stats);
+            }
+          }
+        }
+      }
+      stats.tag(span);
+      return stats;
+    }
+  }
+
+  /** A state being visited by {@link #stronglyConnectedComponents(Table, Set)} */
+  private static final class DfsFrame {
+    private final StateExpr _state;
+    private final Iterator<StateExpr> _successors;
+
+    DfsFrame(StateExpr state, Iterator<StateExpr> successors) {
+      _state = state;
+      _successors = successors;
+    }
+  }
+
+  /**
+   * Returns the strongly connected components of the part of the graph of {@code edges} reachable
+   * from {@code roots}, in topological order. The states of each component are in depth-first
+   * order.
+   *
+   * <p>This is Tarjan's algorithm, with an explicit stack since the graph can be deep.
+   */
+  @VisibleForTesting
+  static List<List<StateExpr>> stronglyConnectedComponents(
+      Table<StateExpr, StateExpr, Transition> edges, Set<StateExpr> roots) {
+    Map<StateExpr, Integer> index = new HashMap<>();
+    Map<StateExpr, Integer> lowLink = new HashMap<>();
+    Deque<StateExpr> stack = new ArrayDeque<>();
+    Set<StateExpr> onStack = new HashSet<>();
+    Deque<DfsFrame> frames = new ArrayDeque<>();
+    List<List<StateExpr>> components = new ArrayList<>();
+
+    for (StateExpr root : roots) {
+      if (index.containsKey(root)) {
+        continue;
+      }
+      visit(root, edges, index, lowLink, stack, onStack, frames);
+      while (!frames.isEmpty()) {
+        DfsFrame frame = frames.peek();
+        StateExpr state = frame._state;
+        if (frame._successors.hasNext()) {
+          StateExpr successor = frame._successors.next();
+          if (!index.containsKey(successor)) {
+            visit(successor, edges, index, lowLink, stack, onStack, frames);
+          } else if (onStack.contains(successor)) {
+            lowLink.put(state, Math.min(lowLink.get(state), index.get(successor)));
+          }
+          continue;
+        }
+        frames.pop();
+        if (!frames.isEmpty()) {
+          StateExpr parent = frames.peek()._state;
+          lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(state)));
+        }
+        if (lowLink.get(state).equals(index.get(state))) {
+          List<StateExpr> component = new ArrayList<>();
+          StateExpr member;
+          do {
+            member = stack.pop();
+            onStack.remove(member);
+            component.add(member);
+          } while (member != state);
+          // popped in reverse depth-first order
+          components.add(Lists.reverse(component));
+        }
+      }
+    }
+    // Tarjan's algorithm finds each component after all components reachable from it.
+    return Lists.reverse(components);
+  }
+
+  private static void visit(
+      StateExpr state,
+      Table<StateExpr, StateExpr, Transition> edges,
+      Map<StateExpr, Integer> index,
+      Map<StateExpr, Integer> lowLink,
+      Deque<StateExpr> stack,
+      Set<StateExpr> onStack,
+      Deque<DfsFrame> frames) {
+    int i = index.size();
+    index.put(state, i);
+    lowLink.put(state, i);
+    stack.push(state);
+    onStack.add(state);
+    frames.push(new DfsFrame(state, edges.row(state).keySet().iterator()));
+  }
+
   @VisibleForTesting
   static IngressLocation toIngressLocation(StateExpr stateExpr) {
     checkArgument(stateExpr instanceof OriginateVrf || stateExpr instanceof OriginateInterfaceLink);
@@ -104,12 +316,22 @@ public final class BDDReachabilityUtils {
   public static void backwardFixpoint(
       Table<StateExpr, StateExpr, Transition> forwardEdgeTable,
       Map<StateExpr, BDD> reverseReachable) {
-    fixpoint(reverseReachable, Tables.transpose(forwardEdgeTable), Transition::transitBackward);
+    backwardFixpoint(forwardEdgeTable, reverseReachable, FixpointEngine.ROUNDS);
+  }
+
+  static FixpointStats backwardFixpoint(
+      Table<StateExpr, StateExpr, Transition> forwardEdgeTable,
+      Map<StateExpr, BDD> reverseReachable,
+      FixpointEngine engine) {
+    return fixpoint(
+        reverseReachable, Tables.transpose(forwardEdgeTable), Transition::transitBackward, engine);
   }
 
-  static void forwardFixpoint(
-      Table<StateExpr, StateExpr, Transition> forwardEdgeTable, Map<StateExpr, BDD> reachable) {
-    fixpoint(reachable, forwardEdgeTable, Transition::transitForward);
+  static FixpointStats forwardFixpoint(
+      Table<StateExpr, StateExpr, Transition> forwardEdgeTable,
+      Map<StateExpr, BDD> reachable,
+      FixpointEngine engine) {
+    return fixpoint(reachable, forwardEdgeTable, Transition::transitForward, engine);
   }
 
   static Map<IngressLocation, BDD> getIngressLocationBdds(
@@ -3,6 +3,7 @@ package org.batfish.bddreachability;
 import static org.batfish.bddreachability.transition.Transitions.constraint;
 
 import com.google.common.base.MoreObjects;
+import java.io.Serializable;
 import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -13,7 +14,7 @@ import org.batfish.symbolic.state.StateExpr;
 
 /** An edge in the graph modeling network behavior. */
 @ParametersAreNonnullByDefault
-public final class Edge {
+public final class Edge implements Serializable {
   private final @Nonnull StateExpr _postState;
   private final @Nonnull StateExpr _preState;
   private final @Nonnull Transition _transition;
@@ -0,0 +1,17 @@
+package org.batfish.bddreachability;
+
+/** Algorithms that propagate reachable sets along the edges of a reachability graph. */
+public enum FixpointEngine {
+  /**
+   * Propagate in rounds: each round applies the out-edges of every state whose reachable set
+   * changed in the previous round.
+   */
+  ROUNDS,
+  /**
+   * Propagate one strongly connected component of the graph at a time, in topological order. Within
+   * a component, states whose reachable sets changed are processed in depth-first order from a
+   * worklist, and edges leaving the component are applied once the component has converged. This
+   * applies fewer transitions than {@link #ROUNDS} on graphs with many cycles.
+   */
+  SCC
+}
@@ -0,0 +1,33 @@
+package org.batfish.bddreachability;
+
+import io.opentracing.ActiveSpan;
+
+/** Counts of the work done by one fixpoint computation. */
+final class FixpointStats {
+  private long _bddOps;
+  private long _transitionsApplied;
+
+  /** Number of BDD operations: transitions applied plus unions of reachable sets */
+  long getBddOps() {
+    return _bddOps;
+  }
+
+  long getTransitionsApplied() {
+    return _transitionsApplied;
+  }
+
+  void recordTransition() {
+    _transitionsApplied++;
+    _bddOps++;
+  }
+
+  void recordUnion() {
+    _bddOps++;
+  }
+
+  /** Records these counts as tags of {@code span}. */
+  void tag(ActiveSpan span) {
+    span.setTag("transitionsApplied", _transitionsApplied);
+    span.setTag("bddOps", _bddOps);
+  }
+}
@@ -8,6 +8,11 @@ public final class Identity implements Transition {
 
   private Identity() {}
 
+  /** Keeps the instance unique when deserialized. */
+  private Object readResolve() {
+    return INSTANCE;
+  }
+
   @Override
   public String toString() {
     return "IDENTITY";
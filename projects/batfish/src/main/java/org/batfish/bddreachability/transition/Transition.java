@@ -1,9 +1,15 @@
 package org.batfish.bddreachability.transition;
 
+import java.io.Serializable;
 import net.sf.javabdd.BDD;
 
-/** Bidirectional transition function */
-public interface Transition {
+/**
+ * Bidirectional transition function.
+ *
+ * <p>Transitions are serializable so that the reachability graph can be stored with its {@link BDD
+ * BDDs}, see {@link org.batfish.bddreachability.BDDReachabilityGraph}.
+ */
+public interface Transition extends Serializable {
   BDD transitForward(BDD bdd);
 
   BDD transitBackward(BDD bdd);
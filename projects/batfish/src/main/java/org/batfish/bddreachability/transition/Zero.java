@@ -8,6 +8,11 @@ public final class Zero implements Transition {
 
   private Zero() {}
 
+  /** Keeps the instance unique when deserialized. */
+  private Object readResolve() {
+    return INSTANCE;
+  }
+
   @Override
   public String toString() {
     return "ZERO";
@@ -14,6 +14,7 @@ import org.batfish.common.BaseSettings;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
 import org.batfish.common.CoordConsts;
+import org.batfish.common.util.SerializationFormat;
 import org.batfish.datamodel.Ip;
 import org.batfish.grammar.GrammarSettings;
 import org.batfish.identifiers.AnalysisId;
@@ -34,6 +35,12 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   public static final String ARG_COORDINATOR_REGISTER = "register";
 
+  private static final String ARG_BDD_OFF_HEAP = "bddoffheap";
+
+  private static final String ARG_BDD_OFF_HEAP_MAX_MB = "bddoffheapmaxmb";
+
+  private static final String ARG_BDD_STORE_GRAPH = "bddstoregraph";
+
   private static final String ARG_DATAPLANE_ENGINE_NAME = "dataplaneengine";
 
   private static final String ARG_DEBUG_FLAGS = "debugflags";
@@ -60,6 +67,14 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_LOG_TEE = "logtee";
 
+  private static final String ARG_MAX_CACHED_BDD_NODE_TABLE_SIZE = "maxcachedbddnodes";
+
+  private static final String ARG_MAX_CONCURRENT_DATAPLANE_TASKS = "maxconcurrentdataplanetasks";
+
+  private static final String ARG_MAX_CONCURRENT_PARSE_TASKS = "maxconcurrentparsetasks";
+
+  private static final String ARG_MAX_CONCURRENT_TASKS = "maxconcurrenttasks";
+
   private static final String ARG_MAX_PARSER_CONTEXT_LINES = "maxparsercontextlines";
 
   private static final String ARG_MAX_PARSER_CONTEXT_TOKENS = "maxparsercontexttokens";
@@ -80,6 +95,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_SEQUENTIAL = "sequential";
 
+  private static final String ARG_SERIALIZATION_FORMAT = "serializationformat";
+
   private static final String ARG_SERVICE_BIND_HOST = "servicebindhost";
 
   public static final String ARG_SERVICE_HOST = "servicehost";
@@ -202,6 +219,29 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _config.getBoolean(BfConsts.COMMAND_ANALYZE);
   }
 
+  /** Whether BDD reachability analyses store their BDD node tables outside the Java heap. */
+  public boolean getBddOffHeap() {
+    return _config.getBoolean(ARG_BDD_OFF_HEAP);
+  }
+
+  /**
+   * The maximum size, in MiB, of each off-heap BDD node table (see {@link #getBddOffHeap()}), or 0
+   * for no limit other than the JVM's direct memory limit.
+   */
+  public int getBddOffHeapMaxMb() {
+    return _config.getInt(ARG_BDD_OFF_HEAP_MAX_MB);
+  }
+
+  /**
+   * Whether the query-independent reachability graph of a snapshot is stored with the snapshot, so
+   * that BDD reachability analyses of other workers read it instead of recomputing it. Workers
+   * sharing storage should agree on this setting, since only workers with it enabled delete the
+   * stored graph when they recompute the data plane.
+   */
+  public boolean getBddStoreGraph() {
+    return _config.getBoolean(ARG_BDD_STORE_GRAPH);
+  }
+
   public boolean getAnswer() {
     return _config.getBoolean(BfConsts.COMMAND_ANSWER);
   }
@@ -347,6 +387,22 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _config.getInt(ARG_MAX_PARSE_TREE_PRINT_LENGTH);
   }
 
+  public int getMaxCachedBddNodeTableSize() {
+    return _config.getInt(ARG_MAX_CACHED_BDD_NODE_TABLE_SIZE);
+  }
+
+  public int getMaxConcurrentDataPlaneTasks() {
+    return _config.getInt(ARG_MAX_CONCURRENT_DATAPLANE_TASKS);
+  }
+
+  public int getMaxConcurrentParseTasks() {
+    return _config.getInt(ARG_MAX_CONCURRENT_PARSE_TASKS);
+  }
+
+  public int getMaxConcurrentTasks() {
+    return _config.getInt(ARG_MAX_CONCURRENT_TASKS);
+  }
+
   public int getMaxRuntimeMs() {
     return _config.getInt(ARG_MAX_RUNTIME_MS);
   }
@@ -406,6 +462,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _config.getInt(ARG_SERVICE_PORT);
   }
 
+  /** Format for serializing objects written to storage. */
+  public SerializationFormat getSerializationFormat() {
+    return SerializationFormat.valueOf(_config.getString(ARG_SERIALIZATION_FORMAT).toUpperCase());
+  }
+
   public String getStorageProvider() {
     return _config.getString(ARG_STORAGE_PROVIDER);
   }
@@ -563,10 +624,17 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     setDefaultProperty(ARG_JOBS, Integer.MAX_VALUE);
     setDefaultProperty(ARG_LOG_TEE, false);
     setDefaultProperty(BfConsts.ARG_LOG_LEVEL, "debug");
+    setDefaultProperty(ARG_MAX_CACHED_BDD_NODE_TABLE_SIZE, 1 << 22);
+    setDefaultProperty(ARG_MAX_CONCURRENT_DATAPLANE_TASKS, 1);
+    setDefaultProperty(ARG_MAX_CONCURRENT_PARSE_TASKS, 1);
+    setDefaultProperty(ARG_MAX_CONCURRENT_TASKS, 1);
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_LINES, 10);
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_TOKENS, 10);
     setDefaultProperty(ARG_MAX_PARSE_TREE_PRINT_LENGTH, 0);
     setDefaultProperty(ARG_MAX_RUNTIME_MS, 0);
+    setDefaultProperty(ARG_BDD_OFF_HEAP, false);
+    setDefaultProperty(ARG_BDD_OFF_HEAP_MAX_MB, 0);
+    setDefaultProperty(ARG_BDD_STORE_GRAPH, false);
     setDefaultProperty(ARG_CHECK_BGP_REACHABILITY, true);
     setDefaultProperty(ARG_NO_SHUFFLE, false);
     setDefaultProperty(BfConsts.ARG_PEDANTIC_SUPPRESS, false);
@@ -582,6 +650,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     setDefaultProperty(ARG_SERVICE_HOST, "localhost");
     setDefaultProperty(ARG_SERVICE_NAME, "worker-service");
     setDefaultProperty(ARG_SERVICE_PORT, BfConsts.SVC_PORT);
+    setDefaultProperty(ARG_SERIALIZATION_FORMAT, SerializationFormat.DEFAULT.toString());
     setDefaultProperty(ARG_STORAGE_PROVIDER, "file");
     setDefaultProperty(BfConsts.ARG_SNAPSHOT_NAME, null);
     setDefaultProperty(BfConsts.ARG_SSL_DISABLE, CoordConsts.SVC_CFG_POOL_SSL_DISABLE);
@@ -647,6 +716,18 @@ public final class Settings extends BaseSettings implements GrammarSettings {
         "Set to true to record all iterations, including during oscillation. Ignores max recorded "
             + "iterations value.");
 
+    addBooleanOption(
+        ARG_BDD_OFF_HEAP, "store BDD node tables of reachability analyses outside the Java heap");
+
+    addOption(
+        ARG_BDD_OFF_HEAP_MAX_MB,
+        "max size in MiB of each off-heap BDD node table (0 for no limit)",
+        ARGNAME_NUMBER);
+
+    addBooleanOption(
+        ARG_BDD_STORE_GRAPH,
+        "store the BDD reachability graph of a snapshot for reuse by other workers");
+
     addBooleanOption(
         ARG_CHECK_BGP_REACHABILITY,
         "whether to check BGP session reachability during data plane computation");
@@ -728,6 +809,28 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addBooleanOption(ARG_LOG_TEE, "print output to both logfile and standard out");
 
+    addOption(
+        ARG_MAX_CACHED_BDD_NODE_TABLE_SIZE,
+        "max number of BDD nodes a cached BDD reachability analysis may grow to before it is "
+            + "rebuilt",
+        ARGNAME_NUMBER);
+
+    addOption(
+        ARG_MAX_CONCURRENT_DATAPLANE_TASKS,
+        "max number of data plane computations a worker service runs at once",
+        ARGNAME_NUMBER);
+
+    addOption(
+        ARG_MAX_CONCURRENT_PARSE_TASKS,
+        "max number of parsing tasks a worker service runs at once",
+        ARGNAME_NUMBER);
+
+    addOption(
+        ARG_MAX_CONCURRENT_TASKS,
+        "max number of tasks a worker service runs at once (killing a task restarts the worker, "
+            + "terminating its other tasks)",
+        ARGNAME_NUMBER);
+
     addOption(
         ARG_MAX_PARSER_CONTEXT_LINES,
         "max number of surrounding lines to print on parser error",
@@ -781,6 +884,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addOption(ARG_SERVICE_PORT, "port for batfish service", ARGNAME_PORT);
 
+    addOption(
+        ARG_SERIALIZATION_FORMAT,
+        "format for serializing configurations and dataplanes. compact|java",
+        ARGNAME_NAME);
+
     addOption(
       ARG_STORAGE_PROVIDER,
       "storage provider of batfish persistent files. file|swift",
@@ -896,6 +1004,9 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getIntOptionValue(BfConsts.ARG_BDP_MAX_RECORDED_ITERATIONS);
     getBooleanOptionValue(BfConsts.ARG_BDP_PRINT_ALL_ITERATIONS);
     getBooleanOptionValue(BfConsts.ARG_BDP_PRINT_OSCILLATING_ITERATIONS);
+    getBooleanOptionValue(ARG_BDD_OFF_HEAP);
+    getIntOptionValue(ARG_BDD_OFF_HEAP_MAX_MB);
+    getBooleanOptionValue(ARG_BDD_STORE_GRAPH);
     getBooleanOptionValue(ARG_CHECK_BGP_REACHABILITY);
     getStringOptionValue(BfConsts.ARG_CONTAINER);
     getStringOptionValue(ARG_COORDINATOR_HOST);
@@ -921,6 +1032,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getBooleanOptionValue(BfConsts.COMMAND_INIT_INFO);
     getIntOptionValue(ARG_JOBS);
     getBooleanOptionValue(ARG_LOG_TEE);
+    getIntOptionValue(ARG_MAX_CACHED_BDD_NODE_TABLE_SIZE);
+    getIntOptionValue(ARG_MAX_CONCURRENT_DATAPLANE_TASKS);
+    getIntOptionValue(ARG_MAX_CONCURRENT_PARSE_TASKS);
+    getIntOptionValue(ARG_MAX_CONCURRENT_TASKS);
     getIntOptionValue(ARG_MAX_PARSER_CONTEXT_LINES);
     getIntOptionValue(ARG_MAX_PARSER_CONTEXT_TOKENS);
     getIntOptionValue(ARG_MAX_PARSE_TREE_PRINT_LENGTH);
@@ -948,6 +1063,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getBooleanOptionValue(BfConsts.ARG_SSL_TRUST_ALL_CERTS);
     getPathOptionValue(BfConsts.ARG_SSL_TRUSTSTORE_FILE);
     getStringOptionValue(BfConsts.ARG_SSL_TRUSTSTORE_PASSWORD);
+    getStringOptionValue(ARG_SERIALIZATION_FORMAT);
     getStringOptionValue(ARG_STORAGE_PROVIDER);
     getPathOptionValue(BfConsts.ARG_STORAGE_BASE);
     getStringOptionValue(BfConsts.ARG_TASK_PLUGIN);
@@ -968,6 +1084,18 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _activeTestrigSettings = activeTestrigSettings;
   }
 
+  public void setBddOffHeap(boolean bddOffHeap) {
+    _config.setProperty(ARG_BDD_OFF_HEAP, bddOffHeap);
+  }
+
+  public void setBddOffHeapMaxMb(int bddOffHeapMaxMb) {
+    _config.setProperty(ARG_BDD_OFF_HEAP_MAX_MB, bddOffHeapMaxMb);
+  }
+
+  public void setBddStoreGraph(boolean bddStoreGraph) {
+    _config.setProperty(ARG_BDD_STORE_GRAPH, bddStoreGraph);
+  }
+
   public void setCanExecute(boolean canExecute) {
     _config.setProperty(CAN_EXECUTE, canExecute);
   }
@@ -1017,6 +1145,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _logger = logger;
   }
 
+  public void setMaxCachedBddNodeTableSize(int maxCachedBddNodeTableSize) {
+    _config.setProperty(ARG_MAX_CACHED_BDD_NODE_TABLE_SIZE, maxCachedBddNodeTableSize);
+  }
+
   public void setMaxParserContextLines(int maxParserContextLines) {
     _config.setProperty(ARG_MAX_PARSER_CONTEXT_LINES, maxParserContextLines);
   }
@@ -1033,6 +1165,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _config.setProperty(ARG_MAX_RUNTIME_MS, runtimeMs);
   }
 
+  public void setParseReuse(boolean parseReuse) {
+    _config.setProperty(ARG_PARSE_REUSE, parseReuse);
+  }
+
   @Override
   public void setPrintParseTree(boolean printParseTree) {
     _config.setProperty(ARG_PRINT_PARSE_TREES, printParseTree);
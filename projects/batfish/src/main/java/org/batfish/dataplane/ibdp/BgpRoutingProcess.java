@@ -17,6 +17,7 @@ import com.google.common.collect.Streams;
 import com.google.common.graph.ValueGraph;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -29,6 +30,7 @@ import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.AnnotatedRoute;
@@ -55,6 +57,7 @@ import org.batfish.datamodel.bgp.BgpTopology;
 import org.batfish.datamodel.bgp.BgpTopology.EdgeId;
 import org.batfish.datamodel.bgp.RouteDistinguisher;
 import org.batfish.datamodel.bgp.community.ExtendedCommunity;
+import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Environment.Direction;
 import org.batfish.datamodel.routing_policy.RoutingPolicy;
 import org.batfish.dataplane.protocols.BgpProtocolHelper;
@@ -134,6 +137,14 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
   /** Keep track of EVPN type 3 routes initialized from our own VNI settings */
   @Nonnull private RibDelta<EvpnType3Route> _evpnInitializationDelta;
 
+  /** Number of update groups of the IPv4 unicast peers, as of the last export */
+  int _numUpdateGroups;
+  /**
+   * Number of export policy evaluations avoided by sharing results within update groups, since the
+   * last call to {@link #takeNumSavedExportPolicyEvaluations()}
+   */
+  int _numSavedExportPolicyEvaluations;
+
   /** Delta builder for routes that must be propagated to the main RIB */
   @Nonnull private RibDelta.Builder<BgpRoute<?, ?>> _changeSet = RibDelta.builder();
 
@@ -709,6 +720,136 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     return Optional.of(transformedOutgoingRoute);
   }
 
+  /**
+   * Like {@link #transformBgpRouteOnExport}, but for all peers of a {@link BgpUpdateGroup}. The
+   * outbound transformations and export policy are evaluated once for the whole group, unless the
+   * export policy depends on the peer's address.
+   *
+   * @param edges the <em>incoming</em> edges from the peers of the update group
+   * @return the transformed route for each edge on which it should be exported
+   */
+  <B extends BgpRoute.Builder<B, R>, R extends BgpRoute<B, R>>
+      Map<EdgeId, R> transformBgpRouteOnExport(
+          BgpRoute<B, R> exportCandidate,
+          List<EdgeId> edges,
+          Map<String, Node> allNodes,
+          BgpTopology bgpTopology,
+          NetworkConfigurations networkConfigurations,
+          AddressFamily.Type afType) {
+    EdgeId firstEdge = edges.get(0);
+    BgpPeerConfig ourConfig = networkConfigurations.getBgpPeerConfig(firstEdge.head());
+    AddressFamily addressFamily = ourConfig.getAddressFamily(afType);
+    checkArgument(
+        addressFamily != null,
+        "Missing address family %s for BGP peer %s",
+        addressFamily,
+        firstEdge.head());
+    String exportPolicyName = addressFamily.getExportPolicy();
+    assert exportPolicyName != null; // Conversion guarantee
+    RoutingPolicy exportPolicy = _c.getRoutingPolicies().get(exportPolicyName);
+    assert exportPolicy != null; // Conversion guarantee
+
+    // The same for all peers of the group, except for the checks done by rejectedByReceiver
+    B groupOutgoingRouteBuilder =
+        transformBgpRoutePreExportForUpdateGroup(
+            exportCandidate, firstEdge, allNodes, bgpTopology, networkConfigurations, afType);
+    if (groupOutgoingRouteBuilder == null) {
+      // This route could not be exported for core bgp protocol reasons
+      return ImmutableMap.of();
+    }
+    Set<Long> clusterList = ImmutableSet.copyOf(groupOutgoingRouteBuilder.getClusterList());
+
+    ImmutableMap.Builder<EdgeId, R> exported = ImmutableMap.builder();
+    boolean evaluated = false;
+    boolean shared = false;
+    R transformedOutgoingRoute = null;
+    for (EdgeId edge : edges) {
+      BgpPeerConfigId ourConfigId = edge.head();
+      BgpPeerConfigId remoteConfigId = edge.tail();
+      BgpSessionProperties sessionProperties = getSessionProperties(bgpTopology, edge);
+      if (BgpProtocolHelper.rejectedByReceiver(
+          sessionProperties,
+          getNeighborBgpProcess(remoteConfigId, allNodes)._process,
+          exportCandidate,
+          clusterList)) {
+        continue;
+      }
+
+      // sessionProperties represents the incoming edge, so its tailIp is the remote peer's IP
+      Ip remoteIp = sessionProperties.getTailIp();
+
+      if (shared) {
+        _numSavedExportPolicyEvaluations++;
+      } else {
+        B transformedOutgoingRouteBuilder =
+            evaluated
+                ? transformBgpRoutePreExportForUpdateGroup(
+                    exportCandidate, edge, allNodes, bgpTopology, networkConfigurations, afType)
+                : groupOutgoingRouteBuilder;
+        assert transformedOutgoingRouteBuilder != null; // Same for all peers of the group
+        Environment environment =
+            Environment.builder(_c, ourConfigId.getVrfName())
+                .setOriginalRoute(exportCandidate)
+                .setOutputRoute(transformedOutgoingRouteBuilder)
+                .setPeerAddress(remoteIp)
+                .setPeerPrefix(ourConfigId.getRemotePeerPrefix())
+                .setDirection(Direction.OUT)
+                .build();
+        // Process transformed outgoing route by the export policy
+        if (exportPolicy.process(environment)) {
+          // Apply final post-policy transformations before sending advertisement to neighbor
+          BgpProtocolHelper.transformBgpRoutePostExport(
+              transformedOutgoingRouteBuilder, sessionProperties.isEbgp(), ourConfig.getLocalAs());
+          transformedOutgoingRoute = transformedOutgoingRouteBuilder.build();
+        } else {
+          transformedOutgoingRoute = null;
+        }
+        evaluated = true;
+        // The result can be shared with the rest of the group unless it depends on the peer
+        shared = !environment.getPeerUsed();
+      }
+
+      if (transformedOutgoingRoute == null) {
+        // This route could not be exported due to export policy
+        _prefixTracer.filtered(
+            exportCandidate.getNetwork(),
+            remoteConfigId.getHostname(),
+            remoteIp,
+            remoteConfigId.getVrfName(),
+            exportPolicyName,
+            Direction.OUT);
+        continue;
+      }
+      _prefixTracer.sentTo(
+          transformedOutgoingRoute.getNetwork(),
+          remoteConfigId.getHostname(),
+          remoteIp,
+          remoteConfigId.getVrfName(),
+          exportPolicyName);
+      exported.put(edge, transformedOutgoingRoute);
+    }
+    return exported.build();
+  }
+
+  @Nullable
+  private <B extends BgpRoute.Builder<B, R>, R extends BgpRoute<B, R>>
+      B transformBgpRoutePreExportForUpdateGroup(
+          BgpRoute<B, R> exportCandidate,
+          EdgeId edge,
+          Map<String, Node> allNodes,
+          BgpTopology bgpTopology,
+          NetworkConfigurations networkConfigurations,
+          AddressFamily.Type afType) {
+    return BgpProtocolHelper.transformBgpRoutePreExportForUpdateGroup(
+        networkConfigurations.getBgpPeerConfig(edge.head()),
+        networkConfigurations.getBgpPeerConfig(edge.tail()),
+        getSessionProperties(bgpTopology, edge),
+        _process,
+        getNeighborBgpProcess(edge.tail(), allNodes)._process,
+        exportCandidate,
+        afType);
+  }
+
   /**
    * Process EVPN routes that were received on a session in a different VRF, but must be merged into
    * our VRF
@@ -742,8 +883,8 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
   int iterationHashCode() {
     return Stream.of(
             // RIBs
-            _bgpv4Rib.getTypedRoutes(),
-            _evpnRib.getTypedRoutes(),
+            _bgpv4Rib.getRoutesFingerprint(),
+            _evpnRib.getRoutesFingerprint(),
             // Message queues
             _bgpv4IncomingRoutes,
             _evpnType3IncomingRoutes,
@@ -753,6 +894,21 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
         .collect(toOrderedHashCode());
   }
 
+  /**
+   * Return the number of export policy evaluations avoided by sharing results within update groups
+   * since the last call, and reset it.
+   */
+  int takeNumSavedExportPolicyEvaluations() {
+    int saved = _numSavedExportPolicyEvaluations;
+    _numSavedExportPolicyEvaluations = 0;
+    return saved;
+  }
+
+  /** Return the number of routes in the RIBs covered by {@link #iterationHashCode()} */
+  int getNumIterationHashRibRoutes() {
+    return _bgpv4Rib.size() + _evpnRib.size();
+  }
+
   /**
    * Return the stream of all {@link BgpPeerConfig peer configurations} that are part of this
    * process
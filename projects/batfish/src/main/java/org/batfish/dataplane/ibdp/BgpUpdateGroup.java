@@ -0,0 +1,141 @@
+package org.batfish.dataplane.ibdp;
+
+import com.google.common.base.MoreObjects;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.BgpPeerConfig;
+import org.batfish.datamodel.BgpProcess;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.BgpSessionProperties.SessionType;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.bgp.Ipv4UnicastAddressFamily;
+
+/**
+ * Identifies an update group: the IPv4 unicast BGP peers of a {@link VirtualRouter} to which routes
+ * are exported in the same way, so that the export transformations and policy only need to be
+ * evaluated once for the whole group.
+ *
+ * <p>Peers are in the same group when the sessions to them have the same type, local IP, and
+ * re-advertisement settings, the local peer configurations have the same local AS and address
+ * family settings (including the export policy), and the remote peers have the same local AS, route
+ * reflector client setting, and administrative cost for the routes. Whether a route must not be
+ * sent to a particular iBGP peer (because it originated the route or is in its cluster list), and
+ * whether the export policy depends on the peer's address, are still checked per peer.
+ */
+@ParametersAreNonnullByDefault
+final class BgpUpdateGroup {
+
+  /**
+   * Returns the update group of a peer.
+   *
+   * @param sessionProperties {@link BgpSessionProperties} representing the <em>incoming</em> edge:
+   *     i.e. the edge from {@code remoteConfig} to {@code ourConfig}
+   */
+  static @Nonnull BgpUpdateGroup of(
+      BgpSessionProperties sessionProperties,
+      BgpPeerConfig ourConfig,
+      BgpPeerConfig remoteConfig,
+      BgpProcess remoteProcess) {
+    Ipv4UnicastAddressFamily remoteAddressFamily = remoteConfig.getIpv4UnicastAddressFamily();
+    return new BgpUpdateGroup(
+        sessionProperties.getSessionType(),
+        sessionProperties.getHeadIp(),
+        sessionProperties.getAdvertiseExternal(),
+        sessionProperties.getAdvertiseInactive(),
+        sessionProperties.getAdditionalPaths(),
+        ourConfig.getLocalAs(),
+        ourConfig.getIpv4UnicastAddressFamily(),
+        remoteConfig.getLocalAs(),
+        remoteAddressFamily != null && remoteAddressFamily.getRouteReflectorClient(),
+        remoteProcess.getAdminCost(
+            sessionProperties.isEbgp() ? RoutingProtocol.BGP : RoutingProtocol.IBGP));
+  }
+
+  private BgpUpdateGroup(
+      SessionType sessionType,
+      Ip localIp,
+      boolean advertiseExternal,
+      boolean advertiseInactive,
+      boolean additionalPaths,
+      @Nullable Long localAs,
+      @Nullable Ipv4UnicastAddressFamily addressFamily,
+      @Nullable Long remoteLocalAs,
+      boolean remoteRouteReflectorClient,
+      int remoteAdmin) {
+    _sessionType = sessionType;
+    _localIp = localIp;
+    _advertiseExternal = advertiseExternal;
+    _advertiseInactive = advertiseInactive;
+    _additionalPaths = additionalPaths;
+    _localAs = localAs;
+    _addressFamily = addressFamily;
+    _remoteLocalAs = remoteLocalAs;
+    _remoteRouteReflectorClient = remoteRouteReflectorClient;
+    _remoteAdmin = remoteAdmin;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (this == o) {
+      return true;
+    } else if (!(o instanceof BgpUpdateGroup)) {
+      return false;
+    }
+    BgpUpdateGroup that = (BgpUpdateGroup) o;
+    return _sessionType == that._sessionType
+        && _localIp.equals(that._localIp)
+        && _advertiseExternal == that._advertiseExternal
+        && _advertiseInactive == that._advertiseInactive
+        && _additionalPaths == that._additionalPaths
+        && Objects.equals(_localAs, that._localAs)
+        && Objects.equals(_addressFamily, that._addressFamily)
+        && Objects.equals(_remoteLocalAs, that._remoteLocalAs)
+        && _remoteRouteReflectorClient == that._remoteRouteReflectorClient
+        && _remoteAdmin == that._remoteAdmin;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        _sessionType,
+        _localIp,
+        _advertiseExternal,
+        _advertiseInactive,
+        _additionalPaths,
+        _localAs,
+        _addressFamily,
+        _remoteLocalAs,
+        _remoteRouteReflectorClient,
+        _remoteAdmin);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(BgpUpdateGroup.class)
+        .add("sessionType", _sessionType)
+        .add("localIp", _localIp)
+        .add("advertiseExternal", _advertiseExternal)
+        .add("advertiseInactive", _advertiseInactive)
+        .add("additionalPaths", _additionalPaths)
+        .add("localAs", _localAs)
+        .add("addressFamily", _addressFamily)
+        .add("remoteLocalAs", _remoteLocalAs)
+        .add("remoteRouteReflectorClient", _remoteRouteReflectorClient)
+        .add("remoteAdmin", _remoteAdmin)
+        .toString();
+  }
+
+  private final SessionType _sessionType;
+  private final @Nonnull Ip _localIp;
+  private final boolean _advertiseExternal;
+  private final boolean _advertiseInactive;
+  private final boolean _additionalPaths;
+  private final @Nullable Long _localAs;
+  private final @Nullable Ipv4UnicastAddressFamily _addressFamily;
+  private final @Nullable Long _remoteLocalAs;
+  private final boolean _remoteRouteReflectorClient;
+  private final int _remoteAdmin;
+}
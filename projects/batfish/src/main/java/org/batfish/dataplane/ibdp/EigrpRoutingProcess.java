@@ -486,12 +486,17 @@ final class EigrpRoutingProcess implements RoutingProcess<EigrpTopology, EigrpRo
    */
   int computeIterationHashCode() {
     return Stream.of(
-            _rib,
+            _rib.getRoutesFingerprint(),
             _incomingInternalRoutes.values().stream(),
             _incomingExternalRoutes.values().stream())
         .collect(toOrderedHashCode());
   }
 
+  /** Return the number of routes in the RIBs covered by {@link #computeIterationHashCode()} */
+  int getNumIterationHashRibRoutes() {
+    return _rib.size();
+  }
+
   /** Return the AS number of this process */
   long getAsn() {
     return _asn;
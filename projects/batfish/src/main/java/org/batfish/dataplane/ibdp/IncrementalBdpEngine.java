@@ -6,6 +6,7 @@ import static org.batfish.common.topology.TopologyUtil.computeLayer3Topology;
 import static org.batfish.common.topology.TopologyUtil.computeRawLayer3Topology;
 import static org.batfish.common.topology.TopologyUtil.pruneUnreachableTunnelEdges;
 import static org.batfish.common.util.CollectionUtil.toImmutableSortedMap;
+import static org.batfish.common.util.CommonUtil.checkInterrupted;
 import static org.batfish.common.util.IpsecUtil.retainReachableIpsecEdges;
 import static org.batfish.common.util.IpsecUtil.toEdgeSet;
 import static org.batfish.datamodel.bgp.BgpTopologyUtils.initBgpTopology;
@@ -19,6 +20,7 @@ import com.google.common.collect.Sets;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -120,6 +122,7 @@ class IncrementalBdpEngine {
       TopologyContext currentTopologyContext = initialTopologyContext;
       boolean converged = false;
       while (!converged && topologyIterations++ < MAX_TOPOLOGY_ITERATIONS) {
+        checkInterrupted();
         try (ActiveSpan iterSpan =
             GlobalTracer.get()
                 .buildSpan("Topology iteration " + topologyIterations)
@@ -620,9 +623,11 @@ class IncrementalBdpEngine {
       Map<Integer, SortedSet<Integer>> iterationsByHashCode = new HashMap<>();
 
       Schedule currentSchedule = _settings.getScheduleName();
+      NodeWorklist worklist = new NodeWorklist(nodes, topologyContext);
 
       // Go into iteration mode, until the routes converge (or oscillation is detected)
       do {
+        checkInterrupted();
         _numIterations++;
         try (ActiveSpan iterSpan =
             GlobalTracer.get().buildSpan("Iteration " + _numIterations).startActive()) {
@@ -633,13 +638,25 @@ class IncrementalBdpEngine {
               GlobalTracer.get().buildSpan("Compute schedule").startActive()) {
             assert innerSpan != null; // avoid unused warning
             // Compute node schedule
-            schedule = IbdpSchedule.getSchedule(_settings, currentSchedule, nodes, topologyContext);
+            if (currentSchedule == Schedule.WORKLIST) {
+              _bfLogger.debugf(
+                  "Iteration %d: %d of %d nodes on worklist\n",
+                  _numIterations, worklist.size(), nodes.size());
+              schedule =
+                  IbdpSchedule.getSchedule(
+                      _settings, currentSchedule, worklist.getNodes(), topologyContext);
+            } else {
+              schedule =
+                  IbdpSchedule.getSchedule(_settings, currentSchedule, nodes, topologyContext);
+            }
           }
 
           // compute dependent routes for each allowable set of nodes until we cover all nodes
           int nodeSet = 0;
+          Set<String> ranNodes = new HashSet<>();
           while (schedule.hasNext()) {
             Map<String, Node> iterationNodes = schedule.next();
+            ranNodes.addAll(iterationNodes.keySet());
             String iterationlabel =
                 String.format("Iteration %d Schedule %d", _numIterations, nodeSet);
             computeDependentRoutesIteration(
@@ -660,6 +677,10 @@ class IncrementalBdpEngine {
            */
           computeIterationStatistics(nodes, ae, _numIterations);
 
+          if (currentSchedule == Schedule.WORKLIST) {
+            worklist.update(ranNodes);
+          }
+
           // This hashcode uniquely identifies the iteration (i.e., network state)
           int iterationHashCode = computeIterationHashCode(nodes);
           SortedSet<Integer> iterationsWithThisHashCode =
@@ -679,7 +700,9 @@ class IncrementalBdpEngine {
             }
           }
         }
-      } while (hasNotReachedRoutingFixedPoint(nodes));
+      } while (currentSchedule == Schedule.WORKLIST
+          ? !worklist.isEmpty()
+          : hasNotReachedRoutingFixedPoint(nodes));
 
       ae.setDependentRoutesIterations(_numIterations);
       return false; // No oscillations
@@ -744,9 +767,29 @@ class IncrementalBdpEngine {
       int numMainRibRoutes =
           nodes.values().stream()
               .flatMap(n -> n.getVirtualRouters().values().stream())
-              .mapToInt(vr -> vr.getMainRib().getTypedRoutes().size())
+              .mapToInt(vr -> vr.getMainRib().size())
               .sum();
       ae.getMainRibRoutesByIteration().put(dependentRoutesIterations, numMainRibRoutes);
+      int numFingerprintedRibRoutes =
+          nodes.values().stream()
+              .flatMap(n -> n.getVirtualRouters().values().stream())
+              .mapToInt(VirtualRouter::getNumIterationHashRibRoutes)
+              .sum();
+      ae.getFingerprintedRibRoutesByIteration()
+          .put(dependentRoutesIterations, numFingerprintedRibRoutes);
+      int numBgpUpdateGroups =
+          nodes.values().stream()
+              .flatMap(n -> n.getVirtualRouters().values().stream())
+              .mapToInt(VirtualRouter::getNumBgpUpdateGroups)
+              .sum();
+      ae.getBgpUpdateGroupsByIteration().put(dependentRoutesIterations, numBgpUpdateGroups);
+      int numSavedBgpExportPolicyEvaluations =
+          nodes.values().stream()
+              .flatMap(n -> n.getVirtualRouters().values().stream())
+              .mapToInt(VirtualRouter::takeNumSavedBgpExportPolicyEvaluations)
+              .sum();
+      ae.getSavedBgpExportPolicyEvaluationsByIteration()
+          .put(dependentRoutesIterations, numSavedBgpExportPolicyEvaluations);
     }
   }
 
@@ -7,6 +7,7 @@ import java.util.SortedMap;
 import javax.annotation.Nonnull;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.dataplane.rib.RibId;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
 import org.batfish.dataplane.rib.Rib;
 
 /** Dataplane-specific encapsulation of {@link Configuration} */
@@ -24,6 +25,8 @@ public final class Node implements Serializable {
    */
   public Node(@Nonnull Configuration configuration) {
     _c = configuration;
+    // The configuration does not change while the data plane is computed
+    _c.getRoutingPolicies().values().forEach(RoutingPolicy::compile);
     ImmutableSortedMap.Builder<String, VirtualRouter> b = ImmutableSortedMap.naturalOrder();
     for (String vrfName : _c.getVrfs().keySet()) {
       VirtualRouter vr = new VirtualRouter(vrfName, this);
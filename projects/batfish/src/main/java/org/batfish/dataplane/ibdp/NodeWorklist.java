@@ -0,0 +1,110 @@
+package org.batfish.dataplane.ibdp;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.SetMultimap;
+import com.google.common.graph.EndpointPair;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.BgpPeerConfigId;
+import org.batfish.datamodel.eigrp.EigrpEdge;
+import org.batfish.datamodel.isis.IsisEdge;
+import org.batfish.datamodel.ospf.OspfTopology.EdgeId;
+import org.batfish.dataplane.ibdp.schedule.IbdpSchedule.Schedule;
+
+/**
+ * Worklist of nodes with outstanding work during the iterative portion of the dataplane
+ * computation. Used with {@link Schedule#WORKLIST}.
+ *
+ * <p>A node's state only changes when it is run, or when a neighbor that is run sends it routing
+ * messages (BGP, IS-IS, OSPF, EIGRP). So after an iteration, only the nodes that ran and their
+ * protocol neighbors can have outstanding work; every other node is known to be at a fixed point
+ * and does not need to be checked. The computation has reached a fixed point when the worklist is
+ * empty.
+ */
+@ParametersAreNonnullByDefault
+final class NodeWorklist {
+
+  @Nonnull private final Map<String, Node> _allNodes;
+
+  /** Mapping from hostname to the hostnames of nodes it may send routing messages to */
+  @Nonnull private final SetMultimap<String, String> _neighbors;
+
+  @Nonnull private SortedSet<String> _pending;
+
+  /**
+   * Create a worklist initially containing all nodes.
+   *
+   * @param allNodes all nodes in the network, keyed by hostname
+   * @param topologyContext the topologies along which routing messages are exchanged
+   */
+  NodeWorklist(Map<String, Node> allNodes, TopologyContext topologyContext) {
+    _allNodes = allNodes;
+    _neighbors = computeNeighbors(topologyContext);
+    _pending = ImmutableSortedSet.copyOf(allNodes.keySet());
+  }
+
+  @Nonnull
+  private static SetMultimap<String, String> computeNeighbors(TopologyContext topologyContext) {
+    // Treat all adjacencies as bidirectional, so that withdrawals are covered too
+    ImmutableSetMultimap.Builder<String, String> neighbors = ImmutableSetMultimap.builder();
+    for (EndpointPair<BgpPeerConfigId> edge : topologyContext.getBgpTopology().getGraph().edges()) {
+      neighbors.put(edge.source().getHostname(), edge.target().getHostname());
+      neighbors.put(edge.target().getHostname(), edge.source().getHostname());
+    }
+    for (EdgeId edge : topologyContext.getOspfTopology().edges()) {
+      neighbors.put(edge.getTail().getHostname(), edge.getHead().getHostname());
+      neighbors.put(edge.getHead().getHostname(), edge.getTail().getHostname());
+    }
+    for (IsisEdge edge : topologyContext.getIsisTopology().getNetwork().edges()) {
+      neighbors.put(edge.getNode1().getNode(), edge.getNode2().getNode());
+      neighbors.put(edge.getNode2().getNode(), edge.getNode1().getNode());
+    }
+    for (EigrpEdge edge : topologyContext.getEigrpTopology().getNetwork().edges()) {
+      neighbors.put(edge.getNode1().getHostname(), edge.getNode2().getHostname());
+      neighbors.put(edge.getNode2().getHostname(), edge.getNode1().getHostname());
+    }
+    return neighbors.build();
+  }
+
+  /** Return the nodes currently on the worklist, keyed by hostname */
+  @Nonnull
+  Map<String, Node> getNodes() {
+    ImmutableSortedMap.Builder<String, Node> nodes = ImmutableSortedMap.naturalOrder();
+    _pending.forEach(hostname -> nodes.put(hostname, _allNodes.get(hostname)));
+    return nodes.build();
+  }
+
+  /** Whether the worklist is empty, i.e., the computation has reached a fixed point */
+  boolean isEmpty() {
+    return _pending.isEmpty();
+  }
+
+  /** Return the number of nodes on the worklist */
+  int size() {
+    return _pending.size();
+  }
+
+  /**
+   * Recompute the worklist after the given nodes were run.
+   *
+   * @param ranNodes the nodes that were run in the last iteration
+   */
+  void update(Set<String> ranNodes) {
+    Set<String> candidates = new HashSet<>(ranNodes);
+    ranNodes.forEach(hostname -> candidates.addAll(_neighbors.get(hostname)));
+    _pending =
+        candidates.parallelStream()
+            .filter(hostname -> isDirty(_allNodes.get(hostname)))
+            .collect(ImmutableSortedSet.toImmutableSortedSet(String::compareTo));
+  }
+
+  private static boolean isDirty(Node node) {
+    return node.getVirtualRouters().values().stream().anyMatch(VirtualRouter::isDirty);
+  }
+}
@@ -1484,10 +1484,15 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
             _activatedGeneratedRoutes.getActions(),
             // RIB state
             Stream.of(_intraAreaRib, _interAreaRib, _type1Rib, _type2Rib)
-                .map(AbstractRib::getTypedRoutes))
+                .map(AbstractRib::getRoutesFingerprint))
         .collect(toOrderedHashCode());
   }
 
+  /** Return the number of routes in the RIBs covered by {@link #iterationHashCode()} */
+  int getNumIterationHashRibRoutes() {
+    return _intraAreaRib.size() + _interAreaRib.size() + _type1Rib.size() + _type2Rib.size();
+  }
+
   /** Wrapper around intra- and inter-area RIB deltas */
   private static final class InternalDelta {
     @Nonnull private final RibDelta<OspfIntraAreaRoute> _intraArea;
@@ -17,17 +17,22 @@ import static org.batfish.dataplane.rib.RibDelta.importDeltaToBuilder;
 import static org.batfish.dataplane.rib.RibDelta.importRibDelta;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Streams;
 import com.google.common.graph.Network;
 import java.io.Serializable;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -94,6 +99,7 @@ import org.batfish.datamodel.isis.IsisLevelSettings;
 import org.batfish.datamodel.isis.IsisNode;
 import org.batfish.datamodel.isis.IsisProcess;
 import org.batfish.datamodel.isis.IsisTopology;
+import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.Environment.Direction;
 import org.batfish.datamodel.routing_policy.RoutingPolicy;
 import org.batfish.dataplane.protocols.BgpProtocolHelper;
@@ -1269,9 +1275,25 @@ public class VirtualRouter implements Serializable {
       final Map<String, Node> allNodes,
       BgpTopology bgpTopology,
       NetworkConfigurations networkConfigurations) {
+    // Group the peers that routes are exported to in the same way, to only export once per group
+    Map<BgpUpdateGroup, List<EdgeId>> updateGroups = new LinkedHashMap<>();
     for (EdgeId edge : _bgpRoutingProcess._bgpv4IncomingRoutes.keySet()) {
-      queueOutgoingRoutesPerEdge(
-          edge,
+      VirtualRouter remoteVirtualRouter = getRemoteBgpNeighborVR(edge.tail(), allNodes);
+      if (remoteVirtualRouter == null) {
+        continue;
+      }
+      BgpUpdateGroup updateGroup =
+          BgpUpdateGroup.of(
+              getBgpSessionProperties(bgpTopology, edge),
+              networkConfigurations.getBgpPeerConfig(edge.head()),
+              networkConfigurations.getBgpPeerConfig(edge.tail()),
+              requireNonNull(remoteVirtualRouter._bgpRoutingProcess)._process);
+      updateGroups.computeIfAbsent(updateGroup, g -> new ArrayList<>()).add(edge);
+    }
+    _bgpRoutingProcess._numUpdateGroups = updateGroups.size();
+    for (List<EdgeId> edges : updateGroups.values()) {
+      queueOutgoingRoutesPerUpdateGroup(
+          edges,
           ebgpBestPathDelta,
           bgpDelta,
           mainDelta,
@@ -1281,44 +1303,21 @@ public class VirtualRouter implements Serializable {
     }
   }
 
-  private void queueOutgoingRoutesPerEdge(
-      EdgeId edge,
+  /**
+   * Queue advertised BGP routes to the peers of a {@link BgpUpdateGroup}.
+   *
+   * @param edges the <em>incoming</em> edges from the peers of the update group
+   */
+  private void queueOutgoingRoutesPerUpdateGroup(
+      List<EdgeId> edges,
       RibDelta<Bgpv4Route> ebgpBestPathDelta,
       RibDelta<Bgpv4Route> bgpDelta,
       RibDelta<AnnotatedRoute<AbstractRoute>> mainDelta,
       Map<String, Node> allNodes,
       BgpTopology bgpTopology,
       NetworkConfigurations networkConfigurations) {
-    final BgpSessionProperties session = getBgpSessionProperties(bgpTopology, edge);
-
-    BgpPeerConfigId remoteConfigId = edge.tail();
-    BgpPeerConfigId ourConfigId = edge.head();
-    BgpPeerConfig ourConfig = networkConfigurations.getBgpPeerConfig(edge.head());
-    BgpPeerConfig remoteConfig = networkConfigurations.getBgpPeerConfig(edge.tail());
-    VirtualRouter remoteVirtualRouter = getRemoteBgpNeighborVR(remoteConfigId, allNodes);
-    if (remoteVirtualRouter == null) {
-      return;
-    }
-
-    // Queue mainRib updates that were not introduced by BGP process (i.e., IGP routes)
-    // Also, do not double-export main RIB routes
-    Stream<RouteAdvertisement<Bgpv4Route>> mainRibExports =
-        mainDelta
-            .getActions()
-            .filter(adv -> !(adv.getRoute().getRoute() instanceof BgpRoute))
-            .map(
-                adv -> {
-                  Bgpv4Route bgpRoute =
-                      exportNonBgpRouteToBgp(
-                          adv.getRoute(), ourConfigId, remoteConfigId, ourConfig, session);
-                  return bgpRoute == null
-                      ? null
-                      : RouteAdvertisement.<Bgpv4Route>builder()
-                          .setReason(adv.getReason())
-                          .setRoute(bgpRoute)
-                          .build();
-                })
-            .filter(Objects::nonNull);
+    // Re-advertisement settings are the same for all peers of the group
+    final BgpSessionProperties session = getBgpSessionProperties(bgpTopology, edges.get(0));
 
     // Needs to retain annotations since export policy will be run on routes from resulting delta.
     Builder<AnnotatedRoute<Bgpv4Route>> bgpRibExports = RibDelta.builder();
@@ -1363,41 +1362,56 @@ public class VirtualRouter implements Serializable {
     }
 
     RibDelta<AnnotatedRoute<Bgpv4Route>> bgpRoutesToExport = bgpRibExports.build();
-    // Compute a set of advertisements that can be queued on remote VR
-    Stream<RouteAdvertisement<Bgpv4Route>> exportedAdvertisements =
-        Stream.concat(
-            bgpRoutesToExport
-                .getActions()
-                .map(
-                    adv -> {
-                      Optional<Bgpv4Route> transformedRoute =
-                          _bgpRoutingProcess.transformBgpRouteOnExport(
-                              adv.getRoute().getRoute(),
-                              ourConfigId,
-                              remoteConfigId,
-                              ourConfig,
-                              remoteConfig,
-                              allNodes,
-                              session,
-                              Type.IPV4_UNICAST);
-                      // REPLACE does not make sense across routers, update with WITHDRAW
-                      return transformedRoute
-                          .map(
-                              bgpv4Route ->
-                                  RouteAdvertisement.<Bgpv4Route>builder()
-                                      .setReason(
-                                          adv.getReason() == Reason.REPLACE
-                                              ? Reason.WITHDRAW
-                                              : adv.getReason())
-                                      .setRoute(bgpv4Route)
-                                      .build())
-                          .orElse(null);
-                    })
-                .filter(Objects::nonNull),
-            mainRibExports);
-
-    // Call this on the REMOTE VR and REVERSE the edge!
-    remoteVirtualRouter.enqueueBgpMessages(edge.reverse(), exportedAdvertisements);
+    // Compute the advertisements that can be queued on each remote VR
+    ListMultimap<EdgeId, RouteAdvertisement<Bgpv4Route>> exportedAdvertisements =
+        ArrayListMultimap.create();
+    bgpRoutesToExport
+        .getActions()
+        .forEach(
+            adv -> {
+              // REPLACE does not make sense across routers, update with WITHDRAW
+              Reason reason = adv.getReason() == Reason.REPLACE ? Reason.WITHDRAW : adv.getReason();
+              _bgpRoutingProcess
+                  .transformBgpRouteOnExport(
+                      adv.getRoute().getRoute(),
+                      edges,
+                      allNodes,
+                      bgpTopology,
+                      networkConfigurations,
+                      Type.IPV4_UNICAST)
+                  .forEach(
+                      (edge, bgpv4Route) ->
+                          exportedAdvertisements.put(
+                              edge,
+                              RouteAdvertisement.<Bgpv4Route>builder()
+                                  .setReason(reason)
+                                  .setRoute(bgpv4Route)
+                                  .build()));
+            });
+
+    // Queue mainRib updates that were not introduced by BGP process (i.e., IGP routes)
+    // Also, do not double-export main RIB routes
+    mainDelta
+        .getActions()
+        .filter(adv -> !(adv.getRoute().getRoute() instanceof BgpRoute))
+        .forEach(
+            adv ->
+                exportNonBgpRouteToBgp(adv.getRoute(), edges, bgpTopology, networkConfigurations)
+                    .forEach(
+                        (edge, bgpRoute) ->
+                            exportedAdvertisements.put(
+                                edge,
+                                RouteAdvertisement.<Bgpv4Route>builder()
+                                    .setReason(adv.getReason())
+                                    .setRoute(bgpRoute)
+                                    .build())));
+
+    for (EdgeId edge : edges) {
+      VirtualRouter remoteVirtualRouter = getRemoteBgpNeighborVR(edge.tail(), allNodes);
+      assert remoteVirtualRouter != null; // Only peers with a VR are in update groups
+      // Call this on the REMOTE VR and REVERSE the edge!
+      remoteVirtualRouter.enqueueBgpMessages(edge.reverse(), exportedAdvertisements.get(edge));
+    }
   }
 
   private static BgpSessionProperties getBgpSessionProperties(
@@ -1587,19 +1601,44 @@ public class VirtualRouter implements Serializable {
       // nothing to do
       return;
     }
+    /*
+    TODO:
+      match up prefix tracer with proper prefixes. Low priority,
+      currently originated prefixes are not exposed to users
+     */
+    // Note prefixes we tried to originate, if there is any neighbor to send them to
+    if (_bgpRoutingProcess._bgpv4IncomingRoutes.keySet().stream()
+        .anyMatch(edge -> getRemoteBgpNeighborVR(edge.tail(), allNodes) != null)) {
+      _mainRib.getTypedRoutes().forEach(r -> _prefixTracer.originated(r.getNetwork()));
+    }
+
+    /*
+     * Export routes by looking at main RIB and BGPv4 RIB
+     */
+    queueOutgoingBgpRoutes(
+        RibDelta.<Bgpv4Route>builder()
+            .add(_bgpRoutingProcess._ebgpv4Rib.getBestPathRoutes())
+            .build(),
+        RibDelta.<Bgpv4Route>builder().add(_bgpRoutingProcess._bgpv4Rib.getTypedRoutes()).build(),
+        RibDelta.<AnnotatedRoute<AbstractRoute>>builder().add(_mainRib.getTypedRoutes()).build(),
+        allNodes,
+        bgpTopology,
+        nc);
+
     for (EdgeId edge : _bgpRoutingProcess._bgpv4IncomingRoutes.keySet()) {
-      newBgpSessionEstablishedHook(
-          edge, getBgpSessionProperties(bgpTopology, edge), allNodes, nc, bgpTopology);
+      newBgpSessionEstablishedHook(edge, getBgpSessionProperties(bgpTopology, edge), allNodes, nc);
     }
   }
 
-  /** Deal with a newly established BGP session. */
+  /**
+   * Deal with a newly established BGP session, once routes from the main RIB and BGPv4 RIB have
+   * been exported to it.
+   */
   private void newBgpSessionEstablishedHook(
       @Nonnull EdgeId edge,
       @Nonnull BgpSessionProperties sessionProperties,
       @Nonnull Map<String, Node> allNodes,
-      NetworkConfigurations nc,
-      BgpTopology topology) {
+      NetworkConfigurations nc) {
 
     BgpPeerConfigId localConfigId = edge.head();
     BgpPeerConfigId remoteConfigId = edge.tail();
@@ -1611,28 +1650,6 @@ public class VirtualRouter implements Serializable {
       return;
     }
 
-    /*
-    TODO:
-      match up prefix tracer with proper prefixes. Low priority,
-      currently originated prefixes are not exposed to users
-     */
-    // Note prefixes we tried to originate
-    _mainRib.getTypedRoutes().forEach(r -> _prefixTracer.originated(r.getNetwork()));
-
-    /*
-     * Export routes by looking at main RIB and BGPv4 RIB
-     */
-    queueOutgoingRoutesPerEdge(
-        edge,
-        RibDelta.<Bgpv4Route>builder()
-            .add(_bgpRoutingProcess._ebgpv4Rib.getBestPathRoutes())
-            .build(),
-        RibDelta.<Bgpv4Route>builder().add(_bgpRoutingProcess._bgpv4Rib.getTypedRoutes()).build(),
-        RibDelta.<AnnotatedRoute<AbstractRoute>>builder().add(_mainRib.getTypedRoutes()).build(),
-        allNodes,
-        topology,
-        nc);
-
     /*
      * Export neighbor-specific generated routes, these routes skip global export policy
      */
@@ -1722,7 +1739,25 @@ public class VirtualRouter implements Serializable {
    * computation only
    */
   int getNumBgpPaths() {
-    return _bgpRoutingProcess == null ? 0 : _bgpRoutingProcess._bgpv4Rib.getTypedRoutes().size();
+    return _bgpRoutingProcess == null ? 0 : _bgpRoutingProcess._bgpv4Rib.size();
+  }
+
+  /**
+   * Get the number of update groups of the BGP neighbors, as of the last export. To be used during
+   * dataplane computation only
+   */
+  int getNumBgpUpdateGroups() {
+    return _bgpRoutingProcess == null ? 0 : _bgpRoutingProcess._numUpdateGroups;
+  }
+
+  /**
+   * Get the number of BGP export policy evaluations avoided by sharing results within update groups
+   * since the last call, and reset it. To be used during dataplane computation only
+   */
+  int takeNumSavedBgpExportPolicyEvaluations() {
+    return _bgpRoutingProcess == null
+        ? 0
+        : _bgpRoutingProcess.takeNumSavedExportPolicyEvaluations();
   }
 
   /** Convenience method to get the VirtualRouter's hostname */
@@ -1745,13 +1780,13 @@ public class VirtualRouter implements Serializable {
   int computeIterationHashCode() {
     return Streams.concat(
             // RIB State
-            Stream.of(_mainRib.getTypedRoutes()),
+            Stream.of(_mainRib.getRoutesFingerprint()),
             // Message queues
             Stream.of(_isisIncomingRoutes, _crossVrfIncomingRoutes)
                 .flatMap(m -> m.values().stream())
                 .flatMap(Queue::stream),
             // Processes
-            Stream.of(_ospfProcesses.values().stream().map(OspfRoutingProcess::iterationHashCode)),
+            _ospfProcesses.values().stream().map(OspfRoutingProcess::iterationHashCode),
             Stream.of(_eigrpProcesses)
                 .flatMap(m -> m.values().stream())
                 .map(EigrpRoutingProcess::computeIterationHashCode),
@@ -1759,6 +1794,22 @@ public class VirtualRouter implements Serializable {
         .collect(toOrderedHashCode());
   }
 
+  /**
+   * Return the number of routes in the RIBs covered by {@link #computeIterationHashCode()}. These
+   * contribute to the hashcode via their RIB's incrementally maintained fingerprint, so are not
+   * rehashed every iteration.
+   */
+  int getNumIterationHashRibRoutes() {
+    return _mainRib.size()
+        + _ospfProcesses.values().stream()
+            .mapToInt(OspfRoutingProcess::getNumIterationHashRibRoutes)
+            .sum()
+        + _eigrpProcesses.values().stream()
+            .mapToInt(EigrpRoutingProcess::getNumIterationHashRibRoutes)
+            .sum()
+        + (_bgpRoutingProcess == null ? 0 : _bgpRoutingProcess.getNumIterationHashRibRoutes());
+  }
+
   @Nonnull
   PrefixTracer getPrefixTracer() {
     return _prefixTracer;
@@ -1766,81 +1817,97 @@ public class VirtualRouter implements Serializable {
 
   /**
    * Given an {@link AbstractRoute}, run it through the BGP outbound transformations and export
-   * routing policy.
+   * routing policy for all peers of a {@link BgpUpdateGroup}. The export policy is evaluated once
+   * for the whole group, unless it depends on the peer.
    *
    * @param exportCandidate a route to try and export
-   * @param ourConfig {@link BgpPeerConfig} that sends the route
-   * @param sessionProperties {@link BgpSessionProperties} representing the <em>incoming</em> edge:
-   *     i.e. the edge from {@code remoteConfig} to {@code ourConfig}
-   * @return The transformed route as a {@link Bgpv4Route}, or {@code null} if the route should not
-   *     be exported.
+   * @param edges the <em>incoming</em> edges from the peers of the update group
+   * @return The transformed route as a {@link Bgpv4Route} for each edge on which it should be
+   *     exported
    */
-  @Nullable
-  private Bgpv4Route exportNonBgpRouteToBgp(
+  @Nonnull
+  private Map<EdgeId, Bgpv4Route> exportNonBgpRouteToBgp(
       @Nonnull AnnotatedRoute<AbstractRoute> exportCandidate,
-      @Nonnull BgpPeerConfigId ourConfigId,
-      @Nonnull BgpPeerConfigId remoteConfigId,
-      @Nonnull BgpPeerConfig ourConfig,
-      @Nonnull BgpSessionProperties sessionProperties) {
-
-    RoutingPolicy exportPolicy =
-        _c.getRoutingPolicies().get(ourConfig.getIpv4UnicastAddressFamily().getExportPolicy());
-    RoutingProtocol protocol =
-        sessionProperties.isEbgp() ? RoutingProtocol.BGP : RoutingProtocol.IBGP;
-    Bgpv4Route.Builder transformedOutgoingRouteBuilder =
-        exportCandidate.getRoute() instanceof GeneratedRoute
-            ? BgpProtocolHelper.convertGeneratedRouteToBgp(
-                    (GeneratedRoute) exportCandidate.getRoute(),
+      @Nonnull List<EdgeId> edges,
+      @Nonnull BgpTopology bgpTopology,
+      @Nonnull NetworkConfigurations networkConfigurations) {
+    BgpPeerConfig ourConfig = networkConfigurations.getBgpPeerConfig(edges.get(0).head());
+    String exportPolicyName = ourConfig.getIpv4UnicastAddressFamily().getExportPolicy();
+    RoutingPolicy exportPolicy = _c.getRoutingPolicies().get(exportPolicyName);
+
+    ImmutableMap.Builder<EdgeId, Bgpv4Route> exported = ImmutableMap.builder();
+    boolean shared = false;
+    Bgpv4Route transformedOutgoingRoute = null;
+    for (EdgeId edge : edges) {
+      BgpPeerConfigId ourConfigId = edge.head();
+      BgpPeerConfigId remoteConfigId = edge.tail();
+      BgpSessionProperties sessionProperties = getBgpSessionProperties(bgpTopology, edge);
+
+      // sessionProperties represents the incoming edge, so its tailIp is the remote peer's IP
+      Ip remoteIp = sessionProperties.getHeadIp();
+
+      if (shared) {
+        _bgpRoutingProcess._numSavedExportPolicyEvaluations++;
+      } else {
+        RoutingProtocol protocol =
+            sessionProperties.isEbgp() ? RoutingProtocol.BGP : RoutingProtocol.IBGP;
+        Bgpv4Route.Builder transformedOutgoingRouteBuilder =
+            exportCandidate.getRoute() instanceof GeneratedRoute
+                ? BgpProtocolHelper.convertGeneratedRouteToBgp(
+                        (GeneratedRoute) exportCandidate.getRoute(),
+                        _bgpRoutingProcess.getRouterId(),
+                        sessionProperties.getHeadIp(),
+                        false)
+                    .toBuilder()
+                : BgpProtocolHelper.convertNonBgpRouteToBgpRoute(
+                    exportCandidate,
                     _bgpRoutingProcess.getRouterId(),
                     sessionProperties.getHeadIp(),
-                    false)
-                .toBuilder()
-            : BgpProtocolHelper.convertNonBgpRouteToBgpRoute(
-                exportCandidate,
-                _bgpRoutingProcess.getRouterId(),
-                sessionProperties.getHeadIp(),
-                _bgpRoutingProcess._process.getAdminCost(protocol),
-                protocol);
-
-    // sessionProperties represents the incoming edge, so its tailIp is the remote peer's IP
-    Ip remoteIp = sessionProperties.getHeadIp();
-
-    // Process transformed outgoing route by the export policy
-    boolean shouldExport =
-        exportPolicy.process(
-            exportCandidate,
-            transformedOutgoingRouteBuilder,
+                    _bgpRoutingProcess._process.getAdminCost(protocol),
+                    protocol);
+        Environment environment =
+            Environment.builder(_c, ourConfigId.getVrfName())
+                .setOriginalRoute(exportCandidate)
+                .setOutputRoute(transformedOutgoingRouteBuilder)
+                .setPeerAddress(remoteIp)
+                .setPeerPrefix(ourConfigId.getRemotePeerPrefix())
+                .setDirection(Direction.OUT)
+                .build();
+        // Process transformed outgoing route by the export policy
+        if (exportPolicy.process(environment)) {
+          // Apply final post-policy transformations before sending advertisement to neighbor
+          BgpProtocolHelper.transformBgpRoutePostExport(
+              transformedOutgoingRouteBuilder, sessionProperties.isEbgp(), ourConfig.getLocalAs());
+          transformedOutgoingRoute = transformedOutgoingRouteBuilder.build();
+        } else {
+          transformedOutgoingRoute = null;
+        }
+        // The result can be shared with the rest of the group unless it depends on the peer
+        shared = !environment.getPeerUsed();
+      }
+
+      if (transformedOutgoingRoute == null) {
+        // This route could not be exported due to export policy
+        _prefixTracer.filtered(
+            exportCandidate.getNetwork(),
+            remoteConfigId.getHostname(),
             remoteIp,
-            ourConfigId.getRemotePeerPrefix(),
-            ourConfigId.getVrfName(),
+            remoteConfigId.getVrfName(),
+            exportPolicyName,
             Direction.OUT);
+        continue;
+      }
 
-    if (!shouldExport) {
-      // This route could not be exported due to export policy
-      _prefixTracer.filtered(
-          exportCandidate.getNetwork(),
+      // Successfully exported route
+      _prefixTracer.sentTo(
+          transformedOutgoingRoute.getNetwork(),
           remoteConfigId.getHostname(),
           remoteIp,
           remoteConfigId.getVrfName(),
-          ourConfig.getIpv4UnicastAddressFamily().getExportPolicy(),
-          Direction.OUT);
-      return null;
+          exportPolicyName);
+      exported.put(edge, transformedOutgoingRoute);
     }
-
-    // Apply final post-policy transformations before sending advertisement to neighbor
-    BgpProtocolHelper.transformBgpRoutePostExport(
-        transformedOutgoingRouteBuilder, sessionProperties.isEbgp(), ourConfig.getLocalAs());
-
-    // Successfully exported route
-    Bgpv4Route transformedOutgoingRoute = transformedOutgoingRouteBuilder.build();
-    _prefixTracer.sentTo(
-        transformedOutgoingRoute.getNetwork(),
-        remoteConfigId.getHostname(),
-        remoteIp,
-        remoteConfigId.getVrfName(),
-        ourConfig.getIpv4UnicastAddressFamily().getExportPolicy());
-
-    return transformedOutgoingRoute;
+    return exported.build();
   }
 
   Optional<Rib> getRib(RibId id) {
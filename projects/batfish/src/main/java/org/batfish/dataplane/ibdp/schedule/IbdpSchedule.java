@@ -21,6 +21,7 @@ public abstract class IbdpSchedule implements Iterator<Map<String, Node>> {
     ALL,
     NODE_COLORED,
     NODE_SERIALIZED,
+    WORKLIST,
   }
 
   protected ImmutableMap<String, Node> _nodes;
@@ -69,7 +70,8 @@ public abstract class IbdpSchedule implements Iterator<Map<String, Node>> {
    *
    * @param settings {@link IncrementalDataPlaneSettings}
    * @param schedule {@link Schedule} to use
-   * @param allNodes map of all nodes in the network
+   * @param allNodes map of all nodes in the network. For {@link Schedule#WORKLIST}, only the nodes
+   *     currently on the worklist.
    * @param topologyContext the various network topologies
    * @return a new {@link IbdpSchedule}
    * @throws BatfishException if the schedule type specified is unsupported
@@ -87,6 +89,8 @@ public abstract class IbdpSchedule implements Iterator<Map<String, Node>> {
       case NODE_COLORED:
         Coloring coloring = settings.getColoringType();
         return new NodeColoredSchedule(allNodes, coloring, topologyContext);
+      case WORKLIST:
+        return new WorklistSchedule(allNodes);
       default:
         throw new BatfishException(String.format("Unsupported ibdp schedule: %s", schedule));
     }
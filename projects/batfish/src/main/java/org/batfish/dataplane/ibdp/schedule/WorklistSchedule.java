@@ -0,0 +1,25 @@
+package org.batfish.dataplane.ibdp.schedule;
+
+import java.util.Map;
+import org.batfish.dataplane.ibdp.Node;
+
+/**
+ * A dataplane computation schedule that runs, in parallel, only the nodes that currently have
+ * outstanding work (e.g., non-empty BGP, IS-IS or cross-VRF message queues).
+ *
+ * <p>The worklist itself is maintained across iterations by the dataplane engine, which creates
+ * this schedule with only the nodes on the worklist. Nodes not on the worklist are known to be at a
+ * fixed point and are skipped for the iteration.
+ */
+public class WorklistSchedule extends MaxParallelSchedule {
+
+  /** @param worklistNodes the nodes on the worklist for the current iteration */
+  public WorklistSchedule(Map<String, Node> worklistNodes) {
+    super(worklistNodes);
+  }
+
+  @Override
+  public boolean hasNext() {
+    return _hasNext && !_nodes.isEmpty();
+  }
+}
@@ -49,6 +49,38 @@ public final class BgpProtocolHelper {
           BgpProcess toBgpProcess,
           BgpRoute<B, R> route,
           Type afType) {
+    B builder =
+        transformBgpRoutePreExportForUpdateGroup(
+            fromNeighbor,
+            toNeighbor,
+            sessionProperties,
+            fromBgpProcess,
+            toBgpProcess,
+            route,
+            afType);
+    if (builder == null
+        || rejectedByReceiver(sessionProperties, toBgpProcess, route, builder.getClusterList())) {
+      return null;
+    }
+    return builder;
+  }
+
+  /**
+   * Like {@link #transformBgpRoutePreExport}, but without the checks of {@link
+   * #rejectedByReceiver}. Of {@code toNeighbor} and {@code toBgpProcess}, the result only depends
+   * on the local AS, route reflector client setting, and administrative cost, so it is the same for
+   * all peers of an update group.
+   */
+  @Nullable
+  public static <R extends BgpRoute<B, R>, B extends BgpRoute.Builder<B, R>>
+      B transformBgpRoutePreExportForUpdateGroup(
+          BgpPeerConfig fromNeighbor,
+          BgpPeerConfig toNeighbor,
+          BgpSessionProperties sessionProperties,
+          BgpProcess fromBgpProcess,
+          BgpProcess toBgpProcess,
+          BgpRoute<B, R> route,
+          Type afType) {
 
     // Make a new builder
     B builder = route.toBuilder();
@@ -105,14 +137,6 @@ public final class BgpProtocolHelper {
       builder.addCommunities(route.getExtendedCommunities());
     }
 
-    /*
-     *  iBGP speaker should not send out routes to iBGP neighbor whose router-id is
-     *  same as originator id of advertisement
-     */
-    if (!sessionProperties.isEbgp() && toBgpProcess.getRouterId().equals(route.getOriginatorIp())) {
-      return null;
-    }
-
     builder.setClusterList(ImmutableSet.of());
     if (routeProtocol.equals(RoutingProtocol.IBGP) && !sessionProperties.isEbgp()) {
       /*
@@ -151,14 +175,6 @@ public final class BgpProtocolHelper {
           builder.addToClusterList(newClusterId);
         }
       }
-      Set<Long> localClusterIds = toBgpProcess.getClusterIds();
-      Set<Long> outgoingClusterList = builder.getClusterList();
-      if (localClusterIds.stream().anyMatch(outgoingClusterList::contains)) {
-        /*
-         *  receiver will reject new route if it contains any of its local cluster ids
-         */
-        return null;
-      }
     }
 
     // Outgoing metric (MED) is preserved only if advertising to IBGP peer. For eBGP, clear it.
@@ -188,6 +204,33 @@ public final class BgpProtocolHelper {
     return builder;
   }
 
+  /**
+   * Whether {@code route}, once transformed for export with the outgoing cluster list {@code
+   * clusterList}, must not be sent to the peer running {@code toBgpProcess}.
+   *
+   * @param sessionProperties {@link BgpSessionProperties} representing the <em>incoming</em> edge
+   */
+  public static boolean rejectedByReceiver(
+      BgpSessionProperties sessionProperties,
+      BgpProcess toBgpProcess,
+      BgpRoute<?, ?> route,
+      Set<Long> clusterList) {
+    if (sessionProperties.isEbgp()) {
+      return false;
+    }
+    /*
+     *  iBGP speaker should not send out routes to iBGP neighbor whose router-id is
+     *  same as originator id of advertisement
+     */
+    if (toBgpProcess.getRouterId().equals(route.getOriginatorIp())) {
+      return true;
+    }
+    /*
+     *  receiver will reject new route if it contains any of its local cluster ids
+     */
+    return toBgpProcess.getClusterIds().stream().anyMatch(clusterList::contains);
+  }
+
   /**
    * Perform BGP import transformations on a given route after receiving an advertisement.
    *
@@ -12,6 +12,7 @@ import org.batfish.datamodel.AbstractRouteDecorator;
 import org.batfish.datamodel.AnnotatedRoute;
 import org.batfish.datamodel.GenericRib;
 import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.LongestPrefixMatchIndex;
 import org.batfish.datamodel.Prefix;
 import org.batfish.dataplane.rib.RouteAdvertisement.Reason;
 
@@ -29,9 +30,22 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
   /** Root of our prefix trie */
   private final RibTree<R> _tree;
 
+  /**
+   * Number of consecutive longest prefix match lookups, without an intervening change to this RIB,
+   * after which {@link #_lpmIndex} is built. Avoids rebuilding the index when lookups and changes
+   * are interleaved, as during dataplane computation.
+   */
+  private static final int LPM_INDEX_LOOKUP_THRESHOLD = 32;
+
   /** Memoized set of all routes in this RIB */
   @Nullable private Set<R> _allRoutes;
 
+  /** Memoized longest prefix match index over {@link #_tree}, or {@code null} if not yet built */
+  @Nullable private transient LongestPrefixMatchIndex<R> _lpmIndex;
+
+  /** Number of longest prefix match lookups since this RIB was last changed */
+  private transient int _lookupsSinceLastChange;
+
   /**
    * Keep a (insert ordered) set of alternative routes. Used to update the RIB if best routes are
    * withdrawn.
@@ -122,7 +136,14 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
   /** Clear all routes from the RIB */
   public final void clear() {
     _tree.clear();
+    routesChanged();
+  }
+
+  /** Invalidate memoized state after a change to the routes in {@link #_tree}. */
+  private void routesChanged() {
     _allRoutes = null;
+    _lpmIndex = null;
+    _lookupsSinceLastChange = 0;
   }
 
   public final boolean containsRoute(R route) {
@@ -160,6 +181,20 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
     }
   }
 
+  /**
+   * Return an order-independent fingerprint of the routes in this RIB, maintained incrementally as
+   * routes are merged and removed. Equal to {@code getTypedRoutes().hashCode()}, but runs in
+   * constant time.
+   */
+  public final int getRoutesFingerprint() {
+    return _tree.getFingerprint();
+  }
+
+  /** Return the number of routes in this RIB. Runs in constant time. */
+  public final int size() {
+    return _tree.size();
+  }
+
   @Override
   public abstract int comparePreference(R lhs, R rhs);
 
@@ -170,7 +205,14 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
 
   @Override
   public @Nonnull Set<R> longestPrefixMatch(Ip address, int maxPrefixLength) {
-    return _tree.getLongestPrefixMatch(address, maxPrefixLength);
+    LongestPrefixMatchIndex<R> index = _lpmIndex;
+    if (index == null && ++_lookupsSinceLastChange >= LPM_INDEX_LOOKUP_THRESHOLD) {
+      index = _tree.buildLongestPrefixMatchIndex();
+      _lpmIndex = index;
+    }
+    return index == null
+        ? _tree.getLongestPrefixMatch(address, maxPrefixLength)
+        : index.longestForwardingMatch(address, maxPrefixLength);
   }
 
   /**
@@ -186,7 +228,7 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
     addBackupRoute(route);
     if (!delta.isEmpty()) {
       // A change to routes has been made
-      _allRoutes = null;
+      routesChanged();
     }
     return delta;
   }
@@ -218,7 +260,7 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
     RibDelta<R> delta = _tree.removeRouteGetDelta(route, reason);
     if (!delta.isEmpty()) {
       // A change to routes has been made
-      _allRoutes = null;
+      routesChanged();
     }
     return delta;
   }
@@ -2,7 +2,6 @@ package org.batfish.dataplane.rib;
 
 import static org.batfish.dataplane.rib.RouteAdvertisement.Reason.REPLACE;
 
-import com.google.common.collect.ImmutableSet;
 import java.io.Serializable;
 import java.util.Set;
 import javax.annotation.Nonnull;
@@ -10,6 +9,7 @@ import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.batfish.datamodel.AbstractRouteDecorator;
 import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.LongestPrefixMatchIndex;
 import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.PrefixTrieMultiMap;
 import org.batfish.dataplane.rib.RibDelta.Builder;
@@ -28,6 +28,15 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
   @Nonnull private final PrefixTrieMultiMap<R> _root;
   @Nonnull private final AbstractRib<R> _owner;
 
+  /**
+   * Order-independent fingerprint of the routes in this tree: the sum of their hashcodes, i.e. the
+   * {@link Set#hashCode()} of {@link #getRoutes()}. Maintained incrementally on every change.
+   */
+  private int _fingerprint;
+
+  /** Number of routes in this tree */
+  private int _size;
+
   RibTree(AbstractRib<R> owner) {
     _root = new PrefixTrieMultiMap<>(Prefix.ZERO);
     _owner = owner;
@@ -45,6 +54,7 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
     if (!removed) {
       return RibDelta.empty();
     }
+    routeRemoved(route);
 
     Builder<R> b = RibDelta.builder();
     b.remove(route, reason);
@@ -63,6 +73,31 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
   /** Remove all routes from the tree */
   public void clear() {
     _root.clear();
+    _fingerprint = 0;
+    _size = 0;
+  }
+
+  private void routeAdded(R route) {
+    _fingerprint += route.hashCode();
+    _size++;
+  }
+
+  private void routeRemoved(R route) {
+    _fingerprint -= route.hashCode();
+    _size--;
+  }
+
+  /**
+   * Return an order-independent fingerprint of the routes in this tree, equal to the {@link
+   * Set#hashCode()} of {@link #getRoutes()}. Runs in constant time.
+   */
+  int getFingerprint() {
+    return _fingerprint;
+  }
+
+  /** Return the number of routes in this tree. Runs in constant time. */
+  int size() {
+    return _size;
   }
 
   /**
@@ -75,12 +110,8 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
     return _root.get(route.getNetwork()).contains(route);
   }
 
-  private boolean hasForwardingRoute(Set<R> routes) {
-    return routes.stream().anyMatch(r -> !r.getAbstractRoute().getNonForwarding());
-  }
-
-  private boolean onlyForwardingRoutes(Set<R> routes) {
-    return routes.stream().noneMatch(r -> r.getAbstractRoute().getNonForwarding());
+  private static boolean isForwarding(AbstractRouteDecorator route) {
+    return !route.getAbstractRoute().getNonForwarding();
   }
 
   /**
@@ -91,18 +122,17 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
    */
   @Nonnull
   Set<R> getLongestPrefixMatch(Ip address, int maxPrefixLength) {
-    for (int pl = maxPrefixLength; pl >= 0; pl--) {
-      Set<R> routes = _root.longestPrefixMatch(address, pl);
-      if (hasForwardingRoute(routes)) {
-        if (onlyForwardingRoutes(routes)) {
-          return routes;
-        }
-        return routes.stream()
-            .filter(r -> !r.getAbstractRoute().getNonForwarding())
-            .collect(ImmutableSet.toImmutableSet());
-      }
-    }
-    return ImmutableSet.of();
+    return _root.longestPrefixMatch(address, maxPrefixLength, RibTree::isForwarding);
+  }
+
+  /**
+   * Build a read-only {@link LongestPrefixMatchIndex} over the current routes in this tree, which
+   * answers the same queries as {@link #getLongestPrefixMatch(Ip, int)}. The index must be
+   * discarded when the tree changes.
+   */
+  @Nonnull
+  LongestPrefixMatchIndex<R> buildLongestPrefixMatchIndex() {
+    return LongestPrefixMatchIndex.build(_root, RibTree::isForwarding);
   }
 
   /**
@@ -131,6 +161,7 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
     Set<R> routes = _root.get(route.getNetwork());
     if (routes.isEmpty()) {
       _root.put(route.getNetwork(), route);
+      routeAdded(route);
       return RibDelta.<R>builder().add(route).build();
     }
     /*
@@ -148,6 +179,7 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
     if (preferenceComparison == 0) { // equal preference, so add for multipath routing
       // Otherwise add the route
       if (_root.put(route.getNetwork(), route)) {
+        routeAdded(route);
         return RibDelta.<R>builder().add(route).build();
       } else {
         return RibDelta.empty();
@@ -159,6 +191,8 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
      * replace them with this one.
      */
     if (_root.replaceAll(route.getNetwork(), route)) {
+      routes.forEach(this::routeRemoved);
+      routeAdded(route);
       return RibDelta.<R>builder().remove(routes, REPLACE).add(route).build();
     } else {
       return RibDelta.empty();
@@ -932,8 +932,7 @@ class FlowTracer {
             _ingressInterface,
             filter,
             filterType,
-            _aclDefinitions,
-            _namedIpSpaces,
+            _tracerouteContext.getAclCompiler(_aclDefinitions, _namedIpSpaces),
             _tracerouteContext.getIgnoreFilters());
     _steps.add(filterStep);
     if (filterStep.getAction() == DENIED) {
@@ -26,7 +26,10 @@ import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.ForwardingAnalysis;
 import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpSpace;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.acl.AclCompiler;
 import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
 import org.batfish.datamodel.flow.Hop;
@@ -42,6 +45,36 @@ import org.batfish.datamodel.flow.TraceAndReverseFlow;
  * the context is shared among each of the concurrent {@link FlowTracer FlowTracers}.
  */
 public class TracerouteEngineImplContext {
+  /** Identifies ACL definitions and named IP spaces by identity, since they are large */
+  private static final class AclCompilerKey {
+    private final Map<String, IpAccessList> _aclDefinitions;
+    private final Map<String, IpSpace> _namedIpSpaces;
+
+    private AclCompilerKey(
+        Map<String, IpAccessList> aclDefinitions, Map<String, IpSpace> namedIpSpaces) {
+      _aclDefinitions = aclDefinitions;
+      _namedIpSpaces = namedIpSpaces;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof AclCompilerKey)) {
+        return false;
+      }
+      AclCompilerKey other = (AclCompilerKey) o;
+      return _aclDefinitions == other._aclDefinitions && _namedIpSpaces == other._namedIpSpaces;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(_aclDefinitions)
+          + System.identityHashCode(_namedIpSpaces);
+    }
+  }
+
+  private final Map<AclCompilerKey, AclCompiler> _aclCompilers;
   private final Map<String, Configuration> _configurations;
   private final DataPlane _dataPlane;
   private final Multimap<NodeInterfacePair, FirewallSessionTraceInfo> _sessionsByIngressInterface;
@@ -58,6 +91,7 @@ public class TracerouteEngineImplContext {
       Set<Flow> flows,
       Map<String, Map<String, Fib>> fibs,
       boolean ignoreFilters) {
+    _aclCompilers = new ConcurrentHashMap<>();
     _configurations = dataPlane.getConfigurations();
     _dataPlane = dataPlane;
     _flows = flows;
@@ -143,6 +177,18 @@ public class TracerouteEngineImplContext {
     }
   }
 
+  /**
+   * Returns the compiler of ACLs in {@code aclDefinitions}, which reference {@code namedIpSpaces}.
+   * ACLs are compiled once for all the flows traced in this context.
+   */
+  @Nonnull
+  AclCompiler getAclCompiler(
+      Map<String, IpAccessList> aclDefinitions, Map<String, IpSpace> namedIpSpaces) {
+    return _aclCompilers.computeIfAbsent(
+        new AclCompilerKey(aclDefinitions, namedIpSpaces),
+        key -> new AclCompiler(aclDefinitions, namedIpSpaces));
+  }
+
   public Map<String, Configuration> getConfigurations() {
     return _configurations;
   }
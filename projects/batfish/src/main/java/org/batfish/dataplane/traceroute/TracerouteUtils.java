@@ -29,9 +29,9 @@ import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.Interface;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.IpAccessList;
-import org.batfish.datamodel.IpSpace;
 import org.batfish.datamodel.LineAction;
 import org.batfish.datamodel.TcpFlags;
+import org.batfish.datamodel.acl.AclCompiler;
 import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.flow.EnterInputIfaceStep;
 import org.batfish.datamodel.flow.EnterInputIfaceStep.EnterInputIfaceStepDetail;
@@ -110,14 +110,12 @@ public final class TracerouteUtils {
       @Nullable String inInterfaceName,
       IpAccessList filter,
       FilterType filterType,
-      Map<String, IpAccessList> aclDefinitions,
-      Map<String, IpSpace> namedIpSpaces,
+      AclCompiler aclCompiler,
       boolean ignoreFilters) {
     StepAction action = StepAction.PERMITTED;
     // check filter
     if (!ignoreFilters) {
-      FilterResult filterResult =
-          filter.filter(currentFlow, inInterfaceName, aclDefinitions, namedIpSpaces);
+      FilterResult filterResult = aclCompiler.compile(filter).filter(currentFlow, inInterfaceName);
       if (filterResult.getAction() == LineAction.DENY) {
         action = StepAction.DENIED;
       }
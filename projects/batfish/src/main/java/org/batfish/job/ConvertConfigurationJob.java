@@ -1,13 +1,18 @@
 package org.batfish.job;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.function.Function;
 import javax.annotation.Nullable;
+import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.BatfishException;
 import org.batfish.common.Warnings;
 import org.batfish.config.Settings;
@@ -21,22 +26,45 @@ import org.batfish.datamodel.Route6FilterList;
 import org.batfish.datamodel.RouteFilterList;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.identifiers.NetworkId;
 import org.batfish.main.Batfish;
 import org.batfish.representation.aws.AwsConfiguration;
 import org.batfish.representation.host.HostConfiguration;
 import org.batfish.representation.iptables.IptablesVendorConfiguration;
+import org.batfish.storage.StorageProvider;
 import org.batfish.vendor.VendorConfiguration;
 
 public class ConvertConfigurationJob extends BatfishJob<ConvertConfigurationResult> {
 
+  /** Key of the network blob holding the cached {@link ConvertResult}, if it may be cached */
+  @Nullable private final String _cacheKey;
+
   private Object _configObject;
 
   private String _name;
 
-  public ConvertConfigurationJob(Settings settings, Object configObject, String name) {
+  private final NetworkId _network;
+
+  private final StorageProvider _storage;
+
+  /**
+   * Creates a job to convert {@code configObject}. If {@code cacheKey} is not {@code null}, the
+   * result of a previous conversion stored under that key in the network's blobs is reused, or the
+   * result of this conversion is stored there. The key must identify all inputs to the conversion.
+   */
+  public ConvertConfigurationJob(
+      Settings settings,
+      Object configObject,
+      String name,
+      StorageProvider storage,
+      NetworkId network,
+      @Nullable String cacheKey) {
     super(settings);
+    _cacheKey = cacheKey;
     _configObject = configObject;
     _name = name;
+    _network = network;
+    _storage = storage;
   }
 
   /**
@@ -151,61 +179,115 @@ public class ConvertConfigurationJob extends BatfishJob<ConvertConfigurationResu
     long startTime = System.currentTimeMillis();
     long elapsedTime;
     _logger.infof("Processing: \"%s\"", _name);
+    ConvertResult result = loadCachedResult();
+    if (result != null) {
+      _logger.info(" ...OK (reused)\n");
+      result
+          .getWarningsByHost()
+          .forEach((hostname, warnings) -> Batfish.logWarnings(_logger, warnings));
+    } else {
+      Map<String, Warnings> warningsByHost = new HashMap<>();
+      try {
+        result = convert(warningsByHost);
+        _logger.info(" ...OK\n");
+      } catch (Exception e) {
+        String error = "Conversion error for node with hostname '" + _name + "'";
+        elapsedTime = System.currentTimeMillis() - startTime;
+        return new ConvertConfigurationResult(
+            elapsedTime, _logger.getHistory(), _name, new BatfishException(error, e));
+      } finally {
+        warningsByHost.forEach((hostname, warnings) -> Batfish.logWarnings(_logger, warnings));
+      }
+      storeCachedResult(result);
+    }
+    elapsedTime = System.currentTimeMillis() - startTime;
+    return new ConvertConfigurationResult(
+        elapsedTime,
+        _logger.getHistory(),
+        result.getWarningsByHost(),
+        _name,
+        result.getConfigurations(),
+        result.getAnswerElement());
+  }
+
+  /** Converts the configuration object, recording warnings for each host in warningsByHost. */
+  private ConvertResult convert(Map<String, Warnings> warningsByHost) {
     Map<String, Configuration> configurations = new HashMap<>();
-    Map<String, Warnings> warningsByHost = new HashMap<>();
     ConvertConfigurationAnswerElement answerElement = new ConvertConfigurationAnswerElement();
     Multimap<String, String> fileMap = answerElement.getFileMap();
-    try {
-      // We have only two options: AWS VPCs or router configs
-      if (_configObject instanceof VendorConfiguration) {
-        Warnings warnings = Batfish.buildWarnings(_settings);
-        VendorConfiguration vendorConfiguration = ((VendorConfiguration) _configObject);
-        String filename = vendorConfiguration.getFilename();
-        vendorConfiguration.setWarnings(warnings);
-        vendorConfiguration.setAnswerElement(answerElement);
-        for (Configuration configuration :
-            vendorConfiguration.toVendorIndependentConfigurations()) {
-
-          // get iptables if applicable
-          IptablesVendorConfiguration iptablesConfig = null;
-          VendorConfiguration ov = vendorConfiguration.getOverlayConfiguration();
-          if (ov != null) {
-            // apply overlay
-            HostConfiguration oh = (HostConfiguration) ov;
-            iptablesConfig = oh.getIptablesVendorConfig();
-          } else if (vendorConfiguration instanceof HostConfiguration) {
-            // TODO: To enable below, we need to reconcile overlay and non-overlay iptables
-            // semantics.
-            // HostConfiguration oh = (HostConfiguration)vendorConfiguration;
-            // iptablesConfig = oh.getIptablesVendorConfig();
-          }
-          if (iptablesConfig != null) {
-            iptablesConfig.addAsIpAccessLists(configuration, vendorConfiguration, warnings);
-            iptablesConfig.applyAsOverlay(configuration, warnings);
-          }
-
-          finalizeConfiguration(configuration, warnings);
-
-          String hostname = configuration.getHostname();
-          configurations.put(hostname, configuration);
-          warningsByHost.put(hostname, warnings);
-          fileMap.put(filename, hostname);
+    // We have only two options: AWS VPCs or router configs
+    if (_configObject instanceof VendorConfiguration) {
+      Warnings warnings = Batfish.buildWarnings(_settings);
+      VendorConfiguration vendorConfiguration = ((VendorConfiguration) _configObject);
+      String filename = vendorConfiguration.getFilename();
+      vendorConfiguration.setWarnings(warnings);
+      vendorConfiguration.setAnswerElement(answerElement);
+      for (Configuration configuration : vendorConfiguration.toVendorIndependentConfigurations()) {
+
+        // get iptables if applicable
+        IptablesVendorConfiguration iptablesConfig = null;
+        VendorConfiguration ov = vendorConfiguration.getOverlayConfiguration();
+        if (ov != null) {
+          // apply overlay
+          HostConfiguration oh = (HostConfiguration) ov;
+          iptablesConfig = oh.getIptablesVendorConfig();
+        } else if (vendorConfiguration instanceof HostConfiguration) {
+          // TODO: To enable below, we need to reconcile overlay and non-overlay iptables
+          // semantics.
+          // HostConfiguration oh = (HostConfiguration)vendorConfiguration;
+          // iptablesConfig = oh.getIptablesVendorConfig();
+        }
+        if (iptablesConfig != null) {
+          iptablesConfig.addAsIpAccessLists(configuration, vendorConfiguration, warnings);
+          iptablesConfig.applyAsOverlay(configuration, warnings);
         }
-      } else {
-        configurations =
-            ((AwsConfiguration) _configObject).toConfigurations(_settings, warningsByHost);
+
+        finalizeConfiguration(configuration, warnings);
+
+        String hostname = configuration.getHostname();
+        configurations.put(hostname, configuration);
+        warningsByHost.put(hostname, warnings);
+        fileMap.put(filename, hostname);
       }
-      _logger.info(" ...OK\n");
+    } else {
+      configurations =
+          ((AwsConfiguration) _configObject).toConfigurations(_settings, warningsByHost);
+    }
+    return new ConvertResult(configurations, warningsByHost, answerElement);
+  }
+
+  /** Returns the cached result of converting the configuration object, if there is one. */
+  @Nullable
+  private ConvertResult loadCachedResult() {
+    if (_cacheKey == null) {
+      return null;
+    }
+    try (InputStream in = _storage.loadNetworkBlob(_network, _cacheKey)) {
+      return SerializationUtils.deserialize(in);
+    } catch (FileNotFoundException e) {
+      return null;
     } catch (Exception e) {
-      String error = "Conversion error for node with hostname '" + _name + "'";
-      elapsedTime = System.currentTimeMillis() - startTime;
-      return new ConvertConfigurationResult(
-          elapsedTime, _logger.getHistory(), _name, new BatfishException(error, e));
-    } finally {
-      warningsByHost.forEach((hostname, warnings) -> Batfish.logWarnings(_logger, warnings));
+      _logger.warnf(
+          "Error deserializing cached conversion result for %s: %s",
+          _name, Throwables.getStackTraceAsString(e));
+      return null;
+    }
+  }
+
+  /**
+   * Caches the given result of converting the configuration object. Must be called before anything
+   * else modifies the converted configurations.
+   */
+  private void storeCachedResult(ConvertResult result) {
+    if (_cacheKey == null) {
+      return;
+    }
+    try {
+      byte[] serialized = SerializationUtils.serialize(result);
+      _storage.storeNetworkBlob(new ByteArrayInputStream(serialized), _network, _cacheKey);
+    } catch (Exception e) {
+      _logger.warnf(
+          "Error caching conversion result for %s: %s", _name, Throwables.getStackTraceAsString(e));
     }
-    elapsedTime = System.currentTimeMillis() - startTime;
-    return new ConvertConfigurationResult(
-        elapsedTime, _logger.getHistory(), warningsByHost, _name, configurations, answerElement);
   }
 }
@@ -0,0 +1,45 @@
+package org.batfish.job;
+
+import java.io.Serializable;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.Warnings;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
+
+/**
+ * An intermediate class that holds a cacheable result of successfully converting a vendor-specific
+ * configuration to vendor-independent {@link Configuration configurations}.
+ */
+@ParametersAreNonnullByDefault
+public class ConvertResult implements Serializable {
+
+  @Nonnull private final ConvertConfigurationAnswerElement _answerElement;
+  @Nonnull private final Map<String, Configuration> _configurations;
+  @Nonnull private final Map<String, Warnings> _warningsByHost;
+
+  public ConvertResult(
+      Map<String, Configuration> configurations,
+      Map<String, Warnings> warningsByHost,
+      ConvertConfigurationAnswerElement answerElement) {
+    _answerElement = answerElement;
+    _configurations = configurations;
+    _warningsByHost = warningsByHost;
+  }
+
+  @Nonnull
+  public ConvertConfigurationAnswerElement getAnswerElement() {
+    return _answerElement;
+  }
+
+  @Nonnull
+  public Map<String, Configuration> getConfigurations() {
+    return _configurations;
+  }
+
+  @Nonnull
+  public Map<String, Warnings> getWarningsByHost() {
+    return _warningsByHost;
+  }
+}
@@ -8,6 +8,9 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.regex.Pattern.CASE_INSENSITIVE;
 import static java.util.stream.Collectors.toMap;
 import static org.batfish.bddreachability.BDDMultipathInconsistency.computeMultipathInconsistencies;
+import static org.batfish.common.util.CollectionUtil.lazySortedMap;
+import static org.batfish.common.util.CollectionUtil.toImmutableSortedMap;
+import static org.batfish.common.util.CommonUtil.checkInterrupted;
 import static org.batfish.common.util.CommonUtil.detectCharset;
 import static org.batfish.common.util.CompletionMetadataUtils.getFilterNames;
 import static org.batfish.common.util.CompletionMetadataUtils.getInterfaces;
@@ -25,23 +28,27 @@ import static org.batfish.datamodel.acl.AclLineMatchExprs.not;
 import static org.batfish.main.ReachabilityParametersResolver.resolveReachabilityParameters;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.AbstractMap.SimpleEntry;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -53,8 +60,16 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -76,6 +91,8 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
@@ -187,6 +204,7 @@ import org.batfish.identifiers.SwiftBasedIdResolver;
 import org.batfish.identifiers.SwiftFileBasedIdResolver;
 import org.batfish.job.BatfishJobExecutor;
 import org.batfish.job.ConvertConfigurationJob;
+import org.batfish.job.ConvertResult;
 import org.batfish.job.FlattenVendorConfigurationJob;
 import org.batfish.job.ParseEnvironmentBgpTableJob;
 import org.batfish.job.ParseResult;
@@ -246,6 +264,13 @@ public class Batfish extends PluginConsumer implements IBatfish {
   private static final Pattern MANAGEMENT_VRFS =
       Pattern.compile("(\\Amgmt)|(\\Amanagement)", CASE_INSENSITIVE);
 
+  /**
+   * Maximum number of network configuration files being parsed, and of vendor configurations being
+   * serialized, at a time when a snapshot is parsed. Enough to keep every thread busy.
+   */
+  private static final int MAX_PENDING_NETWORK_CONFIGS =
+      2 * ForkJoinPool.getCommonPoolParallelism();
+
   /** The name of the [optional] topology file within a test-rig */
   public static void applyBaseDir(TestrigSettings settings, Path containerDir, SnapshotId testrig) {
     Path testrigDir =
@@ -359,28 +384,43 @@ public class Batfish extends PluginConsumer implements IBatfish {
    * <p>This method follows all symbolic links.
    */
   static SortedMap<Path, String> readAllFiles(Path directory, BatfishLogger logger) {
+    return listAllFiles(directory).stream()
+        .collect(
+            ImmutableSortedMap.toImmutableSortedMap(
+                Ordering.natural(), Function.identity(), path -> readFile(path, logger)));
+  }
+
+  /**
+   * Lists the files in the given directory (recursively), in the order of {@link
+   * #readAllFiles(Path, BatfishLogger)}, without reading them.
+   *
+   * <p>Temporary files (files start with {@code .} are omitted from the returned list.
+   *
+   * <p>This method follows all symbolic links.
+   */
+  static List<Path> listAllFiles(Path directory) {
     try (Stream<Path> paths = Files.walk(directory, FileVisitOption.FOLLOW_LINKS)) {
       return paths
           .filter(Files::isRegularFile)
           .filter(path -> !path.getFileName().toString().startsWith("."))
-          .map(
-              path -> {
-                logger.debugf("Reading: \"%s\"\n", path);
-                String fileText = CommonUtil.readFile(path.toAbsolutePath());
-                if (!fileText.isEmpty()) {
-                  // Adding a trailing newline helps EOF in some parsers.
-                  fileText += '\n';
-                }
-                return new SimpleEntry<>(path, fileText);
-              })
-          .collect(
-              ImmutableSortedMap.toImmutableSortedMap(
-                  Ordering.natural(), SimpleEntry::getKey, SimpleEntry::getValue));
+          .sorted()
+          .collect(ImmutableList.toImmutableList());
     } catch (IOException e) {
       throw new BatfishException("Failed to walk path: " + directory, e);
     }
   }
 
+  /** Reads the given file as {@link #readAllFiles(Path, BatfishLogger)} does. */
+  static String readFile(Path path, BatfishLogger logger) {
+    logger.debugf("Reading: \"%s\"\n", path);
+    String fileText = CommonUtil.readFile(path.toAbsolutePath());
+    if (!fileText.isEmpty()) {
+      // Adding a trailing newline helps EOF in some parsers.
+      fileText += '\n';
+    }
+    return fileText;
+  }
+
   public static void logWarnings(BatfishLogger logger, Warnings warnings) {
     for (Warning warning : warnings.getRedFlagWarnings()) {
       logger.redflag(logWarningsHelper(warning));
@@ -430,6 +470,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private SortedMap<BgpTableFormat, BgpTablePlugin> _bgpTablePlugins;
 
+  private final Cache<BddReachabilityAnalysisFactoryKey, CachedBddReachabilityAnalysisFactory>
+      _cachedBddReachabilityAnalysisFactories;
+
   private final Cache<NetworkSnapshot, SortedMap<String, Configuration>> _cachedConfigurations;
 
   private final Cache<NetworkSnapshot, DataPlane> _cachedDataPlanes;
@@ -465,6 +508,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Settings settings,
       Cache<NetworkSnapshot, SortedMap<String, Configuration>> cachedConfigurations,
       Cache<NetworkSnapshot, DataPlane> cachedDataPlanes,
+      Cache<BddReachabilityAnalysisFactoryKey, CachedBddReachabilityAnalysisFactory>
+          cachedBddReachabilityAnalysisFactories,
       Map<NetworkSnapshot, SortedMap<String, BgpAdvertisementsByVrf>> cachedEnvironmentBgpTables,
       @Nullable StorageProvider alternateStorageProvider,
       @Nullable IdResolver alternateIdResolver) {
@@ -472,6 +517,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _bgpTablePlugins = new TreeMap<>();
     _cachedConfigurations = cachedConfigurations;
     _cachedDataPlanes = cachedDataPlanes;
+    _cachedBddReachabilityAnalysisFactories = cachedBddReachabilityAnalysisFactories;
     _cachedEnvironmentBgpTables = cachedEnvironmentBgpTables;
     _externalBgpAdvertisementPlugins = new TreeSet<>();
     _testrigSettings = settings.getActiveTestrigSettings();
@@ -486,18 +532,25 @@ public class Batfish extends PluginConsumer implements IBatfish {
     switch (settings.getStorageProvider()) 
     {
       case "swiftfile": 
-        _storage = new SwiftFileBasedStorage(_settings.getStorageBase(), _logger);
+        _storage =
+            new SwiftFileBasedStorage(
+                _settings.getStorageBase(), _logger, _settings.getSerializationFormat());
         _idResolver = new SwiftFileBasedIdResolver(_settings.getStorageBase());
         break;
       case "swift":
-        _storage = new SwiftBasedStorage("container", _logger);
+        _storage =
+            new SwiftBasedStorage("container", _logger, _settings.getSerializationFormat());
         _idResolver = new SwiftBasedIdResolver("container");
         break;
       default:
         _storage =
             alternateStorageProvider != null
                 ? alternateStorageProvider
-                : new FileBasedStorage(_settings.getStorageBase(), _logger, this::newBatch);
+                : new FileBasedStorage(
+                    _settings.getStorageBase(),
+                    _logger,
+                    this::newBatch,
+                    _settings.getSerializationFormat());
         _idResolver =
             alternateIdResolver != null
                 ? alternateIdResolver
@@ -761,14 +814,25 @@ public class Batfish extends PluginConsumer implements IBatfish {
    */
   private void saveDataPlane(ComputeDataPlaneResult result) {
     _cachedDataPlanes.put(getNetworkSnapshot(), result._dataPlane);
+    invalidateBddReachabilityAnalysisFactories(
+        _cachedBddReachabilityAnalysisFactories, getNetworkSnapshot());
+    if (_settings.getBddStoreGraph()) {
+      deleteStoredBddReachabilityGraphs(getNetworkSnapshot());
+    }
 
     _logger.resetTimer();
     newBatch("Writing data plane to disk", 0);
     try (ActiveSpan writeDataplane =
         GlobalTracer.get().buildSpan("Writing data plane").startActive()) {
       assert writeDataplane != null; // avoid unused warning
-      serializeObject(result._dataPlane, _testrigSettings.getDataPlanePath());
-      serializeObject(result._answerElement, _testrigSettings.getDataPlaneAnswerPath());
+      serializeObject(
+          result._dataPlane,
+          _testrigSettings.getDataPlanePath(),
+          _settings.getSerializationFormat());
+      serializeObject(
+          result._answerElement,
+          _testrigSettings.getDataPlaneAnswerPath(),
+          _settings.getSerializationFormat());
       TopologyContainer topologies = result._topologies;
       NetworkSnapshot networkSnapshot = getNetworkSnapshot();
       _storage.storeBgpTopology(topologies.getBgpTopology(), networkSnapshot);
@@ -798,7 +862,14 @@ public class Batfish extends PluginConsumer implements IBatfish {
     List<ConvertConfigurationJob> jobs = new ArrayList<>();
     for (Entry<String, GenericConfigObject> config : vendorConfigurations.entrySet()) {
       GenericConfigObject vc = config.getValue();
-      ConvertConfigurationJob job = new ConvertConfigurationJob(_settings, vc, config.getKey());
+      ConvertConfigurationJob job =
+          new ConvertConfigurationJob(
+              _settings,
+              vc,
+              config.getKey(),
+              _storage,
+              getContainerName(),
+              getConvertResultKey(vc, _settings, BatfishVersion.getVersionStatic()));
       jobs.add(job);
     }
     BatfishJobExecutor.runJobsInExecutor(
@@ -899,7 +970,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return vendorConfigurations;
   }
 
-  private void disableUnusableVlanInterfaces(Map<String, Configuration> configurations) {
+  private static void disableUnusableVlanInterfaces(
+      Map<String, Configuration> configurations, @Nullable BatfishLogger logger) {
     for (Configuration c : configurations.values()) {
       String hostname = c.getHostname();
 
@@ -941,8 +1013,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
             vlans.including(vlanNumber);
           }
           // Any other Switch Port mode is unsupported
-        } else if (iface.getSwitchportMode() != SwitchportMode.NONE) {
-          _logger.warnf(
+        } else if (iface.getSwitchportMode() != SwitchportMode.NONE && logger != null) {
+          logger.warnf(
               "WARNING: Unsupported switch port mode %s, assuming no VLANs allowed: \"%s:%s\"\n",
               iface.getSwitchportMode(), hostname, iface.getName());
         }
@@ -960,10 +1032,12 @@ public class Batfish extends PluginConsumer implements IBatfish {
               && (vlanNumber <= normalVlanRange.getEnd())) {
             Interface iface = vlanInterfaces.get(vlanNumber);
             if ((iface != null) && iface.getAutoState()) {
-              _logger.warnf(
-                  "WARNING: Disabling unusable vlan interface because no switch port is assigned "
-                      + "to it: \"%s:%d\"\n",
-                  hostname, vlanNumber);
+              if (logger != null) {
+                logger.warnf(
+                    "WARNING: Disabling unusable vlan interface because no switch port is assigned "
+                        + "to it: \"%s:%d\"\n",
+                    hostname, vlanNumber);
+              }
               iface.blacklist();
             }
           }
@@ -1295,29 +1369,61 @@ public class Batfish extends PluginConsumer implements IBatfish {
     try (ActiveSpan span = GlobalTracer.get().buildSpan("Load configurations").startActive()) {
       assert span != null; // avoid unused warning
       _logger.debugf("Loading configurations for %s\n", snapshot);
-      // Do we already have configurations in the cache?
-      SortedMap<String, Configuration> configurations =
-          _cachedConfigurations.getIfPresent(snapshot);
-      if (configurations != null) {
-        return configurations;
-      }
-      _logger.debugf("Loading configurations for %s, cache miss", snapshot);
+      // Concurrent tasks of the same worker share the cache, and wait for each other's loads
+      return getCached(
+          _cachedConfigurations,
+          snapshot,
+          () -> {
+            _logger.debugf("Loading configurations for %s, cache miss", snapshot);
+
+            // Next, see if we have an up-to-date configurations on disk.
+            SortedMap<String, Configuration> configurations =
+                _storage.loadConfigurations(snapshot.getNetwork(), snapshot.getSnapshot());
+            if (configurations != null) {
+              _logger.debugf("Loaded configurations for %s off disk", snapshot);
+              return postProcessSnapshot(snapshot, configurations, false);
+            } else {
+              // Otherwise, we have to parse the configurations. Fall back to old, hacky code.
+              return parseConfigurationsAndApplyEnvironment();
+            }
+          });
+    }
+  }
 
-      // Next, see if we have an up-to-date configurations on disk.
-      configurations = _storage.loadConfigurations(snapshot.getNetwork(), snapshot.getSnapshot());
-      if (configurations != null) {
-        _logger.debugf("Loaded configurations for %s off disk", snapshot);
-        postProcessSnapshot(configurations);
-      } else {
-        // Otherwise, we have to parse the configurations. Fall back to old, hacky code.
-        configurations = parseConfigurationsAndApplyEnvironment();
+  /**
+   * Returns the value of {@code key} in {@code cache}, loading it with {@code loader} if absent.
+   * Exceptions thrown by {@code loader} are rethrown as is.
+   *
+   * <p>Concurrent tasks wait for a single load of the same key. If that load fails because the task
+   * running it was cancelled, the tasks that were not cancelled load the key again.
+   */
+  @VisibleForTesting
+  static <K, V> V getCached(Cache<K, V> cache, K key, Callable<V> loader) {
+    while (true) {
+      AtomicBoolean loadedHere = new AtomicBoolean();
+      try {
+        return cache.get(
+            key,
+            () -> {
+              loadedHere.set(true);
+              return loader.call();
+            });
+      } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+        if (!loadedHere.get() && isCancellation(e.getCause())) {
+          continue;
+        }
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new BatfishException("Error loading " + key, e.getCause());
       }
-
-      _cachedConfigurations.put(snapshot, configurations);
-      return configurations;
     }
   }
 
+  private static boolean isCancellation(Throwable t) {
+    return CommonUtil.causedBy(t, CancellationException.class)
+        || CommonUtil.causedBy(t, InterruptedException.class)
+        || CommonUtil.causedBy(t, ClosedByInterruptException.class);
+  }
+
   @Nonnull
   private SortedMap<String, Configuration> parseConfigurationsAndApplyEnvironment() {
     _logger.infof("Repairing configurations for testrig %s", _testrigSettings.getName());
@@ -1327,8 +1433,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     verify(
         configurations != null,
         "Configurations should not be null when loaded immediately after repair.");
-    postProcessSnapshot(configurations);
-    return configurations;
+    return postProcessSnapshot(getNetworkSnapshot(), configurations, true);
   }
 
   @Override
@@ -1357,13 +1462,13 @@ public class Batfish extends PluginConsumer implements IBatfish {
     try (ActiveSpan span = GlobalTracer.get().buildSpan("Load data plane").startActive()) {
       assert span != null; // avoid unused warning
       NetworkSnapshot snapshot = getNetworkSnapshot();
-      DataPlane dp = _cachedDataPlanes.getIfPresent(snapshot);
-      if (dp == null) {
-        newBatch("Loading data plane from disk", 0);
-        dp = deserializeObject(_testrigSettings.getDataPlanePath(), DataPlane.class);
-        _cachedDataPlanes.put(snapshot, dp);
-      }
-      return dp;
+      return getCached(
+          _cachedDataPlanes,
+          snapshot,
+          () -> {
+            newBatch("Loading data plane from disk", 0);
+            return deserializeObject(_testrigSettings.getDataPlanePath(), DataPlane.class);
+          });
     }
   }
 
@@ -1490,6 +1595,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   @Override
   public AtomicInteger newBatch(String description, int jobs) {
+    // Each batch starts a new step of the job, so stop here if the job has been cancelled.
+    checkInterrupted();
     return Driver.newBatch(_settings, description, jobs);
   }
 
@@ -1632,26 +1739,30 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Map<String, String> keyedFileText, ConfigurationFormat expectedFormat) {
     List<ParseVendorConfigurationJob> jobs = new ArrayList<>(keyedFileText.size());
     for (Entry<String, String> vendorFile : keyedFileText.entrySet()) {
-      @Nullable
-      SpanContext parseVendorConfigurationSpanContext =
-          GlobalTracer.get().activeSpan() == null
-              ? null
-              : GlobalTracer.get().activeSpan().context();
-
-      ParseVendorConfigurationJob job =
-          new ParseVendorConfigurationJob(
-              _settings,
-              vendorFile.getValue(),
-              vendorFile.getKey(),
-              buildWarnings(_settings),
-              expectedFormat,
-              HashMultimap.create(),
-              parseVendorConfigurationSpanContext);
-      jobs.add(job);
+      jobs.add(
+          makeParseVendorConfigurationJob(
+              vendorFile.getValue(), vendorFile.getKey(), expectedFormat));
     }
     return jobs;
   }
 
+  /** Returns a {@link ParseVendorConfigurationJob} to parse the given file. */
+  private ParseVendorConfigurationJob makeParseVendorConfigurationJob(
+      String fileText, String filename, ConfigurationFormat expectedFormat) {
+    @Nullable
+    SpanContext parseVendorConfigurationSpanContext =
+        GlobalTracer.get().activeSpan() == null ? null : GlobalTracer.get().activeSpan().context();
+
+    return new ParseVendorConfigurationJob(
+        _settings,
+        fileText,
+        filename,
+        buildWarnings(_settings),
+        expectedFormat,
+        HashMultimap.create(),
+        parseVendorConfigurationSpanContext);
+  }
+
   /**
    * Parses the given configuration files and returns a map keyed by hostname representing the
    * {@link VendorConfiguration vendor-specific configurations}.
@@ -1687,7 +1798,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _testrigSettingsStack.remove(lastIndex);
   }
 
-  private void populateChannelGroupMembers(
+  private static void populateChannelGroupMembers(
       Map<String, Interface> interfaces, String ifaceName, Interface iface) {
     String portChannelName = iface.getChannelGroup();
     if (portChannelName == null) {
@@ -1704,7 +1815,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
             .build());
   }
 
-  private void postProcessAggregatedInterfaces(Map<String, Configuration> configurations) {
+  private static void postProcessAggregatedInterfaces(Map<String, Configuration> configurations) {
     configurations
         .values()
         .forEach(
@@ -1714,7 +1825,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
                     .forEach(v -> postProcessAggregatedInterfacesHelper(v.getInterfaces())));
   }
 
-  private void postProcessAggregatedInterfacesHelper(Map<String, Interface> interfaces) {
+  private static void postProcessAggregatedInterfacesHelper(Map<String, Interface> interfaces) {
     /* Populate aggregated interfaces with members referring to them. */
     interfaces.forEach(
         (ifaceName, iface) -> populateChannelGroupMembers(interfaces, ifaceName, iface));
@@ -1808,7 +1919,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
   }
 
-  private void postProcessOspfCosts(Map<String, Configuration> configurations) {
+  private static void postProcessOspfCosts(Map<String, Configuration> configurations) {
     configurations
         .values()
         .forEach(
@@ -2038,23 +2149,20 @@ public class Batfish extends PluginConsumer implements IBatfish {
    *   <li>Applying node and interface blacklists.
    *   <li>Process interface dependencies and deactivate interfaces that cannot be up
    * </ul>
+   *
+   * <p>Warnings are logged to {@code logger} unless it is {@code null}.
    */
-  private void updateBlacklistedAndInactiveConfigs(Map<String, Configuration> configurations) {
+  private static void updateBlacklistedAndInactiveConfigs(
+      Map<String, Configuration> configurations,
+      SortedSet<String> nodeBlacklist,
+      Set<NodeInterfacePair> interfaceBlacklist,
+      boolean ignoreManagementInterfaces,
+      @Nullable BatfishLogger logger) {
     NetworkConfigurations nc = NetworkConfigurations.of(configurations);
-    NetworkSnapshot networkSnapshot = getNetworkSnapshot();
-    NetworkId networkId = networkSnapshot.getNetwork();
-    SnapshotId snapshotId = networkSnapshot.getSnapshot();
-
-    processInterfaceBlacklist(
-        nodeToInterfaceBlacklist(
-            firstNonNull(
-                _storage.loadNodeBlacklist(networkId, snapshotId), ImmutableSortedSet.of()),
-            nc),
-        nc);
-    processInterfaceBlacklist(
-        firstNonNull(_storage.loadInterfaceBlacklist(networkId, snapshotId), ImmutableSet.of()),
-        nc);
-    if (_settings.ignoreManagementInterfaces()) {
+
+    processInterfaceBlacklist(nodeToInterfaceBlacklist(nodeBlacklist, nc), nc);
+    processInterfaceBlacklist(interfaceBlacklist, nc);
+    if (ignoreManagementInterfaces) {
       processManagementInterfaces(configurations);
     }
     postProcessInterfaceDependencies(configurations);
@@ -2064,11 +2172,11 @@ public class Batfish extends PluginConsumer implements IBatfish {
     // answering questions.
 
     // TODO: take this out once dependencies are *the* definitive way to disable interfaces
-    disableUnusableVlanInterfaces(configurations);
+    disableUnusableVlanInterfaces(configurations, logger);
   }
 
   /**
-   * Ensures that the current configurations for the current snapshot are correct by performing some
+   * Ensures that the configurations for the given snapshot are correct by performing some
    * post-processing on the vendor-independent datamodel. Among other things, this includes:
    *
    * <ul>
@@ -2078,23 +2186,90 @@ public class Batfish extends PluginConsumer implements IBatfish {
    *       previous version of Batfish.
    *   <li>Ensuring that blacklists are honored.
    * </ul>
+   *
+   * <p>Post-processing is local to each node. Configurations that were just {@code parsed} are all
+   * post-processed now, logging their warnings. Otherwise post-processing is applied to each
+   * configuration when it is first accessed in the returned map, without logging; configurations
+   * that are never accessed are then neither post-processed nor, if {@code configurations} is
+   * lazily loaded, deserialized. Completion metadata spans all nodes, and is only computed if the
+   * configurations were {@code parsed} or none has been stored for this snapshot.
    */
-  private void postProcessSnapshot(Map<String, Configuration> configurations) {
-    updateBlacklistedAndInactiveConfigs(configurations);
-    postProcessAggregatedInterfaces(configurations);
-    NetworkConfigurations nc = NetworkConfigurations.of(configurations);
+  private SortedMap<String, Configuration> postProcessSnapshot(
+      NetworkSnapshot snapshot, Map<String, Configuration> configurations, boolean parsed) {
+    NetworkId networkId = snapshot.getNetwork();
+    SnapshotId snapshotId = snapshot.getSnapshot();
+    SortedSet<String> nodeBlacklist =
+        firstNonNull(_storage.loadNodeBlacklist(networkId, snapshotId), ImmutableSortedSet.of());
+    Set<NodeInterfacePair> interfaceBlacklist =
+        firstNonNull(_storage.loadInterfaceBlacklist(networkId, snapshotId), ImmutableSet.of());
+    boolean ignoreManagementInterfaces = _settings.ignoreManagementInterfaces();
+
+    SortedMap<String, Configuration> postProcessed;
+    if (parsed) {
+      postProcessed =
+          toImmutableSortedMap(
+              configurations.entrySet(),
+              Entry::getKey,
+              e ->
+                  postProcessNode(
+                      e.getValue(),
+                      nodeBlacklist,
+                      interfaceBlacklist,
+                      ignoreManagementInterfaces,
+                      _logger));
+    } else {
+      // The map is cached by the worker and shared by later tasks, so its loader must not capture
+      // this task's Batfish instance.
+      postProcessed =
+          lazySortedMap(
+              configurations.keySet(),
+              hostname ->
+                  postProcessNode(
+                      configurations.get(hostname),
+                      nodeBlacklist,
+                      interfaceBlacklist,
+                      ignoreManagementInterfaces,
+                      null));
+    }
+    if (parsed || !hasCompletionMetadata(snapshot)) {
+      computeAndStoreCompletionMetadata(snapshot, postProcessed);
+    }
+    return postProcessed;
+  }
+
+  /** Post-processes a single configuration. See {@link #postProcessSnapshot}. */
+  private static Configuration postProcessNode(
+      Configuration configuration,
+      SortedSet<String> nodeBlacklist,
+      Set<NodeInterfacePair> interfaceBlacklist,
+      boolean ignoreManagementInterfaces,
+      @Nullable BatfishLogger logger) {
+    Map<String, Configuration> node = ImmutableMap.of(configuration.getHostname(), configuration);
+    updateBlacklistedAndInactiveConfigs(
+        node, nodeBlacklist, interfaceBlacklist, ignoreManagementInterfaces, logger);
+    postProcessAggregatedInterfaces(node);
+    NetworkConfigurations nc = NetworkConfigurations.of(node);
     OspfTopologyUtils.initNeighborConfigs(nc);
-    postProcessOspfCosts(configurations);
+    postProcessOspfCosts(node);
     EigrpTopologyUtils.initNeighborConfigs(nc);
-    computeAndStoreCompletionMetadata(configurations);
+    return configuration;
+  }
+
+  private boolean hasCompletionMetadata(NetworkSnapshot snapshot) {
+    try {
+      return !_storage
+          .loadCompletionMetadata(snapshot.getNetwork(), snapshot.getSnapshot())
+          .equals(CompletionMetadata.EMPTY);
+    } catch (IOException e) {
+      return false;
+    }
   }
 
-  private void computeAndStoreCompletionMetadata(Map<String, Configuration> configurations) {
+  private void computeAndStoreCompletionMetadata(
+      NetworkSnapshot snapshot, Map<String, Configuration> configurations) {
     try {
       _storage.storeCompletionMetadata(
-          computeCompletionMetadata(configurations),
-          _settings.getContainer(),
-          _testrigSettings.getName());
+          computeCompletionMetadata(configurations), snapshot.getNetwork(), snapshot.getSnapshot());
     } catch (IOException e) {
       _logger.errorf("Error storing CompletionMetadata: %s", e);
     }
@@ -2240,7 +2415,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     outputPath.toFile().mkdirs();
     Path currentOutputPath = outputPath.resolve(BfConsts.RELPATH_AWS_CONFIGS_FILE);
     _logger.debugf("Serializing AWS to \"%s\"...", currentOutputPath);
-    serializeObject(config, currentOutputPath);
+    serializeObject(config, currentOutputPath, _settings.getSerializationFormat());
     _logger.debug("OK\n");
     _logger.printElapsedTime();
   }
@@ -2254,7 +2429,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
     SortedMap<String, BgpAdvertisementsByVrf> bgpTables =
         getEnvironmentBgpTables(inputPath, answerElement);
     serializeEnvironmentBgpTables(bgpTables, outputPath);
-    serializeObject(answerElement, _testrigSettings.getParseEnvironmentBgpTablesAnswerPath());
+    serializeObject(
+        answerElement,
+        _testrigSettings.getParseEnvironmentBgpTablesAnswerPath(),
+        _settings.getSerializationFormat());
     return answer;
   }
 
@@ -2346,7 +2524,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
         });
     serializeObjects(output);
     // serialize warnings
-    serializeObject(answerElement, _testrigSettings.getParseAnswerPath());
+    serializeObject(
+        answerElement, _testrigSettings.getParseAnswerPath(), _settings.getSerializationFormat());
     _logger.printElapsedTime();
     return overlayConfigurations;
   }
@@ -2384,7 +2563,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
       try (ActiveSpan ppSpan =
           GlobalTracer.get().buildSpan("Post-process vendor-independent configs").startActive()) {
         assert ppSpan != null; // avoid unused warning
-        postProcessSnapshot(configurations);
+        postProcessSnapshot(getNetworkSnapshot(), configurations, true);
       }
       return answer;
     }
@@ -2458,6 +2637,70 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
   }
 
+  /** Returns the key of the cached {@link ParseResult} for the given file. */
+  @VisibleForTesting
+  static String getParseResultKey(String filename, String filetext, GrammarSettings settings) {
+    return Hashing.murmur3_128()
+        .newHasher()
+        .putString("Cached Parse Result", UTF_8)
+        .putString(filename, UTF_8)
+        .putString(filetext, UTF_8)
+        .putBoolean(settings.getDisableUnrecognized())
+        .putInt(settings.getMaxParserContextLines())
+        .putInt(settings.getMaxParserContextTokens())
+        .putInt(settings.getMaxParseTreePrintLength())
+        .putBoolean(settings.getPrintParseTreeLineNums())
+        .putBoolean(settings.getPrintParseTree())
+        .putBoolean(settings.getThrowOnLexerError())
+        .putBoolean(settings.getThrowOnParserError())
+        .putBoolean(settings.getUseNewCiscoNxosParser())
+        .hash()
+        .toString();
+  }
+
+  /**
+   * Returns the key of the cached {@link ConvertResult} for the given vendor configuration, or
+   * {@code null} if its conversion should not be cached.
+   *
+   * <p>Only configurations parsed from a single file in the snapshot's configs directory, without
+   * an overlay, are cached: their conversion depends only on that file (via the key of its cached
+   * {@link ParseResult}), the hostname they were given, the warnings recorded, and the version of
+   * Batfish.
+   */
+  @VisibleForTesting
+  @Nullable
+  static String getConvertResultKey(
+      GenericConfigObject configObject, Settings settings, String version) {
+    if (!settings.getParseReuse()
+        || !(configObject instanceof VendorConfiguration)
+        || configObject instanceof HostConfiguration) {
+      return null;
+    }
+    VendorConfiguration vc = (VendorConfiguration) configObject;
+    String filename = vc.getFilename();
+    String hostname = vc.getHostname();
+    String parseResultKey = vc.getParseResultKey();
+    if (filename == null
+        || hostname == null
+        || parseResultKey == null
+        || vc.getOverlayConfiguration() != null
+        || !filename.startsWith(BfConsts.RELPATH_CONFIGURATIONS_DIR + File.separator)) {
+      return null;
+    }
+    return Hashing.murmur3_128()
+        .newHasher()
+        .putString("Cached Convert Result", UTF_8)
+        .putString(version, UTF_8)
+        .putString(parseResultKey, UTF_8)
+        .putString(hostname, UTF_8)
+        .putString(settings.getLogLevel(), UTF_8)
+        .putBoolean(settings.getPedanticRecord())
+        .putBoolean(settings.getRedFlagRecord())
+        .putBoolean(settings.getUnimplementedRecord())
+        .hash()
+        .toString();
+  }
+
   private ParseVendorConfigurationResult getOrParse(
       ParseVendorConfigurationJob job, @Nullable SpanContext span, GrammarSettings settings) {
     String filename = job.getFilename();
@@ -2477,23 +2720,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
         return job.fromResult(result, elapsed);
       }
 
-      String id =
-          Hashing.murmur3_128()
-              .newHasher()
-              .putString("Cached Parse Result", UTF_8)
-              .putString(filename, UTF_8)
-              .putString(filetext, UTF_8)
-              .putBoolean(settings.getDisableUnrecognized())
-              .putInt(settings.getMaxParserContextLines())
-              .putInt(settings.getMaxParserContextTokens())
-              .putInt(settings.getMaxParseTreePrintLength())
-              .putBoolean(settings.getPrintParseTreeLineNums())
-              .putBoolean(settings.getPrintParseTree())
-              .putBoolean(settings.getThrowOnLexerError())
-              .putBoolean(settings.getThrowOnParserError())
-              .putBoolean(settings.getUseNewCiscoNxosParser())
-              .hash()
-              .toString();
+      String id = getParseResultKey(filename, filetext, settings);
       long startTime = System.currentTimeMillis();
       boolean cached = false;
       ParseResult result;
@@ -2521,7 +2748,13 @@ public class Batfish extends PluginConsumer implements IBatfish {
         }
       }
       long elapsed = System.currentTimeMillis() - startTime;
-      return job.fromResult(result, elapsed);
+      ParseVendorConfigurationResult parseResult = job.fromResult(result, elapsed);
+      VendorConfiguration vc = parseResult.getVendorConfiguration();
+      if (vc != null) {
+        // Serialized with the configuration, so its conversion can be looked up without the file.
+        vc.setParseResultKey(id);
+      }
+      return parseResult;
     }
   }
 
@@ -2544,79 +2777,143 @@ public class Batfish extends PluginConsumer implements IBatfish {
       return;
     }
 
-    _logger.info("\n*** READING DEVICE CONFIGURATION FILES ***\n");
+    _logger.info("\n*** READING, PARSING, AND SERIALIZING DEVICE CONFIGURATION FILES ***\n");
+    _logger.resetTimer();
+    createDirectories(outputPath);
 
-    List<ParseVendorConfigurationResult> parseResults;
+    /*
+     * Each file is read by the task that parses it, and its vendor configuration is serialized as
+     * soon as its result is applied, so neither the text of the snapshot nor all of its vendor
+     * configurations are ever held in memory at once. At most MAX_PENDING_NETWORK_CONFIGS files are
+     * being parsed, and at most as many configurations are being serialized, at any time. Results
+     * are applied in file order, as before, so duplicate hostnames are resolved the same way.
+     */
+    List<Path> files = listAllFiles(userUploadPath.resolve(BfConsts.RELPATH_CONFIGURATIONS_DIR));
+    List<Throwable> failureCauses = new ArrayList<>();
+    // hostname -> task serializing its vendor configuration
+    Map<String, CompletableFuture<Void>> serializedConfigs = new HashMap<>();
+    // hostname -> vendor configuration that cannot be serialized
+    Map<String, VendorConfiguration> unserializableConfigs = new HashMap<>();
+    Deque<CompletableFuture<Void>> serializing = new ArrayDeque<>();
     try (ActiveSpan parseNetworkConfigsSpan =
         GlobalTracer.get().buildSpan("Parse network configs").startActive()) {
       assert parseNetworkConfigsSpan != null; // avoid unused warning
-
-      // user filename (configs/foo) -> text of configs/foo
-      Map<String, String> keyedConfigText =
-          readAllFiles(userUploadPath.resolve(BfConsts.RELPATH_CONFIGURATIONS_DIR), _logger)
-              .entrySet().stream()
-              .collect(
-                  ImmutableMap.toImmutableMap(
-                      e -> userUploadPath.relativize(e.getKey()).toString(), Entry::getValue));
-      List<ParseVendorConfigurationJob> jobs =
-          makeParseVendorConfigurationsJobs(keyedConfigText, ConfigurationFormat.UNKNOWN);
-      AtomicInteger batch = newBatch("Parse network configs", keyedConfigText.size());
-      parseResults =
-          jobs.parallelStream()
-              .map(
-                  j -> {
+      SpanContext span = parseNetworkConfigsSpan.context();
+      AtomicInteger batch = newBatch("Parse network configs", files.size());
+      Deque<CompletableFuture<ParseVendorConfigurationResult>> parsing = new ArrayDeque<>();
+      Iterator<Path> filesIterator = files.iterator();
+      while (filesIterator.hasNext() || !parsing.isEmpty()) {
+        while (filesIterator.hasNext() && parsing.size() < MAX_PENDING_NETWORK_CONFIGS) {
+          Path file = filesIterator.next();
+          parsing.add(
+              CompletableFuture.supplyAsync(
+                  () -> {
                     ParseVendorConfigurationResult result =
-                        this.getOrParse(j, parseNetworkConfigsSpan.context(), _settings);
+                        getOrParse(
+                            makeParseVendorConfigurationJob(
+                                readFile(file, _logger),
+                                userUploadPath.relativize(file).toString(),
+                                ConfigurationFormat.UNKNOWN),
+                            span,
+                            _settings);
                     batch.incrementAndGet();
                     return result;
-                  })
-              .collect(ImmutableList.toImmutableList());
+                  }));
+        }
+        ParseVendorConfigurationResult result = join(parsing.remove());
+        if (result.getFailureCause() != null) {
+          failureCauses.add(result.getFailureCause());
+        }
+        applyAndSerialize(
+            result,
+            outputPath,
+            answerElement,
+            serializedConfigs,
+            unserializableConfigs,
+            serializing);
+        while (serializing.size() > MAX_PENDING_NETWORK_CONFIGS) {
+          join(serializing.remove());
+        }
+      }
+      serializing.forEach(Batfish::join);
     }
 
-    if (_settings.getHaltOnParseError()
-        && parseResults.stream().anyMatch(r -> r.getFailureCause() != null)) {
+    if (_settings.getHaltOnParseError() && !failureCauses.isEmpty()) {
       BatfishException e = new BatfishException("Exiting due to parser errors");
-      parseResults.stream()
-          .map(ParseVendorConfigurationResult::getFailureCause)
-          .filter(Objects::nonNull)
-          .forEach(e::addSuppressed);
+      failureCauses.forEach(e::addSuppressed);
       throw e;
     }
 
     _logger.infof(
         "Snapshot %s in network %s has total number of network configs:%d",
-        getTestrigName(), getContainerName(), parseResults.size());
+        getTestrigName(), getContainerName(), files.size());
+    _logger.printElapsedTime();
+  }
 
-    /* Assemble answer. */
+  /**
+   * Applies the given parse result to the answer element, and serializes its vendor configuration
+   * to the output path in the background.
+   *
+   * <p>If the configuration's hostname duplicates that of a configuration that was already
+   * serialized, the latter is read back so that both can be renamed, as {@link
+   * ParseVendorConfigurationResult#applyTo} does for configurations that are all in memory.
+   */
+  private void applyAndSerialize(
+      ParseVendorConfigurationResult result,
+      Path outputPath,
+      ParseVendorConfigurationAnswerElement answerElement,
+      Map<String, CompletableFuture<Void>> serializedConfigs,
+      Map<String, VendorConfiguration> unserializableConfigs,
+      Deque<CompletableFuture<Void>> serializing) {
     SortedMap<String, VendorConfiguration> vendorConfigurations = new TreeMap<>();
-    parseResults.forEach(pvcr -> pvcr.applyTo(vendorConfigurations, _logger, answerElement));
-
-    try (ActiveSpan serializeNetworkConfigsSpan =
-        GlobalTracer.get().buildSpan("Serialize network configs").startActive()) {
-      assert serializeNetworkConfigsSpan != null; // avoid unused warning
-      _logger.info("\n*** SERIALIZING VENDOR CONFIGURATION STRUCTURES ***\n");
-      _logger.resetTimer();
-      createDirectories(outputPath);
-      Map<Path, VendorConfiguration> output = new TreeMap<>();
-      vendorConfigurations.forEach(
-          (name, vc) -> {
-            if (name.contains(File.separator)) {
-              // iptables will get a hostname like configs/iptables-save if they
-              // are not set up correctly using host files
-              _logger.errorf("Cannot serialize configuration with hostname %s\n", name);
-              answerElement.addRedFlagWarning(
-                  name,
-                  new Warning(
-                      "Cannot serialize network config. Bad hostname " + name.replace("\\", "/"),
-                      "MISCELLANEOUS"));
-            } else {
-              Path currentOutputPath = outputPath.resolve(name);
-              output.put(currentOutputPath, vc);
-            }
-          });
+    VendorConfiguration vc = result.getVendorConfiguration();
+    if (vc != null) {
+      String hostname = vc.getHostname();
+      VendorConfiguration duplicate = unserializableConfigs.remove(hostname);
+      CompletableFuture<Void> serializeDuplicate = serializedConfigs.remove(hostname);
+      if (serializeDuplicate != null) {
+        join(serializeDuplicate);
+        Path duplicatePath = outputPath.resolve(hostname);
+        duplicate = deserializeObject(duplicatePath, VendorConfiguration.class);
+        CommonUtil.deleteIfExists(duplicatePath);
+      }
+      if (duplicate != null) {
+        vendorConfigurations.put(hostname, duplicate);
+      }
+    }
+    result.applyTo(vendorConfigurations, _logger, answerElement);
+
+    vendorConfigurations.forEach(
+        (name, config) -> {
+          if (name.contains(File.separator)) {
+            // iptables will get a hostname like configs/iptables-save if they
+            // are not set up correctly using host files
+            _logger.errorf("Cannot serialize configuration with hostname %s\n", name);
+            answerElement.addRedFlagWarning(
+                name,
+                new Warning(
+                    "Cannot serialize network config. Bad hostname " + name.replace("\\", "/"),
+                    "MISCELLANEOUS"));
+            unserializableConfigs.put(name, config);
+          } else {
+            CompletableFuture<Void> serialize =
+                CompletableFuture.runAsync(
+                    () ->
+                        serializeObject(
+                            config, outputPath.resolve(name), _settings.getSerializationFormat()));
+            serializedConfigs.put(name, serialize);
+            serializing.add(serialize);
+          }
+        });
+  }
 
-      serializeObjects(output);
-      _logger.printElapsedTime();
+  /** Waits for the given task, and rethrows whatever it threw. */
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
     }
   }
 
@@ -2704,7 +3001,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
             entry -> {
               Path outputPath = entry.getKey();
               S object = entry.getValue();
-              serializeObject(object, outputPath);
+              serializeObject(object, outputPath, _settings.getSerializationFormat());
               serializeCompleted.incrementAndGet();
             });
   }
@@ -2752,7 +3049,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
 
     // serialize warnings
-    serializeObject(answerElement, _testrigSettings.getParseAnswerPath());
+    serializeObject(
+        answerElement, _testrigSettings.getParseAnswerPath(), _settings.getSerializationFormat());
 
     return answer;
   }
@@ -2818,48 +3116,49 @@ public class Batfish extends PluginConsumer implements IBatfish {
           params.getSrcNatted() == SrcNattedConstraint.UNCONSTRAINED,
           "Requiring or forbidding Source NAT is currently unsupported");
 
-      BDDPacket pkt = new BDDPacket();
       boolean ignoreFilters = params.getIgnoreFilters();
-      BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-          getBddReachabilityAnalysisFactory(pkt, ignoreFilters);
-
-      Map<IngressLocation, BDD> reachableBDDs =
-          bddReachabilityAnalysisFactory.getAllBDDs(
-              params.getSourceIpAssignment(),
-              params.getHeaderSpace(),
-              params.getForbiddenTransitNodes(),
-              params.getRequiredTransitNodes(),
-              params.getFinalNodes(),
-              params.getActions());
-
       String flowTag = getFlowTag();
       Set<Flow> flows =
-          reachableBDDs.entrySet().stream()
-              .flatMap(
-                  entry -> {
-                    IngressLocation loc = entry.getKey();
-                    BDD headerSpace = entry.getValue();
-                    Optional<Flow.Builder> optionalFlow = pkt.getFlow(headerSpace);
-                    if (!optionalFlow.isPresent()) {
-                      return Stream.of();
-                    }
-                    Flow.Builder flow = optionalFlow.get();
-                    flow.setIngressNode(loc.getNode());
-                    flow.setTag(flowTag);
-                    switch (loc.getType()) {
-                      case INTERFACE_LINK:
-                        flow.setIngressInterface(loc.getInterface());
-                        break;
-                      case VRF:
-                        flow.setIngressVrf(loc.getVrf());
-                        break;
-                      default:
-                        throw new BatfishException(
-                            "Unexpected IngressLocation Type: " + loc.getType().name());
-                    }
-                    return Stream.of(flow.build());
-                  })
-              .collect(ImmutableSet.toImmutableSet());
+          withBddReachabilityAnalysisFactory(
+              ignoreFilters,
+              bddReachabilityAnalysisFactory -> {
+                BDDPacket pkt = bddReachabilityAnalysisFactory.getBDDPacket();
+                Map<IngressLocation, BDD> reachableBDDs =
+                    bddReachabilityAnalysisFactory.getAllBDDs(
+                        params.getSourceIpAssignment(),
+                        params.getHeaderSpace(),
+                        params.getForbiddenTransitNodes(),
+                        params.getRequiredTransitNodes(),
+                        params.getFinalNodes(),
+                        params.getActions());
+
+                return reachableBDDs.entrySet().stream()
+                    .flatMap(
+                        entry -> {
+                          IngressLocation loc = entry.getKey();
+                          BDD headerSpace = entry.getValue();
+                          Optional<Flow.Builder> optionalFlow = pkt.getFlow(headerSpace);
+                          if (!optionalFlow.isPresent()) {
+                            return Stream.of();
+                          }
+                          Flow.Builder flow = optionalFlow.get();
+                          flow.setIngressNode(loc.getNode());
+                          flow.setTag(flowTag);
+                          switch (loc.getType()) {
+                            case INTERFACE_LINK:
+                              flow.setIngressInterface(loc.getInterface());
+                              break;
+                            case VRF:
+                              flow.setIngressVrf(loc.getVrf());
+                              break;
+                            default:
+                              throw new BatfishException(
+                                  "Unexpected IngressLocation Type: " + loc.getType().name());
+                          }
+                          return Stream.of(flow.build());
+                        })
+                    .collect(ImmutableSet.toImmutableSet());
+              });
 
       return new TraceWrapperAsAnswerElement(buildFlows(flows, ignoreFilters));
     }
@@ -2869,45 +3168,47 @@ public class Batfish extends PluginConsumer implements IBatfish {
   public Set<Flow> bddLoopDetection() {
     try (ActiveSpan span = GlobalTracer.get().buildSpan("bddLoopDetection").startActive()) {
       assert span != null; // avoid unused warning
-      BDDPacket pkt = new BDDPacket();
       // TODO add ignoreFilters parameter
       boolean ignoreFilters = false;
-      BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-          getBddReachabilityAnalysisFactory(pkt, ignoreFilters);
-      BDDLoopDetectionAnalysis analysis =
-          bddReachabilityAnalysisFactory.bddLoopDetectionAnalysis(
-              getAllSourcesInferFromLocationIpSpaceAssignment());
-      Map<IngressLocation, BDD> loopBDDs = analysis.detectLoops();
-
+      IpSpaceAssignment srcIpSpaceAssignment = getAllSourcesInferFromLocationIpSpaceAssignment();
       String flowTag = getFlowTag();
-      try (ActiveSpan span1 =
-          GlobalTracer.get().buildSpan("bddLoopDetection.computeResultFlows").startActive()) {
-        assert span1 != null; // avoid unused warning
-        return loopBDDs.entrySet().stream()
-            .map(
-                entry ->
-                    pkt.getFlow(entry.getValue())
-                        .map(
-                            fb -> {
-                              IngressLocation loc = entry.getKey();
-                              fb.setTag(flowTag);
-                              fb.setIngressNode(loc.getNode());
-                              switch (loc.getType()) {
-                                case INTERFACE_LINK:
-                                  fb.setIngressInterface(loc.getInterface());
-                                  break;
-                                case VRF:
-                                  fb.setIngressVrf(loc.getVrf());
-                                  break;
-                                default:
-                                  throw new BatfishException(
-                                      "Unknown Location Type: " + loc.getType());
-                              }
-                              return fb.build();
-                            }))
-            .flatMap(optional -> optional.map(Stream::of).orElse(Stream.empty()))
-            .collect(ImmutableSet.toImmutableSet());
-      }
+      return withBddReachabilityAnalysisFactory(
+          ignoreFilters,
+          bddReachabilityAnalysisFactory -> {
+            BDDPacket pkt = bddReachabilityAnalysisFactory.getBDDPacket();
+            BDDLoopDetectionAnalysis analysis =
+                bddReachabilityAnalysisFactory.bddLoopDetectionAnalysis(srcIpSpaceAssignment);
+            Map<IngressLocation, BDD> loopBDDs = analysis.detectLoops();
+
+            try (ActiveSpan span1 =
+                GlobalTracer.get().buildSpan("bddLoopDetection.computeResultFlows").startActive()) {
+              assert span1 != null; // avoid unused warning
+              return loopBDDs.entrySet().stream()
+                  .map(
+                      entry ->
+                          pkt.getFlow(entry.getValue())
+                              .map(
+                                  fb -> {
+                                    IngressLocation loc = entry.getKey();
+                                    fb.setTag(flowTag);
+                                    fb.setIngressNode(loc.getNode());
+                                    switch (loc.getType()) {
+                                      case INTERFACE_LINK:
+                                        fb.setIngressInterface(loc.getInterface());
+                                        break;
+                                      case VRF:
+                                        fb.setIngressVrf(loc.getVrf());
+                                        break;
+                                      default:
+                                        throw new BatfishException(
+                                            "Unknown Location Type: " + loc.getType());
+                                    }
+                                    return fb.build();
+                                  }))
+                  .flatMap(optional -> optional.map(Stream::of).orElse(Stream.empty()))
+                  .collect(ImmutableSet.toImmutableSet());
+            }
+          });
     }
   }
 
@@ -2915,11 +3216,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
   public Set<Flow> bddMultipathConsistency(MultipathConsistencyParameters parameters) {
     try (ActiveSpan span = GlobalTracer.get().buildSpan("bddMultipathConsistency").startActive()) {
       assert span != null; // avoid unused warning
-      BDDPacket pkt = new BDDPacket();
       // TODO add ignoreFilters parameter
       boolean ignoreFilters = false;
-      BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-          getBddReachabilityAnalysisFactory(pkt, ignoreFilters);
       IpSpaceAssignment srcIpSpaceAssignment = parameters.getSrcIpSpaceAssignment();
       Set<String> finalNodes = parameters.getFinalNodes();
       Set<FlowDisposition> failureDispositions =
@@ -2938,25 +3236,31 @@ public class Batfish extends PluginConsumer implements IBatfish {
               FlowDisposition.EXITS_NETWORK);
       Set<String> forbiddenTransitNodes = parameters.getForbiddenTransitNodes();
       Set<String> requiredTransitNodes = parameters.getRequiredTransitNodes();
-      Map<IngressLocation, BDD> successBdds =
-          bddReachabilityAnalysisFactory.getAllBDDs(
-              srcIpSpaceAssignment,
-              parameters.getHeaderSpace(),
-              forbiddenTransitNodes,
-              requiredTransitNodes,
-              finalNodes,
-              successDispositions);
-      Map<IngressLocation, BDD> failureBdds =
-          bddReachabilityAnalysisFactory.getAllBDDs(
-              srcIpSpaceAssignment,
-              parameters.getHeaderSpace(),
-              forbiddenTransitNodes,
-              requiredTransitNodes,
-              finalNodes,
-              failureDispositions);
-
-      return ImmutableSet.copyOf(
-          computeMultipathInconsistencies(pkt, getFlowTag(), successBdds, failureBdds));
+      String flowTag = getFlowTag();
+      return withBddReachabilityAnalysisFactory(
+          ignoreFilters,
+          bddReachabilityAnalysisFactory -> {
+            BDDPacket pkt = bddReachabilityAnalysisFactory.getBDDPacket();
+            Map<IngressLocation, BDD> successBdds =
+                bddReachabilityAnalysisFactory.getAllBDDs(
+                    srcIpSpaceAssignment,
+                    parameters.getHeaderSpace(),
+                    forbiddenTransitNodes,
+                    requiredTransitNodes,
+                    finalNodes,
+                    successDispositions);
+            Map<IngressLocation, BDD> failureBdds =
+                bddReachabilityAnalysisFactory.getAllBDDs(
+                    srcIpSpaceAssignment,
+                    parameters.getHeaderSpace(),
+                    forbiddenTransitNodes,
+                    requiredTransitNodes,
+                    finalNodes,
+                    failureDispositions);
+
+            return ImmutableSet.copyOf(
+                computeMultipathInconsistencies(pkt, flowTag, successBdds, failureBdds));
+          });
     }
   }
 
@@ -2971,6 +3275,17 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return InferFromLocationIpSpaceSpecifier.INSTANCE.resolve(locations, specifierContext);
   }
 
+  /**
+   * Returns a new {@link BDDPacket} for a reachability analysis, whose node table is stored outside
+   * the Java heap if {@link Settings#getBddOffHeap()}.
+   */
+  @Nonnull
+  private BDDPacket newBddPacket() {
+    return _settings.getBddOffHeap()
+        ? BDDPacket.offHeap((long) _settings.getBddOffHeapMaxMb() << 20)
+        : new BDDPacket();
+  }
+
   @Nonnull
   private BDDReachabilityAnalysisFactory getBddReachabilityAnalysisFactory(
       BDDPacket pkt, boolean ignoreFilters) {
@@ -2982,6 +3297,141 @@ public class Batfish extends PluginConsumer implements IBatfish {
     }
   }
 
+  /** The key of the snapshot object storing a {@link BDDReachabilityAnalysisFactory}'s graph. */
+  @VisibleForTesting
+  static @Nonnull String bddReachabilityGraphKey(boolean ignoreFilters) {
+    return ignoreFilters ? "bdd_reachability_graph_ignore_filters" : "bdd_reachability_graph";
+  }
+
+  /**
+   * Returns a new {@link BDDReachabilityAnalysisFactory} for the current snapshot, with its own
+   * {@link BDDPacket}.
+   *
+   * <p>If {@link Settings#getBddStoreGraph()}, the factory reads its query-independent graph from
+   * the snapshot object stored by the first worker that built one, or computes and stores it.
+   */
+  @Nonnull
+  private BDDReachabilityAnalysisFactory loadBddReachabilityAnalysisFactory(boolean ignoreFilters) {
+    if (!_settings.getBddStoreGraph()) {
+      return getBddReachabilityAnalysisFactory(newBddPacket(), ignoreFilters);
+    }
+    NetworkSnapshot snapshot = getNetworkSnapshot();
+    String key = bddReachabilityGraphKey(ignoreFilters);
+    try (ActiveSpan span =
+            GlobalTracer.get().buildSpan("loadBddReachabilityAnalysisFactory").startActive();
+        InputStream storedGraph =
+            _storage.loadSnapshotObject(snapshot.getNetwork(), snapshot.getSnapshot(), key)) {
+      assert span != null; // avoid unused warning
+      return new BDDReachabilityAnalysisFactory(
+          newBddPacket(),
+          loadConfigurations(),
+          loadDataPlane().getForwardingAnalysis(),
+          ignoreFilters,
+          false,
+          storedGraph);
+    } catch (FileNotFoundException e) {
+      // not stored yet
+    } catch (IOException | BatfishException e) {
+      _logger.warnf(
+          "Error reading stored BDD reachability graph %s: %s",
+          key, Throwables.getStackTraceAsString(e));
+    }
+
+    // the packet may have been modified by a failed read, so use a new one.
+    BDDReachabilityAnalysisFactory factory =
+        getBddReachabilityAnalysisFactory(newBddPacket(), ignoreFilters);
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      factory.writeGraph(out);
+      _storage.storeSnapshotObject(
+          new ByteArrayInputStream(out.toByteArray()),
+          snapshot.getNetwork(),
+          snapshot.getSnapshot(),
+          key);
+    } catch (IOException e) {
+      _logger.warnf(
+          "Error storing BDD reachability graph %s: %s", key, Throwables.getStackTraceAsString(e));
+    }
+    return factory;
+  }
+
+  /**
+   * Applies {@code analysis} to a {@link BDDReachabilityAnalysisFactory} for the current snapshot,
+   * and returns its result.
+   *
+   * <p>The factory, with its own {@link BDDPacket}, is shared by all questions about the snapshot
+   * until its data plane is evicted or recomputed. Since BDD operations are not thread-safe, a
+   * question that finds the shared factory in use builds its own rather than waiting. BDDs built by
+   * questions are never freed, so once the shared factory's node table has grown past {@link
+   * Settings#getMaxCachedBddNodeTableSize()} nodes, it is dropped from the cache, and the next
+   * question builds a new one.
+   */
+  private <T> T withBddReachabilityAnalysisFactory(
+      boolean ignoreFilters, Function<BDDReachabilityAnalysisFactory, T> analysis) {
+    BddReachabilityAnalysisFactoryKey key =
+        new BddReachabilityAnalysisFactoryKey(getNetworkSnapshot(), ignoreFilters);
+    CachedBddReachabilityAnalysisFactory cached =
+        getCached(
+            _cachedBddReachabilityAnalysisFactories,
+            key,
+            () ->
+                new CachedBddReachabilityAnalysisFactory(
+                    loadBddReachabilityAnalysisFactory(ignoreFilters)));
+    _logger.debugf(
+        "BDD reachability analysis factory cache: %s\n",
+        _cachedBddReachabilityAnalysisFactories.stats());
+    if (!cached.tryLock()) {
+      _logger.debugf("BDD reachability analysis factory for %s is in use, building another\n", key);
+      return analysis.apply(loadBddReachabilityAnalysisFactory(ignoreFilters));
+    }
+    try {
+      return analysis.apply(cached.getFactory());
+    } finally {
+      int nodeTableSize = cached.getNodeTableSize();
+      if (nodeTableSize > _settings.getMaxCachedBddNodeTableSize()) {
+        _logger.debugf(
+            "Dropping BDD reachability analysis factory for %s with %d BDD nodes\n",
+            key, nodeTableSize);
+        _cachedBddReachabilityAnalysisFactories.asMap().remove(key, cached);
+      }
+      cached.unlock();
+    }
+  }
+
+  /**
+   * Deletes the reachability graphs stored for {@code snapshot}, which depend on its data plane.
+   */
+  private void deleteStoredBddReachabilityGraphs(NetworkSnapshot snapshot) {
+    for (boolean ignoreFilters : new boolean[] {false, true}) {
+      String key = bddReachabilityGraphKey(ignoreFilters);
+      try {
+        _storage.deleteSnapshotObject(snapshot.getNetwork(), snapshot.getSnapshot(), key);
+      } catch (FileNotFoundException e) {
+        // not stored
+      } catch (IOException e) {
+        _logger.warnf(
+            "Error deleting stored BDD reachability graph %s: %s",
+            key, Throwables.getStackTraceAsString(e));
+      }
+    }
+  }
+
+  @VisibleForTesting
+  Cache<BddReachabilityAnalysisFactoryKey, CachedBddReachabilityAnalysisFactory>
+      getCachedBddReachabilityAnalysisFactories() {
+    return _cachedBddReachabilityAnalysisFactories;
+  }
+
+  /**
+   * Removes the {@link BDDReachabilityAnalysisFactory factories} built for {@code snapshot} from
+   * {@code cache}, e.g. when its data plane changes.
+   */
+  static void invalidateBddReachabilityAnalysisFactories(
+      Cache<BddReachabilityAnalysisFactoryKey, CachedBddReachabilityAnalysisFactory> cache,
+      NetworkSnapshot snapshot) {
+    cache.asMap().keySet().removeIf(key -> key.getSnapshot().equals(snapshot));
+  }
+
   @Nonnull
   public BDDReachabilityAnalysis getBddReachabilityAnalysis(
       BDDPacket pkt,
@@ -3014,7 +3464,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
       assert span != null; // avoid unused warning
       checkArgument(
           !parameters.getFlowDispositions().isEmpty(), "Must specify at least one FlowDisposition");
-      BDDPacket pkt = new BDDPacket();
+      BDDPacket pkt = newBddPacket();
 
       AclLineMatchExpr headerSpace =
           parameters.getInvertSearch()
@@ -0,0 +1,56 @@
+package org.batfish.main;
+
+import com.google.common.base.MoreObjects;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactory;
+import org.batfish.common.NetworkSnapshot;
+
+/**
+ * Identifies a {@link BDDReachabilityAnalysisFactory} cached by {@link Batfish}: the snapshot whose
+ * configurations and data plane it was built from, and the settings it was built with.
+ */
+@ParametersAreNonnullByDefault
+public final class BddReachabilityAnalysisFactoryKey {
+
+  public BddReachabilityAnalysisFactoryKey(NetworkSnapshot snapshot, boolean ignoreFilters) {
+    _snapshot = snapshot;
+    _ignoreFilters = ignoreFilters;
+  }
+
+  public @Nonnull NetworkSnapshot getSnapshot() {
+    return _snapshot;
+  }
+
+  public boolean getIgnoreFilters() {
+    return _ignoreFilters;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    } else if (!(o instanceof BddReachabilityAnalysisFactoryKey)) {
+      return false;
+    }
+    BddReachabilityAnalysisFactoryKey other = (BddReachabilityAnalysisFactoryKey) o;
+    return _snapshot.equals(other._snapshot) && _ignoreFilters == other._ignoreFilters;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(_snapshot, _ignoreFilters);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(BddReachabilityAnalysisFactoryKey.class)
+        .add("snapshot", _snapshot)
+        .add("ignoreFilters", _ignoreFilters)
+        .toString();
+  }
+
+  private final @Nonnull NetworkSnapshot _snapshot;
+  private final boolean _ignoreFilters;
+}
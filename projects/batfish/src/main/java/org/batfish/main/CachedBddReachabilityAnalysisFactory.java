@@ -0,0 +1,49 @@
+package org.batfish.main;
+
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactory;
+import org.batfish.common.bdd.BDDPacket;
+
+/**
+ * A {@link BDDReachabilityAnalysisFactory} cached by {@link Batfish}, shared by the questions about
+ * a snapshot.
+ *
+ * <p>BDD operations are not thread-safe, so the factory may only be used by the question holding
+ * its {@link #tryLock() lock}. BDDs built by questions are never freed, so each question may grow
+ * the node table of the factory's {@link BDDPacket}; see {@link #getNodeTableSize()}.
+ */
+@ParametersAreNonnullByDefault
+public final class CachedBddReachabilityAnalysisFactory {
+
+  public CachedBddReachabilityAnalysisFactory(BDDReachabilityAnalysisFactory factory) {
+    _factory = factory;
+    _lock = new ReentrantLock();
+  }
+
+  public @Nonnull BDDReachabilityAnalysisFactory getFactory() {
+    return _factory;
+  }
+
+  /** Returns the number of nodes allocated by the factory's {@link BDDPacket}. */
+  public int getNodeTableSize() {
+    return _factory.getBDDPacket().getFactory().getNodeTableSize();
+  }
+
+  /**
+   * Acquires the lock on the factory if no other thread holds it, and returns whether it was
+   * acquired.
+   */
+  public boolean tryLock() {
+    return _lock.tryLock();
+  }
+
+  /** Releases the lock on the factory. */
+  public void unlock() {
+    _lock.unlock();
+  }
+
+  private final @Nonnull BDDReachabilityAnalysisFactory _factory;
+  private final @Nonnull ReentrantLock _lock;
+}
@@ -29,8 +29,11 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -64,6 +67,7 @@ import org.batfish.datamodel.answers.AnswerStatus;
 import org.batfish.datamodel.collections.BgpAdvertisementsByVrf;
 import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.SnapshotId;
+import org.batfish.main.WorkerCapacity.ResourceClass;
 import org.batfish.version.BatfishVersion;
 import org.codehaus.jettison.json.JSONArray;
 import org.glassfish.grizzly.http.server.HttpServer;
@@ -106,7 +110,7 @@ public class Driver {
     }
   }
 
-  private static boolean _idle = true;
+  private static WorkerCapacity _capacity;
 
   private static Date _lastPollFromCoordinator = new Date();
 
@@ -118,6 +122,12 @@ public class Driver {
 
   private static ConcurrentMap<String, Task> _taskLog;
 
+  private static ExecutorService _taskExecutor;
+
+  private static final Cache<
+          BddReachabilityAnalysisFactoryKey, CachedBddReachabilityAnalysisFactory>
+      CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES = buildBddReachabilityAnalysisFactoryCache();
+
   private static final Cache<NetworkSnapshot, DataPlane> CACHED_DATA_PLANES = buildDataPlaneCache();
 
   private static final Map<NetworkSnapshot, SortedMap<String, BgpAdvertisementsByVrf>>
@@ -136,6 +146,9 @@ public class Driver {
 
   static Logger httpServerLogger = Logger.getLogger(HttpServer.class.getName());
 
+  // one per ignoreFilters setting for each cached data plane
+  private static final int MAX_CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES = 4;
+
   private static final int MAX_CACHED_DATA_PLANES = 2;
 
   private static final int MAX_CACHED_ENVIRONMENT_BGP_TABLES = 4;
@@ -145,8 +158,25 @@ public class Driver {
   static Logger networkListenerLogger =
       Logger.getLogger("org.glassfish.grizzly.http.server.NetworkListener");
 
+  private static Cache<BddReachabilityAnalysisFactoryKey, CachedBddReachabilityAnalysisFactory>
+      buildBddReachabilityAnalysisFactoryCache() {
+    return CacheBuilder.newBuilder()
+        .softValues()
+        .maximumSize(MAX_CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES)
+        .recordStats()
+        .build();
+  }
+
   private static Cache<NetworkSnapshot, DataPlane> buildDataPlaneCache() {
-    return CacheBuilder.newBuilder().softValues().maximumSize(MAX_CACHED_DATA_PLANES).build();
+    // BDD reachability analysis factories are built from data planes, so evict them together
+    return CacheBuilder.newBuilder()
+        .softValues()
+        .maximumSize(MAX_CACHED_DATA_PLANES)
+        .<NetworkSnapshot, DataPlane>removalListener(
+            notification ->
+                Batfish.invalidateBddReachabilityAnalysisFactories(
+                    CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES, notification.getKey()))
+        .build();
   }
 
   private static Map<NetworkSnapshot, SortedMap<String, BgpAdvertisementsByVrf>>
@@ -158,18 +188,15 @@ public class Driver {
     return CacheBuilder.newBuilder().softValues().maximumSize(MAX_CACHED_TESTRIGS).build();
   }
 
-  private static synchronized boolean claimIdle() {
-    if (_idle) {
-      _idle = false;
-      return true;
-    }
-
-    return false;
+  /** Returns the number of additional tasks this worker can accept */
+  public static synchronized int getIdleSlots() {
+    _lastPollFromCoordinator = new Date();
+    return _capacity.getIdleSlots();
   }
 
-  public static synchronized boolean getIdle() {
-    _lastPollFromCoordinator = new Date();
-    return _idle;
+  /** Returns the number of tasks this worker can run at once */
+  public static int getMaxTasks() {
+    return _capacity.getMaxTasks();
   }
 
   public static BatfishLogger getMainLogger() {
@@ -291,6 +318,7 @@ public class Driver {
     _mainArgs = args;
     try {
       _mainSettings = new Settings(args);
+      _capacity = WorkerCapacity.create(_mainSettings);
       networkListenerLogger.setLevel(Level.WARNING);
       httpServerLogger.setLevel(Level.WARNING);
     } catch (Exception e) {
@@ -405,6 +433,7 @@ public class Driver {
     String baseUrl = String.format("%s://%s", protocol, _mainSettings.getServiceBindHost());
     URI baseUri = UriBuilder.fromUri(baseUrl).port(_mainSettings.getServicePort()).build();
     _mainLogger.debug(String.format("Starting server at %s\n", baseUri));
+    _taskExecutor = Executors.newFixedThreadPool(_capacity.getMaxTasks());
     ResourceConfig rc = new ResourceConfig(Service.class).register(new JettisonFeature());
     if (_mainSettings.getTracingEnable()) {
       rc.register(ServerTracingDynamicFeature.class);
@@ -473,10 +502,6 @@ public class Driver {
     }
   }
 
-  private static synchronized void makeIdle() {
-    _idle = true;
-  }
-
   public static synchronized AtomicInteger newBatch(
       Settings settings, String description, int jobs) {
     Batch batch = null;
@@ -532,6 +557,7 @@ public class Driver {
               settings,
               CACHED_TESTRIGS,
               CACHED_DATA_PLANES,
+              CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES,
               CACHED_ENVIRONMENT_BGP_TABLES,
               null,
               null);
@@ -541,8 +567,8 @@ public class Driver {
               ? null
               : GlobalTracer.get().activeSpan().context();
 
-      Thread thread =
-          new Thread(
+      FutureTask<Void> job =
+          new FutureTask<>(
               () -> {
                 try (ActiveSpan runBatfishSpan =
                     GlobalTracer.get()
@@ -607,17 +633,22 @@ public class Driver {
                     }
                   }
                 }
-              });
-
-      thread.start();
-      thread.join(settings.getMaxRuntimeMs());
+              },
+              null);
 
-      if (thread.isAlive()) {
-        // this is deprecated but we should be safe since we don't have
-        // locks and such
-        // AF: This doesn't do what you think it does, esp. not in Java 8.
-        // It needs to be replaced. TODO
-        thread.stop();
+      new Thread(job).start();
+      try {
+        int maxRuntimeMs = settings.getMaxRuntimeMs();
+        if (maxRuntimeMs > 0) {
+          job.get(maxRuntimeMs, TimeUnit.MILLISECONDS);
+        } else {
+          job.get();
+        }
+      } catch (TimeoutException e) {
+        // Interrupt the job rather than stopping its thread: the job may be loading a value shared
+        // with other tasks. It stops at its next interruption check, and other tasks waiting for
+        // the same value load it again.
+        job.cancel(true);
         logger.error("Batfish worker took too long. Terminated.");
         batfish.setTerminatingExceptionMessage("Batfish worker took too long. Terminated.");
       }
@@ -655,11 +686,13 @@ public class Driver {
       return Arrays.asList(BfConsts.SVC_FAILURE_KEY, "Non-executable command");
     }
 
-    if (!claimIdle()) {
-      return Arrays.asList(BfConsts.SVC_FAILURE_KEY, "Not idle");
+    ResourceClass resourceClass = ResourceClass.of(settings);
+    if (!_capacity.tryClaim(resourceClass)) {
+      return Arrays.asList(
+          BfConsts.SVC_FAILURE_KEY, "Not idle: no capacity for another " + resourceClass + " task");
     }
 
-    // try/catch so that the worker becomes idle again in case of problem submitting thread.
+    // try/catch so that the capacity is released in case of problem submitting the task.
     try {
 
       final BatfishLogger jobLogger =
@@ -681,36 +714,34 @@ public class Driver {
               ? null
               : GlobalTracer.get().activeSpan().context();
 
-      // run batfish on a new thread and set idle to true when done
-      Thread thread =
-          new Thread(
-              () -> {
-                try (ActiveSpan runBatfishSpan =
-                    GlobalTracer.get()
-                        .buildSpan("Initialize Batfish in a new thread")
-                        .addReference(References.FOLLOWS_FROM, runTaskSpanContext)
-                        .startActive()) {
-                  assert runBatfishSpan != null; // avoid unused warning
-                  task.setStatus(TaskStatus.InProgress);
-                  String errMsg = runBatfish(settings);
-                  if (errMsg == null) {
-                    task.setStatus(TaskStatus.TerminatedNormally);
-                  } else {
-                    task.setStatus(TaskStatus.TerminatedAbnormally);
-                    task.setErrMessage(errMsg);
-                  }
-                  task.setTerminated(new Date());
-                  jobLogger.close();
-                  makeIdle();
-                }
-              });
-
-      thread.start();
+      // run batfish on the task executor and release the capacity when done
+      _taskExecutor.execute(
+          () -> {
+            try (ActiveSpan runBatfishSpan =
+                GlobalTracer.get()
+                    .buildSpan("Initialize Batfish in a new thread")
+                    .addReference(References.FOLLOWS_FROM, runTaskSpanContext)
+                    .startActive()) {
+              assert runBatfishSpan != null; // avoid unused warning
+              task.setStatus(TaskStatus.InProgress);
+              String errMsg = runBatfish(settings);
+              if (errMsg == null) {
+                task.setStatus(TaskStatus.TerminatedNormally);
+              } else {
+                task.setStatus(TaskStatus.TerminatedAbnormally);
+                task.setErrMessage(errMsg);
+              }
+              task.setTerminated(new Date());
+              jobLogger.close();
+            } finally {
+              _capacity.release(resourceClass);
+            }
+          });
 
       return Arrays.asList(BfConsts.SVC_SUCCESS_KEY, "running now");
     } catch (Exception e) {
       _mainLogger.error("Exception while running task: " + e.getMessage());
-      makeIdle();
+      _capacity.release(resourceClass);
       return Arrays.asList(BfConsts.SVC_FAILURE_KEY, e.getMessage());
     }
   }
@@ -38,10 +38,16 @@ public class Service {
   @Produces(MediaType.APPLICATION_JSON)
   public JSONArray getStatus() {
     try {
+      // idle is kept for coordinators that do not know about capacity
+      int idleSlots = Driver.getIdleSlots();
       return new JSONArray(
           Arrays.asList(
               BfConsts.SVC_SUCCESS_KEY,
-              (new JSONObject().put("idle", Driver.getIdle())).toString()));
+              new JSONObject()
+                  .put(BfConsts.SVC_IDLE_KEY, idleSlots > 0)
+                  .put(BfConsts.SVC_IDLE_SLOTS_KEY, idleSlots)
+                  .put(BfConsts.SVC_MAX_TASKS_KEY, Driver.getMaxTasks())
+                  .toString()));
     } catch (Exception e) {
       return new JSONArray(Arrays.asList(BfConsts.SVC_FAILURE_KEY, e.getMessage()));
     }
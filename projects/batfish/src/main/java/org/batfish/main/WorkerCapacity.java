@@ -0,0 +1,97 @@
+package org.batfish.main;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.config.Settings;
+
+/**
+ * Tracks the tasks a Batfish worker service is running, and whether it can accept another task of a
+ * given {@link ResourceClass}. The worker runs at most {@link #getMaxTasks()} tasks at once, and at
+ * most a configured number of tasks of each limited class (e.g., so that several cheap questions
+ * can run next to a single data plane computation).
+ */
+@ParametersAreNonnullByDefault
+final class WorkerCapacity {
+
+  /** The kind of resources a task mostly uses */
+  enum ResourceClass {
+    /** Answering questions */
+    ANSWER,
+    /** Computing the data plane */
+    DATAPLANE,
+    /** Parsing and converting configurations */
+    PARSE;
+
+    /** Returns the class of the task described by {@code settings}, by its most expensive step */
+    static @Nonnull ResourceClass of(Settings settings) {
+      if (settings.getDataPlane()) {
+        return DATAPLANE;
+      } else if (settings.getSerializeVendor() || settings.getSerializeIndependent()) {
+        return PARSE;
+      } else {
+        return ANSWER;
+      }
+    }
+  }
+
+  /** Returns the capacity configured by {@code settings} */
+  static @Nonnull WorkerCapacity create(Settings settings) {
+    return new WorkerCapacity(
+        settings.getMaxConcurrentTasks(),
+        ImmutableMap.of(
+            ResourceClass.DATAPLANE,
+            settings.getMaxConcurrentDataPlaneTasks(),
+            ResourceClass.PARSE,
+            settings.getMaxConcurrentParseTasks()));
+  }
+
+  private final int _maxTasks;
+  private final Map<ResourceClass, Integer> _limits;
+  private final Map<ResourceClass, Integer> _running;
+  private int _totalRunning;
+
+  @VisibleForTesting
+  WorkerCapacity(int maxTasks, Map<ResourceClass, Integer> limits) {
+    checkArgument(maxTasks > 0, "A worker must be able to run at least one task");
+    _maxTasks = maxTasks;
+    _limits = ImmutableMap.copyOf(limits);
+    _running = new EnumMap<>(ResourceClass.class);
+  }
+
+  /**
+   * Reserves capacity for a task of class {@code resourceClass}. Returns false, reserving nothing,
+   * if the worker has no capacity left for such a task.
+   */
+  synchronized boolean tryClaim(ResourceClass resourceClass) {
+    int running = _running.getOrDefault(resourceClass, 0);
+    if (_totalRunning >= _maxTasks || running >= _limits.getOrDefault(resourceClass, _maxTasks)) {
+      return false;
+    }
+    _running.put(resourceClass, running + 1);
+    _totalRunning++;
+    return true;
+  }
+
+  /** Releases capacity reserved by a successful call to {@link #tryClaim(ResourceClass)} */
+  synchronized void release(ResourceClass resourceClass) {
+    int running = _running.getOrDefault(resourceClass, 0);
+    checkArgument(running > 0, "No %s task is running", resourceClass);
+    _running.put(resourceClass, running - 1);
+    _totalRunning--;
+  }
+
+  /** Returns the number of additional tasks the worker could accept, ignoring per-class limits */
+  synchronized int getIdleSlots() {
+    return _maxTasks - _totalRunning;
+  }
+
+  int getMaxTasks() {
+    return _maxTasks;
+  }
+}
@@ -0,0 +1,131 @@
+package org.batfish.bddreachability;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import net.sf.javabdd.BDD;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.BDDPacketLayout;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ForwardingAnalysis;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.main.TestrigText;
+import org.batfish.specifier.IpSpaceAssignment;
+import org.batfish.symbolic.IngressLocation;
+import org.junit.rules.TemporaryFolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing {@link BDDPacketLayout}s, with and without dynamic reordering, on BDD
+ * reachability analysis of a snapshot (by default, the {@code networks/example} snapshot): building
+ * a {@link BDDReachabilityAnalysisFactory} and computing the reachable headers from every source
+ * location. The peak node table size of each layout is printed during setup.
+ *
+ * <p>Run from {@code projects/batfish} with {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.batfish.bddreachability.BDDPacketLayoutBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BDDPacketLayoutBenchmark {
+
+  @Param({"GROUPED", "INTERLEAVED"})
+  public String _layout;
+
+  @Param({"false", "true"})
+  public boolean _autoReorder;
+
+  /** Snapshot directory containing a {@code configs} directory */
+  @Param({"../../networks/example/live"})
+  public String _snapshot;
+
+  private TemporaryFolder _folder;
+  private SortedMap<String, Configuration> _configurations;
+  private ForwardingAnalysis _forwardingAnalysis;
+  private IpSpaceAssignment _srcIpSpaceAssignment;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    SortedMap<String, String> configurationText = new TreeMap<>();
+    try (Stream<Path> paths = Files.list(Paths.get(_snapshot, "configs"))) {
+      paths.forEach(
+          path -> configurationText.put(path.getFileName().toString(), CommonUtil.readFile(path)));
+    }
+    _folder = new TemporaryFolder();
+    _folder.create();
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            TestrigText.builder().setConfigurationText(configurationText).build(), _folder);
+    _configurations = batfish.loadConfigurations();
+    batfish.computeDataPlane();
+    _forwardingAnalysis = batfish.loadDataPlane().getForwardingAnalysis();
+    _srcIpSpaceAssignment = batfish.getAllSourcesInferFromLocationIpSpaceAssignment();
+
+    BDDPacket pkt = newPacket();
+    Map<IngressLocation, BDD> reachable = reachableBdds(pkt);
+    System.out.printf(
+        "%n%s, autoReorder=%s: peak node table size %d, %d nodes in use, %d nodes in results%n",
+        _layout,
+        _autoReorder,
+        pkt.getFactory().getNodeTableSize(),
+        pkt.getFactory().getNodeNum(),
+        reachable.values().stream().mapToInt(BDD::nodeCount).sum());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    _folder.delete();
+  }
+
+  private BDDPacket newPacket() {
+    BDDPacket pkt =
+        new BDDPacket(
+            _layout.equals("INTERLEAVED") ? BDDPacketLayout.INTERLEAVED : BDDPacketLayout.GROUPED);
+    pkt.getFactory().setAutoReorder(_autoReorder);
+    return pkt;
+  }
+
+  private Map<IngressLocation, BDD> reachableBdds(BDDPacket pkt) {
+    return new BDDReachabilityAnalysisFactory(
+            pkt, _configurations, _forwardingAnalysis, false, false)
+        .bddReachabilityAnalysis(_srcIpSpaceAssignment)
+        .getIngressLocationReachableBDDs();
+  }
+
+  @Benchmark
+  public Map<IngressLocation, BDD> reachability() {
+    return reachableBdds(newPacket());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(BDDPacketLayoutBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
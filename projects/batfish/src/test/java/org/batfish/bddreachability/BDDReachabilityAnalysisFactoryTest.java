@@ -40,6 +40,8 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +52,7 @@ import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import net.sf.javabdd.BDD;
 import org.batfish.bddreachability.transition.Transition;
+import org.batfish.common.BatfishException;
 import org.batfish.common.bdd.BDDPacket;
 import org.batfish.common.bdd.HeaderSpaceToBDD;
 import org.batfish.common.bdd.IpSpaceToBDD;
@@ -60,6 +63,7 @@ import org.batfish.datamodel.ConfigurationFormat;
 import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.ForwardingAnalysis;
 import org.batfish.datamodel.HeaderSpace;
 import org.batfish.datamodel.Interface;
 import org.batfish.datamodel.Ip;
@@ -128,12 +132,15 @@ import org.batfish.symbolic.state.Query;
 import org.batfish.symbolic.state.StateExpr;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 
 /** Tests of {@link BDDReachabilityAnalysisFactory}. */
 public final class BDDReachabilityAnalysisFactoryTest {
   @Rule public TemporaryFolder temp = new TemporaryFolder();
 
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
   private static final BDDPacket PKT = new BDDPacket();
   private static final IpSpaceSpecifier CONSTANT_UNIVERSE_IPSPACE_SPECIFIER =
       new ConstantIpSpaceSpecifier(UniverseIpSpace.INSTANCE);
@@ -1616,4 +1623,69 @@ public final class BDDReachabilityAnalysisFactoryTest {
     // TODO: Specify final interface where DELIVERED_TO_SUBNET occurs when that becomes possible
     assertThat(deliveredToSubnetEndToEndBDD, equalTo(dstIpSpaceOfInterest.accept(ipSpaceToBDD)));
   }
+
+  @Test
+  public void testWriteAndReadGraph() throws IOException {
+    TestNetwork net = new TestNetwork();
+    Batfish batfish = BatfishTestUtils.getBatfish(net._configs, temp);
+    batfish.computeDataPlane();
+    ForwardingAnalysis forwardingAnalysis = batfish.loadDataPlane().getForwardingAnalysis();
+    IpSpaceAssignment assignment = ipSpaceAssignment(batfish);
+
+    BDDPacket pkt1 = new BDDPacket();
+    BDDReachabilityAnalysisFactory factory1 =
+        new BDDReachabilityAnalysisFactory(pkt1, net._configs, forwardingAnalysis, false, true);
+    ByteArrayOutputStream graph = new ByteArrayOutputStream();
+    factory1.writeGraph(graph);
+
+    // read the graph into a factory with another packet, as another process would
+    BDDPacket pkt2 = new BDDPacket();
+    BDDReachabilityAnalysisFactory factory2 =
+        new BDDReachabilityAnalysisFactory(
+            pkt2,
+            net._configs,
+            forwardingAnalysis,
+            false,
+            true,
+            new ByteArrayInputStream(graph.toByteArray()));
+
+    Map<IngressLocation, BDD> reachable1 =
+        factory1.bddReachabilityAnalysis(assignment).getIngressLocationReachableBDDs();
+    Map<IngressLocation, BDD> reachable2 =
+        factory2.bddReachabilityAnalysis(assignment).getIngressLocationReachableBDDs();
+    assertThat(reachable2.keySet(), equalTo(reachable1.keySet()));
+
+    // move the BDDs computed with the first packet to the second packet to compare them
+    List<IngressLocation> locations = ImmutableList.copyOf(reachable1.keySet());
+    ByteArrayOutputStream bdds = new ByteArrayOutputStream();
+    pkt1.writeBdds(locations.stream().map(reachable1::get).collect(Collectors.toList()), bdds);
+    List<BDD> expected = pkt2.readBdds(new ByteArrayInputStream(bdds.toByteArray()));
+    for (int i = 0; i < locations.size(); i++) {
+      assertThat(reachable2.get(locations.get(i)), equalTo(expected.get(i)));
+    }
+    assertTrue(expected.stream().anyMatch(bdd -> !bdd.isZero()));
+  }
+
+  @Test
+  public void testReadGraphWithOtherOptions() throws IOException {
+    TestNetwork net = new TestNetwork();
+    Batfish batfish = BatfishTestUtils.getBatfish(net._configs, temp);
+    batfish.computeDataPlane();
+    ForwardingAnalysis forwardingAnalysis = batfish.loadDataPlane().getForwardingAnalysis();
+
+    ByteArrayOutputStream graph = new ByteArrayOutputStream();
+    new BDDReachabilityAnalysisFactory(
+            new BDDPacket(), net._configs, forwardingAnalysis, false, false)
+        .writeGraph(graph);
+
+    _thrown.expect(BatfishException.class);
+    _thrown.expectMessage("options");
+    new BDDReachabilityAnalysisFactory(
+        new BDDPacket(),
+        net._configs,
+        forwardingAnalysis,
+        true,
+        false,
+        new ByteArrayInputStream(graph.toByteArray()));
+  }
 }
@@ -0,0 +1,136 @@
+package org.batfish.bddreachability;
+
+import static org.batfish.bddreachability.BDDReachabilityUtils.computeForwardEdgeTable;
+import static org.batfish.bddreachability.BDDReachabilityUtils.fixpoint;
+import static org.batfish.bddreachability.BDDReachabilityUtils.stronglyConnectedComponents;
+import static org.batfish.bddreachability.transition.Transitions.constraint;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
+import net.sf.javabdd.JFactory;
+import org.batfish.bddreachability.transition.Transition;
+import org.batfish.symbolic.state.NodeAccept;
+import org.batfish.symbolic.state.StateExpr;
+import org.junit.Test;
+
+/** Tests of {@link BDDReachabilityUtils}. */
+public final class BDDReachabilityUtilsTest {
+
+  private static final int NUM_VARS = 8;
+
+  private static final BDDFactory BDD_FACTORY = JFactory.init(10000, 1000);
+
+  static {
+    BDD_FACTORY.setVarNum(NUM_VARS);
+  }
+
+  private static final BDD ONE = BDD_FACTORY.one();
+
+  @Test
+  public void testStronglyConnectedComponents() {
+    StateExpr a = new NodeAccept("a");
+    StateExpr b = new NodeAccept("b");
+    StateExpr c = new NodeAccept("c");
+    StateExpr d = new NodeAccept("d");
+    StateExpr e = new NodeAccept("e");
+    Table<StateExpr, StateExpr, Transition> edges =
+        computeForwardEdgeTable(
+            ImmutableList.of(
+                new Edge(a, b, ONE),
+                new Edge(b, c, ONE),
+                new Edge(c, b, ONE),
+                new Edge(c, d, ONE),
+                new Edge(a, d, ONE),
+                new Edge(e, a, ONE)));
+
+    // e is not reachable from a
+    assertThat(
+        stronglyConnectedComponents(edges, ImmutableSet.of(a)),
+        contains(ImmutableList.of(a), ImmutableList.of(b, c), ImmutableList.of(d)));
+    assertThat(
+        stronglyConnectedComponents(Tables.transpose(edges), ImmutableSet.of(d)),
+        contains(
+            ImmutableList.of(d), ImmutableList.of(c, b), ImmutableList.of(a), ImmutableList.of(e)));
+  }
+
+  private static BDD randomBdd(Random random) {
+    BDD bdd = random.nextBoolean() ? ONE : BDD_FACTORY.zero();
+    for (int i = 0; i < 3; i++) {
+      BDD literal =
+          random.nextBoolean()
+              ? BDD_FACTORY.ithVar(random.nextInt(NUM_VARS))
+              : BDD_FACTORY.nithVar(random.nextInt(NUM_VARS));
+      bdd = random.nextBoolean() ? bdd.or(literal) : bdd.and(literal);
+    }
+    return bdd;
+  }
+
+  /** Both engines compute the same reachable sets, on random graphs with many cycles. */
+  @Test
+  public void testEnginesAgree() {
+    Random random = new Random(7);
+    for (int trial = 0; trial < 50; trial++) {
+      List<StateExpr> states = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        states.add(new NodeAccept("n" + i));
+      }
+      List<Edge> edgeList = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+        edgeList.add(
+            new Edge(
+                states.get(random.nextInt(states.size())),
+                states.get(random.nextInt(states.size())),
+                constraint(randomBdd(random))));
+      }
+      Table<StateExpr, StateExpr, Transition> forwardEdges = computeForwardEdgeTable(edgeList);
+      Map<StateExpr, BDD> roots = new HashMap<>();
+      roots.put(states.get(0), randomBdd(random).or(BDD_FACTORY.ithVar(0)));
+      roots.put(states.get(1), ONE);
+
+      Map<StateExpr, BDD> rounds = new HashMap<>(roots);
+      Map<StateExpr, BDD> scc = new HashMap<>(roots);
+      fixpoint(rounds, forwardEdges, Transition::transitForward, FixpointEngine.ROUNDS);
+      FixpointStats stats =
+          fixpoint(scc, forwardEdges, Transition::transitForward, FixpointEngine.SCC);
+      assertThat(scc, equalTo(rounds));
+      assertThat(stats.getBddOps(), greaterThan(0L));
+
+      Table<StateExpr, StateExpr, Transition> reverseEdges = Tables.transpose(forwardEdges);
+      rounds = new HashMap<>(roots);
+      scc = new HashMap<>(roots);
+      fixpoint(rounds, reverseEdges, Transition::transitBackward, FixpointEngine.ROUNDS);
+      fixpoint(scc, reverseEdges, Transition::transitBackward, FixpointEngine.SCC);
+      assertThat(scc, equalTo(rounds));
+    }
+  }
+
+  @Test
+  public void testStats() {
+    StateExpr a = new NodeAccept("a");
+    StateExpr b = new NodeAccept("b");
+    Table<StateExpr, StateExpr, Transition> edges =
+        computeForwardEdgeTable(ImmutableList.of(new Edge(a, b, ONE), new Edge(b, a, ONE)));
+    Map<StateExpr, BDD> reachable = new HashMap<>();
+    reachable.put(a, ONE);
+
+    FixpointStats stats =
+        fixpoint(reachable, edges, Transition::transitForward, FixpointEngine.SCC);
+
+    // a -> b adds b; b -> a adds nothing new to a
+    assertThat(stats.getTransitionsApplied(), equalTo(2L));
+    assertThat(stats.getBddOps(), equalTo(3L));
+  }
+}
@@ -0,0 +1,133 @@
+package org.batfish.datamodel.routing_policy;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.AbstractRouteBuilder;
+import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.main.TestrigText;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Differential test of compiled {@link RoutingPolicy routing policies} against the interpreter:
+ * evaluates every policy of the example networks on every route of their data planes, both ways.
+ */
+public final class CompiledRoutingPolicyIntegrationTest {
+
+  private static final Path EXAMPLE_NETWORKS = Paths.get("../../networks/example");
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private static SortedMap<String, String> readConfigs(Path snapshot) throws IOException {
+    SortedMap<String, String> configurationText = new TreeMap<>();
+    try (Stream<Path> paths = Files.list(snapshot.resolve("configs"))) {
+      paths.forEach(
+          path -> configurationText.put(path.getFileName().toString(), CommonUtil.readFile(path)));
+    }
+    return configurationText;
+  }
+
+  /**
+   * Returns the result of evaluating {@code policy} on {@code route}: the output route if it is
+   * accepted, false if it is rejected, or the class of the exception evaluation threw.
+   */
+  private static Object evaluate(
+      RoutingPolicy policy, AbstractRoute route, String vrf, Direction direction) {
+    // Policies not applied to BGP routes are evaluated as export into BGP
+    AbstractRouteBuilder<?, ?> outputRoute =
+        route instanceof BgpRoute
+            ? route.toBuilder()
+            : Bgpv4Route.builder()
+                .setNetwork(route.getNetwork())
+                .setOriginatorIp(Ip.ZERO)
+                .setOriginType(OriginType.INCOMPLETE)
+                .setProtocol(RoutingProtocol.BGP);
+    try {
+      boolean accepted =
+          policy.process(route, outputRoute, Ip.parse("192.0.2.1"), null, vrf, direction);
+      return accepted ? outputRoute.build() : false;
+    } catch (RuntimeException e) {
+      return e.getClass();
+    }
+  }
+
+  private void testSnapshot(String snapshot) throws IOException {
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            TestrigText.builder()
+                .setConfigurationText(readConfigs(EXAMPLE_NETWORKS.resolve(snapshot)))
+                .build(),
+            _folder);
+    SortedMap<String, Configuration> configurations = batfish.loadConfigurations();
+    batfish.computeDataPlane();
+    List<AbstractRoute> routes =
+        batfish.loadDataPlane().getRibs().values().stream()
+            .flatMap(ribs -> ribs.values().stream())
+            .flatMap(rib -> rib.getRoutes().stream())
+            .distinct()
+            .collect(Collectors.toList());
+    assertThat(routes, not(empty()));
+
+    int numPolicies = 0;
+    for (Configuration compiled : configurations.values()) {
+      // Java serialization drops the compiled form
+      Configuration interpreted = SerializationUtils.clone(compiled);
+      compiled.getRoutingPolicies().values().forEach(RoutingPolicy::compile);
+      for (String vrf : compiled.getVrfs().keySet()) {
+        for (RoutingPolicy policy : compiled.getRoutingPolicies().values()) {
+          RoutingPolicy interpretedPolicy = interpreted.getRoutingPolicies().get(policy.getName());
+          assertTrue(policy.isCompiled());
+          assertThat(interpretedPolicy.isCompiled(), equalTo(false));
+          numPolicies++;
+          for (Direction direction : Direction.values()) {
+            for (AbstractRoute route : routes) {
+              assertThat(
+                  String.format(
+                      "%s policy %s, %s, %s",
+                      compiled.getHostname(), policy.getName(), direction, route),
+                  evaluate(policy, route, vrf, direction),
+                  equalTo(evaluate(interpretedPolicy, route, vrf, direction)));
+            }
+          }
+        }
+      }
+    }
+    assertThat(numPolicies, greaterThan(0));
+  }
+
+  @Test
+  public void testExampleLive() throws IOException {
+    testSnapshot("live");
+  }
+
+  @Test
+  public void testExampleCandidate() throws IOException {
+    testSnapshot("candidate");
+  }
+}
@@ -0,0 +1,111 @@
+package org.batfish.dataplane.ibdp;
+
+import com.google.common.testing.EqualsTester;
+import org.batfish.datamodel.BgpActivePeerConfig;
+import org.batfish.datamodel.BgpPeerConfig;
+import org.batfish.datamodel.BgpProcess;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.BgpSessionProperties.SessionType;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.bgp.Ipv4UnicastAddressFamily;
+import org.junit.Test;
+
+/** Tests of {@link BgpUpdateGroup} */
+public final class BgpUpdateGroupTest {
+
+  private static final Ip LOCAL_IP = Ip.parse("1.1.1.1");
+
+  private static BgpSessionProperties.Builder sessionBuilder(Ip remoteIp) {
+    return BgpSessionProperties.builder()
+        .setHeadIp(LOCAL_IP)
+        .setTailIp(remoteIp)
+        .setSessionType(SessionType.IBGP);
+  }
+
+  private static BgpActivePeerConfig.Builder peerBuilder(Ip localIp, Ip peerAddress) {
+    return BgpActivePeerConfig.builder()
+        .setLocalIp(localIp)
+        .setLocalAs(1L)
+        .setRemoteAs(1L)
+        .setPeerAddress(peerAddress)
+        .setIpv4UnicastAddressFamily(
+            Ipv4UnicastAddressFamily.builder().setExportPolicy("export").build());
+  }
+
+  @Test
+  public void testEquals() {
+    Ip remoteIp1 = Ip.parse("2.2.2.2");
+    Ip remoteIp2 = Ip.parse("3.3.3.3");
+    BgpProcess remoteProcess =
+        BgpProcess.builder()
+            .setRouterId(Ip.ZERO)
+            .setAdminCostsToVendorDefaults(ConfigurationFormat.CISCO_IOS)
+            .build();
+    BgpProcess remoteProcessOtherAdmin =
+        BgpProcess.builder()
+            .setRouterId(Ip.ZERO)
+            .setAdminCostsToVendorDefaults(ConfigurationFormat.JUNIPER)
+            .build();
+    BgpPeerConfig ourConfig1 = peerBuilder(LOCAL_IP, remoteIp1).build();
+    BgpPeerConfig ourConfig2 = peerBuilder(LOCAL_IP, remoteIp2).build();
+    BgpPeerConfig remoteConfig1 = peerBuilder(remoteIp1, LOCAL_IP).build();
+    BgpPeerConfig remoteConfig2 = peerBuilder(remoteIp2, LOCAL_IP).build();
+    BgpSessionProperties session1 = sessionBuilder(remoteIp1).build();
+
+    new EqualsTester()
+        .addEqualityGroup(
+            BgpUpdateGroup.of(session1, ourConfig1, remoteConfig1, remoteProcess),
+            // a different peer with the same export behavior
+            BgpUpdateGroup.of(
+                sessionBuilder(remoteIp2).build(), ourConfig2, remoteConfig2, remoteProcess))
+        .addEqualityGroup(
+            BgpUpdateGroup.of(
+                sessionBuilder(remoteIp1).setSessionType(SessionType.EBGP_SINGLEHOP).build(),
+                ourConfig1,
+                remoteConfig1,
+                remoteProcess))
+        .addEqualityGroup(
+            BgpUpdateGroup.of(
+                sessionBuilder(remoteIp1).setHeadIp(Ip.parse("4.4.4.4")).build(),
+                ourConfig1,
+                remoteConfig1,
+                remoteProcess))
+        .addEqualityGroup(
+            BgpUpdateGroup.of(
+                sessionBuilder(remoteIp1).setAdvertiseInactive(true).build(),
+                ourConfig1,
+                remoteConfig1,
+                remoteProcess))
+        .addEqualityGroup(
+            BgpUpdateGroup.of(
+                session1,
+                peerBuilder(LOCAL_IP, remoteIp1)
+                    .setIpv4UnicastAddressFamily(
+                        Ipv4UnicastAddressFamily.builder().setExportPolicy("export2").build())
+                    .build(),
+                remoteConfig1,
+                remoteProcess))
+        .addEqualityGroup(
+            BgpUpdateGroup.of(
+                session1,
+                ourConfig1,
+                peerBuilder(remoteIp1, LOCAL_IP)
+                    .setIpv4UnicastAddressFamily(
+                        Ipv4UnicastAddressFamily.builder()
+                            .setExportPolicy("export")
+                            .setRouteReflectorClient(true)
+                            .build())
+                    .build(),
+                remoteProcess))
+        .addEqualityGroup(
+            BgpUpdateGroup.of(
+                session1,
+                ourConfig1,
+                peerBuilder(remoteIp1, LOCAL_IP).setLocalAs(2L).build(),
+                remoteProcess))
+        .addEqualityGroup(
+            BgpUpdateGroup.of(session1, ourConfig1, remoteConfig1, remoteProcessOtherAdmin))
+        .testEquals();
+  }
+}
@@ -24,7 +24,9 @@ import com.google.common.graph.ValueGraph;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
@@ -32,8 +34,10 @@ import java.util.TreeMap;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.BatfishLogger;
+import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.DataPlanePlugin;
 import org.batfish.common.plugin.DataPlanePlugin.ComputeDataPlaneResult;
+import org.batfish.common.topology.TopologyProvider;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.AnnotatedRoute;
 import org.batfish.datamodel.BgpActivePeerConfig;
@@ -72,6 +76,7 @@ import org.batfish.datamodel.isis.IsisProcess;
 import org.batfish.datamodel.routing_policy.RoutingPolicy;
 import org.batfish.datamodel.routing_policy.statement.SetDefaultPolicy;
 import org.batfish.dataplane.TracerouteEngineImpl;
+import org.batfish.dataplane.ibdp.schedule.IbdpSchedule.Schedule;
 import org.batfish.main.Batfish;
 import org.batfish.main.BatfishTestUtils;
 import org.batfish.main.TestrigText;
@@ -904,4 +909,65 @@ public class IncrementalDataPlanePluginTest {
 
     assertNotNull(deserializedDataPlane.getForwardingAnalysis());
   }
+
+  private static SortedMap<String, SortedMap<String, Set<AbstractRoute>>>
+      computeRibRoutes(Batfish batfish, Schedule schedule) {
+    IncrementalDataPlaneSettings settings = new IncrementalDataPlaneSettings();
+    settings.setScheduleName(schedule);
+    IncrementalBdpEngine engine =
+        new IncrementalBdpEngine(settings, new BatfishLogger(BatfishLogger.LEVELSTR_DEBUG, false));
+    NetworkSnapshot snapshot = batfish.getNetworkSnapshot();
+    TopologyProvider topologyProvider = batfish.getTopologyProvider();
+    ComputeDataPlaneResult dp =
+        engine.computeDataPlane(
+            batfish.loadConfigurations(snapshot),
+            TopologyContext.builder()
+                .setLayer3Topology(topologyProvider.getInitialLayer3Topology(snapshot))
+                .setOspfTopology(topologyProvider.getInitialOspfTopology(snapshot))
+                .build(),
+            ImmutableSet.of());
+    return dp._dataPlane.getRibs().entrySet().stream()
+        .collect(
+            ImmutableSortedMap.toImmutableSortedMap(
+                Comparator.naturalOrder(),
+                Entry::getKey,
+                ribsByVrf ->
+                    ribsByVrf.getValue().entrySet().stream()
+                        .collect(
+                            ImmutableSortedMap.toImmutableSortedMap(
+                                Comparator.naturalOrder(),
+                                Entry::getKey,
+                                rib -> rib.getValue().getRoutes()))));
+  }
+
+  /** The worklist schedule should converge to the same RIBs as the default schedule. */
+  @Test
+  public void testWorklistSchedule() throws IOException {
+    Map<String, List<String>> testrigs =
+        ImmutableMap.of(
+            "bgp-remove-private-as",
+            ImmutableList.of("r1", "r2", "r3"),
+            "ios-tunnels-eigrp",
+            ImmutableList.of("advertiser", "receiver"),
+            "ospf-default-originate",
+            ImmutableList.of(
+                "ios-area-0",
+                "ios-area-1-nssa",
+                "originator-always",
+                "originator-no-route",
+                "originator-static-route"));
+    for (Entry<String, List<String>> testrig : testrigs.entrySet()) {
+      String testrigName = testrig.getKey();
+      Batfish batfish =
+          BatfishTestUtils.getBatfishFromTestrigText(
+              TestrigText.builder()
+                  .setConfigurationText(TESTRIGS_PREFIX + testrigName, testrig.getValue())
+                  .build(),
+              _folder);
+      assertThat(
+          testrigName,
+          computeRibRoutes(batfish, Schedule.WORKLIST),
+          equalTo(computeRibRoutes(batfish, Schedule.NODE_COLORED)));
+    }
+  }
 }
@@ -2,6 +2,8 @@ package org.batfish.dataplane.ibdp;
 
 import static org.batfish.datamodel.matchers.AbstractRouteDecoratorMatchers.hasPrefix;
 import static org.batfish.datamodel.matchers.AbstractRouteDecoratorMatchers.hasProtocol;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.not;
@@ -34,6 +36,7 @@ import org.batfish.datamodel.RoutingProtocol;
 import org.batfish.datamodel.StaticRoute;
 import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.answers.IncrementalBdpAnswerElement;
 import org.batfish.datamodel.bgp.Ipv4UnicastAddressFamily;
 import org.batfish.datamodel.bgp.Ipv4UnicastAddressFamily.Builder;
 import org.batfish.datamodel.routing_policy.RoutingPolicy;
@@ -106,6 +109,13 @@ public class RouteReflectionTest {
    */
   private SortedMap<String, SortedMap<String, Set<AbstractRoute>>> generateRoutesOneReflector(
       boolean edge1RouteReflectorClient, boolean edge2RouteReflectorClient) {
+    ComputeDataPlaneResult dpResult =
+        computeDataPlaneOneReflector(edge1RouteReflectorClient, edge2RouteReflectorClient);
+    return IncrementalBdpEngine.getRoutes((IncrementalDataPlane) dpResult._dataPlane);
+  }
+
+  private ComputeDataPlaneResult computeDataPlaneOneReflector(
+      boolean edge1RouteReflectorClient, boolean edge2RouteReflectorClient) {
     Ip as1PeeringIp = Ip.parse("10.12.11.1");
     Ip edge1EbgpIfaceIp = Ip.parse("10.12.11.2");
     Ip edge1IbgpIfaceIp = Ip.parse("10.1.12.1");
@@ -253,7 +263,7 @@ public class RouteReflectionTest {
                     .setSrcIp(as3PeeringIp)
                     .setSrcNode("as3Edge")
                     .build()));
-    return IncrementalBdpEngine.getRoutes((IncrementalDataPlane) dpResult._dataPlane);
+    return dpResult;
   }
 
   private SortedMap<String, SortedMap<String, Set<AbstractRoute>>> generateRoutesTwoReflectors(
@@ -495,4 +505,42 @@ public class RouteReflectionTest {
     assertIbgpRoute(routes, RR_NAME, AS3_PREFIX);
     assertIbgpRoute(routes, EDGE2_NAME, AS1_PREFIX);
   }
+
+  /*
+   * AS1 |                  AS2                   | AS3
+   *       edge1(client) <=> rr <=> (client)edge2
+   */
+  @Test
+  public void testSingleReflectorTwoClientsUpdateGroups() {
+    IncrementalBdpAnswerElement ae =
+        (IncrementalBdpAnswerElement) computeDataPlaneOneReflector(true, true)._answerElement;
+
+    // both clients of rr are in the same update group, so rr shares its export policy results
+    assertThat(
+        ae.getBgpUpdateGroupsByIteration().get(ae.getDependentRoutesIterations()), equalTo(3));
+    assertThat(
+        ae.getSavedBgpExportPolicyEvaluationsByIteration().values().stream()
+            .mapToInt(Integer::intValue)
+            .sum(),
+        greaterThan(0));
+  }
+
+  /*
+   * AS1 |                   AS2          | AS3
+   *       edge1(client) <=> rr <=> edge2
+   */
+  @Test
+  public void testSingleReflectorOneClientUpdateGroups() {
+    IncrementalBdpAnswerElement ae =
+        (IncrementalBdpAnswerElement) computeDataPlaneOneReflector(true, false)._answerElement;
+
+    // only one of the peers of rr is a client, so they are in different update groups
+    assertThat(
+        ae.getBgpUpdateGroupsByIteration().get(ae.getDependentRoutesIterations()), equalTo(4));
+    assertThat(
+        ae.getSavedBgpExportPolicyEvaluationsByIteration().values().stream()
+            .mapToInt(Integer::intValue)
+            .sum(),
+        equalTo(0));
+  }
 }
@@ -13,6 +13,7 @@ import static org.junit.Assert.assertThat;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.batfish.datamodel.BgpTieBreaker;
@@ -195,6 +196,72 @@ public class AbstractRibTest {
     assertThat(match, contains(routes.get(0)));
   }
 
+  /**
+   * Ensure that longest prefix match results stay correct across repeated lookups (which build an
+   * index) and subsequent changes to the RIB (which must invalidate it)
+   */
+  @Test
+  public void testLongestPrefixMatchRepeatedLookups() {
+    List<StaticRoute> routes = setupOverlappingRoutes();
+    Ip ip = Ip.parse("10.1.1.1");
+    for (int i = 0; i < 100; i++) {
+      assertThat(_rib.longestPrefixMatch(ip), contains(routes.get(3)));
+      assertThat(_rib.longestPrefixMatch(ip, 8), contains(routes.get(0)));
+    }
+
+    _rib.removeRouteGetDelta(routes.get(3));
+    assertThat(_rib.longestPrefixMatch(ip), contains(routes.get(1)));
+
+    StaticRoute nonForwarding =
+        StaticRoute.builder()
+            .setNetwork(Prefix.parse("10.1.1.0/24"))
+            .setNextHopIp(Ip.ZERO)
+            .setAdministrativeCost(1)
+            .setNonForwarding(true)
+            .build();
+    _rib.mergeRouteGetDelta(nonForwarding);
+    for (int i = 0; i < 100; i++) {
+      assertThat(_rib.longestPrefixMatch(ip), contains(routes.get(1)));
+    }
+  }
+
+  /**
+   * Test that the incrementally maintained fingerprint and size always agree with the routes in the
+   * RIB, across merges (including replacement of less preferred routes), removals, and clearing.
+   */
+  @Test
+  public void testRoutesFingerprint() {
+    AbstractRib<RipInternalRoute> rib = new RipInternalRib();
+    assertThat(rib.getRoutesFingerprint(), equalTo(rib.getTypedRoutes().hashCode()));
+    assertThat(rib.size(), equalTo(0));
+
+    Random random = new Random(0);
+    List<RipInternalRoute> candidates = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      candidates.add(
+          new RipInternalRoute(
+              Prefix.create(Ip.create(random.nextInt(8) << 24), 8 + random.nextInt(2)),
+              Ip.create(random.nextInt(4)),
+              120,
+              random.nextInt(3),
+              Route.UNSET_ROUTE_TAG));
+    }
+    for (int i = 0; i < 1000; i++) {
+      RipInternalRoute route = candidates.get(random.nextInt(candidates.size()));
+      if (random.nextBoolean()) {
+        rib.mergeRouteGetDelta(route);
+      } else {
+        rib.removeRouteGetDelta(route);
+      }
+      assertThat(rib.getRoutesFingerprint(), equalTo(rib.getTypedRoutes().hashCode()));
+      assertThat(rib.size(), equalTo(rib.getTypedRoutes().size()));
+    }
+
+    rib.clear();
+    assertThat(rib.getRoutesFingerprint(), equalTo(0));
+    assertThat(rib.size(), equalTo(0));
+  }
+
   /** Test equality across different RIB instances */
   @Test
   public void testHasSameRoutes() {
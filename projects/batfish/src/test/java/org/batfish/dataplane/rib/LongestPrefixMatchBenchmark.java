@@ -0,0 +1,134 @@
+package org.batfish.dataplane.rib;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.LongestPrefixMatchIndex;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.PrefixTrieMultiMap;
+import org.batfish.datamodel.StaticRoute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing longest forwarding prefix match using {@link PrefixTrieMultiMap} (both
+ * the historical per-length loop of {@link RibTree} and the single-descent predicate lookup) against
+ * {@link LongestPrefixMatchIndex}.
+ *
+ * <p>Run with {@code mvn -pl batfish test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=org.batfish.dataplane.rib.LongestPrefixMatchBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LongestPrefixMatchBenchmark {
+
+  private static final int NUM_LOOKUPS = 1024;
+
+  @Param({"1000", "100000"})
+  public int _numRoutes;
+
+  private PrefixTrieMultiMap<StaticRoute> _trie;
+  private LongestPrefixMatchIndex<StaticRoute> _index;
+  private Ip[] _lookups;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(0);
+    _trie = new PrefixTrieMultiMap<>(Prefix.ZERO);
+    for (int i = 0; i < _numRoutes; i++) {
+      // Mostly /16-/32 routes, like a large routing table, and ~10% non-forwarding
+      int length = 16 + random.nextInt(Prefix.MAX_PREFIX_LENGTH - 16 + 1);
+      Prefix prefix = Prefix.create(Ip.create(random.nextInt() & 0xFFFFFFFFL), length);
+      _trie.put(
+          prefix,
+          StaticRoute.builder()
+              .setNetwork(prefix)
+              .setNextHopIp(Ip.create(random.nextInt() & 0xFFFFFFFFL))
+              .setAdministrativeCost(1)
+              .setNonForwarding(random.nextInt(10) == 0)
+              .build());
+    }
+    _trie.put(
+        Prefix.ZERO,
+        StaticRoute.builder()
+            .setNetwork(Prefix.ZERO)
+            .setNextHopIp(Ip.parse("1.1.1.1"))
+            .setAdministrativeCost(1)
+            .build());
+    _index = LongestPrefixMatchIndex.build(_trie, LongestPrefixMatchBenchmark::isForwarding);
+    _lookups = new Ip[NUM_LOOKUPS];
+    for (int i = 0; i < NUM_LOOKUPS; i++) {
+      _lookups[i] = Ip.create(random.nextInt() & 0xFFFFFFFFL);
+    }
+  }
+
+  private static boolean isForwarding(StaticRoute route) {
+    return !route.getNonForwarding();
+  }
+
+  /** The lookup previously performed by {@link RibTree#getLongestPrefixMatch(Ip, int)}. */
+  private static Set<StaticRoute> perLengthLoop(PrefixTrieMultiMap<StaticRoute> trie, Ip ip) {
+    for (int pl = Prefix.MAX_PREFIX_LENGTH; pl >= 0; pl--) {
+      Set<StaticRoute> routes = trie.longestPrefixMatch(ip, pl);
+      if (routes.stream().anyMatch(LongestPrefixMatchBenchmark::isForwarding)) {
+        return routes.stream()
+            .filter(LongestPrefixMatchBenchmark::isForwarding)
+            .collect(ImmutableSet.toImmutableSet());
+      }
+    }
+    return ImmutableSet.of();
+  }
+
+  @Benchmark
+  public void triePerLengthLoop(Blackhole bh) {
+    for (Ip ip : _lookups) {
+      bh.consume(perLengthLoop(_trie, ip));
+    }
+  }
+
+  @Benchmark
+  public void trieSingleDescent(Blackhole bh) {
+    for (Ip ip : _lookups) {
+      bh.consume(
+          _trie.longestPrefixMatch(
+              ip, Prefix.MAX_PREFIX_LENGTH, LongestPrefixMatchBenchmark::isForwarding));
+    }
+  }
+
+  @Benchmark
+  public void index(Blackhole bh) {
+    for (Ip ip : _lookups) {
+      bh.consume(_index.longestForwardingMatch(ip));
+    }
+  }
+
+  @Benchmark
+  public LongestPrefixMatchIndex<StaticRoute> indexBuild() {
+    return LongestPrefixMatchIndex.build(_trie, LongestPrefixMatchBenchmark::isForwarding);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(LongestPrefixMatchBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -88,6 +88,7 @@ import org.batfish.datamodel.StaticRoute;
 import org.batfish.datamodel.TcpFlagsMatchConditions;
 import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.acl.AclCompiler;
 import org.batfish.datamodel.acl.AclLineMatchExprs;
 import org.batfish.datamodel.acl.MatchSrcInterface;
 import org.batfish.datamodel.acl.OriginatingFromDevice;
@@ -529,8 +530,7 @@ public class TracerouteEngineImplTest {
             iface1,
             filter,
             FilterType.INGRESS_FILTER,
-            ImmutableMap.of(filterName, filter),
-            ImmutableMap.of(),
+            new AclCompiler(ImmutableMap.of(filterName, filter), ImmutableMap.of()),
             false);
 
     assertThat(step.getAction(), equalTo(StepAction.PERMITTED));
@@ -544,8 +544,7 @@ public class TracerouteEngineImplTest {
             iface2,
             filter,
             FilterType.INGRESS_FILTER,
-            ImmutableMap.of(filterName, filter),
-            ImmutableMap.of(),
+            new AclCompiler(ImmutableMap.of(filterName, filter), ImmutableMap.of()),
             false);
 
     assertThat(step.getAction(), equalTo(StepAction.DENIED));
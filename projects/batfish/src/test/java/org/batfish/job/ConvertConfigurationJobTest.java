@@ -0,0 +1,91 @@
+package org.batfish.job;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableMultimap;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.Warnings;
+import org.batfish.config.Settings;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.storage.FileBasedStorage;
+import org.batfish.storage.StorageProvider;
+import org.batfish.vendor.VendorConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link ConvertConfigurationJob}. */
+public class ConvertConfigurationJobTest {
+
+  private static final NetworkId NETWORK = new NetworkId("network");
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private Settings _settings;
+
+  private StorageProvider _storage;
+
+  @Before
+  public void setup() {
+    BatfishLogger logger = new BatfishLogger(BatfishLogger.LEVELSTR_FATAL, false);
+    _settings = new Settings();
+    _settings.setLogger(logger);
+    _storage = new FileBasedStorage(_folder.getRoot().toPath(), logger);
+  }
+
+  private VendorConfiguration parse(String hostname) {
+    return new ParseVendorConfigurationJob(
+            _settings,
+            String.format("!\nhostname %s\n!\n", hostname),
+            "configs/" + hostname,
+            new Warnings(),
+            ConfigurationFormat.CISCO_IOS,
+            ImmutableMultimap.of(),
+            null)
+        .call()
+        .getVendorConfiguration();
+  }
+
+  private ConvertConfigurationResult convert(String hostname, String cacheKey) {
+    return new ConvertConfigurationJob(
+            _settings, parse(hostname), hostname, _storage, NETWORK, cacheKey)
+        .call();
+  }
+
+  @Test
+  public void testCachedResultReused() {
+    assertThat(convert("h1", "key").getConfigurations().keySet(), contains("h1"));
+
+    // The cached result is used regardless of the configuration, so keys must cover all inputs
+    ConvertConfigurationResult reused = convert("h2", "key");
+    assertThat(reused.getConfigurations().keySet(), contains("h1"));
+    assertThat(reused.getConfigurations().get("h1").getHostname(), equalTo("h1"));
+  }
+
+  @Test
+  public void testCorruptCachedResult() throws IOException {
+    _storage.storeNetworkBlob(new ByteArrayInputStream(new byte[] {1, 2, 3}), NETWORK, "key");
+
+    // Converted again, and the cached result replaced
+    assertThat(convert("h1", "key").getConfigurations().keySet(), contains("h1"));
+    assertThat(convert("h2", "key").getConfigurations().keySet(), contains("h1"));
+  }
+
+  @Test
+  public void testNoCacheKey() throws IOException {
+    assertThat(convert("h1", null).getConfigurations().keySet(), contains("h1"));
+
+    _thrown.expect(FileNotFoundException.class);
+    _storage.loadNetworkBlob(NETWORK, "key");
+  }
+}
@@ -3,21 +3,32 @@ package org.batfish.main;
 import static org.batfish.datamodel.FlowDisposition.LOOP;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableSet;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.stream.Collectors;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.common.bdd.BDDPacket;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.flow.Trace;
 import org.batfish.question.loop.LoopNetwork;
+import org.batfish.storage.FileBasedStorage;
+import org.batfish.storage.StorageProvider;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -56,4 +67,115 @@ public class BatfishBDDDetectLoopsTest {
             .collect(Collectors.toSet());
     assertThat(dispositions, equalTo(ImmutableSet.of(LOOP)));
   }
+
+  @Test
+  public void testLoopsCachedFactory() throws IOException {
+    initNetwork(true);
+    Set<Flow> flows = _batfish.bddLoopDetection();
+
+    // the second question reuses the BDD reachability analysis factory of the first
+    assertThat(_batfish.bddLoopDetection(), equalTo(flows));
+
+    // and recomputing the data plane evicts it
+    _batfish.computeDataPlane();
+    assertThat(_batfish.bddLoopDetection(), equalTo(flows));
+  }
+
+  private CachedBddReachabilityAnalysisFactory getCachedFactory() {
+    return _batfish
+        .getCachedBddReachabilityAnalysisFactories()
+        .getIfPresent(new BddReachabilityAnalysisFactoryKey(_batfish.getNetworkSnapshot(), false));
+  }
+
+  @Test
+  public void testLoopsCachedFactoryNodeTableBounded() throws IOException {
+    initNetwork(true);
+    Set<Flow> flows = _batfish.bddLoopDetection();
+    int nodeTableSize = getCachedFactory().getNodeTableSize();
+
+    // repeated questions reuse the BDD nodes of the shared factory
+    for (int i = 0; i < 20; i++) {
+      assertThat(_batfish.bddLoopDetection(), equalTo(flows));
+      assertThat(getCachedFactory().getNodeTableSize(), equalTo(nodeTableSize));
+    }
+
+    // BDDs built by questions are never freed, so other questions grow its node table
+    _batfish.getSettings().setMaxCachedBddNodeTableSize(nodeTableSize);
+    BDDPacket pkt = getCachedFactory().getFactory().getBDDPacket();
+    for (int i = 0; i < nodeTableSize; i++) {
+      pkt.getDstIp().value(i);
+    }
+    assertThat(getCachedFactory().getNodeTableSize(), greaterThan(nodeTableSize));
+
+    // until it grows past the limit, and is replaced after the next question
+    assertThat(_batfish.bddLoopDetection(), equalTo(flows));
+    assertThat(getCachedFactory(), nullValue());
+    assertThat(_batfish.bddLoopDetection(), equalTo(flows));
+    assertThat(getCachedFactory().getNodeTableSize(), equalTo(nodeTableSize));
+  }
+
+  @Test
+  public void testLoopsOffHeap() throws IOException {
+    initNetwork(true);
+    Set<Flow> flows = _batfish.bddLoopDetection();
+
+    _batfish.getSettings().setBddOffHeap(true);
+    _batfish.getSettings().setBddOffHeapMaxMb(64);
+    _batfish.getCachedBddReachabilityAnalysisFactories().invalidateAll();
+    assertThat(_batfish.bddLoopDetection(), equalTo(flows));
+  }
+
+  @Test
+  public void testLoopsCachedFactoryInUse() throws Exception {
+    initNetwork(true);
+    Set<Flow> flows = _batfish.bddLoopDetection();
+    CachedBddReachabilityAnalysisFactory factory = getCachedFactory();
+
+    // another thread takes the factory and never releases it
+    Thread thread = new Thread(factory::tryLock);
+    thread.start();
+    thread.join();
+
+    // the question uses a factory of its own instead of waiting
+    assertThat(_batfish.bddLoopDetection(), equalTo(flows));
+    assertThat(getCachedFactory(), sameInstance(factory));
+  }
+
+  private boolean hasStoredGraph() throws IOException {
+    NetworkSnapshot snapshot = _batfish.getNetworkSnapshot();
+    StorageProvider storage =
+        new FileBasedStorage(_batfish.getSettings().getStorageBase(), _batfish.getLogger());
+    try (InputStream graph =
+        storage.loadSnapshotObject(
+            snapshot.getNetwork(),
+            snapshot.getSnapshot(),
+            Batfish.bddReachabilityGraphKey(false))) {
+      return graph != null;
+    } catch (FileNotFoundException e) {
+      return false;
+    }
+  }
+
+  @Test
+  public void testLoopsStoredGraph() throws IOException {
+    initNetwork(true);
+    Set<Flow> flows = _batfish.bddLoopDetection();
+    assertFalse(hasStoredGraph());
+
+    // the first factory built with the setting stores its graph
+    _batfish.getSettings().setBddStoreGraph(true);
+    _batfish.getCachedBddReachabilityAnalysisFactories().invalidateAll();
+    assertThat(_batfish.bddLoopDetection(), equalTo(flows));
+    assertTrue(hasStoredGraph());
+
+    // and the next one reads it
+    _batfish.getCachedBddReachabilityAnalysisFactories().invalidateAll();
+    assertThat(_batfish.bddLoopDetection(), equalTo(flows));
+
+    // recomputing the data plane deletes it
+    _batfish.computeDataPlane();
+    assertFalse(hasStoredGraph());
+    assertThat(_batfish.bddLoopDetection(), equalTo(flows));
+    assertTrue(hasStoredGraph());
+  }
 }
@@ -1,22 +1,32 @@
 package org.batfish.main;
 
+import static org.batfish.common.util.CommonUtil.checkInterrupted;
 import static org.batfish.common.util.ThrowableMatchers.hasStackTrace;
+import static org.batfish.main.Batfish.getCached;
+import static org.batfish.main.Batfish.getConvertResultKey;
+import static org.batfish.main.Batfish.getParseResultKey;
+import static org.batfish.main.Batfish.listAllFiles;
 import static org.batfish.main.Batfish.postProcessInterfaceDependencies;
 import static org.batfish.main.Batfish.readAllFiles;
 import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import java.io.File;
@@ -24,6 +34,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -34,18 +45,25 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import org.batfish.common.Answerer;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
+import org.batfish.common.CompletionMetadata;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.common.Warnings;
 import org.batfish.common.topology.IpOwners;
 import org.batfish.common.topology.Layer1Edge;
 import org.batfish.common.topology.Layer1Node;
 import org.batfish.common.topology.Layer1Topology;
 import org.batfish.common.util.CommonUtil;
+import org.batfish.config.Settings;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
 import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.GenericConfigObject;
 import org.batfish.datamodel.Interface;
 import org.batfish.datamodel.Interface.Dependency;
 import org.batfish.datamodel.Interface.DependencyType;
@@ -59,14 +77,18 @@ import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.datamodel.answers.AnswerStatus;
 import org.batfish.datamodel.answers.ParseStatus;
 import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
+import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.questions.Question;
 import org.batfish.datamodel.questions.TestQuestion;
 import org.batfish.identifiers.AnalysisId;
 import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.QuestionId;
 import org.batfish.identifiers.QuestionSettingsId;
+import org.batfish.identifiers.SnapshotId;
 import org.batfish.identifiers.TestIdResolver;
+import org.batfish.job.ParseVendorConfigurationJob;
 import org.batfish.job.ParseVendorConfigurationResult;
+import org.batfish.representation.aws.AwsConfiguration;
 import org.batfish.representation.host.HostConfiguration;
 import org.batfish.storage.TestStorageProvider;
 import org.batfish.vendor.VendorConfiguration;
@@ -205,6 +227,30 @@ public class BatfishTest {
     assertThat(batfish2.loadConfigurations().keySet(), equalTo(ImmutableSet.of("rtr1", "rtr2")));
   }
 
+  @Test
+  public void testInitTestrigWithDistantDuplicateHostnames() throws IOException {
+    // first and last have the same hostname, and many files are parsed in between
+    SortedMap<String, String> configurationText = new TreeMap<>();
+    configurationText.put("first", "!\nhostname dup\n!\n");
+    for (int i = 0; i < 50; i++) {
+      String name = String.format("middle%02d", i);
+      configurationText.put(name, String.format("!\nhostname %s\n!\n", name));
+    }
+    configurationText.put("last", "!\nhostname dup\n!\n");
+
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            TestrigText.builder().setConfigurationText(configurationText).build(), _folder);
+    Map<String, Configuration> configurations = batfish.loadConfigurations();
+
+    String firstName = ParseVendorConfigurationResult.getModifiedNameBase("dup", "configs/first");
+    String lastName = ParseVendorConfigurationResult.getModifiedNameBase("dup", "configs/last");
+    assertThat(configurations.keySet(), hasSize(52));
+    assertThat(configurations.get(firstName).getHostname(), equalTo(firstName));
+    assertThat(configurations.get(lastName).getHostname(), equalTo(lastName));
+    assertThat(configurations, not(hasKey("dup")));
+  }
+
   @Test
   public void testInitTestrigWithLayer1Topology() throws IOException {
     String testrigResourcePrefix = "org/batfish/common/topology/testrigs/layer1";
@@ -397,6 +443,25 @@ public class BatfishTest {
     assertThat(expected, equalTo(actual));
   }
 
+  @Test
+  public void testListAllFiles() throws IOException {
+    Path folder = _folder.newFolder("listedDirectory").toPath();
+    List<Path> expected =
+        ImmutableList.of(
+            folder.resolve("a-test.cfg"),
+            folder.resolve("b").resolve("a-test.cfg"),
+            folder.resolve("c-test.cfg"));
+    for (Path path : expected) {
+      path.getParent().toFile().mkdir();
+      assertThat(path.toFile().createNewFile(), is(true));
+    }
+    assertThat(folder.resolve(".d-test.cfg").toFile().createNewFile(), is(true));
+
+    assertThat(listAllFiles(folder), equalTo(expected));
+    assertThat(
+        ImmutableList.copyOf(readAllFiles(folder, LOGGER).keySet()), equalTo(listAllFiles(folder)));
+  }
+
   @Test
   public void testReadStartWithDotFile() throws IOException {
     Path startWithDot = _folder.newFolder("startWithDot").toPath();
@@ -476,6 +541,53 @@ public class BatfishTest {
     assertThat(answerElement.getErrors().size(), is(0));
   }
 
+  @Test
+  public void testLoadConfigurationsCompletionMetadataSnapshot() {
+    NetworkSnapshot snapshot =
+        new NetworkSnapshot(new NetworkId("network"), new SnapshotId("snapshot"));
+    List<NetworkSnapshot> stored = new ArrayList<>();
+    Batfish batfish =
+        BatfishTestUtils.getBatfish(
+            new TestStorageProvider() {
+              @Override
+              public SortedMap<String, Configuration> loadConfigurations(
+                  NetworkId network, SnapshotId snapshot) {
+                return ImmutableSortedMap.of(
+                    "n1", new Configuration("n1", ConfigurationFormat.CISCO_IOS));
+              }
+
+              @Override
+              public SortedSet<NodeInterfacePair> loadInterfaceBlacklist(
+                  NetworkId network, SnapshotId snapshot) {
+                return null;
+              }
+
+              @Override
+              public SortedSet<String> loadNodeBlacklist(NetworkId network, SnapshotId snapshot) {
+                return null;
+              }
+
+              @Override
+              public CompletionMetadata loadCompletionMetadata(
+                  NetworkId networkId, SnapshotId snapshotId) {
+                return CompletionMetadata.EMPTY;
+              }
+
+              @Override
+              public void storeCompletionMetadata(
+                  CompletionMetadata completionMetadata,
+                  NetworkId networkId,
+                  SnapshotId snapshotId) {
+                stored.add(new NetworkSnapshot(networkId, snapshotId));
+              }
+            },
+            new TestIdResolver());
+
+    // the loaded snapshot is not the current one, whose metadata must not be written
+    assertThat(batfish.loadConfigurations(snapshot).keySet(), contains("n1"));
+    assertThat(stored, contains(snapshot));
+  }
+
   @Test
   public void testLoadQuestionSettingsPresent() {
     String questionSettings = "{}";
@@ -777,4 +889,145 @@ public class BatfishTest {
     _thrown.expect(FileNotFoundException.class);
     batfish.getSnapshotInputObject("missing file");
   }
+
+  private static VendorConfiguration parseWithKey(Settings settings, String text) {
+    String filename = "configs/r1";
+    VendorConfiguration vc =
+        new ParseVendorConfigurationJob(
+                settings,
+                text,
+                filename,
+                new Warnings(),
+                ConfigurationFormat.CISCO_IOS,
+                ImmutableMultimap.of(),
+                null)
+            .call()
+            .getVendorConfiguration();
+    vc.setParseResultKey(getParseResultKey(filename, text, settings));
+    return vc;
+  }
+
+  @Test
+  public void testGetCachedReloadsAfterCancelledLoad() throws Exception {
+    Cache<String, String> cache = CacheBuilder.newBuilder().build();
+    Thread waiter = Thread.currentThread();
+    CountDownLatch loadStarted = new CountDownLatch(1);
+    Thread cancelled =
+        new Thread(
+            () -> {
+              try {
+                getCached(
+                    cache,
+                    "key",
+                    () -> {
+                      loadStarted.countDown();
+                      // fail only once the other thread waits for this load
+                      while (waiter.getState() != Thread.State.WAITING) {
+                        Thread.sleep(1);
+                      }
+                      throw new CancellationException();
+                    });
+              } catch (CancellationException e) {
+                // expected
+              }
+            });
+    cancelled.start();
+    loadStarted.await();
+
+    // The failed load is not this thread's, so it is retried.
+    assertThat(getCached(cache, "key", () -> "value"), equalTo("value"));
+    cancelled.join();
+  }
+
+  @Test
+  public void testGetCachedInterrupted() {
+    Cache<String, String> cache = CacheBuilder.newBuilder().build();
+    Thread.currentThread().interrupt();
+    try {
+      _thrown.expect(CancellationException.class);
+      getCached(
+          cache,
+          "key",
+          () -> {
+            checkInterrupted();
+            return "value";
+          });
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void testGetConvertResultKey() {
+    Settings settings = new Settings();
+    settings.setLogger(new BatfishLogger(BatfishLogger.LEVELSTR_FATAL, false));
+    String text = "!\nhostname r1\n!\n";
+    String key = getConvertResultKey(parseWithKey(settings, text), settings, "1.0");
+
+    assertThat(key, notNullValue());
+    // Deterministic
+    assertThat(getConvertResultKey(parseWithKey(settings, text), settings, "1.0"), equalTo(key));
+    // Changes with the file text
+    assertThat(
+        getConvertResultKey(parseWithKey(settings, text + "!\n"), settings, "1.0"),
+        not(equalTo(key)));
+    // Changes with the version
+    assertThat(
+        getConvertResultKey(parseWithKey(settings, text), settings, "2.0"), not(equalTo(key)));
+    // Changes with the hostname, which may be changed after parsing to resolve duplicates
+    VendorConfiguration renamed = parseWithKey(settings, text);
+    renamed.setHostname("r1__configs_r1");
+    assertThat(getConvertResultKey(renamed, settings, "1.0"), not(equalTo(key)));
+  }
+
+  @Test
+  public void testGetConvertResultKeyNotCached() {
+    Settings settings = new Settings();
+    settings.setLogger(new BatfishLogger(BatfishLogger.LEVELSTR_FATAL, false));
+    String text = "!\nhostname r1\n!\n";
+
+    // No parse result key
+    VendorConfiguration noParseKey = parseWithKey(settings, text);
+    noParseKey.setParseResultKey(null);
+    assertThat(getConvertResultKey(noParseKey, settings, "1.0"), nullValue());
+
+    // Overlay
+    VendorConfiguration overlaid = parseWithKey(settings, text);
+    overlaid.setOverlayConfiguration(new HostConfiguration());
+    assertThat(getConvertResultKey(overlaid, settings, "1.0"), nullValue());
+
+    // Host
+    HostConfiguration host = new HostConfiguration();
+    host.setHostname("h1");
+    host.setFilename("configs/h1");
+    host.setParseResultKey("key");
+    assertThat(getConvertResultKey(host, settings, "1.0"), nullValue());
+
+    // AWS
+    assertThat(getConvertResultKey(new AwsConfiguration(), settings, "1.0"), nullValue());
+
+    // Parse reuse disabled
+    settings.setParseReuse(false);
+    assertThat(getConvertResultKey(parseWithKey(settings, text), settings, "1.0"), nullValue());
+  }
+
+  @Test
+  public void testParseResultKeySerialized() throws IOException {
+    String text = "!\nhostname r1\n!\n";
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            TestrigText.builder().setConfigurationText(ImmutableMap.of("r1", text)).build(),
+            _folder);
+    batfish.loadConfigurations();
+
+    Map<String, GenericConfigObject> vendorConfigurations =
+        batfish.deserializeVendorConfigurations(
+            batfish.getSettings().getBaseTestrigSettings().getSerializeVendorPath());
+    VendorConfiguration vc = (VendorConfiguration) vendorConfigurations.get("r1");
+    // The key of the parse result is kept, so conversion is cached without reading the file again.
+    // Files are read with a trailing newline.
+    assertThat(
+        vc.getParseResultKey(),
+        equalTo(getParseResultKey("configs/r1", text + "\n", batfish.getSettings())));
+  }
 }
@@ -52,6 +52,11 @@ public class BatfishTestUtils {
     return CacheBuilder.newBuilder().softValues().maximumSize(2).build();
   }
 
+  private static Cache<BddReachabilityAnalysisFactoryKey, CachedBddReachabilityAnalysisFactory>
+      makeBddReachabilityAnalysisFactoryCache() {
+    return CacheBuilder.newBuilder().softValues().recordStats().build();
+  }
+
   private static Batfish initBatfish(
       SortedMap<String, Configuration> configurations, @Nonnull TemporaryFolder tempFolder)
       throws IOException {
@@ -77,6 +82,7 @@ public class BatfishTestUtils {
             settings,
             testrigs,
             makeDataPlaneCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             makeEnvBgpCache(),
             null,
             new TestFileBasedIdResolver(settings.getStorageBase()));
@@ -119,6 +125,7 @@ public class BatfishTestUtils {
             settings,
             testrigs,
             makeDataPlaneCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             makeEnvBgpCache(),
             null,
             new TestFileBasedIdResolver(settings.getStorageBase()));
@@ -194,6 +201,7 @@ public class BatfishTestUtils {
             settings,
             makeTestrigCache(),
             makeDataPlaneCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             makeEnvBgpCache(),
             null,
             new TestFileBasedIdResolver(settings.getStorageBase()));
@@ -245,6 +253,7 @@ public class BatfishTestUtils {
             settings,
             makeTestrigCache(),
             makeDataPlaneCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             makeEnvBgpCache(),
             storageProvider,
             idResolver);
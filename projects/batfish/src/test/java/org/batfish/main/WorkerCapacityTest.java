@@ -0,0 +1,73 @@
+package org.batfish.main;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import org.batfish.config.Settings;
+import org.batfish.main.WorkerCapacity.ResourceClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/** Tests of {@link WorkerCapacity} */
+public final class WorkerCapacityTest {
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  @Test
+  public void testTryClaimTotalLimit() {
+    WorkerCapacity capacity = new WorkerCapacity(2, ImmutableMap.of());
+
+    assertThat(capacity.tryClaim(ResourceClass.ANSWER), equalTo(true));
+    assertThat(capacity.tryClaim(ResourceClass.PARSE), equalTo(true));
+    assertThat(capacity.getIdleSlots(), equalTo(0));
+    assertThat(capacity.tryClaim(ResourceClass.ANSWER), equalTo(false));
+
+    capacity.release(ResourceClass.PARSE);
+    assertThat(capacity.getIdleSlots(), equalTo(1));
+    assertThat(capacity.tryClaim(ResourceClass.ANSWER), equalTo(true));
+  }
+
+  @Test
+  public void testTryClaimClassLimit() {
+    WorkerCapacity capacity = new WorkerCapacity(4, ImmutableMap.of(ResourceClass.DATAPLANE, 1));
+
+    assertThat(capacity.tryClaim(ResourceClass.DATAPLANE), equalTo(true));
+    assertThat(capacity.tryClaim(ResourceClass.DATAPLANE), equalTo(false));
+    // other classes are still accepted while the data plane is being computed
+    assertThat(capacity.tryClaim(ResourceClass.ANSWER), equalTo(true));
+    assertThat(capacity.tryClaim(ResourceClass.ANSWER), equalTo(true));
+    assertThat(capacity.getIdleSlots(), equalTo(1));
+
+    capacity.release(ResourceClass.DATAPLANE);
+    assertThat(capacity.tryClaim(ResourceClass.DATAPLANE), equalTo(true));
+  }
+
+  @Test
+  public void testReleaseUnclaimed() {
+    WorkerCapacity capacity = new WorkerCapacity(1, ImmutableMap.of());
+
+    _thrown.expect(IllegalArgumentException.class);
+    capacity.release(ResourceClass.ANSWER);
+  }
+
+  @Test
+  public void testCreateDefault() {
+    WorkerCapacity capacity = WorkerCapacity.create(new Settings(new String[] {}));
+
+    // one task at a time, as before
+    assertThat(capacity.getMaxTasks(), equalTo(1));
+    assertThat(capacity.getIdleSlots(), equalTo(1));
+  }
+
+  @Test
+  public void testResourceClassOf() {
+    assertThat(
+        ResourceClass.of(new Settings(new String[] {"-dp"})), equalTo(ResourceClass.DATAPLANE));
+    assertThat(
+        ResourceClass.of(new Settings(new String[] {"-sv", "-si"})), equalTo(ResourceClass.PARSE));
+    assertThat(
+        ResourceClass.of(new Settings(new String[] {"-answer"})), equalTo(ResourceClass.ANSWER));
+  }
+}
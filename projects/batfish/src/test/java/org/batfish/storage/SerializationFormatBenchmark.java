@@ -0,0 +1,156 @@
+package org.batfish.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.common.util.SerializationFormat;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.main.TestrigText;
+import org.junit.rules.TemporaryFolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing round-trip throughput and serialized size of each {@link
+ * SerializationFormat} on the configurations and dataplane of a snapshot (by default, the {@code
+ * networks/example} snapshot). Objects are LZ4-compressed in memory, as {@link FileBasedStorage}
+ * does on disk. Serialized sizes are printed during setup.
+ *
+ * <p>Run from {@code projects/batfish} with {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=org.batfish.storage.SerializationFormatBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationFormatBenchmark {
+
+  @Param({"COMPACT", "JAVA"})
+  public SerializationFormat _format;
+
+  /** Snapshot directory containing a {@code configs} directory */
+  @Param({"../../networks/example/live"})
+  public String _snapshot;
+
+  private TemporaryFolder _folder;
+  private SortedMap<String, Configuration> _configurations;
+  private DataPlane _dataPlane;
+  private SortedMap<String, byte[]> _serializedConfigurations;
+  private byte[] _serializedDataPlane;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    SortedMap<String, String> configurationText = new TreeMap<>();
+    try (Stream<Path> paths = Files.list(Paths.get(_snapshot, "configs"))) {
+      paths.forEach(
+          path -> configurationText.put(path.getFileName().toString(), CommonUtil.readFile(path)));
+    }
+    _folder = new TemporaryFolder();
+    _folder.create();
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            TestrigText.builder().setConfigurationText(configurationText).build(), _folder);
+    _configurations = batfish.loadConfigurations();
+    batfish.computeDataPlane();
+    _dataPlane = batfish.loadDataPlane();
+
+    _serializedConfigurations = serializeConfigurations();
+    _serializedDataPlane = serialize(_dataPlane, _format);
+    System.out.printf(
+        "%n%s: configurations %d bytes, dataplane %d bytes%n",
+        _format,
+        _serializedConfigurations.values().stream().mapToInt(b -> b.length).sum(),
+        _serializedDataPlane.length);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    _folder.delete();
+  }
+
+  private static byte[] serialize(Serializable object, SerializationFormat format)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = format.newObjectOutputStream(new LZ4FrameOutputStream(out))) {
+      oos.writeObject(object);
+    }
+    return out.toByteArray();
+  }
+
+  private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream ois =
+        SerializationFormat.newObjectInputStream(
+            new LZ4FrameInputStream(new ByteArrayInputStream(data)))) {
+      return ois.readObject();
+    }
+  }
+
+  @Benchmark
+  public SortedMap<String, byte[]> serializeConfigurations() throws IOException {
+    SortedMap<String, byte[]> serialized = new TreeMap<>();
+    for (Configuration c : _configurations.values()) {
+      serialized.put(c.getHostname(), serialize(c, _format));
+    }
+    return serialized;
+  }
+
+  @Benchmark
+  public SortedMap<String, Object> deserializeConfigurations()
+      throws IOException, ClassNotFoundException {
+    SortedMap<String, Object> deserialized = new TreeMap<>();
+    for (String hostname : _serializedConfigurations.keySet()) {
+      deserialized.put(hostname, deserialize(_serializedConfigurations.get(hostname)));
+    }
+    return deserialized;
+  }
+
+  @Benchmark
+  public byte[] serializeDataPlane() throws IOException {
+    return serialize(_dataPlane, _format);
+  }
+
+  @Benchmark
+  public Object deserializeDataPlane() throws IOException, ClassNotFoundException {
+    return deserialize(_serializedDataPlane);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(SerializationFormatBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+}
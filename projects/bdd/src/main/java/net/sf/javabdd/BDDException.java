@@ -43,4 +43,8 @@ public class BDDException extends RuntimeException {
   public BDDException(String s) {
     super(s);
   }
+
+  public BDDException(String s, Throwable cause) {
+    super(s, cause);
+  }
 }
@@ -30,6 +30,8 @@ package net.sf.javabdd;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -38,12 +40,16 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.math.BigInteger;
 import java.security.AccessControlException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 /**
@@ -697,6 +703,169 @@ public abstract class BDDFactory {
     return v;
   }
 
+  /**
+   * Saves BDDs to a binary output. Nodes shared by several of the BDDs are written only once, and
+   * each node is written as its variable and the indices of its children. Load them back with
+   * {@link #load(DataInput)}.
+   */
+  public void save(DataOutput out, List<BDD> bdds) throws IOException {
+    Map<BDD, Integer> nodeIndices = new HashMap<>();
+    List<int[]> nodes = new ArrayList<>();
+    int[] roots = new int[bdds.size()];
+    for (int i = 0; i < roots.length; i++) {
+      roots[i] = save_rec(nodeIndices, nodes, bdds.get(i));
+    }
+    out.writeInt(varNum());
+    out.writeInt(nodes.size());
+    for (int[] node : nodes) {
+      out.writeInt(node[0]);
+      out.writeInt(node[1]);
+      out.writeInt(node[2]);
+    }
+    out.writeInt(roots.length);
+    for (int root : roots) {
+      out.writeInt(root);
+    }
+    nodeIndices.keySet().forEach(BDD::free);
+  }
+
+  /**
+   * Helper function for save(DataOutput, List). Adds the nodes of {@code bdd} not in {@code
+   * nodeIndices} to {@code nodes} (children before parents), and returns its reference: 0 for
+   * false, 1 for true, and 2 plus its index in {@code nodes} otherwise.
+   */
+  private int save_rec(Map<BDD, Integer> nodeIndices, List<int[]> nodes, BDD bdd) {
+    if (bdd.isZero()) {
+      return 0;
+    }
+    if (bdd.isOne()) {
+      return 1;
+    }
+    Integer index = nodeIndices.get(bdd);
+    if (index != null) {
+      return index + 2;
+    }
+    BDD low = bdd.low();
+    BDD high = bdd.high();
+    int lowRef = save_rec(nodeIndices, nodes, low);
+    int highRef = save_rec(nodeIndices, nodes, high);
+    low.free();
+    high.free();
+    index = nodes.size();
+    nodes.add(new int[] {bdd.var(), lowRef, highRef});
+    nodeIndices.put(bdd.id(), index);
+    return index + 2;
+  }
+
+  /**
+   * Loads BDDs saved by {@link #save(DataOutput, List)}, in the same order. The BDDs are rebuilt by
+   * variable, so this factory may have a different variable order than the one that saved them.
+   */
+  public List<BDD> load(DataInput in) throws IOException {
+    int vnum = in.readInt();
+    if (vnum > varNum()) {
+      setVarNum(vnum);
+    }
+    int numNodes = in.readInt();
+    if (numNodes < 0) {
+      throw new BDDException("Incorrect file format");
+    }
+    BDD[] nodes = new BDD[numNodes + 2];
+    nodes[0] = zero();
+    nodes[1] = one();
+    for (int n = 2; n < nodes.length; n++) {
+      int var = in.readInt();
+      int low = in.readInt();
+      int high = in.readInt();
+      if (var < 0 || var >= vnum || low < 0 || low >= n || high < 0 || high >= n) {
+        throw new BDDException("Incorrect file format");
+      }
+      BDD v = ithVar(var);
+      nodes[n] = v.ite(nodes[high], nodes[low]);
+      v.free();
+    }
+    int numRoots = in.readInt();
+    if (numRoots < 0) {
+      throw new BDDException("Incorrect file format");
+    }
+    List<BDD> result = new ArrayList<>(numRoots);
+    for (int i = 0; i < numRoots; i++) {
+      int root = in.readInt();
+      if (root < 0 || root >= nodes.length) {
+        throw new BDDException("Incorrect file format");
+      }
+      result.add(nodes[root].id());
+    }
+    for (BDD node : nodes) {
+      node.free();
+    }
+    return result;
+  }
+
+  /**
+   * Copies {@code bdds}, which may belong to another factory, into this factory, in the same order.
+   * Like {@link #load(DataInput)}, the copies are rebuilt by variable, so the factories may have
+   * different variable orders. Nodes shared by several of the BDDs are copied only once.
+   *
+   * <p>The factory of {@code bdds} must not be used by another thread during the copy.
+   */
+  public List<BDD> transfer(List<BDD> bdds) {
+    for (BDD bdd : bdds) {
+      int vnum = bdd.getFactory().varNum();
+      if (vnum > varNum()) {
+        setVarNum(vnum);
+      }
+    }
+    // BDDs of different factories may be equal, so keep the copies of each factory separately
+    Map<BDDFactory, Map<BDD, BDD>> copiesByFactory = new IdentityHashMap<>();
+    List<BDD> result = new ArrayList<>(bdds.size());
+    for (BDD bdd : bdds) {
+      BDDFactory factory = bdd.getFactory();
+      if (factory == this) {
+        result.add(bdd.id());
+        continue;
+      }
+      Map<BDD, BDD> copies = copiesByFactory.computeIfAbsent(factory, f -> new HashMap<>());
+      result.add(transfer_rec(copies, bdd).id());
+    }
+    for (Map<BDD, BDD> copies : copiesByFactory.values()) {
+      copies.forEach(
+          (bdd, copy) -> {
+            bdd.free();
+            copy.free();
+          });
+    }
+    return result;
+  }
+
+  /**
+   * Helper function for transfer(List). Returns the copy of {@code bdd} in this factory, which is
+   * owned by {@code copies} unless it is a terminal.
+   */
+  private BDD transfer_rec(Map<BDD, BDD> copies, BDD bdd) {
+    if (bdd.isZero()) {
+      return zero();
+    }
+    if (bdd.isOne()) {
+      return one();
+    }
+    BDD copy = copies.get(bdd);
+    if (copy != null) {
+      return copy;
+    }
+    BDD low = bdd.low();
+    BDD high = bdd.high();
+    BDD lowCopy = transfer_rec(copies, low);
+    BDD highCopy = transfer_rec(copies, high);
+    low.free();
+    high.free();
+    BDD v = ithVar(bdd.var());
+    copy = v.ite(highCopy, lowCopy);
+    v.free();
+    copies.put(bdd.id(), copy);
+    return copy;
+  }
+
   // TODO: bdd_blockfile_hook
   // TODO: bdd_versionnum, bdd_versionstr
 
@@ -730,6 +899,23 @@ public abstract class BDDFactory {
    */
   public abstract void setVarOrder(int[] neworder);
 
+  /**
+   * Reorders the variables by sifting, to reduce the number of nodes used by the live BDDs. Each
+   * variable in turn, starting with those with the most nodes, is moved through the levels and left
+   * at the level where the fewest nodes are used.
+   *
+   * <p>Variable indices and BDD objects are unchanged, so this may be called between any two BDD
+   * operations. Like {@link #setVarOrder(int[])}, it walks through the node table many times.
+   */
+  public abstract void reorder();
+
+  /**
+   * Enables or disables dynamic reordering. When enabled, {@link #reorder()} is called
+   * automatically after an operation whenever the number of nodes in use has doubled since the last
+   * reordering.
+   */
+  public abstract void setAutoReorder(boolean enable);
+
   /**
    * Gets the current variable order.
    *
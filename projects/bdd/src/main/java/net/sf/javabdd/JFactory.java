@@ -33,6 +33,9 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Random;
@@ -83,23 +86,45 @@ public final class JFactory extends BDDFactory {
     return "JFactory " + REVISION.substring(11, REVISION.length() - 2);
   }
 
-  private JFactory() {
+  private JFactory(boolean offHeap, long maxNodeTableBytes) {
     supportSet = new int[0];
+    offheap = offHeap;
+    offheapmaxbytes = maxNodeTableBytes;
   }
 
   public static BDDFactory init(int nodenum, int cachesize) {
-    BDDFactory f = new JFactory();
+    BDDFactory f = new JFactory(false, 0);
+    f.initialize(nodenum, cachesize);
+    return f;
+  }
+
+  /**
+   * Creates a factory whose node table is stored in native memory outside the Java heap, for very
+   * large BDDs. The node table grows as with {@link #init(int, int)}, in chunks of 4 MiB, but an
+   * attempt to grow it past {@code maxNodeTableBytes} bytes (if positive) throws a {@link
+   * BDDException} rather than exhausting memory.
+   */
+  public static BDDFactory initOffHeap(int nodenum, int cachesize, long maxNodeTableBytes) {
+    BDDFactory f = new JFactory(true, maxNodeTableBytes);
     f.initialize(nodenum, cachesize);
     return f;
   }
 
   /** Private helper function to create BDD objects. */
   private BDDImpl makeBDD(int id) {
+    BDDImpl bdd;
     if (USE_FINALIZER) {
-      return new BDDImplWithFinalizer(id);
+      bdd = new BDDImplWithFinalizer(id);
     } else {
-      return new BDDImpl(id);
+      bdd = new BDDImpl(id);
+    }
+    /* Every operation ends here, once its result is referenced, so this is a safe point to
+     * reorder. */
+    if (bddautoreorder && bdd_getnodenum() >= bddreordernodes) {
+      bdd_sift();
+      bddreordernodes = Math.max(AUTO_REORDER_MIN_NODES, 2 * bdd_getnodenum());
     }
+    return bdd;
   }
 
   /** Wrapper for the BDD index number used internally in the representation. */
@@ -416,102 +441,115 @@ public final class JFactory extends BDDFactory {
   private static final int offset__next = 4;
   private static final int __node_size = 5;
 
+  /* Index in bddnodes of the refcount and level field of a node */
+  private static int REFCOU_AND_LEVEL(int node) {
+    return node * __node_size + offset__refcou_and_level;
+  }
+
   private boolean HASREF(int node) {
-    boolean r = (bddnodes[node * __node_size + offset__refcou_and_level] & REF_MASK) != 0;
+    boolean r = (bddnodes.get(REFCOU_AND_LEVEL(node)) & REF_MASK) != 0;
     return r;
   }
 
   private void SETMAXREF(int node) {
-    bddnodes[node * __node_size + offset__refcou_and_level] |= REF_MASK;
+    int i = REFCOU_AND_LEVEL(node);
+    bddnodes.set(i, bddnodes.get(i) | REF_MASK);
   }
 
   private void CLEARREF(int node) {
-    bddnodes[node * __node_size + offset__refcou_and_level] &= ~REF_MASK;
+    int i = REFCOU_AND_LEVEL(node);
+    bddnodes.set(i, bddnodes.get(i) & ~REF_MASK);
   }
 
   private void INCREF(int node) {
-    if ((bddnodes[node * __node_size + offset__refcou_and_level] & REF_MASK) != REF_MASK) {
-      bddnodes[node * __node_size + offset__refcou_and_level] += REF_INC;
+    int i = REFCOU_AND_LEVEL(node);
+    int v = bddnodes.get(i);
+    if ((v & REF_MASK) != REF_MASK) {
+      bddnodes.set(i, v + REF_INC);
     }
   }
 
   private void DECREF(int node) {
-    int rc = bddnodes[node * __node_size + offset__refcou_and_level] & REF_MASK;
+    int i = REFCOU_AND_LEVEL(node);
+    int v = bddnodes.get(i);
+    int rc = v & REF_MASK;
     if (rc != REF_MASK && rc != 0) {
-      bddnodes[node * __node_size + offset__refcou_and_level] -= REF_INC;
+      bddnodes.set(i, v - REF_INC);
     }
   }
 
   private int GETREF(int node) {
-    return bddnodes[node * __node_size + offset__refcou_and_level] >>> 22;
+    return bddnodes.get(REFCOU_AND_LEVEL(node)) >>> 22;
   }
 
   private int LEVEL(int node) {
-    return bddnodes[node * __node_size + offset__refcou_and_level] & LEV_MASK;
+    return bddnodes.get(REFCOU_AND_LEVEL(node)) & LEV_MASK;
   }
 
   private int LEVELANDMARK(int node) {
-    return bddnodes[node * __node_size + offset__refcou_and_level] & (LEV_MASK | MARK_MASK);
+    return bddnodes.get(REFCOU_AND_LEVEL(node)) & (LEV_MASK | MARK_MASK);
   }
 
   private void SETLEVEL(int node, int val) {
     if (VERIFY_ASSERTIONS) {
       _assert(val == (val & LEV_MASK));
     }
-    bddnodes[node * __node_size + offset__refcou_and_level] &= ~LEV_MASK;
-    bddnodes[node * __node_size + offset__refcou_and_level] |= val;
+    int i = REFCOU_AND_LEVEL(node);
+    bddnodes.set(i, (bddnodes.get(i) & ~LEV_MASK) | val);
   }
 
   private void SETLEVELANDMARK(int node, int val) {
     if (VERIFY_ASSERTIONS) {
       _assert(val == (val & (LEV_MASK | MARK_MASK)));
     }
-    bddnodes[node * __node_size + offset__refcou_and_level] &= ~(LEV_MASK | MARK_MASK);
-    bddnodes[node * __node_size + offset__refcou_and_level] |= val;
+    int i = REFCOU_AND_LEVEL(node);
+    bddnodes.set(i, (bddnodes.get(i) & ~(LEV_MASK | MARK_MASK)) | val);
   }
 
   private void SETMARK(int n) {
-    bddnodes[n * __node_size + offset__refcou_and_level] |= MARK_MASK;
+    int i = REFCOU_AND_LEVEL(n);
+    bddnodes.set(i, bddnodes.get(i) | MARK_MASK);
   }
 
   private void UNMARK(int n) {
-    bddnodes[n * __node_size + offset__refcou_and_level] &= ~MARK_MASK;
+    int i = REFCOU_AND_LEVEL(n);
+    bddnodes.set(i, bddnodes.get(i) & ~MARK_MASK);
   }
 
   private boolean MARKED(int n) {
-    return (bddnodes[n * __node_size + offset__refcou_and_level] & MARK_MASK) != 0;
+    return (bddnodes.get(REFCOU_AND_LEVEL(n)) & MARK_MASK) != 0;
   }
 
   private int LOW(int r) {
-    return bddnodes[r * __node_size + offset__low];
+    return bddnodes.get(r * __node_size + offset__low);
   }
 
   private void SETLOW(int r, int v) {
-    bddnodes[r * __node_size + offset__low] = v;
+    bddnodes.set(r * __node_size + offset__low, v);
   }
 
   private int HIGH(int r) {
-    return bddnodes[r * __node_size + offset__high];
+    return bddnodes.get(r * __node_size + offset__high);
   }
 
   private void SETHIGH(int r, int v) {
-    bddnodes[r * __node_size + offset__high] = v;
+    bddnodes.set(r * __node_size + offset__high, v);
   }
 
   private int HASH(int r) {
-    return bddnodes[r * __node_size + offset__hash];
+    return bddnodes.get(r * __node_size + offset__hash);
   }
 
   private void SETHASH(int r, int v) {
-    bddnodes[r * __node_size + offset__hash] = v;
+    bddnodes.set(r * __node_size + offset__hash, v);
   }
 
   private int NEXT(int r) {
-    return bddnodes[r * __node_size + offset__next];
+    return bddnodes.get(r * __node_size + offset__next);
   }
 
   private void SETNEXT(int r, int v) {
-    bddnodes[r * __node_size + offset__next] = v;
+    bddnodes.set(r * __node_size + offset__next, v);
   }
 
   private int VARr(int n) {
@@ -618,6 +656,115 @@ public final class JFactory extends BDDFactory {
     }
   }
 
+  /**
+   * Storage for the fields of all BDD nodes, {@link #__node_size} ints per node. The table only
+   * ever grows, and new entries are zero.
+   */
+  private abstract static class NodeTable {
+    abstract int get(int i);
+
+    abstract void set(int i, int v);
+
+    /** Grows the table to hold at least {@code length} ints, keeping existing entries. */
+    abstract void grow(int length);
+  }
+
+  /** A {@link NodeTable} backed by an array on the Java heap. */
+  private static final class ArrayNodeTable extends NodeTable {
+    private int[] _table;
+
+    ArrayNodeTable(int length) {
+      _table = new int[length];
+    }
+
+    @Override
+    int get(int i) {
+      return _table[i];
+    }
+
+    @Override
+    void set(int i, int v) {
+      _table[i] = v;
+    }
+
+    @Override
+    void grow(int length) {
+      if (length > _table.length) {
+        _table = Arrays.copyOf(_table, length);
+      }
+    }
+  }
+
+  /**
+   * A {@link NodeTable} backed by native memory outside the Java heap, so that very large node
+   * tables do not need a correspondingly large heap. The table is split into fixed-size chunks of
+   * direct buffers; growing it allocates new chunks and never copies existing nodes.
+   */
+  private static final class DirectNodeTable extends NodeTable {
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final long _maxBytes;
+    private IntBuffer[] _chunks;
+
+    /**
+     * @param maxBytes the maximum amount of native memory the table may use, or 0 for no limit
+     *     (other than the JVM's {@code -XX:MaxDirectMemorySize})
+     */
+    DirectNodeTable(int length, long maxBytes) {
+      _maxBytes = maxBytes;
+      _chunks = new IntBuffer[0];
+      grow(length);
+    }
+
+    @Override
+    int get(int i) {
+      return _chunks[i >>> CHUNK_BITS].get(i & CHUNK_MASK);
+    }
+
+    @Override
+    void set(int i, int v) {
+      _chunks[i >>> CHUNK_BITS].put(i & CHUNK_MASK, v);
+    }
+
+    @Override
+    void grow(int length) {
+      int numChunks = (int) (((long) length + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+      if (numChunks <= _chunks.length) {
+        return;
+      }
+      long bytes = (long) numChunks * CHUNK_SIZE * Integer.BYTES;
+      if (_maxBytes > 0 && bytes > _maxBytes) {
+        throw new BDDException(
+            String.format(
+                "Off-heap BDD node table needs %d bytes, more than the limit of %d bytes",
+                bytes, _maxBytes));
+      }
+      IntBuffer[] chunks = Arrays.copyOf(_chunks, numChunks);
+      for (int c = _chunks.length; c < numChunks; c++) {
+        try {
+          chunks[c] =
+              ByteBuffer.allocateDirect(CHUNK_SIZE * Integer.BYTES)
+                  .order(ByteOrder.nativeOrder())
+                  .asIntBuffer();
+        } catch (OutOfMemoryError e) {
+          throw new BDDException(
+              String.format(
+                  "Could not allocate %d bytes for the off-heap BDD node table; consider raising"
+                      + " -XX:MaxDirectMemorySize",
+                  bytes),
+              e);
+        }
+      }
+      _chunks = chunks;
+    }
+  }
+
+  private NodeTable newNodeTable(int length) {
+    return offheap ? new DirectNodeTable(length, offheapmaxbytes) : new ArrayNodeTable(length);
+  }
+
   private static final int BDDONE = 1;
   private static final int BDDZERO = 0;
 
@@ -626,7 +773,9 @@ public final class JFactory extends BDDFactory {
   private int bddnodesize; /* Number of allocated nodes */
   private int bddmaxnodesize; /* Maximum allowed number of nodes */
   private int bddmaxnodeincrease; /* Max. # of nodes used to inc. table */
-  private int[] bddnodes; /* All of the bdd nodes */
+  private NodeTable bddnodes; /* All of the bdd nodes */
+  private final boolean offheap; /* Flag - bddnodes stored outside the Java heap */
+  private final long offheapmaxbytes; /* Max. bytes of an off-heap bddnodes, 0 if unlimited */
   private int bddfreepos; /* First free node */
   private int bddfreenum; /* Number of free nodes */
   private int bddproduced; /* Number of new nodes ever produced */
@@ -3466,10 +3615,7 @@ public final class JFactory extends BDDFactory {
 
     resize_handler(oldsize, newsize);
 
-    int[] newnodes;
-    newnodes = new int[newsize * __node_size];
-    System.arraycopy(bddnodes, 0, newnodes, 0, bddnodes.length);
-    bddnodes = newnodes;
+    bddnodes.grow(newsize * __node_size);
     bddnodesize = newsize;
 
     if (doRehash) {
@@ -3506,7 +3652,7 @@ public final class JFactory extends BDDFactory {
 
     bddnodesize = bdd_prime_gte(initnodesize);
 
-    bddnodes = new int[bddnodesize * __node_size];
+    bddnodes = newNodeTable(bddnodesize * __node_size);
 
     bddresized = false;
 
@@ -4378,6 +4524,17 @@ public final class JFactory extends BDDFactory {
     bdd_setvarorder(neworder);
   }
 
+  @Override
+  public void reorder() {
+    bdd_sift();
+  }
+
+  @Override
+  public void setAutoReorder(boolean enable) {
+    bddautoreorder = enable;
+    bddreordernodes = Math.max(AUTO_REORDER_MIN_NODES, 2 * bdd_getnodenum());
+  }
+
   private int[] extroots;
   private int extrootsize;
 
@@ -4416,6 +4573,71 @@ public final class JFactory extends BDDFactory {
     reorder_done();
   }
 
+  /** Dynamic reordering does not reorder until this many nodes are in use. */
+  private static final int AUTO_REORDER_MIN_NODES = 10000;
+
+  private boolean bddautoreorder;
+  /* Number of nodes in use at which to reorder next, when dynamic reordering is enabled. */
+  private int bddreordernodes;
+
+  /** Stop moving a variable in one direction once the node count grows by this factor. */
+  private static final double SIFT_MAX_GROWTH = 1.2;
+
+  private void bdd_sift() {
+    reorder_init();
+
+    /* Sift the variables with the most nodes first */
+    Integer[] vars = new Integer[bddvarnum];
+    for (int var = 0; var < bddvarnum; var++) {
+      vars[var] = var;
+    }
+    Arrays.sort(vars, (v1, v2) -> Integer.compare(levels[v2].nodenum, levels[v1].nodenum));
+    for (int var : vars) {
+      reorder_siftvar(var);
+    }
+
+    reorder_done();
+    bdd_operator_reset();
+  }
+
+  /* Moves var down towards the last level, back, and then up towards the first level, and leaves
+   * it at the level where the fewest nodes were used. */
+  private void reorder_siftvar(int var) {
+    int startLevel = bddvar2level[var];
+    int bestLevel = startLevel;
+    int bestSize = bdd_getnodenum();
+
+    while (bddvar2level[var] < bddvarnum - 1) {
+      reorder_vardown(var);
+      int size = bdd_getnodenum();
+      if (size < bestSize) {
+        bestSize = size;
+        bestLevel = bddvar2level[var];
+      } else if (size > bestSize * SIFT_MAX_GROWTH) {
+        break;
+      }
+    }
+    while (bddvar2level[var] > startLevel) {
+      reorder_varup(var);
+    }
+    while (bddvar2level[var] > 0) {
+      reorder_varup(var);
+      int size = bdd_getnodenum();
+      if (size < bestSize) {
+        bestSize = size;
+        bestLevel = bddvar2level[var];
+      } else if (size > bestSize * SIFT_MAX_GROWTH) {
+        break;
+      }
+    }
+    while (bddvar2level[var] < bestLevel) {
+      reorder_vardown(var);
+    }
+    while (bddvar2level[var] > bestLevel) {
+      reorder_varup(var);
+    }
+  }
+
   private int reorder_varup(int var) {
     if (var < 0 || var >= bddvarnum) {
       return bdd_error(BDD_VAR);
@@ -1,16 +1,31 @@
 package net.sf.javabdd;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 
 /** Tests of {@link JFactory}. */
 public class JFactoryTest {
+  @Rule public ExpectedException _exception = ExpectedException.none();
+
   private JFactory _factory = (JFactory) JFactory.init(10000, 10000);
 
   @Test
@@ -446,4 +461,129 @@ public class JFactoryTest {
     int[] a4 = {1};
     assertEquals(JFactory.dedupSorted(a4), a4);
   }
+
+  /** Returns BDDs built by random operations on the first 10 variables, many sharing nodes. */
+  private static List<BDD> randomBdds(BDDFactory factory) {
+    Random random = new Random(0);
+    List<BDD> bdds = new ArrayList<>();
+    bdds.add(factory.zero());
+    bdds.add(factory.one());
+    for (int i = 0; i < 10; i++) {
+      bdds.add(factory.ithVar(i));
+    }
+    for (int i = 0; i < 100; i++) {
+      BDD b1 = bdds.get(random.nextInt(bdds.size()));
+      BDD b2 = bdds.get(random.nextInt(bdds.size()));
+      bdds.add(random.nextBoolean() ? b1.and(b2.not()) : b1.xor(b2));
+    }
+    return bdds;
+  }
+
+  @Test
+  public void testSaveLoad() throws IOException {
+    _factory.setVarNum(10);
+    List<BDD> bdds = randomBdds(_factory);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    _factory.save(new DataOutputStream(out), bdds);
+
+    // load into a factory with a different variable order
+    BDDFactory factory = JFactory.init(10000, 10000);
+    factory.setVarNum(10);
+    factory.setVarOrder(new int[] {9, 8, 7, 6, 5, 4, 3, 2, 1, 0});
+    List<BDD> loaded =
+        factory.load(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+    assertThat(loaded, equalTo(randomBdds(factory)));
+  }
+
+  @Test
+  public void testTransfer() {
+    _factory.setVarNum(10);
+    List<BDD> bdds = randomBdds(_factory);
+
+    // transfer into a factory with a different variable order, and fewer variables
+    BDDFactory factory = JFactory.init(10000, 10000);
+    factory.setVarNum(5);
+    factory.setVarOrder(new int[] {4, 3, 2, 1, 0});
+    List<BDD> transferred = factory.transfer(bdds);
+    assertThat(factory.varNum(), equalTo(10));
+    assertThat(transferred, equalTo(randomBdds(factory)));
+
+    // and back
+    assertThat(_factory.transfer(transferred), equalTo(bdds));
+
+    // from several factories at once
+    BDDFactory factory2 = JFactory.init(10000, 10000);
+    factory2.setVarNum(10);
+    List<BDD> bdds2 = Arrays.asList(factory2.ithVar(1), factory2.ithVar(2));
+    List<BDD> bdds1 = Arrays.asList(factory.ithVar(2), factory.ithVar(3));
+    assertThat(
+        _factory.transfer(Arrays.asList(bdds2.get(0), bdds1.get(0), bdds2.get(1), bdds1.get(1))),
+        equalTo(
+            Arrays.asList(
+                _factory.ithVar(1), _factory.ithVar(2), _factory.ithVar(2), _factory.ithVar(3))));
+  }
+
+  /** x_i == y_i for all i, with the x variables before all of the y variables. */
+  private static BDD pairwiseEqual(BDDFactory factory, int n) {
+    BDD result = factory.one();
+    for (int i = 0; i < n; i++) {
+      result = result.and(factory.ithVar(i).biimp(factory.ithVar(n + i)));
+    }
+    return result;
+  }
+
+  @Test
+  public void testReorder() {
+    _factory.setVarNum(20);
+    BDD equal = pairwiseEqual(_factory, 10);
+    List<BDD> bdds = randomBdds(_factory);
+    List<Double> satCounts = bdds.stream().map(BDD::satCount).collect(Collectors.toList());
+    // exponential in the number of pairs when the x and y variables are not interleaved
+    assertThat(equal.nodeCount(), greaterThan(1000));
+
+    _factory.reorder();
+
+    // linear when they are
+    assertThat(equal.nodeCount(), lessThan(50));
+    assertThat(pairwiseEqual(_factory, 10), equalTo(equal));
+    assertThat(bdds.stream().map(BDD::satCount).collect(Collectors.toList()), equalTo(satCounts));
+    assertThat(randomBdds(_factory), equalTo(bdds));
+  }
+
+  @Test
+  public void testAutoReorder() {
+    _factory.setVarNum(28);
+    _factory.setAutoReorder(true);
+    BDD equal = pairwiseEqual(_factory, 14);
+
+    // the intermediate results grew large enough to trigger sifting
+    assertThat(equal.nodeCount(), lessThan(1000));
+    assertThat(equal.satCount(), equalTo(Math.pow(2, 14)));
+  }
+
+  @Test
+  public void testOffHeap() {
+    _factory.setVarNum(20);
+    // a small initial node table, so that it grows
+    BDDFactory factory = JFactory.initOffHeap(100, 100, 0);
+    factory.setVarNum(20);
+
+    BDD equal = pairwiseEqual(factory, 10);
+    assertThat(factory.getNodeTableSize(), greaterThan(1000));
+    assertThat(equal.nodeCount(), equalTo(pairwiseEqual(_factory, 10).nodeCount()));
+    assertThat(
+        randomBdds(factory).stream().map(BDD::satCount).collect(Collectors.toList()),
+        equalTo(randomBdds(_factory).stream().map(BDD::satCount).collect(Collectors.toList())));
+  }
+
+  @Test
+  public void testOffHeapLimit() {
+    // room for two 4 MiB chunks
+    BDDFactory factory = JFactory.initOffHeap(100, 100, 8 << 20);
+    factory.setVarNum(20);
+
+    _exception.expect(BDDException.class);
+    _exception.expectMessage("more than the limit of 8388608 bytes");
+    factory.setNodeTableSize(1 << 20);
+  }
 }
@@ -0,0 +1,60 @@
+package org.batfish.coordinator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+/** Thread-safe running summary (count, mean, and maximum) of a series of durations. */
+@ParametersAreNonnullByDefault
+final class LatencyStats {
+
+  private final LongAdder _count;
+  private final AtomicLong _maxNanos;
+  private final LongAdder _totalNanos;
+
+  LatencyStats() {
+    _count = new LongAdder();
+    _maxNanos = new AtomicLong();
+    _totalNanos = new LongAdder();
+  }
+
+  /** Records a duration of {@code nanos} nanoseconds. Negative durations are recorded as zero. */
+  void record(long nanos) {
+    long duration = Math.max(nanos, 0L);
+    _count.increment();
+    _totalNanos.add(duration);
+    _maxNanos.accumulateAndGet(duration, Math::max);
+  }
+
+  long getCount() {
+    return _count.sum();
+  }
+
+  /** Returns the longest recorded duration in milliseconds, or 0 if none was recorded. */
+  double getMaxMs() {
+    return toMs(_maxNanos.get());
+  }
+
+  /** Returns the mean recorded duration in milliseconds, or 0 if none was recorded. */
+  double getMeanMs() {
+    long count = _count.sum();
+    return count == 0 ? 0.0 : toMs(_totalNanos.sum()) / count;
+  }
+
+  @Nonnull
+  JSONObject toJson() throws JSONException {
+    JSONObject jObject = new JSONObject();
+    jObject.put("count", getCount());
+    jObject.put("mean-ms", getMeanMs());
+    jObject.put("max-ms", getMaxMs());
+    return jObject;
+  }
+
+  private static double toMs(long nanos) {
+    return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+}
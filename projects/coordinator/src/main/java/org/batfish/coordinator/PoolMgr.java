@@ -95,9 +95,24 @@ public class PoolMgr {
     return _workerPool.get(worker);
   }
 
-  public void markAssignmentResult(String worker, boolean assignmentSuccessful) {
-    updateWorkerStatus(
-        worker, assignmentSuccessful ? WorkerStatus.StatusCode.BUSY : WorkerStatus.StatusCode.IDLE);
+  /**
+   * Records the result of trying to assign work to {@code worker}. A worker that accepted the work
+   * stays available for assignment if it reported capacity for more tasks.
+   */
+  public synchronized void markAssignmentResult(String worker, boolean assignmentSuccessful) {
+    WorkerStatus status = _workerPool.get(worker);
+    if (status == null) {
+      return;
+    }
+    if (!assignmentSuccessful) {
+      status.updateStatus(WorkerStatus.StatusCode.IDLE);
+      return;
+    }
+    int idleSlots = Math.max(status.getIdleSlots() - 1, 0);
+    status.updateStatus(
+        idleSlots > 0 ? WorkerStatus.StatusCode.IDLE : WorkerStatus.StatusCode.BUSY,
+        idleSlots,
+        status.getMaxTasks());
   }
 
   public void refreshWorkerStatus() {
@@ -154,19 +169,27 @@ public class PoolMgr {
 
         JSONObject jObj = new JSONObject(array.get(1).toString());
 
-        if (!jObj.has("idle")) {
+        if (!jObj.has(BfConsts.SVC_IDLE_KEY)) {
           _logger.error("did not see idle key in json response\n");
           updateWorkerStatus(worker, WorkerStatus.StatusCode.UNKNOWN);
           return;
         }
 
-        boolean status = jObj.getBoolean("idle");
+        boolean status = jObj.getBoolean(BfConsts.SVC_IDLE_KEY);
+        // workers that run one task at a time may only report whether they are idle
+        int idleSlots = jObj.optInt(BfConsts.SVC_IDLE_SLOTS_KEY, status ? 1 : 0);
+        int maxTasks = jObj.optInt(BfConsts.SVC_MAX_TASKS_KEY, 1);
 
         // update the status, except leave the ones with TRYINGTOASSIGN
         // alone
-        if (getWorkerStatus(worker).getStatus() != WorkerStatus.StatusCode.TRYINGTOASSIGN) {
-          updateWorkerStatus(
-              worker, status ? WorkerStatus.StatusCode.IDLE : WorkerStatus.StatusCode.BUSY);
+        boolean gainedCapacity =
+            updateWorkerStatusUnlessAssigning(
+                worker,
+                idleSlots > 0 ? WorkerStatus.StatusCode.IDLE : WorkerStatus.StatusCode.BUSY,
+                idleSlots,
+                maxTasks);
+        if (gainedCapacity) {
+          Main.getWorkMgr().requestAssignment();
         }
       }
     } catch (ProcessingException e) {
@@ -198,4 +221,17 @@ public class PoolMgr {
       _workerPool.get(worker).updateStatus(statusCode);
     }
   }
+
+  /** Returns whether the update leaves {@code worker} idle with more idle slots than before. */
+  private synchronized boolean updateWorkerStatusUnlessAssigning(
+      String worker, WorkerStatus.StatusCode statusCode, int idleSlots, int maxTasks) {
+    WorkerStatus status = _workerPool.get(worker);
+    if (status == null || status.getStatus() == WorkerStatus.StatusCode.TRYINGTOASSIGN) {
+      return false;
+    }
+    boolean wasIdle = status.getStatus() == WorkerStatus.StatusCode.IDLE;
+    int oldIdleSlots = status.getIdleSlots();
+    status.updateStatus(statusCode, idleSlots, maxTasks);
+    return statusCode == WorkerStatus.StatusCode.IDLE && (!wasIdle || idleSlots > oldIdleSlots);
+  }
 }
@@ -48,6 +48,10 @@ public class QueuedWork {
     return _assignedWorker;
   }
 
+  public Date getDateAssigned() {
+    return _dateAssigned;
+  }
+
   public Date getDateCreated() {
     return _dateCreated;
   }
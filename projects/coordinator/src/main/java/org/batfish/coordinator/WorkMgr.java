@@ -3,12 +3,9 @@ package org.batfish.coordinator;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static com.google.common.collect.Comparators.lexicographical;
-import static java.util.Comparator.comparing;
-import static java.util.Comparator.naturalOrder;
-import static java.util.Comparator.nullsFirst;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toCollection;
+import static org.batfish.datamodel.table.ColumnComparators.buildComparator;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -20,7 +17,6 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
-import com.google.common.collect.Comparators;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
@@ -48,6 +44,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -61,7 +58,9 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -79,7 +78,6 @@ import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
 import org.batfish.common.BfConsts.TaskStatus;
-import org.batfish.common.ColumnSortOption;
 import org.batfish.common.CompletionMetadata;
 import org.batfish.common.Container;
 import org.batfish.common.CoordConsts.WorkStatusCode;
@@ -103,8 +101,6 @@ import org.batfish.datamodel.AnalysisMetadata;
 import org.batfish.datamodel.Edge;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.SnapshotMetadataEntry;
-import org.batfish.datamodel.acl.AclTrace;
-import org.batfish.datamodel.acl.TraceEvent;
 import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.datamodel.answers.AnswerMetadata;
@@ -121,11 +117,7 @@ import org.batfish.datamodel.answers.Metrics;
 import org.batfish.datamodel.answers.MinorIssueConfig;
 import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
 import org.batfish.datamodel.answers.Schema;
-import org.batfish.datamodel.answers.Schema.Type;
 import org.batfish.datamodel.collections.NodeInterfacePair;
-import org.batfish.datamodel.flow.Hop;
-import org.batfish.datamodel.flow.Step;
-import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.pojo.Node;
 import org.batfish.datamodel.pojo.Topology;
 import org.batfish.datamodel.questions.Question;
@@ -148,6 +140,7 @@ import org.batfish.identifiers.SnapshotId;
 import org.batfish.referencelibrary.ReferenceLibrary;
 import org.batfish.role.NodeRolesData;
 import org.batfish.storage.FileBasedStorageDirectoryProvider;
+import org.batfish.storage.IndexedAnswerTable;
 import org.batfish.storage.StorageProvider;
 import org.batfish.storage.StoredObjectMetadata;
 import org.codehaus.jettison.json.JSONArray;
@@ -165,25 +158,6 @@ public class WorkMgr extends AbstractCoordinator {
           .add(".svn")
           .build();
 
-  private static final Comparator<AclTrace> COMPARATOR_ACL_TRACE =
-      Comparator.comparing(
-          AclTrace::getEvents,
-          Comparators.lexicographical(Comparator.comparing(TraceEvent::getDescription)));
-
-  private static final Comparator<Node> COMPARATOR_NODE = Comparator.comparing(Node::getName);
-
-  private static final Comparator<Trace> COMPARATOR_TRACE =
-      Comparator.comparing(Trace::getDisposition)
-          .thenComparing(
-              Trace::getHops,
-              Comparators.lexicographical(
-                  Comparator.comparing(Hop::getNode, Comparator.comparing(Node::getName))
-                      .thenComparing(
-                          Hop::getSteps,
-                          Comparators.lexicographical(
-                              Comparator.<Step<?>, String>comparing(
-                                      step -> step.getDetail().toString())
-                                  .thenComparing(Step::getAction)))));
   private static final int STREAMED_FILE_BUFFER_SIZE = 1024;
 
   private static Path getCanonicalPath(Path path) {
@@ -244,6 +218,12 @@ public class WorkMgr extends AbstractCoordinator {
   private static final String SNAPSHOT_PACKAGING_INSTRUCTIONS_URL =
       "https://github.com/batfish/batfish/wiki/Packaging-snapshots-for-analysis";
 
+  /** Whether an assignment pass has been requested but has not started yet */
+  private final AtomicBoolean _assignmentRequested;
+
+  /** Runs assignment passes and task checks, one at a time; {@code null} until started */
+  @Nullable private volatile ScheduledExecutorService _dispatcher;
+
   private final IdManager _idManager;
 
   private final BatfishLogger _logger;
@@ -259,6 +239,7 @@ public class WorkMgr extends AbstractCoordinator {
       BatfishLogger logger,
       @Nonnull IdManager idManager,
       @Nonnull StorageProvider storage) {
+    _assignmentRequested = new AtomicBoolean();
     _settings = settings;
     _idManager = idManager;
     _storage = storage;
@@ -271,34 +252,60 @@ public class WorkMgr extends AbstractCoordinator {
     return _storage;
   }
 
+  /**
+   * Requests an assignment pass on the dispatcher, e.g., because work was queued or a worker became
+   * idle. Requests made before a requested pass starts are served by that pass. Does nothing before
+   * the work manager is started.
+   */
+  void requestAssignment() {
+    ScheduledExecutorService dispatcher = _dispatcher;
+    if (dispatcher == null || !_assignmentRequested.compareAndSet(false, true)) {
+      return;
+    }
+    long requested = System.nanoTime();
+    dispatcher.execute(
+        () -> {
+          _assignmentRequested.set(false);
+          _workQueueMgr.getDispatchLatency().record(System.nanoTime() - requested);
+          assignWork();
+        });
+  }
+
+  /** Assigns queued work to idle workers until either runs out or an assignment fails. */
   private void assignWork() {
 
     try {
-      QueuedWork work = _workQueueMgr.getWorkForAssignment();
+      while (true) {
+        QueuedWork work = _workQueueMgr.getWorkForAssignment();
 
-      // get out if no work was found
-      if (work == null) {
-        // _logger.info("WM:AssignWork: No unassigned work\n");
-        return;
-      }
+        // get out if no work was found
+        if (work == null) {
+          // _logger.info("WM:AssignWork: No unassigned work\n");
+          return;
+        }
 
-      String idleWorker = Main.getPoolMgr().getWorkerForAssignment();
+        String idleWorker = Main.getPoolMgr().getWorkerForAssignment();
 
-      // get out if no idle worker was found, but release the work first
-      if (idleWorker == null) {
-        _workQueueMgr.markAssignmentFailure(work);
+        // get out if no idle worker was found, but release the work first
+        if (idleWorker == null) {
+          _workQueueMgr.markAssignmentFailure(work);
 
-        _logger.info("WM:AssignWork: No idle worker\n");
-        return;
-      }
+          _logger.info("WM:AssignWork: No idle worker\n");
+          return;
+        }
 
-      assignWork(work, idleWorker);
+        // get out on failure rather than retry the same work right away
+        if (!assignWork(work, idleWorker)) {
+          return;
+        }
+      }
     } catch (Exception e) {
       _logger.errorf("Got exception in assignWork: %s\n", Throwables.getStackTraceAsString(e));
     }
   }
 
-  private void assignWork(QueuedWork work, String worker) {
+  /** Tries to assign {@code work} to {@code worker}, and returns whether the worker accepted it. */
+  private boolean assignWork(QueuedWork work, String worker) {
 
     _logger.infof("WM:AssignWork: Trying to assign %s to %s\n", work, worker);
 
@@ -383,7 +390,7 @@ public class WorkMgr extends AbstractCoordinator {
       if (assigned) {
         killWork(work, worker);
       }
-      return;
+      return false;
     }
 
     // mark the assignment results for both work and worker
@@ -407,6 +414,7 @@ public class WorkMgr extends AbstractCoordinator {
     }
 
     Main.getPoolMgr().markAssignmentResult(worker, assigned);
+    return assigned;
   }
 
   private void checkTasks() {
@@ -874,6 +882,99 @@ public class WorkMgr extends AbstractCoordinator {
     }
   }
 
+  /**
+   * Get the answer for the specified question with the specified row options applied, as by {@link
+   * #processAnswerRows(String, AnswerRowsOptions)}. If the answer has an {@link
+   * IndexedAnswerTable}, only the requested rows are read.
+   */
+  public @Nonnull Answer getAnswerRows(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      AnswerRowsOptions options)
+      throws JsonProcessingException {
+    IndexedAnswerTable rawTable =
+        loadIndexedAnswerTable(network, snapshot, question, referenceSnapshot, analysis);
+    if (rawTable == null) {
+      return processAnswerRows(
+          getAnswerString(network, snapshot, question, referenceSnapshot, analysis), options);
+    }
+    try {
+      TableView tableView = processIndexedAnswerTable(rawTable, options);
+      TableAnswerElement table = new TableAnswerElement(tableView.getTableMetadata());
+      tableView.getRows().forEach(row -> table.addRow(row.getRow()));
+      table.setSummary(tableView.getSummary());
+      Answer answer = new Answer();
+      answer.setStatus(AnswerStatus.SUCCESS);
+      answer.addAnswerElement(table);
+      return answer;
+    } catch (Exception e) {
+      _logger.errorf("Failed to process indexed answer: %s", e.getMessage());
+      return Answer.failureAnswer(e.getMessage(), null);
+    }
+  }
+
+  /**
+   * Get the answer for the specified question with the specified row options applied, as by {@link
+   * #processAnswerRows2(String, AnswerRowsOptions)}. If the answer has an {@link
+   * IndexedAnswerTable}, only the requested rows are read.
+   */
+  public @Nonnull Answer getAnswerRows2(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      AnswerRowsOptions options)
+      throws JsonProcessingException {
+    IndexedAnswerTable rawTable =
+        loadIndexedAnswerTable(network, snapshot, question, referenceSnapshot, analysis);
+    if (rawTable == null) {
+      return processAnswerRows2(
+          getAnswerString(network, snapshot, question, referenceSnapshot, analysis), options);
+    }
+    try {
+      Answer answer = new Answer();
+      answer.setStatus(AnswerStatus.SUCCESS);
+      answer.addAnswerElement(processIndexedAnswerTable(rawTable, options));
+      return answer;
+    } catch (Exception e) {
+      _logger.errorf("Failed to process indexed answer: %s\n", Throwables.getStackTraceAsString(e));
+      return Answer.failureAnswer(e.getMessage(), null);
+    }
+  }
+
+  /**
+   * Get the answer for the specified question with the specified row options applied, as by {@link
+   * #filterAnswer(Answer, AnswerRowsOptions)}. Returns {@code null} if the question is not
+   * answered. If the answer has an {@link IndexedAnswerTable}, only the requested rows are read.
+   *
+   * @throws IllegalArgumentException if the network, question, analysis, or snapshots cannot be
+   *     found
+   * @throws IOException if there are any other errors
+   */
+  public @Nullable Answer getFilteredAnswer(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      AnswerRowsOptions options)
+      throws IOException {
+    IndexedAnswerTable rawTable =
+        loadIndexedAnswerTable(network, snapshot, question, referenceSnapshot, analysis);
+    if (rawTable == null) {
+      Answer rawAnswer = getAnswer(network, snapshot, question, referenceSnapshot, analysis);
+      return rawAnswer == null ? null : filterAnswer(rawAnswer, options);
+    }
+    Answer answer = new Answer();
+    answer.setStatus(AnswerStatus.SUCCESS);
+    answer.addAnswerElement(processIndexedAnswerTable(rawTable, options));
+    return answer;
+  }
+
   /**
    * Get the answer string for the specified question. Returns {@code null} if the question is not
    * answered.
@@ -885,6 +986,44 @@ public class WorkMgr extends AbstractCoordinator {
       @Nullable String referenceSnapshot,
       @Nullable String analysis)
       throws IOException {
+    AnswerId finalAnswerId =
+        loadFinalAnswerId(network, snapshot, question, referenceSnapshot, analysis);
+    return finalAnswerId == null ? null : _storage.loadAnswer(finalAnswerId);
+  }
+
+  /**
+   * Get the {@link IndexedAnswerTable} of the answer to the specified question. Returns {@code
+   * null} if the question is not answered, or its answer is not indexed or cannot be read.
+   */
+  private @Nullable IndexedAnswerTable loadIndexedAnswerTable(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis) {
+    try {
+      AnswerId finalAnswerId =
+          loadFinalAnswerId(network, snapshot, question, referenceSnapshot, analysis);
+      return finalAnswerId == null ? null : _storage.loadIndexedAnswerTable(finalAnswerId);
+    } catch (IOException e) {
+      _logger.warnf(
+          "Could not load indexed answer, falling back to full answer: %s\n",
+          Throwables.getStackTraceAsString(e));
+      return null;
+    }
+  }
+
+  /**
+   * Get the ID of the final answer for the specified question, computing the final answer if
+   * needed. Returns {@code null} if the question is not answered.
+   */
+  private @Nullable AnswerId loadFinalAnswerId(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis)
+      throws IOException {
     NetworkId networkId = _idManager.getNetworkId(network);
     AnalysisId analysisId = analysis != null ? _idManager.getAnalysisId(analysis, networkId) : null;
     QuestionId questionId = _idManager.getQuestionId(question, networkId, analysisId);
@@ -908,16 +1047,14 @@ public class WorkMgr extends AbstractCoordinator {
       return null;
     }
     AnswerMetadata baseAnswerMetadata = _storage.loadAnswerMetadata(baseAnswerId);
-    AnswerId finalAnswerId =
-        computeFinalAnswerAndId(
-            baseAnswerMetadata,
-            networkId,
-            snapshotId,
-            questionId,
-            baseAnswerId,
-            referenceSnapshotId,
-            analysisId);
-    return _storage.loadAnswer(finalAnswerId);
+    return computeFinalAnswerAndId(
+        baseAnswerMetadata,
+        networkId,
+        snapshotId,
+        questionId,
+        baseAnswerId,
+        referenceSnapshotId,
+        analysisId);
   }
 
   /**
@@ -1961,6 +2098,10 @@ public class WorkMgr extends AbstractCoordinator {
     } catch (Exception e) {
       _logger.errorf("exception: %s\n", Throwables.getStackTraceAsString(e));
     }
+    // work blocked on the killed work may now be assignable
+    if (killed) {
+      requestAssignment();
+    }
     return killed;
   }
 
@@ -2031,6 +2172,10 @@ public class WorkMgr extends AbstractCoordinator {
         client.close();
       }
     }
+    // work blocked on the killed work may now be assignable
+    if (killed) {
+      requestAssignment();
+    }
     return killed;
   }
 
@@ -2222,33 +2367,23 @@ public class WorkMgr extends AbstractCoordinator {
     } catch (Exception e) {
       throw new BatfishException(String.format("Failed to queue work: %s", e.getMessage()), e);
     }
-    // as an optimization trigger AssignWork to see if we can schedule this (or another) work
+    // see if we can schedule this (or another) work right away
     if (success) {
-      Thread thread = new Thread(this::assignWork);
-      thread.start();
+      requestAssignment();
     }
     return success;
   }
 
   public void startWorkManager() {
-    // for some bizarre reason, this ordering of scheduling checktask before
-    // assignwork, is important
-    // in the other order, assignwork never fires
-    // TODO: track this down
-    // _checkWorkTask = new CheckTaskTask();
-    // _checkService = Executors.newScheduledThreadPool(1);
-    // _checkFuture = _checkService.scheduleAtFixedRate(_checkWorkTask, 0,
-    // Main.getSettings().getPeriodCheckWorkMs(),
-    // TimeUnit.MILLISECONDS);
-
     loadPlugins();
 
-    Executors.newScheduledThreadPool(1)
-        .scheduleAtFixedRate(
-            new AssignWorkTask(),
-            0,
-            Main.getSettings().getPeriodAssignWorkMs(),
-            TimeUnit.MILLISECONDS);
+    ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor();
+    _dispatcher = dispatcher;
+    // Work is assigned when it is queued or a worker becomes idle (see requestAssignment). Workers
+    // do not report when their tasks end, though, so tasks are still checked periodically, and
+    // that pass also retries assignments that failed.
+    dispatcher.scheduleAtFixedRate(
+        new AssignWorkTask(), 0, Main.getSettings().getPeriodAssignWorkMs(), TimeUnit.MILLISECONDS);
   }
 
   public int syncSnapshotsSyncNow(String networkName, String pluginId, boolean force) {
@@ -2464,13 +2599,9 @@ public class WorkMgr extends AbstractCoordinator {
       // project to desired columns
       rowStream =
           rowStream.map(rawRow -> Row.builder().putAll(rawRow, options.getColumns()).build());
-      Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>(rawColumnMap);
-      columnMap.keySet().retainAll(options.getColumns());
-      List<ColumnMetadata> columnMetadata =
-          columnMap.values().stream().collect(ImmutableList.toImmutableList());
       table =
           new TableAnswerElement(
-              new TableMetadata(columnMetadata, rawTable.getMetadata().getTextDesc()));
+              projectTableMetadata(rawTable.getMetadata(), options.getColumns()));
     }
     if (options.getUniqueRows()) {
       // uniquify if desired
@@ -2511,11 +2642,7 @@ public class WorkMgr extends AbstractCoordinator {
                 rowIds.put(row, rowIds.get(rawRow));
                 return row;
               });
-      Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>(rawColumnMap);
-      columnMap.keySet().retainAll(options.getColumns());
-      List<ColumnMetadata> columnMetadata =
-          columnMap.values().stream().collect(ImmutableList.toImmutableList());
-      tableMetadata = new TableMetadata(columnMetadata, rawTable.getMetadata().getTextDesc());
+      tableMetadata = projectTableMetadata(rawTable.getMetadata(), options.getColumns());
     }
     if (options.getUniqueRows()) {
       // uniquify if desired
@@ -2537,76 +2664,58 @@ public class WorkMgr extends AbstractCoordinator {
     return tableView;
   }
 
+  /**
+   * Like {@link #processAnswerTable2(TableAnswerElement, AnswerRowsOptions)}, but only reads the
+   * rows of {@code rawTable} that are needed: filtering and sorting use its index, and rows before
+   * the offset are skipped unless unique rows are requested.
+   */
   @VisibleForTesting
   @Nonnull
-  Comparator<Row> buildComparator(
-      Map<String, ColumnMetadata> rawColumnMap, List<ColumnSortOption> sortOrder) {
-    ColumnSortOption firstColumnSortOption = sortOrder.get(0);
-    ColumnMetadata firstMetadata = rawColumnMap.get(firstColumnSortOption.getColumn());
-    Comparator<Row> comparator = columnComparator(firstMetadata);
-    if (firstColumnSortOption.getReversed()) {
-      comparator = comparator.reversed();
-    }
-    for (int i = 1; i < sortOrder.size(); i++) {
-      ColumnSortOption columnSortOption = sortOrder.get(i);
-      Comparator<Row> nextComparator =
-          columnComparator(rawColumnMap.get(columnSortOption.getColumn()));
-      if (columnSortOption.getReversed()) {
-        nextComparator = nextComparator.reversed();
+  TableView processIndexedAnswerTable(IndexedAnswerTable rawTable, AnswerRowsOptions options)
+      throws IOException {
+    int[] selectedRows = rawTable.selectRows(options.getFilters(), options.getSortOrder());
+    TableMetadata tableMetadata =
+        options.getColumns().isEmpty()
+            ? rawTable.getMetadata()
+            : projectTableMetadata(rawTable.getMetadata(), options.getColumns());
+    Set<Row> seenRows = new HashSet<>();
+    ImmutableList.Builder<TableViewRow> rows = ImmutableList.builder();
+    int offset = options.getRowOffset();
+    int remaining = options.getMaxRows();
+    for (int i = 0; i < selectedRows.length && remaining > 0; i++) {
+      if (offset > 0 && !options.getUniqueRows()) {
+        offset--;
+        continue;
+      }
+      Row row = rawTable.getRow(selectedRows[i]);
+      if (!options.getColumns().isEmpty()) {
+        // project to desired columns
+        row = Row.builder().putAll(row, options.getColumns()).build();
+      }
+      if (options.getUniqueRows() && !seenRows.add(row)) {
+        continue;
+      }
+      if (offset > 0) {
+        offset--;
+        continue;
       }
-      comparator = comparator.thenComparing(nextComparator);
+      rows.add(new TableViewRow(selectedRows[i], row));
+      remaining--;
     }
-    return comparator;
+    TableView tableView = new TableView(options, rows.build(), tableMetadata);
+    tableView.setSummary(
+        rawTable.getSummary() != null ? rawTable.getSummary() : new AnswerSummary());
+    tableView.getSummary().setNumResults(selectedRows.length);
+    return tableView;
   }
 
-  @SuppressWarnings({"rawtypes", "unchecked"})
-  @VisibleForTesting
-  @Nonnull
-  Comparator<Row> columnComparator(ColumnMetadata columnMetadata) {
-    Schema schema = columnMetadata.getSchema();
-    Comparator schemaComparator = schemaComparator(schema);
-    Comparator comparator =
-        comparing((Row r) -> r.get(columnMetadata.getName(), schema), nullsFirst(schemaComparator));
-    return comparator;
-  }
-
-  @SuppressWarnings({"rawtypes", "unchecked"})
-  private @Nonnull Comparator<?> schemaComparator(Schema schema) {
-    if (schema.equals(Schema.ACL_TRACE)) {
-      return COMPARATOR_ACL_TRACE;
-    } else if (schema.equals(Schema.BOOLEAN)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.DOUBLE)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.FLOW)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.INTEGER)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.INTERFACE)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.IP)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.ISSUE)) {
-      return comparing(Issue::getSeverity);
-    } else if (schema.getType() == Type.LIST) {
-      Comparator schemaComparator = schemaComparator(schema.getInnerSchema());
-      return lexicographical(nullsFirst(schemaComparator));
-    } else if (schema.equals(Schema.LONG)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.NODE)) {
-      return COMPARATOR_NODE;
-    } else if (schema.equals(Schema.PREFIX)) {
-      return naturalOrder();
-    } else if (schema.getType() == Type.SET) {
-      Comparator schemaComparator = schemaComparator(schema.getInnerSchema());
-      return lexicographical(nullsFirst(schemaComparator));
-    } else if (schema.equals(Schema.STRING)) {
-      return naturalOrder();
-    } else if (schema.equals(Schema.TRACE)) {
-      return COMPARATOR_TRACE;
-    } else {
-      return comparing(Object::toString);
-    }
+  private static @Nonnull TableMetadata projectTableMetadata(
+      TableMetadata rawMetadata, Set<String> columns) {
+    Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>(rawMetadata.toColumnMap());
+    columnMap.keySet().retainAll(columns);
+    List<ColumnMetadata> columnMetadata =
+        columnMap.values().stream().collect(ImmutableList.toImmutableList());
+    return new TableMetadata(columnMetadata, rawMetadata.getTextDesc());
   }
 
   /**
@@ -982,12 +982,15 @@ public class WorkMgrService {
         }
       }
 
-      String rawAnswer =
+      Answer answer =
           Main.getWorkMgr()
-              .getAnswerString(
-                  networkName, snapshotName, questionName, referenceSnapshotName, analysisName);
-
-      Answer answer = Main.getWorkMgr().processAnswerRows(rawAnswer, answersRowsOptions);
+              .getAnswerRows(
+                  networkName,
+                  snapshotName,
+                  questionName,
+                  referenceSnapshotName,
+                  analysisName,
+                  answersRowsOptions);
 
       String answerStr = BatfishObjectMapper.writeString(answer);
 
@@ -1081,12 +1084,15 @@ public class WorkMgrService {
         }
       }
 
-      String rawAnswer =
+      Answer answer =
           Main.getWorkMgr()
-              .getAnswerString(
-                  networkName, snapshotName, questionName, referenceSnapshotName, analysisName);
-
-      Answer answer = Main.getWorkMgr().processAnswerRows2(rawAnswer, answersRowsOptions);
+              .getAnswerRows2(
+                  networkName,
+                  snapshotName,
+                  questionName,
+                  referenceSnapshotName,
+                  analysisName,
+                  answersRowsOptions);
 
       String answerStr = BatfishObjectMapper.writePrettyString(answer);
 
@@ -9,6 +9,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
@@ -29,8 +30,10 @@ import org.batfish.identifiers.SnapshotId;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 
-// the design of this WorkQueueMgr is such that all synchronization sits here
-// individual queues do not need to be synchronized
+// Changes to the queues and to the status of queued work are serialized by this WorkQueueMgr, since
+// whether work is blocked depends on the other work in the queues. The queues themselves are
+// thread-safe, so lookups and listings (e.g., clients polling the status of their work) do not
+// wait for the lock.
 
 public class WorkQueueMgr {
 
@@ -42,13 +45,17 @@ public class WorkQueueMgr {
   @GuardedBy("this")
   private Set<UUID> _blockingWork;
 
+  /** Time from a request to assign work until the assignment pass serving it starts */
+  private final LatencyStats _dispatchLatency;
+
   private BatfishLogger _logger;
 
-  @GuardedBy("this")
-  private WorkQueue _queueCompletedWork;
+  private final WorkQueue _queueCompletedWork;
 
-  @GuardedBy("this")
-  private WorkQueue _queueIncompleteWork;
+  private final WorkQueue _queueIncompleteWork;
+
+  /** Time from the creation of work to its assignment to a worker */
+  private final LatencyStats _queueWait;
 
   WorkQueueMgr(BatfishLogger logger) {
     this(Main.getSettings().getQueueType(), logger);
@@ -56,7 +63,9 @@ public class WorkQueueMgr {
 
   WorkQueueMgr(WorkQueue.Type wqType, BatfishLogger logger) {
     _blockingWork = new HashSet<>();
+    _dispatchLatency = new LatencyStats();
     _logger = logger;
+    _queueWait = new LatencyStats();
     switch (wqType) {
       case memory:
         _queueCompletedWork = new MemoryQueue();
@@ -240,8 +249,7 @@ public class WorkQueueMgr {
    * @param snapshotId {@link SnapshotId} to get completed work for.
    * @return {@link List} of completed {@link QueuedWork}.
    */
-  public synchronized List<QueuedWork> getCompletedWork(
-      NetworkId networkId, SnapshotId snapshotId) {
+  public List<QueuedWork> getCompletedWork(NetworkId networkId, SnapshotId snapshotId) {
     ImmutableList.Builder<QueuedWork> b = ImmutableList.builder();
     for (QueuedWork work : _queueCompletedWork) {
       if (work.getDetails().getNetworkId().equals(networkId)
@@ -267,7 +275,7 @@ public class WorkQueueMgr {
     return null;
   }
 
-  public synchronized long getLength(QueueType qType) {
+  public long getLength(QueueType qType) {
     switch (qType) {
       case COMPLETED:
         return _queueCompletedWork.getLength();
@@ -278,7 +286,7 @@ public class WorkQueueMgr {
     }
   }
 
-  public synchronized JSONObject getStatusJson() throws JSONException {
+  public JSONObject getStatusJson() throws JSONException {
 
     JSONObject jObject = new JSONObject();
 
@@ -292,10 +300,23 @@ public class WorkQueueMgr {
       jObject.put(work.getId().toString(), work.toString());
     }
 
+    jObject.put("queue-wait", _queueWait.toJson());
+    jObject.put("dispatch-latency", _dispatchLatency.toJson());
+
     return jObject;
   }
 
-  public synchronized QueuedWork getMatchingWork(WorkItem workItem, QueueType qType) {
+  @Nonnull
+  LatencyStats getDispatchLatency() {
+    return _dispatchLatency;
+  }
+
+  @Nonnull
+  LatencyStats getQueueWait() {
+    return _queueWait;
+  }
+
+  public QueuedWork getMatchingWork(WorkItem workItem, QueueType qType) {
     switch (qType) {
       case COMPLETED:
         return getMatchingWork(workItem, _queueCompletedWork);
@@ -306,7 +327,7 @@ public class WorkQueueMgr {
     }
   }
 
-  private synchronized QueuedWork getMatchingWork(WorkItem workItem, WorkQueue queue) {
+  private QueuedWork getMatchingWork(WorkItem workItem, WorkQueue queue) {
     for (QueuedWork work : queue) {
       if (work.getWorkItem().matches(workItem)) {
         return work;
@@ -315,7 +336,7 @@ public class WorkQueueMgr {
     return null;
   }
 
-  public synchronized QueuedWork getWork(UUID workId) {
+  public QueuedWork getWork(UUID workId) {
     QueuedWork work = getWork(workId, QueueType.INCOMPLETE);
     if (work == null) {
       work = getWork(workId, QueueType.COMPLETED);
@@ -324,7 +345,7 @@ public class WorkQueueMgr {
   }
 
   @Nullable
-  private synchronized QueuedWork getWork(UUID workId, QueueType qType) {
+  private QueuedWork getWork(UUID workId, QueueType qType) {
     switch (qType) {
       case COMPLETED:
         return _queueCompletedWork.getWork(workId);
@@ -360,7 +381,7 @@ public class WorkQueueMgr {
     return workToCheck;
   }
 
-  public synchronized List<QueuedWork> listIncompleteWork(
+  public List<QueuedWork> listIncompleteWork(
       NetworkId networkId, @Nullable SnapshotId snapshotId, @Nullable WorkType workType) {
     List<QueuedWork> retList = new LinkedList<>();
     for (QueuedWork work : _queueIncompleteWork) {
@@ -380,8 +401,9 @@ public class WorkQueueMgr {
 
   // when assignment attempt ends in error, we do not try to reassign
   public synchronized void markAssignmentError(QueuedWork work) {
-    _queueIncompleteWork.delete(work);
+    // add before removing, so that lookups without the lock always find the work
     _queueCompletedWork.enque(work);
+    _queueIncompleteWork.delete(work);
     work.setStatus(WorkStatusCode.ASSIGNMENTERROR);
   }
 
@@ -392,6 +414,9 @@ public class WorkQueueMgr {
   public synchronized void markAssignmentSuccess(QueuedWork work, String assignedWorker)
       throws IOException {
     work.setAssignment(assignedWorker);
+    _queueWait.record(
+        TimeUnit.MILLISECONDS.toNanos(
+            work.getDateAssigned().getTime() - work.getDateCreated().getTime()));
 
     // update testrig metadata
     WorkDetails wDetails = work.getDetails();
@@ -421,8 +446,8 @@ public class WorkQueueMgr {
       case RequeueFailure:
         {
           // move the work to completed queue
-          _queueIncompleteWork.delete(work);
           _queueCompletedWork.enque(work);
+          _queueIncompleteWork.delete(work);
           work.setStatus(WorkStatusCode.fromTerminatedTaskStatus(task.getStatus()));
           work.recordTaskCheckResult(task);
 
@@ -12,7 +12,9 @@ public class WorkerStatus {
     UNREACHABLE
   }
 
+  private int _idleSlots;
   private Date _lastUpdated;
+  private int _maxTasks;
   private StatusCode _statusCode;
 
   public WorkerStatus(StatusCode statusCode) {
@@ -20,21 +22,38 @@ public class WorkerStatus {
     _lastUpdated = new Date();
   }
 
+  /** Returns the number of additional tasks the worker reported it could accept */
+  public int getIdleSlots() {
+    return _idleSlots;
+  }
+
   public Date getLastUpdateTime() {
     return _lastUpdated;
   }
 
+  /** Returns the number of tasks the worker reported it could run at once */
+  public int getMaxTasks() {
+    return _maxTasks;
+  }
+
   public StatusCode getStatus() {
     return _statusCode;
   }
 
   @Override
   public String toString() {
-    return String.format("%s (%s)", _statusCode, _lastUpdated);
+    return String.format("%s [%s/%s idle] (%s)", _statusCode, _idleSlots, _maxTasks, _lastUpdated);
   }
 
   public void updateStatus(StatusCode statusCode) {
     _statusCode = statusCode;
     _lastUpdated = new Date();
   }
+
+  /** Records the capacity reported by the worker, along with its status */
+  public void updateStatus(StatusCode statusCode, int idleSlots, int maxTasks) {
+    updateStatus(statusCode);
+    _idleSlots = idleSlots;
+    _maxTasks = maxTasks;
+  }
 }
@@ -1,49 +1,80 @@
 package org.batfish.coordinator.queues;
 
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.Map.Entry;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import org.batfish.coordinator.QueuedWork;
 
-// we don't synchronize on this queue
-// all synchronization is in inside WorkQueueMgr
+// Readers may look up and iterate over this queue without locking; they see a weakly consistent
+// view. Modifications are serialized by WorkQueueMgr.
 
-public class MemoryQueue extends LinkedList<QueuedWork> implements WorkQueue {
+public class MemoryQueue implements WorkQueue {
+
+  /** Position of each work in {@link #_works}, by work ID */
+  private final ConcurrentMap<UUID, Long> _positions;
+
+  private final AtomicLong _nextPosition;
+
+  /** Works in the order they were enqueued */
+  private final ConcurrentNavigableMap<Long, QueuedWork> _works;
+
+  public MemoryQueue() {
+    _positions = new ConcurrentHashMap<>();
+    _nextPosition = new AtomicLong();
+    _works = new ConcurrentSkipListMap<>();
+  }
 
   @Override
   public boolean delete(QueuedWork qWork) {
-    return remove(qWork);
+    Long position = _positions.get(qWork.getId());
+    if (position == null || _works.get(position) != qWork) {
+      return false;
+    }
+    _positions.remove(qWork.getId());
+    _works.remove(position);
+    return true;
   }
 
   @Nullable
   @Override
   public QueuedWork deque() {
-    if (size() == 0) {
+    Entry<Long, QueuedWork> first = _works.firstEntry();
+    if (first == null) {
       return null;
     }
-
-    return pop();
+    QueuedWork work = first.getValue();
+    return delete(work) ? work : null;
   }
 
   @Override
   public boolean enque(QueuedWork work) {
-    return add(work);
+    long position = _nextPosition.getAndIncrement();
+    // publish the work before its position, so a work found by ID is also found by position
+    _works.put(position, work);
+    _positions.put(work.getId(), position);
+    return true;
   }
 
   @Override
   public long getLength() {
-    return size();
+    return _positions.size();
   }
 
   @Nullable
   @Override
   public QueuedWork getWork(UUID workItemId) {
-    for (QueuedWork work : this) {
-      if (work.getWorkItem().getId().equals(workItemId)) {
-        return work;
-      }
-    }
+    Long position = _positions.get(workItemId);
+    return position == null ? null : _works.get(position);
+  }
 
-    return null;
+  @Override
+  public Iterator<QueuedWork> iterator() {
+    return _works.values().iterator();
   }
 }
@@ -0,0 +1,40 @@
+package org.batfish.coordinator;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.Test;
+
+/** Tests of {@link LatencyStats} */
+public final class LatencyStatsTest {
+
+  @Test
+  public void testEmpty() {
+    LatencyStats stats = new LatencyStats();
+
+    assertThat(stats.getCount(), equalTo(0L));
+    assertThat(stats.getMeanMs(), equalTo(0.0));
+    assertThat(stats.getMaxMs(), equalTo(0.0));
+  }
+
+  @Test
+  public void testRecord() throws JSONException {
+    LatencyStats stats = new LatencyStats();
+    stats.record(TimeUnit.MILLISECONDS.toNanos(1));
+    stats.record(TimeUnit.MILLISECONDS.toNanos(5));
+    // e.g., the wall clock was adjusted
+    stats.record(-1L);
+
+    assertThat(stats.getCount(), equalTo(3L));
+    assertThat(stats.getMeanMs(), closeTo(2.0, 1e-9));
+    assertThat(stats.getMaxMs(), closeTo(5.0, 1e-9));
+
+    JSONObject json = stats.toJson();
+    assertThat(json.getLong("count"), equalTo(3L));
+    assertThat(json.getDouble("max-ms"), closeTo(5.0, 1e-9));
+  }
+}
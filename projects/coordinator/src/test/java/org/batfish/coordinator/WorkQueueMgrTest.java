@@ -32,6 +32,7 @@ import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.NodeRolesId;
 import org.batfish.identifiers.SnapshotId;
 import org.batfish.role.NodeRolesData;
+import org.codehaus.jettison.json.JSONObject;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -309,6 +310,36 @@ public final class WorkQueueMgrTest {
     assertThat(works0, iterableWithSize(0));
   }
 
+  @Test
+  public void getWorkAfterCompletion() throws Exception {
+    initSnapshotMetadata(SNAPSHOT, ProcessingStatus.UNINITIALIZED);
+    queueWork(SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    QueuedWork work = doAction(new Action(ActionType.ASSIGN_SUCCESS, null));
+    doAction(new Action(ActionType.STATUS_TERMINATED_NORMALLY, work));
+
+    // completed work is still found by ID
+    assertSame(_workQueueMgr.getWork(work.getId()), work);
+    assertThat(_workQueueMgr.getLength(QueueType.INCOMPLETE), equalTo(0L));
+    assertThat(_workQueueMgr.getLength(QueueType.COMPLETED), equalTo(1L));
+  }
+
+  @Test
+  public void queueWaitRecordedOnAssignment() throws Exception {
+    initSnapshotMetadata(SNAPSHOT, ProcessingStatus.UNINITIALIZED);
+    queueWork(SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    doAction(new Action(ActionType.ASSIGN_FAILURE, null));
+
+    // a failed assignment is not an assignment
+    assertThat(_workQueueMgr.getQueueWait().getCount(), equalTo(0L));
+
+    doAction(new Action(ActionType.ASSIGN_SUCCESS, null));
+
+    assertThat(_workQueueMgr.getQueueWait().getCount(), equalTo(1L));
+    JSONObject status = _workQueueMgr.getStatusJson();
+    assertThat(status.getJSONObject("queue-wait").getLong("count"), equalTo(1L));
+    assertThat(status.getJSONObject("dispatch-latency").getLong("count"), equalTo(0L));
+  }
+
   @Test
   public void getCompletedWorkFilter() throws Exception {
     String snapshot1 = "snapshot1";
@@ -0,0 +1,86 @@
+package org.batfish.coordinator.queues;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.UUID;
+import org.batfish.common.WorkItem;
+import org.batfish.coordinator.QueuedWork;
+import org.batfish.coordinator.WorkDetails;
+import org.batfish.coordinator.WorkDetails.WorkType;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+import org.junit.Test;
+
+/** Tests of {@link MemoryQueue} */
+public final class MemoryQueueTest {
+
+  private static QueuedWork createWork() {
+    return new QueuedWork(
+        new WorkItem("network", "snapshot"),
+        WorkDetails.builder()
+            .setWorkType(WorkType.UNKNOWN)
+            .setNetworkId(new NetworkId("network-ID"))
+            .setSnapshotId(new SnapshotId("snapshot-ID"))
+            .build());
+  }
+
+  @Test
+  public void testEnqueOrder() {
+    MemoryQueue queue = new MemoryQueue();
+    QueuedWork work1 = createWork();
+    QueuedWork work2 = createWork();
+    QueuedWork work3 = createWork();
+    queue.enque(work1);
+    queue.enque(work2);
+    queue.enque(work3);
+
+    assertThat(queue.getLength(), equalTo(3L));
+    assertThat(queue, contains(work1, work2, work3));
+
+    // re-enqueued work goes to the back
+    queue.delete(work1);
+    queue.enque(work1);
+    assertThat(queue, contains(work2, work3, work1));
+  }
+
+  @Test
+  public void testGetWork() {
+    MemoryQueue queue = new MemoryQueue();
+    QueuedWork work = createWork();
+    queue.enque(work);
+
+    assertThat(queue.getWork(work.getId()), sameInstance(work));
+    assertThat(queue.getWork(UUID.randomUUID()), nullValue());
+  }
+
+  @Test
+  public void testDelete() {
+    MemoryQueue queue = new MemoryQueue();
+    QueuedWork work1 = createWork();
+    QueuedWork work2 = createWork();
+    queue.enque(work1);
+
+    assertThat(queue.delete(work2), equalTo(false));
+    assertThat(queue.delete(work1), equalTo(true));
+    assertThat(queue.delete(work1), equalTo(false));
+    assertThat(queue.getWork(work1.getId()), nullValue());
+    assertThat(queue.getLength(), equalTo(0L));
+  }
+
+  @Test
+  public void testDeque() {
+    MemoryQueue queue = new MemoryQueue();
+    QueuedWork work1 = createWork();
+    QueuedWork work2 = createWork();
+    queue.enque(work1);
+    queue.enque(work2);
+
+    assertThat(queue.deque(), sameInstance(work1));
+    assertThat(queue.deque(), sameInstance(work2));
+    assertThat(queue.deque(), nullValue());
+  }
+}
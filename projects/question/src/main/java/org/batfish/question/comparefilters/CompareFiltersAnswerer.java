@@ -89,16 +89,19 @@ public class CompareFiltersAnswerer extends Answerer {
             entry -> referenceFilters.containsEntry(entry.getKey(), entry.getValue()));
 
     BDDPacket bddPacket = new BDDPacket();
+
+    // The filters are compared independently, so compare them in parallel, each thread with its
+    // own BDDPacket.
+    List<List<FilterDifference>> differences =
+        bddPacket.parallelMap(
+            ImmutableList.copyOf(commonFilters.entries()),
+            (pkt, entry) ->
+                compareFilter(
+                        entry.getKey(), entry.getValue(), pkt, currentContext, referenceContext)
+                    .collect(ImmutableList.toImmutableList()));
     Multiset<Row> rows =
-        commonFilters.entries().stream()
-            .flatMap(
-                entry ->
-                    compareFilter(
-                        entry.getKey(),
-                        entry.getValue(),
-                        bddPacket,
-                        currentContext,
-                        referenceContext))
+        differences.stream()
+            .flatMap(List::stream)
             .map(filterDifference -> toRow(filterDifference, currentContext, referenceContext))
             .collect(ImmutableMultiset.toImmutableMultiset());
 
@@ -538,8 +538,25 @@ public class FilterLineReachabilityAnswerer extends Answerer {
     return answerLines.build();
   }
 
-  private static void answerAclReachabilityLine(
-      AclSpecs aclSpec, BDDPacket bddPacket, FilterLineReachabilityRows answerRows) {
+  /** An unreachable line found by {@link #answerAclReachabilityLine}. */
+  private static final class UnreachableLine {
+    private final AclSpecs _aclSpec;
+    private final int _lineNumber;
+    private final boolean _unmatchable;
+    private final SortedSet<Integer> _blockingLines;
+
+    private UnreachableLine(
+        AclSpecs aclSpec, int lineNumber, boolean unmatchable, SortedSet<Integer> blockingLines) {
+      _aclSpec = aclSpec;
+      _lineNumber = lineNumber;
+      _unmatchable = unmatchable;
+      _blockingLines = blockingLines;
+    }
+  }
+
+  private static List<UnreachableLine> answerAclReachabilityLine(
+      AclSpecs aclSpec, BDDPacket bddPacket) {
+    ImmutableList.Builder<UnreachableLine> unreachableLines = ImmutableList.builder();
     BDDFactory bddFactory = bddPacket.getFactory();
     BDDSourceManager sourceMgr =
         BDDSourceManager.forInterfaces(bddPacket, aclSpec.acl.getInterfaces());
@@ -565,25 +582,32 @@ public class FilterLineReachabilityAnswerer extends Answerer {
       BDD lineBDD = lineIt.next();
       if (lineBDD.isZero()) {
         // This line is unmatchable
-        answerRows.addUnreachableLine(aclSpec, lineNum, true, ImmutableSortedSet.of());
+        unreachableLines.add(new UnreachableLine(aclSpec, lineNum, true, ImmutableSortedSet.of()));
       } else if (unmatchedPackets.isZero() || !lineBDD.andSat(unmatchedPackets)) {
         // No unmatched packets in the ACL match this line, so this line is unreachable.
         List<LineAction> actions =
             lines.stream().map(IpAccessListLine::getAction).collect(Collectors.toList());
         SortedSet<Integer> blockingLines =
             findBlockingLinesForLine(lineNum, actions, ipLineToBDDMap);
-        answerRows.addUnreachableLine(aclSpec, lineNum, false, blockingLines);
+        unreachableLines.add(new UnreachableLine(aclSpec, lineNum, false, blockingLines));
       }
       unmatchedPackets = unmatchedPackets.diff(lineBDD);
     }
+    return unreachableLines.build();
   }
 
   private static void answerAclReachability(
       List<AclSpecs> aclSpecs, FilterLineReachabilityRows answerRows) {
     BDDPacket bddPacket = new BDDPacket();
 
-    for (AclSpecs aclSpec : aclSpecs) {
-      answerAclReachabilityLine(aclSpec, bddPacket, answerRows);
+    // The ACLs are independent, so analyze them in parallel, each thread with its own BDDPacket.
+    List<List<UnreachableLine>> unreachableLines =
+        bddPacket.parallelMap(aclSpecs, (pkt, aclSpec) -> answerAclReachabilityLine(aclSpec, pkt));
+    for (List<UnreachableLine> aclUnreachableLines : unreachableLines) {
+      for (UnreachableLine line : aclUnreachableLines) {
+        answerRows.addUnreachableLine(
+            line._aclSpec, line._lineNumber, line._unmatchable, line._blockingLines);
+      }
     }
   }
 }
@@ -4,6 +4,11 @@ public final class Accept implements StateExpr {
 
   public static final Accept INSTANCE = new Accept();
 
+  /** Keeps the instance unique when deserialized. */
+  private Object readResolve() {
+    return INSTANCE;
+  }
+
   @Override
   public <R> R accept(StateExprVisitor<R> visitor) {
     return visitor.visitAccept();
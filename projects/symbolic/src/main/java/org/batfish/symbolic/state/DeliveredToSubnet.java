@@ -6,6 +6,11 @@ public final class DeliveredToSubnet implements StateExpr {
 
   private DeliveredToSubnet() {}
 
+  /** Keeps the instance unique when deserialized. */
+  private Object readResolve() {
+    return INSTANCE;
+  }
+
   @Override
   public <R> R accept(StateExprVisitor<R> visitor) {
     return visitor.visitDeliveredToSubnet();
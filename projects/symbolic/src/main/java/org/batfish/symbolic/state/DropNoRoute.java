@@ -6,6 +6,11 @@ public final class DropNoRoute implements StateExpr {
 
   private DropNoRoute() {}
 
+  /** Keeps the instance unique when deserialized. */
+  private Object readResolve() {
+    return INSTANCE;
+  }
+
   @Override
   public <R> R accept(StateExprVisitor<R> visitor) {
     return visitor.visitDropNoRoute();
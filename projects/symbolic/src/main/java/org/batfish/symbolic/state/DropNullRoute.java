@@ -5,6 +5,11 @@ public final class DropNullRoute implements StateExpr {
 
   private DropNullRoute() {}
 
+  /** Keeps the instance unique when deserialized. */
+  private Object readResolve() {
+    return INSTANCE;
+  }
+
   @Override
   public <R> R accept(StateExprVisitor<R> visitor) {
     return visitor.visitDropNullRoute();
@@ -6,6 +6,11 @@ public class NeighborUnreachable implements StateExpr {
 
   private NeighborUnreachable() {}
 
+  /** Keeps the instance unique when deserialized. */
+  private Object readResolve() {
+    return INSTANCE;
+  }
+
   @Override
   public <R> R accept(StateExprVisitor<R> visitor) {
     return visitor.visitNeighborUnreachable();
@@ -1,6 +1,8 @@
 package org.batfish.symbolic.state;
 
+import java.io.Serializable;
+
 /** An expression representing parameterized state. */
-public interface StateExpr {
+public interface StateExpr extends Serializable {
   <R> R accept(StateExprVisitor<R> visitor);
 }